@@ -0,0 +1,135 @@
+package org.pojomatic.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+
+/**
+ * Measure {@code hashCode} and {@code HashMap} lookups for immutable keys holding an array and a list, with and
+ * without {@link CacheHashCode}. Without it, every call hashes each element of the array and list; with it, only the
+ * first call on each key does, so {@code hashCode} should be constant time regardless of {@code size}. Lookups still
+ * compare the key found with {@code equals}, which is unaffected when keys are equal. Keys with different cached hash
+ * codes, however, are known to be unequal without comparing their arrays and lists, as {@code equalsOfDifferentKeys}
+ * measures.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar CacheHashCodeBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CacheHashCodeBenchmark {
+  private static final int KEY_COUNT = 1024;
+
+  @AutoProperty
+  public static final class Key {
+    private final int[] path;
+    private final List<String> names;
+
+    Key(int[] path, List<String> names) {
+      this.path = path;
+      this.names = names;
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  public static final class CachedKey {
+    private final int[] path;
+    private final List<String> names;
+    private int hash;
+
+    CachedKey(int[] path, List<String> names) {
+      this.path = path;
+      this.names = names;
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+  }
+
+  @Param({ "false", "true" })
+  public boolean cached;
+
+  @Param({ "4", "64" })
+  public int size;
+
+  private Object[] keys;
+  private Map<Object, Integer> map;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    keys = new Object[KEY_COUNT];
+    map = new HashMap<>();
+    for (int i = 0; i < KEY_COUNT; i++) {
+      int[] path = new int[size];
+      List<String> names = new ArrayList<>(size);
+      // keys differ only in their last elements, so that comparing their properties has to look at every element
+      for (int j = 0; j < size; j++) {
+        int value = j == size - 1 ? i + j : j;
+        path[j] = value;
+        names.add("name" + value);
+      }
+      keys[i] = cached ? new CachedKey(path, names) : new Key(path, names);
+      map.put(keys[i], i);
+    }
+  }
+
+  @Benchmark
+  public int hashCodeOfKey() {
+    return nextKey().hashCode();
+  }
+
+  @Benchmark
+  public Integer hashMapGet() {
+    return map.get(nextKey());
+  }
+
+  @Benchmark
+  public boolean equalsOfDifferentKeys() {
+    Object key = nextKey();
+    return key.equals(keys[(index + 1) & (KEY_COUNT - 1)]);
+  }
+
+  private Object nextKey() {
+    index = (index + 1) & (KEY_COUNT - 1);
+    return keys[index];
+  }
+}
@@ -0,0 +1,101 @@
+package org.pojomatic.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheToString;
+
+/**
+ * Measure {@code toString} for immutable pojos holding an array and a list, with and without {@link CacheToString},
+ * as when the same instances are logged repeatedly. Without it, every call formats each element of the array and
+ * list; with it, only the first call on each pojo does, so {@code toString} should be constant time regardless of
+ * {@code size}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar CacheToStringBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CacheToStringBenchmark {
+  private static final int POJO_COUNT = 1024;
+
+  @AutoProperty
+  public static final class Event {
+    private final int[] path;
+    private final List<String> names;
+
+    Event(int[] path, List<String> names) {
+      this.path = path;
+      this.names = names;
+    }
+
+    @Override
+    public String toString() {
+      return Pojomatic.toString(this);
+    }
+  }
+
+  @AutoProperty
+  @CacheToString
+  public static final class CachedEvent {
+    private final int[] path;
+    private final List<String> names;
+    private String toString;
+
+    CachedEvent(int[] path, List<String> names) {
+      this.path = path;
+      this.names = names;
+    }
+
+    @Override
+    public String toString() {
+      return Pojomatic.toString(this);
+    }
+  }
+
+  @Param({ "false", "true" })
+  public boolean cached;
+
+  @Param({ "4", "64" })
+  public int size;
+
+  private Object[] pojos;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    pojos = new Object[POJO_COUNT];
+    for (int i = 0; i < POJO_COUNT; i++) {
+      int[] path = new int[size];
+      List<String> names = new ArrayList<>(size);
+      for (int j = 0; j < size; j++) {
+        path[j] = i + j;
+        names.add("name" + (i + j));
+      }
+      pojos[i] = cached ? new CachedEvent(path, names) : new Event(path, names);
+    }
+  }
+
+  @Benchmark
+  public String toStringOfPojo() {
+    index = (index + 1) & (POJO_COUNT - 1);
+    return pojos[index].toString();
+  }
+}
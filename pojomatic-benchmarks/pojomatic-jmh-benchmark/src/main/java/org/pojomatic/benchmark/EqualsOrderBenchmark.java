@@ -0,0 +1,102 @@
+package org.pojomatic.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.EqualsOrder;
+
+/**
+ * Measure {@code doEquals} with each {@link EqualsOrder}, for a pojo whose long description and list of tags are
+ * declared before a version number. In the mismatch-heavy workload, instances differ only in their version, as when
+ * comparing successive revisions of an entity; with {@link EqualsOrder#COST}, the version is compared first, and the
+ * description and tags are never compared, while with {@link EqualsOrder#DECLARATION} they are compared every time.
+ * When instances are equal, every property is compared either way, so the two orders should perform the same.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar EqualsOrderBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EqualsOrderBenchmark {
+  @AutoProperty
+  public static class DeclarationOrdered {
+    String description;
+    List<String> tags;
+    long version;
+  }
+
+  @AutoProperty(equalsOrder = EqualsOrder.COST)
+  public static class CostOrdered {
+    String description;
+    List<String> tags;
+    long version;
+  }
+
+  @Param
+  public EqualsOrder equalsOrder;
+
+  @Param({ "16", "256" })
+  public int size;
+
+  private Pojomator<Object> pojomator;
+  private Object pojo;
+  private Object equalPojo;
+  private Object differentPojo;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() throws ReflectiveOperationException {
+    Class<?> pojoClass = equalsOrder == EqualsOrder.COST ? CostOrdered.class : DeclarationOrdered.class;
+    pojomator = (Pojomator<Object>) Pojomatic.pojomator(pojoClass);
+    pojo = newPojo(pojoClass, 1);
+    equalPojo = newPojo(pojoClass, 1);
+    differentPojo = newPojo(pojoClass, 2);
+  }
+
+  @Benchmark
+  public boolean doEqualsEqual() {
+    return pojomator.doEquals(pojo, equalPojo);
+  }
+
+  @Benchmark
+  public boolean doEqualsDifferentVersion() {
+    return pojomator.doEquals(pojo, differentPojo);
+  }
+
+  /**
+   * Create a pojo whose description and tags are equal to, but not the same instances as, those of every other pojo
+   * of the same size, so that comparing them has to look at their contents.
+   */
+  private Object newPojo(Class<?> pojoClass, long version) throws ReflectiveOperationException {
+    char[] description = new char[size];
+    Arrays.fill(description, 'x');
+    List<String> tags = new ArrayList<>();
+    for (int i = 0; i < size / 8; i++) {
+      tags.add("tag" + i);
+    }
+    Object pojo = pojoClass.getDeclaredConstructor().newInstance();
+    pojoClass.getDeclaredField("description").set(pojo, new String(description));
+    pojoClass.getDeclaredField("tags").set(pojo, tags);
+    pojoClass.getDeclaredField("version").setLong(pojo, version);
+    return pojo;
+  }
+}
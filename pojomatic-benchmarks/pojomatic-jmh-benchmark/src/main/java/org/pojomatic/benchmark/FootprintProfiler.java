@@ -0,0 +1,73 @@
+package org.pojomatic.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the metaspace used, and the size of the pojomator classes generated, per pojo class by
+ * {@link PojomatorGenerationBenchmark}. The benchmark takes the measurements itself, outside of the timed region, and
+ * hands them to this profiler via {@link #record(long, long, int)}; JMH then aggregates them across forks alongside
+ * the timings.
+ * <p>
+ * Enable with {@code -prof org.pojomatic.benchmark.FootprintProfiler}.
+ */
+public class FootprintProfiler implements InternalProfiler {
+  private static final String METASPACE_POOL_NAME = "Metaspace";
+
+  private static volatile double[] footprint;
+
+  /**
+   * Record the footprint of the current iteration.
+   * @param metaspaceGrowth the growth in metaspace usage, in bytes
+   * @param classBytes the total size of the generated pojomator classes, in bytes
+   * @param classCount the number of pojo classes for which pojomators were created
+   */
+  static void record(long metaspaceGrowth, long classBytes, int classCount) {
+    footprint = new double[] { (double) metaspaceGrowth / classCount, (double) classBytes / classCount };
+  }
+
+  /**
+   * @return the metaspace currently in use, in bytes, or {@code -1} if this JVM does not report it
+   */
+  static long metaspaceUsed() {
+    for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+      if (METASPACE_POOL_NAME.equals(pool.getName())) {
+        return pool.getUsage().getUsed();
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Metaspace growth and generated class size per pojo class";
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    footprint = null;
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+    BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    double[] recorded = footprint;
+    if (recorded == null) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(
+      new ScalarResult("footprint.metaspace.norm", recorded[0], "B/class", AggregationPolicy.AVG),
+      new ScalarResult("footprint.classBytes.norm", recorded[1], "B/class", AggregationPolicy.AVG));
+  }
+}
@@ -0,0 +1,128 @@
+package org.pojomatic.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.internal.NestedPojoInlining;
+
+/**
+ * Measure {@code equals} and {@code hashCode} of a pojo whose properties are themselves final pojos delegating to
+ * Pojomatic, with nested inlining disabled ({@code inlineDepth} of 0) and enabled. Without inlining, each nested
+ * property costs a virtual call to its {@code equals} or {@code hashCode}, a lookup of its pojomator, and an interface
+ * call to that pojomator; with it, the outer pojomator compares the nested properties itself.
+ * <p>
+ * Since the inline depth is read once, when the first pojomator is generated, each fork sets it before generating any
+ * pojomators.
+ * Run with {@code java -jar target/benchmarks.jar NestedInliningBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class NestedInliningBenchmark {
+  @AutoProperty
+  public static final class Money {
+    private final long amount;
+    private final String currency;
+
+    Money(long amount, String currency) {
+      this.amount = amount;
+      this.currency = currency;
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+  }
+
+  @AutoProperty
+  public static final class Address {
+    private final String street;
+    private final String city;
+    private final int zip;
+
+    Address(String street, String city, int zip) {
+      this.street = street;
+      this.city = city;
+      this.zip = zip;
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+  }
+
+  @AutoProperty
+  public static final class Order {
+    private final long id;
+    private final Money total;
+    private final Money tax;
+    private final Address shipTo;
+
+    Order(long id, Money total, Money tax, Address shipTo) {
+      this.id = id;
+      this.total = total;
+      this.tax = tax;
+      this.shipTo = shipTo;
+    }
+  }
+
+  @Param({ "0", "2" })
+  public int inlineDepth;
+
+  private Pojomator<Order> pojomator;
+  private Order order;
+  private Order equalOrder;
+
+  @Setup
+  public void setUp() {
+    System.setProperty(NestedPojoInlining.INLINE_DEPTH_PROPERTY, String.valueOf(inlineDepth));
+    pojomator = Pojomatic.pojomator(Order.class);
+    order = makeOrder();
+    equalOrder = makeOrder();
+  }
+
+  private static Order makeOrder() {
+    // new strings each time, so that equal orders do not share their nested values
+    return new Order(
+      17, new Money(10000, new String("USD")), new Money(800, new String("USD")),
+      new Address(new String("1 Main St"), new String("Springfield"), 12345));
+  }
+
+  @Benchmark
+  public boolean equalsOfEqualOrders() {
+    return pojomator.doEquals(order, equalOrder);
+  }
+
+  @Benchmark
+  public int hashCodeOfOrder() {
+    return pojomator.doHashCode(order);
+  }
+}
@@ -0,0 +1,178 @@
+package org.pojomatic.benchmark;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.internal.GenerationPhases;
+
+/**
+ * Measure the cold start cost of creating pojomators for many classes. Each fork defines {@code classCount}
+ * {@link AutoProperty} annotated classes, each at the bottom of a hierarchy {@code depth} classes deep with
+ * {@code width} private fields per class, and then times a single pass over them in a JVM which has not created a
+ * pojomator before. The score is for all {@code classCount} classes; divide by it for the cost per class.
+ * <ul>
+ * <li>{@code timeToFirstCall} creates each pojomator and calls {@code doHashCode} once - everything an application
+ * pays for the first use of a class.</li>
+ * <li>{@code classProperties} only determines the properties of each class, by reflection and by reading its class
+ * file.</li>
+ * <li>{@code classBytes} also generates the bytes of each pojomator class, without defining it.</li>
+ * </ul>
+ * The difference between {@code classBytes} and {@code timeToFirstCall} is the cost of defining, linking and first
+ * running the generated classes.
+ * <p>
+ * With {@code -prof org.pojomatic.benchmark.FootprintProfiler}, the growth in metaspace and the size of the generated
+ * pojomator class are also reported, per pojo class.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar PojomatorGenerationBenchmark -prof
+ * org.pojomatic.benchmark.FootprintProfiler}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class PojomatorGenerationBenchmark {
+  private static final Class<?>[] PROPERTY_TYPES = { int.class, long.class, String.class, int[].class };
+
+  @Param({ "10", "100", "1000", "10000" })
+  public int classCount;
+
+  @Param({ "4", "32" })
+  public int width;
+
+  @Param({ "1", "4" })
+  public int depth;
+
+  private Object[] pojos;
+  private long metaspaceBefore;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws ReflectiveOperationException {
+    PojoClassLoader classLoader = new PojoClassLoader();
+    pojos = new Object[classCount];
+    for (int i = 0; i < classCount; i++) {
+      pojos[i] = classLoader.definePojoHierarchy(i, width, depth).getConstructor().newInstance();
+    }
+    metaspaceBefore = FootprintProfiler.metaspaceUsed();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    long metaspaceGrowth = FootprintProfiler.metaspaceUsed() - metaspaceBefore;
+    long classBytes = 0;
+    for (Object pojo: pojos) {
+      classBytes += GenerationPhases.classBytes(pojo.getClass()).length;
+    }
+    FootprintProfiler.record(metaspaceGrowth, classBytes, classCount);
+  }
+
+  @Benchmark
+  public int timeToFirstCall() {
+    int result = 0;
+    for (Object pojo: pojos) {
+      result += Pojomatic.hashCode(pojo);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int classProperties() {
+    int result = 0;
+    for (Object pojo: pojos) {
+      result += GenerationPhases.classProperties(pojo.getClass()).getAllProperties().size();
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int classBytes() {
+    int result = 0;
+    for (Object pojo: pojos) {
+      result += GenerationPhases.classBytes(pojo.getClass()).length;
+    }
+    return result;
+  }
+
+  /**
+   * Defines hierarchies of {@link AutoProperty} annotated classes, cycling the types of their fields through
+   * {@link PojomatorGenerationBenchmark#PROPERTY_TYPES}. Pojomatic reads the class bytes of a pojo class to determine
+   * the order of its properties, so the loader serves them as resources.
+   */
+  private static class PojoClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classBytesByResource = new HashMap<>();
+
+    PojoClassLoader() {
+      super(PojomatorGenerationBenchmark.class.getClassLoader());
+    }
+
+    /**
+     * Define a hierarchy of classes.
+     * @param index distinguishes this hierarchy from others defined by this loader
+     * @param width the number of fields declared by each class
+     * @param depth the number of classes in the hierarchy
+     * @return the class at the bottom of the hierarchy
+     */
+    Class<?> definePojoHierarchy(int index, int width, int depth) {
+      Class<?> pojoClass = Object.class;
+      for (int level = 0; level < depth; level++) {
+        pojoClass = definePojoClass(
+          PojomatorGenerationBenchmark.class.getName() + "$Pojo" + index + "_" + level, pojoClass, width);
+      }
+      return pojoClass;
+    }
+
+    private Class<?> definePojoClass(String className, Class<?> superClass, int width) {
+      String internalName = className.replace('.', '/');
+      String superName = Type.getInternalName(superClass);
+      ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+      classWriter.visit(V1_7, ACC_PUBLIC | ACC_SUPER, internalName, null, superName, null);
+      classWriter.visitAnnotation(Type.getDescriptor(AutoProperty.class), true).visitEnd();
+      for (int i = 0; i < width; i++) {
+        classWriter.visitField(
+          ACC_PRIVATE, "property" + i, Type.getDescriptor(PROPERTY_TYPES[i % PROPERTY_TYPES.length]), null, null)
+          .visitEnd();
+      }
+      MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+      mv.visitCode();
+      mv.visitVarInsn(ALOAD, 0);
+      mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+      mv.visitInsn(RETURN);
+      mv.visitMaxs(0, 0);
+      mv.visitEnd();
+      classWriter.visitEnd();
+      byte[] classBytes = classWriter.toByteArray();
+      classBytesByResource.put(internalName + ".class", classBytes);
+      return defineClass(className, classBytes, 0, classBytes.length);
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+      byte[] classBytes = classBytesByResource.get(name);
+      return classBytes != null ? new ByteArrayInputStream(classBytes) : super.getResourceAsStream(name);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.pojomatic.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+
+/**
+ * Compare the cost of finding the pojomator for a class (and using it to compute a hashCode) via
+ * {@link Pojomatic}'s {@code ClassValue}-backed cache against the {@link SelfPopulatingMap} it replaced.
+ * <p>
+ * {@code classCount} controls how many distinct pojo classes the instances are drawn from; with a single class, the
+ * lookup site is monomorphic and the JIT is free to fold the {@code ClassValue} lookup. The {@code *Contended}
+ * variants run the same workload on all available processors.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar PojomatorLookupBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PojomatorLookupBenchmark {
+  @AutoProperty
+  public static class Pojo1 {
+    int x = 1;
+  }
+
+  @AutoProperty
+  public static class Pojo2 {
+    int x = 2;
+  }
+
+  @AutoProperty
+  public static class Pojo3 {
+    int x = 3;
+  }
+
+  @AutoProperty
+  public static class Pojo4 {
+    int x = 4;
+  }
+
+  private static final SelfPopulatingMap<Class<?>, Pojomator<?>> MAP =
+    new SelfPopulatingMap<Class<?>, Pojomator<?>>() {
+      @Override
+      protected Pojomator<?> create(Class<?> key) {
+        return Pojomatic.pojomator(key);
+      }
+    };
+
+  private static final int INSTANCE_COUNT = 1024;
+
+  @Param({ "1", "4" })
+  public int classCount;
+
+  private Object[] pojos;
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index;
+  }
+
+  @Setup
+  public void setUp() {
+    Object[] prototypes = { new Pojo1(), new Pojo2(), new Pojo3(), new Pojo4() };
+    pojos = new Object[INSTANCE_COUNT];
+    for (int i = 0; i < INSTANCE_COUNT; i++) {
+      pojos[i] = prototypes[i % classCount];
+    }
+    for (Object pojo: prototypes) {
+      // populate both caches, so that we measure lookups and not creation
+      Pojomatic.hashCode(pojo);
+      MAP.get(pojo.getClass());
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public int classValue(Cursor cursor) {
+    return Pojomatic.hashCode(next(cursor));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public int selfPopulatingMap(Cursor cursor) {
+    return mapHashCode(next(cursor));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public int classValueContended(Cursor cursor) {
+    return Pojomatic.hashCode(next(cursor));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public int selfPopulatingMapContended(Cursor cursor) {
+    return mapHashCode(next(cursor));
+  }
+
+  private Object next(Cursor cursor) {
+    int index = cursor.index;
+    cursor.index = (index + 1) & (INSTANCE_COUNT - 1);
+    return pojos[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int mapHashCode(Object pojo) {
+    return ((Pojomator<Object>) MAP.get(pojo.getClass())).doHashCode(pojo);
+  }
+}
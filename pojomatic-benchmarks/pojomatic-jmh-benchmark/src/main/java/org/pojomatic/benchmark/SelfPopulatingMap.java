@@ -1,4 +1,4 @@
-package org.pojomatic.internal;
+package org.pojomatic.benchmark;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -7,6 +7,10 @@ import java.util.concurrent.ConcurrentMap;
  * A thread-safe "map" which generates values on demand, with the guarantee that no more than one
  * value will be auto-created for a given key.
  * Classes extending this class should override {@link #create(Object)}.
+ * <p>
+ * This is the map Pojomatic used to cache pojomators prior to switching to
+ * {@code org.pojomatic.internal.SelfPopulatingClassValue}; it is kept here as a baseline for
+ * {@link PojomatorLookupBenchmark}.
  * @param <K> the key type
  * @param <V> the value type
  */
@@ -0,0 +1,463 @@
+package org.pojomatic.benchmark;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.SkipArrayCheck;
+
+/**
+ * The shapes of pojo measured by {@link ShapeBenchmark} and {@link ShapeDiffBenchmark}. Each pojo class is annotated
+ * for use with Pojomatic, and also carries the baselines Pojomatic is measured against: hand-written
+ * {@code equals}, {@code hashCode} and {@code toString} methods in the style an IDE would generate, and
+ * {@link ObjectsHashPojo} methods built on {@link Objects#equals(Object, Object)} and {@link Objects#hash(Object...)}.
+ * The hand-written {@code toString} methods produce the same text as Pojomatic's default formatters.
+ */
+public enum Shape {
+  /** Six primitive properties, of as many different types. */
+  PRIMITIVE {
+    @Override
+    public Object newInstance(int seed) {
+      return new PrimitivePojo(seed);
+    }
+  },
+
+  /** Five {@code String} properties. */
+  STRING {
+    @Override
+    public Object newInstance(int seed) {
+      return new StringPojo(seed);
+    }
+  },
+
+  /**
+   * Properties holding arrays, and {@code Object} properties holding a {@code String} both with and without
+   * {@link SkipArrayCheck}; this replaces the old Caliper {@code ArrayInObject} benchmark.
+   */
+  ARRAY {
+    @Override
+    public Object newInstance(int seed) {
+      return new ArrayPojo(seed);
+    }
+  },
+
+  /** A pojo whose properties are split between it and its superclass. */
+  INHERITANCE {
+    @Override
+    public Object newInstance(int seed) {
+      return new InheritedPojo(seed);
+    }
+  };
+
+  /**
+   * Create an instance of this shape. Instances created with the same seed are equal, and instances created with
+   * different seeds differ in every property.
+   * @param seed the seed from which property values are derived
+   * @return a new instance
+   */
+  public abstract Object newInstance(int seed);
+
+  /**
+   * Equality and hashing implemented with {@link Objects#equals(Object, Object)} and {@link Objects#hash(Object...)},
+   * which box primitive values and allocate an array for each call to {@code hash}.
+   */
+  public interface ObjectsHashPojo {
+    boolean objectsEquals(Object other);
+
+    int objectsHashCode();
+  }
+
+  @AutoProperty
+  public static class PrimitivePojo implements ObjectsHashPojo {
+    private final int i;
+    private final long l;
+    private final double d;
+    private final boolean flag;
+    private final char c;
+    private final float f;
+
+    PrimitivePojo(int seed) {
+      i = seed;
+      l = seed * 1000000007L;
+      d = seed / 3.0;
+      flag = seed % 2 == 0;
+      c = (char) ('a' + seed % 26);
+      f = seed / 7f;
+    }
+
+    public int getI() {
+      return i;
+    }
+
+    public long getL() {
+      return l;
+    }
+
+    public double getD() {
+      return d;
+    }
+
+    public boolean isFlag() {
+      return flag;
+    }
+
+    public char getC() {
+      return c;
+    }
+
+    public float getF() {
+      return f;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      PrimitivePojo other = (PrimitivePojo) obj;
+      return i == other.i
+        && l == other.l
+        && Double.doubleToLongBits(d) == Double.doubleToLongBits(other.d)
+        && flag == other.flag
+        && c == other.c
+        && Float.floatToIntBits(f) == Float.floatToIntBits(other.f);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 1;
+      result = 31 * result + i;
+      result = 31 * result + (int) (l ^ (l >>> 32));
+      long dBits = Double.doubleToLongBits(d);
+      result = 31 * result + (int) (dBits ^ (dBits >>> 32));
+      result = 31 * result + (flag ? 1231 : 1237);
+      result = 31 * result + c;
+      result = 31 * result + Float.floatToIntBits(f);
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "PrimitivePojo{i: {" + i + "}, l: {" + l + "}, d: {" + d + "}, flag: {" + flag + "}, c: {'" + c
+        + "'}, f: {" + f + "}}";
+    }
+
+    @Override
+    public boolean objectsEquals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      PrimitivePojo other = (PrimitivePojo) obj;
+      return Objects.equals(i, other.i)
+        && Objects.equals(l, other.l)
+        && Objects.equals(d, other.d)
+        && Objects.equals(flag, other.flag)
+        && Objects.equals(c, other.c)
+        && Objects.equals(f, other.f);
+    }
+
+    @Override
+    public int objectsHashCode() {
+      return Objects.hash(i, l, d, flag, c, f);
+    }
+  }
+
+  @AutoProperty
+  public static class StringPojo implements ObjectsHashPojo {
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final String city;
+    private final String country;
+
+    StringPojo(int seed) {
+      // build new strings, so that equal instances do not share (and short-circuit on) identical values
+      firstName = new StringBuilder("first").append(seed).toString();
+      lastName = new StringBuilder("last").append(seed).toString();
+      email = new StringBuilder("user").append(seed).append("@example.com").toString();
+      city = new StringBuilder("city").append(seed).toString();
+      country = new StringBuilder("country").append(seed).toString();
+    }
+
+    public String getFirstName() {
+      return firstName;
+    }
+
+    public String getLastName() {
+      return lastName;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public String getCity() {
+      return city;
+    }
+
+    public String getCountry() {
+      return country;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      StringPojo other = (StringPojo) obj;
+      return (firstName == null ? other.firstName == null : firstName.equals(other.firstName))
+        && (lastName == null ? other.lastName == null : lastName.equals(other.lastName))
+        && (email == null ? other.email == null : email.equals(other.email))
+        && (city == null ? other.city == null : city.equals(other.city))
+        && (country == null ? other.country == null : country.equals(other.country));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 1;
+      result = 31 * result + (firstName == null ? 0 : firstName.hashCode());
+      result = 31 * result + (lastName == null ? 0 : lastName.hashCode());
+      result = 31 * result + (email == null ? 0 : email.hashCode());
+      result = 31 * result + (city == null ? 0 : city.hashCode());
+      result = 31 * result + (country == null ? 0 : country.hashCode());
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "StringPojo{firstName: {" + firstName + "}, lastName: {" + lastName + "}, email: {" + email
+        + "}, city: {" + city + "}, country: {" + country + "}}";
+    }
+
+    @Override
+    public boolean objectsEquals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      StringPojo other = (StringPojo) obj;
+      return Objects.equals(firstName, other.firstName)
+        && Objects.equals(lastName, other.lastName)
+        && Objects.equals(email, other.email)
+        && Objects.equals(city, other.city)
+        && Objects.equals(country, other.country);
+    }
+
+    @Override
+    public int objectsHashCode() {
+      return Objects.hash(firstName, lastName, email, city, country);
+    }
+  }
+
+  @AutoProperty
+  public static class ArrayPojo implements ObjectsHashPojo {
+    private final int[] ints;
+    private final String[] strings;
+    private final Object value;
+    @SkipArrayCheck
+    private final Object uncheckedValue;
+
+    ArrayPojo(int seed) {
+      ints = new int[] { seed, seed + 1, seed + 2, seed + 3, seed + 4, seed + 5, seed + 6, seed + 7 };
+      strings = new String[] { String.valueOf(seed), String.valueOf(seed + 1), String.valueOf(seed + 2) };
+      value = String.valueOf(seed / 3.0);
+      uncheckedValue = String.valueOf(seed / 7.0);
+    }
+
+    public int[] getInts() {
+      return ints;
+    }
+
+    public String[] getStrings() {
+      return strings;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public Object getUncheckedValue() {
+      return uncheckedValue;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ArrayPojo other = (ArrayPojo) obj;
+      return Arrays.equals(ints, other.ints)
+        && Arrays.equals(strings, other.strings)
+        && Objects.deepEquals(value, other.value)
+        && (uncheckedValue == null ? other.uncheckedValue == null : uncheckedValue.equals(other.uncheckedValue));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 1;
+      result = 31 * result + Arrays.hashCode(ints);
+      result = 31 * result + Arrays.hashCode(strings);
+      result = 31 * result + Arrays.deepHashCode(new Object[] { value });
+      result = 31 * result + (uncheckedValue == null ? 0 : uncheckedValue.hashCode());
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "ArrayPojo{ints: {" + Arrays.toString(ints) + "}, strings: {" + Arrays.toString(strings) + "}, value: {"
+        + value + "}, uncheckedValue: {" + uncheckedValue + "}}";
+    }
+
+    @Override
+    public boolean objectsEquals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ArrayPojo other = (ArrayPojo) obj;
+      return Objects.deepEquals(ints, other.ints)
+        && Objects.deepEquals(strings, other.strings)
+        && Objects.deepEquals(value, other.value)
+        && Objects.equals(uncheckedValue, other.uncheckedValue);
+    }
+
+    @Override
+    public int objectsHashCode() {
+      return Objects.hash(Arrays.hashCode(ints), Arrays.hashCode(strings), value, uncheckedValue);
+    }
+  }
+
+  @AutoProperty
+  public static class BasePojo implements ObjectsHashPojo {
+    private final int id;
+    private final String name;
+
+    BasePojo(int seed) {
+      id = seed;
+      name = new StringBuilder("name").append(seed).toString();
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      BasePojo other = (BasePojo) obj;
+      return id == other.id && (name == null ? other.name == null : name.equals(other.name));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 1;
+      result = 31 * result + id;
+      result = 31 * result + (name == null ? 0 : name.hashCode());
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "BasePojo{id: {" + id + "}, name: {" + name + "}}";
+    }
+
+    @Override
+    public boolean objectsEquals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      BasePojo other = (BasePojo) obj;
+      return Objects.equals(id, other.id) && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int objectsHashCode() {
+      return Objects.hash(id, name);
+    }
+  }
+
+  @AutoProperty
+  public static class InheritedPojo extends BasePojo {
+    private final long timestamp;
+    private final String detail;
+
+    InheritedPojo(int seed) {
+      super(seed);
+      timestamp = 1500000000000L + seed;
+      detail = new StringBuilder("detail").append(seed).toString();
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    public String getDetail() {
+      return detail;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!super.equals(obj)) {
+        return false;
+      }
+      InheritedPojo other = (InheritedPojo) obj;
+      return timestamp == other.timestamp && (detail == null ? other.detail == null : detail.equals(other.detail));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = super.hashCode();
+      result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
+      result = 31 * result + (detail == null ? 0 : detail.hashCode());
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "InheritedPojo{id: {" + getId() + "}, name: {" + getName() + "}, timestamp: {" + timestamp
+        + "}, detail: {" + detail + "}}";
+    }
+
+    @Override
+    public boolean objectsEquals(Object obj) {
+      if (!super.objectsEquals(obj)) {
+        return false;
+      }
+      InheritedPojo other = (InheritedPojo) obj;
+      return Objects.equals(timestamp, other.timestamp) && Objects.equals(detail, other.detail);
+    }
+
+    @Override
+    public int objectsHashCode() {
+      return Objects.hash(getId(), getName(), timestamp, detail);
+    }
+  }
+}
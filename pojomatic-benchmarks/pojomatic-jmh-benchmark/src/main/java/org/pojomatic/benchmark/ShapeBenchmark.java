@@ -0,0 +1,201 @@
+package org.pojomatic.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.benchmark.Shape.ObjectsHashPojo;
+
+/**
+ * Measure {@code equals}, {@code hashCode} and {@code toString} for each {@link Shape} of pojo, as implemented by
+ * Pojomatic and by each of the baselines it should be judged against. This replaces the Caliper based
+ * {@code BeanSpeedTest}.
+ * <p>
+ * JMH forks a fresh JVM for each combination of parameters, so every call site below sees a single pojo class and a
+ * single implementation, just as it would in an application. {@code doEquals} compares two distinct but equal
+ * instances, so that every property has to be compared.
+ * <p>
+ * The {@link Implementation#RECORD RECORD} implementation needs the record classes in {@code src/main/java16}, which
+ * are only built by the {@code java16} profile (active by default when building with JDK 16 or later).
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ShapeBenchmark -prof gc}; the gc profiler reports the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}), which should be zero for Pojomatic's {@code doEquals} and
+ * {@code doHashCode}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ShapeBenchmark {
+  /**
+   * The ways of implementing {@code equals}, {@code hashCode} and {@code toString} being compared.
+   */
+  public enum Implementation {
+    /** Pojomatic, calling the pojomator directly. */
+    POJOMATIC {
+      @Override
+      Operations operations(Class<?> pojoClass) {
+        @SuppressWarnings("unchecked")
+        final Pojomator<Object> pojomator = (Pojomator<Object>) Pojomatic.pojomator(pojoClass);
+        return new Operations() {
+          @Override
+          boolean equals(Object instance, Object other) {
+            return pojomator.doEquals(instance, other);
+          }
+
+          @Override
+          int hashCode(Object instance) {
+            return pojomator.doHashCode(instance);
+          }
+
+          @Override
+          String toString(Object instance) {
+            return pojomator.doToString(instance);
+          }
+        };
+      }
+    },
+
+    /** Hand-written methods, in the style an IDE would generate. */
+    HAND_WRITTEN {
+      @Override
+      Operations operations(Class<?> pojoClass) {
+        return OBJECT_METHODS;
+      }
+    },
+
+    /** {@code Objects.equals} and {@code Objects.hash}; {@code toString} is hand-written. */
+    OBJECTS_HASH {
+      @Override
+      Operations operations(Class<?> pojoClass) {
+        return new Operations() {
+          @Override
+          boolean equals(Object instance, Object other) {
+            return ((ObjectsHashPojo) instance).objectsEquals(other);
+          }
+
+          @Override
+          int hashCode(Object instance) {
+            return ((ObjectsHashPojo) instance).objectsHashCode();
+          }
+
+          @Override
+          String toString(Object instance) {
+            return instance.toString();
+          }
+        };
+      }
+    },
+
+    /**
+     * The methods a Java record provides. Records cannot extend classes, so the record for
+     * {@link Shape#INHERITANCE} holds all of the properties itself.
+     */
+    RECORD {
+      @Override
+      Operations operations(Class<?> pojoClass) {
+        return OBJECT_METHODS;
+      }
+
+      @Override
+      Object newInstance(Shape shape, int seed) {
+        Object pojo = super.newInstance(shape, seed);
+        try {
+          return Class.forName(RECORDS_CLASS_NAME).getMethod("toRecord", Object.class).invoke(null, pojo);
+        }
+        catch (ClassNotFoundException e) {
+          throw new IllegalStateException(
+            "record benchmarks require building with JDK 16 or later, using the java16 profile", e);
+        }
+        catch (InvocationTargetException e) {
+          throw new RuntimeException(e.getCause());
+        }
+        catch (ReflectiveOperationException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+
+    private static final String RECORDS_CLASS_NAME = "org.pojomatic.benchmark.Records";
+
+    abstract Operations operations(Class<?> pojoClass);
+
+    Object newInstance(Shape shape, int seed) {
+      return shape.newInstance(seed);
+    }
+  }
+
+  abstract static class Operations {
+    abstract boolean equals(Object instance, Object other);
+
+    abstract int hashCode(Object instance);
+
+    abstract String toString(Object instance);
+  }
+
+  private static final Operations OBJECT_METHODS = new Operations() {
+    @Override
+    boolean equals(Object instance, Object other) {
+      return instance.equals(other);
+    }
+
+    @Override
+    int hashCode(Object instance) {
+      return instance.hashCode();
+    }
+
+    @Override
+    String toString(Object instance) {
+      return instance.toString();
+    }
+  };
+
+  @Param
+  public Shape shape;
+
+  @Param
+  public Implementation implementation;
+
+  private Operations operations;
+  private Object pojo;
+  private Object equalPojo;
+
+  @Setup
+  public void setUp() {
+    pojo = implementation.newInstance(shape, 0);
+    equalPojo = implementation.newInstance(shape, 0);
+    operations = implementation.operations(pojo.getClass());
+    if (!operations.equals(pojo, equalPojo)) {
+      throw new IllegalStateException(implementation + " does not consider equal " + shape + " instances equal");
+    }
+  }
+
+  @Benchmark
+  public boolean doEquals() {
+    return operations.equals(pojo, equalPojo);
+  }
+
+  @Benchmark
+  public int doHashCode() {
+    return operations.hashCode(pojo);
+  }
+
+  @Benchmark
+  public String doToString() {
+    return operations.toString(pojo);
+  }
+}
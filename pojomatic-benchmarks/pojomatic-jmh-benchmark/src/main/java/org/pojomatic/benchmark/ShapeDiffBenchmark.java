@@ -0,0 +1,123 @@
+package org.pojomatic.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.diff.DiffVisitor;
+import org.pojomatic.diff.Differences;
+
+/**
+ * Measure {@code doDiff} for each {@link Shape} of pojo, both for equal instances and for instances which differ in
+ * every property. There is no baseline to compare against; instead, {@code doDiff} building {@link Differences} is
+ * compared with {@code doDiff} reporting to a {@link DiffVisitor}, which should allocate nothing even when every
+ * property differs.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ShapeDiffBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ShapeDiffBenchmark {
+  @Param
+  public Shape shape;
+
+  private Pojomator<Object> pojomator;
+  private Object pojo;
+  private Object equalPojo;
+  private Object differentPojo;
+  private final CountingVisitor visitor = new CountingVisitor();
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    pojo = shape.newInstance(0);
+    equalPojo = shape.newInstance(0);
+    differentPojo = shape.newInstance(1);
+    pojomator = (Pojomator<Object>) Pojomatic.pojomator(pojo.getClass());
+  }
+
+  @Benchmark
+  public Differences doDiffEqual() {
+    return pojomator.doDiff(pojo, equalPojo);
+  }
+
+  @Benchmark
+  public Differences doDiffDifferent() {
+    return pojomator.doDiff(pojo, differentPojo);
+  }
+
+  @Benchmark
+  public int doDiffVisitorDifferent() {
+    visitor.count = 0;
+    pojomator.doDiff(pojo, differentPojo, visitor);
+    return visitor.count;
+  }
+
+  /**
+   * A visitor which counts differences, handling each primitive type without boxing.
+   */
+  private static final class CountingVisitor implements DiffVisitor {
+    int count;
+
+    @Override
+    public void onBooleanDifference(PropertyElement property, boolean instanceValue, boolean otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onByteDifference(PropertyElement property, byte instanceValue, byte otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onShortDifference(PropertyElement property, short instanceValue, short otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onCharDifference(PropertyElement property, char instanceValue, char otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onIntDifference(PropertyElement property, int instanceValue, int otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onLongDifference(PropertyElement property, long instanceValue, long otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onFloatDifference(PropertyElement property, float instanceValue, float otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onDoubleDifference(PropertyElement property, double instanceValue, double otherValue) {
+      count++;
+    }
+
+    @Override
+    public void onObjectDifference(PropertyElement property, Object instanceValue, Object otherValue) {
+      count++;
+    }
+  }
+}
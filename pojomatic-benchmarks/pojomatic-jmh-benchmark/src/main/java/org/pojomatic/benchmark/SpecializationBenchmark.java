@@ -0,0 +1,168 @@
+package org.pojomatic.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.annotations.SkipArrayCheck;
+
+/**
+ * Measure how much generated pojomators gain from what they know about a pojo class and the types of its properties.
+ * Each {@link Kind} of pojo holds the same values:
+ * <ul>
+ *   <li>{@link Kind#UNSPECIALIZED UNSPECIALIZED} declares its properties as {@code Object}, so that they are compared
+ *   with {@code Objects.equals} and hashed with a null check and a virtual call, and is not final, so that
+ *   {@code doEquals} asks whether a pojo of another class is compatible for equality;</li>
+ *   <li>{@link Kind#TYPED TYPED} is final, and declares an enum, a {@code String} and boxed properties, so that the enum
+ *   is compared with {@code ==}, the others with statically bound {@code equals} calls, and a pojo of another class is
+ *   rejected by comparing classes;</li>
+ *   <li>{@link Kind#NON_NULL NON_NULL} additionally declares each property {@link Property#nonNull() nonNull}, so that
+ *   values are not checked for {@code null}.</li>
+ * </ul>
+ * Since every pojomator shares the type profile of the {@code equals} call in {@code Objects.equals}, the setup first
+ * compares values of several other types with it, as an application would.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar SpecializationBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SpecializationBenchmark {
+  public enum Color { RED, GREEN, BLUE }
+
+  public enum Kind {
+    UNSPECIALIZED {
+      @Override
+      Object newInstance(int seed) {
+        return new UnspecializedPojo(seed);
+      }
+    },
+    TYPED {
+      @Override
+      Object newInstance(int seed) {
+        return new TypedPojo(seed);
+      }
+    },
+    NON_NULL {
+      @Override
+      Object newInstance(int seed) {
+        return new NonNullPojo(seed);
+      }
+    };
+
+    abstract Object newInstance(int seed);
+  }
+
+  @AutoProperty
+  public static class UnspecializedPojo {
+    @SkipArrayCheck private final Object color;
+    @SkipArrayCheck private final Object name;
+    @SkipArrayCheck private final Object count;
+    @SkipArrayCheck private final Object id;
+    @SkipArrayCheck private final Object ratio;
+
+    UnspecializedPojo(int seed) {
+      color = Color.values()[seed % 3];
+      name = new String("name" + seed);
+      count = seed * 1000;
+      id = seed * 1000000L;
+      ratio = seed / 7.0;
+    }
+  }
+
+  @AutoProperty
+  public static final class TypedPojo {
+    private final Color color;
+    private final String name;
+    private final Integer count;
+    private final Long id;
+    private final Double ratio;
+
+    TypedPojo(int seed) {
+      color = Color.values()[seed % 3];
+      name = new String("name" + seed);
+      count = seed * 1000;
+      id = seed * 1000000L;
+      ratio = seed / 7.0;
+    }
+  }
+
+  public static final class NonNullPojo {
+    @Property(nonNull = true) private final Color color;
+    @Property(nonNull = true) private final String name;
+    @Property(nonNull = true) private final Integer count;
+    @Property(nonNull = true) private final Long id;
+    @Property(nonNull = true) private final Double ratio;
+
+    NonNullPojo(int seed) {
+      color = Color.values()[seed % 3];
+      name = new String("name" + seed);
+      count = seed * 1000;
+      id = seed * 1000000L;
+      ratio = seed / 7.0;
+    }
+  }
+
+  @Param
+  public Kind kind;
+
+  private Pojomator<Object> pojomator;
+  private Object pojo;
+  private Object equalPojo;
+  private Object otherClassPojo;
+  // kept, so that the calls in pollute are not optimized away
+  private boolean polluted;
+
+  @Setup
+  public void setUp() {
+    pollute(Arrays.<Object>asList("a", 1, 2L, 3.0, Color.RED, Arrays.asList("b"), 'c', (short) 4, new Object()));
+    pojo = kind.newInstance(5);
+    equalPojo = kind.newInstance(5);
+    otherClassPojo = kind == Kind.UNSPECIALIZED ? new TypedPojo(5) : new UnspecializedPojo(5);
+    @SuppressWarnings("unchecked")
+    Pojomator<Object> pojomator = (Pojomator<Object>) Pojomatic.pojomator(pojo.getClass());
+    this.pojomator = pojomator;
+  }
+
+  private void pollute(List<Object> values) {
+    for (int i = 0; i < 100000; i++) {
+      for (Object value: values) {
+        polluted ^= Objects.equals(value, values.get(i % values.size()));
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean equalsOfEqualPojos() {
+    return pojomator.doEquals(pojo, equalPojo);
+  }
+
+  @Benchmark
+  public boolean equalsOfOtherClass() {
+    return pojomator.doEquals(pojo, otherClassPojo);
+  }
+
+  @Benchmark
+  public int hashCodeOfPojo() {
+    return pojomator.doHashCode(pojo);
+  }
+}
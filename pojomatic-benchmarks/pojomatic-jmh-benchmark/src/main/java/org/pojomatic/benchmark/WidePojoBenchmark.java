@@ -0,0 +1,195 @@
+package org.pojomatic.benchmark;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.diff.Differences;
+
+/**
+ * Measure pojomators as the number of properties grows. HotSpot will not compile a method with more than 8000 bytes
+ * of byte code ({@code HugeMethodLimit}), and will not inline a hot method with more than 325 bytes
+ * ({@code FreqInlineSize}); a pojomator which handled every property in a single method would exceed the former for
+ * {@code doToString} and {@code doDiff} at around 150 properties. Pojomatic instead splits the work for large pojos
+ * across helper methods of bounded size, so the default benchmarks should scale linearly with {@code propertyCount}.
+ * <p>
+ * For comparison, the {@code *HugeMethodsCompiled} variants run with {@code -XX:-DontCompileHugeMethods}, which lets
+ * HotSpot compile methods of any size; these should match the default variants. The {@code *Interpreted} variants run
+ * with {@code -Xint}, showing the cost of a pojomator method which is never compiled.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar WidePojoBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class WidePojoBenchmark {
+  private static final Class<?>[] PROPERTY_TYPES = { int.class, long.class, double.class, String.class, int[].class };
+
+  @Param({ "4", "16", "64", "160", "320" })
+  public int propertyCount;
+
+  private Pojomator<Object> pojomator;
+  private Object pojo;
+  private Object equalPojo;
+  private Object differentPojo;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() throws ReflectiveOperationException {
+    Class<?> pojoClass = new PojoClassLoader().definePojoClass(propertyCount);
+    pojomator = (Pojomator<Object>) Pojomatic.pojomator(pojoClass);
+    pojo = newPojo(pojoClass);
+    equalPojo = newPojo(pojoClass);
+    differentPojo = newPojo(pojoClass);
+    // differ only in the last property, so that equals has to compare every property
+    setProperty(differentPojo, propertyCount - 1, 1);
+  }
+
+  @Benchmark
+  public boolean doEquals() {
+    return pojomator.doEquals(pojo, equalPojo);
+  }
+
+  @Benchmark
+  public int doHashCode() {
+    return pojomator.doHashCode(pojo);
+  }
+
+  @Benchmark
+  public String doToString() {
+    return pojomator.doToString(pojo);
+  }
+
+  @Benchmark
+  public Differences doDiff() {
+    return pojomator.doDiff(pojo, differentPojo);
+  }
+
+  @Benchmark
+  @Fork(value = 2, jvmArgsAppend = "-XX:-DontCompileHugeMethods")
+  public String doToStringHugeMethodsCompiled() {
+    return pojomator.doToString(pojo);
+  }
+
+  @Benchmark
+  @Fork(value = 2, jvmArgsAppend = "-XX:-DontCompileHugeMethods")
+  public Differences doDiffHugeMethodsCompiled() {
+    return pojomator.doDiff(pojo, differentPojo);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Xint")
+  public String doToStringInterpreted() {
+    return pojomator.doToString(pojo);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Xint")
+  public Differences doDiffInterpreted() {
+    return pojomator.doDiff(pojo, differentPojo);
+  }
+
+  private Object newPojo(Class<?> pojoClass) throws ReflectiveOperationException {
+    Object newPojo = pojoClass.getConstructor().newInstance();
+    for (int i = 0; i < propertyCount; i++) {
+      setProperty(newPojo, i, 0);
+    }
+    return newPojo;
+  }
+
+  private static void setProperty(Object pojo, int index, int seed) {
+    try {
+      Field field = pojo.getClass().getField(propertyName(index));
+      Class<?> type = field.getType();
+      int value = index + seed;
+      if (type == int.class) {
+        field.setInt(pojo, value);
+      }
+      else if (type == long.class) {
+        field.setLong(pojo, value * 1000000007L);
+      }
+      else if (type == double.class) {
+        field.setDouble(pojo, value / 3.0);
+      }
+      else if (type == String.class) {
+        field.set(pojo, "value " + value);
+      }
+      else {
+        field.set(pojo, new int[] { value, value + 1, value + 2 });
+      }
+    }
+    catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String propertyName(int index) {
+    return "property" + index;
+  }
+
+  /**
+   * Defines {@link AutoProperty} annotated classes with a given number of public fields, cycling through
+   * {@link WidePojoBenchmark#PROPERTY_TYPES}. Pojomatic reads the class bytes of a pojo class to determine the order of
+   * its properties, so the loader serves them as a resource.
+   */
+  private static class PojoClassLoader extends ClassLoader {
+    private String resourceName;
+    private byte[] classBytes;
+
+    PojoClassLoader() {
+      super(WidePojoBenchmark.class.getClassLoader());
+    }
+
+    Class<?> definePojoClass(int propertyCount) {
+      String className = WidePojoBenchmark.class.getName() + "$Pojo" + propertyCount;
+      String internalName = className.replace('.', '/');
+      ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+      classWriter.visit(V1_7, ACC_PUBLIC | ACC_SUPER, internalName, null, "java/lang/Object", null);
+      classWriter.visitAnnotation(Type.getDescriptor(AutoProperty.class), true).visitEnd();
+      for (int i = 0; i < propertyCount; i++) {
+        classWriter.visitField(
+          ACC_PUBLIC, propertyName(i), Type.getDescriptor(PROPERTY_TYPES[i % PROPERTY_TYPES.length]), null, null)
+          .visitEnd();
+      }
+      MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+      mv.visitCode();
+      mv.visitVarInsn(ALOAD, 0);
+      mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+      mv.visitInsn(RETURN);
+      mv.visitMaxs(0, 0);
+      mv.visitEnd();
+      classWriter.visitEnd();
+      resourceName = internalName + ".class";
+      classBytes = classWriter.toByteArray();
+      return defineClass(className, classBytes, 0, classBytes.length);
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+      return name.equals(resourceName) ? new ByteArrayInputStream(classBytes) : super.getResourceAsStream(name);
+    }
+  }
+}
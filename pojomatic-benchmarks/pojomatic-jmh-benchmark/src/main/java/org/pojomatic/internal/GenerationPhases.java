@@ -0,0 +1,33 @@
+package org.pojomatic.internal;
+
+/**
+ * Access to the individual phases of creating a bytecode generated pojomator, for
+ * {@code org.pojomatic.benchmark.PojomatorGenerationBenchmark}. This class lives in Pojomatic's internal package so
+ * that it can reach the package-private generator; it is not part of Pojomatic itself.
+ */
+public final class GenerationPhases {
+  private GenerationPhases() {}
+
+  /**
+   * Determine the properties of a class, by reflection and by reading its class file.
+   * @param pojoClass the class to inspect
+   * @return the class properties for {@code pojoClass}
+   */
+  public static ClassProperties classProperties(Class<?> pojoClass) {
+    return ClassProperties.forClass(pojoClass);
+  }
+
+  /**
+   * Generate, but do not define, the pojomator class for a class.
+   * @param pojoClass the class to generate a pojomator for
+   * @return the bytes of the generated pojomator class
+   */
+  public static byte[] classBytes(Class<?> pojoClass) {
+    try {
+      return new PojomatorByteCodeGenerator(pojoClass, ClassProperties.forClass(pojoClass)).makeClassBytes();
+    }
+    catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
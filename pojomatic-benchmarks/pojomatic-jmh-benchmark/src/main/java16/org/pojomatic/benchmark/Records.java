@@ -0,0 +1,69 @@
+package org.pojomatic.benchmark;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.pojomatic.benchmark.Shape.ArrayPojo;
+import org.pojomatic.benchmark.Shape.InheritedPojo;
+import org.pojomatic.benchmark.Shape.PrimitivePojo;
+import org.pojomatic.benchmark.Shape.StringPojo;
+
+/**
+ * Records equivalent to each {@link Shape} of pojo, for {@link ShapeBenchmark.Implementation#RECORD}. This class is
+ * only compiled by the {@code java16} profile; the benchmarks find it reflectively.
+ */
+public final class Records {
+  private Records() {}
+
+  /**
+   * Create the record equivalent to a pojo.
+   * @param pojo an instance of one of the {@link Shape} pojo classes
+   * @return a record holding the same property values as {@code pojo}
+   */
+  public static Object toRecord(Object pojo) {
+    if (pojo instanceof PrimitivePojo p) {
+      return new PrimitiveRecord(p.getI(), p.getL(), p.getD(), p.isFlag(), p.getC(), p.getF());
+    }
+    if (pojo instanceof StringPojo s) {
+      return new StringRecord(s.getFirstName(), s.getLastName(), s.getEmail(), s.getCity(), s.getCountry());
+    }
+    if (pojo instanceof ArrayPojo a) {
+      return new ArrayRecord(a.getInts(), a.getStrings(), a.getValue(), a.getUncheckedValue());
+    }
+    if (pojo instanceof InheritedPojo i) {
+      return new InheritedRecord(i.getId(), i.getName(), i.getTimestamp(), i.getDetail());
+    }
+    throw new IllegalArgumentException("no record for " + pojo.getClass());
+  }
+
+  public record PrimitiveRecord(int i, long l, double d, boolean flag, char c, float f) {}
+
+  public record StringRecord(String firstName, String lastName, String email, String city, String country) {}
+
+  /**
+   * Records compare array components by identity, so (as any record holding arrays must) this one overrides
+   * {@code equals} and {@code hashCode} to compare array contents.
+   */
+  public record ArrayRecord(int[] ints, String[] strings, Object value, Object uncheckedValue) {
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ArrayRecord other
+        && Arrays.equals(ints, other.ints)
+        && Arrays.equals(strings, other.strings)
+        && Objects.deepEquals(value, other.value)
+        && Objects.equals(uncheckedValue, other.uncheckedValue);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 1;
+      result = 31 * result + Arrays.hashCode(ints);
+      result = 31 * result + Arrays.hashCode(strings);
+      result = 31 * result + Arrays.deepHashCode(new Object[] { value });
+      result = 31 * result + Objects.hashCode(uncheckedValue);
+      return result;
+    }
+  }
+
+  public record InheritedRecord(int id, String name, long timestamp, String detail) {}
+}
@@ -0,0 +1,582 @@
+package org.pojomatic.processor;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import org.pojomatic.annotations.AutoDetectPolicy;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.pojomatic.annotations.CacheToString;
+import org.pojomatic.annotations.DefaultPojomaticPolicy;
+import org.pojomatic.annotations.EqualsOrder;
+import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.PojomaticPolicy;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
+import org.pojomatic.formatter.EnhancedPojoFormatter;
+import org.pojomatic.formatter.StatelessPojoFormatter;
+import org.pojomatic.generated.GeneratedPojomator;
+import org.pojomatic.internal.PropertyFilter;
+import org.pojomatic.internal.PropertyRole;
+
+/**
+ * The compile-time analog of {@link org.pojomatic.internal.ClassProperties}: the properties of a pojo class, as
+ * determined from the language model rather than via reflection. The rules for which fields and methods are
+ * properties, and the order in which they are used, are the same as those applied at runtime.
+ */
+class ClassModel {
+  private static final Pattern ACCESSOR_PATTERN = Pattern.compile("(get|is)\\P{Ll}.*");
+  private static final Set<String> BOXED_OR_STRING_TYPES = new HashSet<>(Arrays.asList(
+    "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Short", "java.lang.Integer",
+    "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.Void", "java.lang.String"));
+
+  final TypeElement pojoClass;
+  final String packageName;
+  final String pojoTypeName;
+  final String pojoClassName;
+  final String generatedClassName;
+  final String generatedSimpleName;
+
+  /**
+   * The qualified name of the class specified by {@link PojoFormat}, or {@code null} if the class does not specify one.
+   */
+  final String pojoFormatterClassName;
+  final boolean enhancedPojoFormatter;
+
+  /**
+   * The name of the field in which {@code doHashCode} caches the hash code, as specified by {@link CacheHashCode}, or
+   * {@code null} if the class is not annotated with it.
+   */
+  final String hashCodeCacheFieldName;
+
+  /**
+   * The name of the field in which {@code doToString} caches its result, as specified by {@link CacheToString}, or
+   * {@code null} if the class is not annotated with it.
+   */
+  final String toStringCacheFieldName;
+
+  private final Map<PropertyRole, List<PropertyModel>> properties = new EnumMap<>(PropertyRole.class);
+  private final List<PropertyModel> allProperties;
+
+  private final Elements elements;
+  private final Types types;
+
+  /**
+   * Build the model for a pojo class.
+   * @param pojoClass the class to build a model for
+   * @param elements the element utilities of the processing environment
+   * @param types the type utilities of the processing environment
+   * @throws SkipGenerationException if a pojomator cannot be generated for {@code pojoClass} at compile time
+   */
+  ClassModel(TypeElement pojoClass, Elements elements, Types types) throws SkipGenerationException {
+    this.pojoClass = pojoClass;
+    this.elements = elements;
+    this.types = types;
+    checkSupportedClass(pojoClass);
+    this.packageName = elements.getPackageOf(pojoClass).getQualifiedName().toString();
+    this.pojoClassName = pojoClass.getQualifiedName().toString();
+    this.pojoTypeName = pojoClassName + wildcards(pojoClass);
+    this.generatedClassName = GeneratedPojomator.generatedClassName(elements.getBinaryName(pojoClass).toString());
+    this.generatedSimpleName = generatedClassName.substring(generatedClassName.lastIndexOf('.') + 1);
+
+    CacheHashCode cacheHashCode = pojoClass.getAnnotation(CacheHashCode.class);
+    this.hashCodeCacheFieldName = cacheHashCode == null
+      ? null
+      : checkCacheField(pojoClass, cacheHashCode.field(), "int", CacheHashCode.class, "hash code");
+    CacheToString cacheToString = pojoClass.getAnnotation(CacheToString.class);
+    this.toStringCacheFieldName = cacheToString == null
+      ? null
+      : checkCacheField(pojoClass, cacheToString.field(), "java.lang.String", CacheToString.class, "toString");
+
+    for (PropertyRole role: PropertyRole.values()) {
+      properties.put(role, new ArrayList<PropertyModel>());
+    }
+    OverridableMethods overridableMethods = new OverridableMethods();
+    for (TypeElement clazz: hierarchy(pojoClass)) {
+      extractClassProperties(clazz, overridableMethods);
+    }
+
+    Set<PropertyModel> all = new LinkedHashSet<>();
+    for (PropertyRole role: PropertyRole.values()) {
+      all.addAll(properties.get(role));
+    }
+    if (all.isEmpty()) {
+      throw new SkipGenerationException(Diagnostic.Kind.NOTE, "it has no properties");
+    }
+    allProperties = new ArrayList<>(all);
+    int index = 0;
+    for (PropertyModel property: allProperties) {
+      property.index = index++;
+      if (!isAccessible(property.declaringClass)) {
+        throw new SkipGenerationException(
+          Diagnostic.Kind.NOTE,
+          "property " + property.name + " is declared in " + property.declaringClass.getQualifiedName()
+          + ", which is not accessible from package " + packageName);
+      }
+      property.directAccess = canAccessDirectly(property);
+      property.equalsCost = equalsCost(property);
+    }
+
+    TypeElement pojoFormatter = pojoFormatterClass(pojoClass);
+    if (pojoFormatter != null) {
+      if (!isAccessible(pojoFormatter) || !hasAccessibleNoArgConstructor(pojoFormatter)) {
+        throw new SkipGenerationException(
+          Diagnostic.Kind.NOTE,
+          "its PojoFormatter " + pojoFormatter.getQualifiedName() + " cannot be constructed from package "
+          + packageName);
+      }
+      pojoFormatterClassName = pojoFormatter.getQualifiedName().toString();
+      enhancedPojoFormatter = types.isAssignable(
+        pojoFormatter.asType(),
+        elements.getTypeElement(EnhancedPojoFormatter.class.getCanonicalName()).asType());
+      if (toStringCacheFieldName != null
+        && !pojoFormatterClassName.equals(DefaultEnhancedPojoFormatter.class.getCanonicalName())
+        && !types.isAssignable(
+          pojoFormatter.asType(),
+          elements.getTypeElement(StatelessPojoFormatter.class.getCanonicalName()).asType())) {
+        throw new SkipGenerationException(
+          Diagnostic.Kind.WARNING,
+          "it is annotated with @CacheToString, but its pojo formatter " + pojoFormatterClassName
+          + " does not implement " + StatelessPojoFormatter.class.getName());
+      }
+    }
+    else {
+      pojoFormatterClassName = null;
+      enhancedPojoFormatter = false;
+    }
+  }
+
+  List<PropertyModel> getEqualsProperties() {
+    return Collections.unmodifiableList(properties.get(PropertyRole.EQUALS));
+  }
+
+  List<PropertyModel> getHashCodeProperties() {
+    return Collections.unmodifiableList(properties.get(PropertyRole.HASH_CODE));
+  }
+
+  /**
+   * The properties compared by {@code doCompare}: the equals properties, ordered as by
+   * {@link org.pojomatic.internal.ClassProperties#getCompareProperties()}.
+   */
+  List<PropertyModel> getCompareProperties() {
+    List<PropertyModel> compareProperties = new ArrayList<>(properties.get(PropertyRole.EQUALS));
+    // Collections.sort is stable, so properties with the same compareOrder stay in equals order
+    Collections.sort(compareProperties, new Comparator<PropertyModel>() {
+      @Override
+      public int compare(PropertyModel property1, PropertyModel property2) {
+        return Integer.compare(property1.compareOrder, property2.compareOrder);
+      }
+    });
+    return compareProperties;
+  }
+
+  /**
+   * The equals properties, in the order in which {@code doEquals} compares them, as by
+   * {@link org.pojomatic.internal.ClassProperties#getEqualsComparisonOrder()}.
+   */
+  List<PropertyModel> getEqualsComparisonOrder() {
+    AutoProperty autoProperty = pojoClass.getAnnotation(AutoProperty.class);
+    if (autoProperty == null || autoProperty.equalsOrder() != EqualsOrder.COST) {
+      return getEqualsProperties();
+    }
+    List<PropertyModel> equalsComparisonOrder = new ArrayList<>(properties.get(PropertyRole.EQUALS));
+    // Collections.sort is stable, so properties with the same cost stay in equals order
+    Collections.sort(equalsComparisonOrder, new Comparator<PropertyModel>() {
+      @Override
+      public int compare(PropertyModel property1, PropertyModel property2) {
+        return Integer.compare(property1.equalsCost, property2.equalsCost);
+      }
+    });
+    return equalsComparisonOrder;
+  }
+
+  List<PropertyModel> getToStringProperties() {
+    return Collections.unmodifiableList(properties.get(PropertyRole.TO_STRING));
+  }
+
+  List<PropertyModel> getAllProperties() {
+    return Collections.unmodifiableList(allProperties);
+  }
+
+  private void checkSupportedClass(TypeElement clazz) throws SkipGenerationException {
+    if (clazz.getKind() != ElementKind.CLASS) {
+      throw new SkipGenerationException(Diagnostic.Kind.NOTE, "only classes are supported");
+    }
+    if (clazz.getNestingKind() == NestingKind.LOCAL || clazz.getNestingKind() == NestingKind.ANONYMOUS) {
+      throw new SkipGenerationException(Diagnostic.Kind.NOTE, "local and anonymous classes are not supported");
+    }
+    for (Element element = clazz; element instanceof TypeElement; element = element.getEnclosingElement()) {
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        throw new SkipGenerationException(Diagnostic.Kind.NOTE, "private classes are not supported");
+      }
+      if (element != clazz
+        && !((TypeElement) element).getTypeParameters().isEmpty()
+        && !clazz.getModifiers().contains(Modifier.STATIC)) {
+        throw new SkipGenerationException(
+          Diagnostic.Kind.NOTE, "inner classes of generic classes are not supported");
+      }
+    }
+  }
+
+  private static String wildcards(TypeElement clazz) {
+    int typeParameterCount = clazz.getTypeParameters().size();
+    if (typeParameterCount == 0) {
+      return "";
+    }
+    StringBuilder builder = new StringBuilder("<?");
+    for (int i = 1; i < typeParameterCount; i++) {
+      builder.append(", ?");
+    }
+    return builder.append(">").toString();
+  }
+
+  /**
+   * Get the classes in the hierarchy of {@code clazz}, from the top down, excluding {@code Object}.
+   */
+  private static List<TypeElement> hierarchy(TypeElement clazz) {
+    List<TypeElement> hierarchy = new ArrayList<>();
+    for (TypeElement current = clazz; current != null; current = superclass(current)) {
+      if (current.getQualifiedName().contentEquals("java.lang.Object")) {
+        break;
+      }
+      hierarchy.add(current);
+    }
+    Collections.reverse(hierarchy);
+    return hierarchy;
+  }
+
+  private static TypeElement superclass(TypeElement clazz) {
+    TypeMirror superclass = clazz.getSuperclass();
+    return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+  }
+
+  private void extractClassProperties(TypeElement clazz, OverridableMethods overridableMethods)
+    throws SkipGenerationException {
+    AutoProperty autoProperty = clazz.getAnnotation(AutoProperty.class);
+    final DefaultPojomaticPolicy classPolicy = (autoProperty != null) ? autoProperty.policy() : null;
+    final AutoDetectPolicy autoDetectPolicy = (autoProperty != null) ? autoProperty.autoDetect() : null;
+
+    // As at runtime, fields come before methods, each in the order they are declared.
+    Map<PropertyRole, List<PropertyModel>> classProperties = new EnumMap<>(PropertyRole.class);
+    for (PropertyRole role: PropertyRole.values()) {
+      classProperties.put(role, new ArrayList<PropertyModel>());
+    }
+    for (VariableElement field: ElementFilter.fieldsIn(clazz.getEnclosedElements())) {
+      Property property = field.getAnnotation(Property.class);
+      if (hashCodeCacheFieldName != null && clazz.equals(pojoClass)
+        && field.getSimpleName().contentEquals(hashCodeCacheFieldName)) {
+        if (property != null) {
+          throw new SkipGenerationException(
+            Diagnostic.Kind.WARNING,
+            "field " + clazz.getQualifiedName() + "." + field.getSimpleName()
+            + " is used to cache the hash code, but is annotated with @Property");
+        }
+        continue;
+      }
+      if (toStringCacheFieldName != null && clazz.equals(pojoClass)
+        && field.getSimpleName().contentEquals(toStringCacheFieldName)) {
+        if (property != null) {
+          throw new SkipGenerationException(
+            Diagnostic.Kind.WARNING,
+            "field " + clazz.getQualifiedName() + "." + field.getSimpleName()
+            + " is used to cache the result of toString, but is annotated with @Property");
+        }
+        continue;
+      }
+      if (field.getModifiers().contains(Modifier.STATIC)) {
+        if (property != null) {
+          throw new SkipGenerationException(
+            Diagnostic.Kind.WARNING,
+            "static field " + clazz.getQualifiedName() + "." + field.getSimpleName() + " is annotated with @Property");
+        }
+        continue;
+      }
+      PojomaticPolicy propertyPolicy = (property != null) ? property.policy() : null;
+      if (propertyPolicy != null || AutoDetectPolicy.FIELD == autoDetectPolicy) {
+        addProperty(
+          classProperties, field, field.asType(), property, PropertyFilter.getRoles(propertyPolicy, classPolicy));
+      }
+    }
+    for (ExecutableElement method: ElementFilter.methodsIn(clazz.getEnclosedElements())) {
+      Property property = method.getAnnotation(Property.class);
+      if (method.getModifiers().contains(Modifier.STATIC)) {
+        if (property != null) {
+          throw new SkipGenerationException(
+            Diagnostic.Kind.WARNING,
+            "static method " + clazz.getQualifiedName() + "." + method.getSimpleName()
+            + "() is annotated with @Property");
+        }
+        continue;
+      }
+      PojomaticPolicy propertyPolicy = null;
+      if (property != null) {
+        if (!methodSignatureIsAccessor(method)) {
+          throw new SkipGenerationException(
+            Diagnostic.Kind.WARNING,
+            "method " + clazz.getQualifiedName() + "." + method.getSimpleName()
+            + " is annotated with @Property but either takes arguments or returns void");
+        }
+        propertyPolicy = property.policy();
+      }
+      else if (!methodSignatureIsAccessor(method)
+        || !ACCESSOR_PATTERN.matcher(method.getSimpleName()).matches()) {
+        continue;
+      }
+      if (propertyPolicy != null || AutoDetectPolicy.METHOD == autoDetectPolicy) {
+        Set<PropertyRole> roles = overridableMethods.checkAndMaybeAddRolesToMethod(
+          method, PropertyFilter.getRoles(propertyPolicy, classPolicy));
+        addProperty(classProperties, method, method.getReturnType(), property, roles);
+      }
+    }
+    for (PropertyRole role: PropertyRole.values()) {
+      properties.get(role).addAll(classProperties.get(role));
+    }
+  }
+
+  private void addProperty(
+    Map<PropertyRole, List<PropertyModel>> classProperties,
+    Element element,
+    TypeMirror type,
+    Property property,
+    Set<PropertyRole> roles) {
+    if (!roles.isEmpty()) {
+      PropertyModel propertyModel =
+        new PropertyModel(element, types.erasure(type), property);
+      for (PropertyRole role: roles) {
+        classProperties.get(role).add(propertyModel);
+      }
+    }
+  }
+
+  /**
+   * Check a field in which a pojo class caches a value, as at runtime, and that generated code can access it.
+   * @param pojoClass the pojo class
+   * @param fieldName the name of the field
+   * @param typeName the name of the type the field must have
+   * @param annotationClass the annotation specifying the field
+   * @param cachedValue a description of the cached value
+   * @return the name of the field
+   */
+  private static String checkCacheField(
+    TypeElement pojoClass, String fieldName, String typeName, Class<? extends Annotation> annotationClass,
+    String cachedValue) throws SkipGenerationException {
+    for (VariableElement field: ElementFilter.fieldsIn(pojoClass.getEnclosedElements())) {
+      if (field.getSimpleName().contentEquals(fieldName)) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)
+          || !field.asType().toString().equals(typeName)) {
+          break;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+          throw new SkipGenerationException(
+            Diagnostic.Kind.NOTE, "its " + cachedValue + " is cached in private field " + fieldName);
+        }
+        return fieldName;
+      }
+    }
+    throw new SkipGenerationException(
+      Diagnostic.Kind.WARNING,
+      "it is annotated with @" + annotationClass.getSimpleName() + ", but does not declare a non-static, non-final "
+      + typeName + " field named " + fieldName);
+  }
+
+  private static boolean methodSignatureIsAccessor(ExecutableElement method) {
+    return method.getReturnType().getKind() != TypeKind.VOID && method.getParameters().isEmpty();
+  }
+
+  private TypeElement pojoFormatterClass(TypeElement clazz) {
+    String pojoFormatName = PojoFormat.class.getCanonicalName();
+    for (AnnotationMirror annotation: clazz.getAnnotationMirrors()) {
+      if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(pojoFormatName)) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry:
+          annotation.getElementValues().entrySet()) {
+          if (entry.getKey().getSimpleName().contentEquals("value")) {
+            return (TypeElement) ((DeclaredType) entry.getValue().getValue()).asElement();
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Whether generated code in {@link #packageName} can refer to a class by name.
+   */
+  private boolean isAccessible(TypeElement clazz) {
+    for (Element element = clazz; element instanceof TypeElement; element = element.getEnclosingElement()) {
+      Set<Modifier> modifiers = element.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (!modifiers.contains(Modifier.PUBLIC) && !isInPackage(element)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasAccessibleNoArgConstructor(TypeElement clazz) {
+    if (clazz.getModifiers().contains(Modifier.ABSTRACT)
+      || (clazz.getNestingKind() == NestingKind.MEMBER && !clazz.getModifiers().contains(Modifier.STATIC))) {
+      return false;
+    }
+    for (ExecutableElement constructor: ElementFilter.constructorsIn(clazz.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()) {
+        return isAccessibleMember(constructor) && constructor.getThrownTypes().isEmpty();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether generated code can read a property directly, rather than through a method handle. This requires that the
+   * field or method be accessible to the generated class, that the type of the property can be named by it, and
+   * (for methods) that it does not declare any checked exceptions.
+   */
+  private boolean canAccessDirectly(PropertyModel property) {
+    return isAccessibleMember(property.element) && !property.throwsExceptions() && isAccessible(property.erasedType);
+  }
+
+  /**
+   * Mirrors {@link org.pojomatic.internal.ClassProperties#equalsCost(org.pojomatic.PropertyElement)}.
+   */
+  private int equalsCost(PropertyModel property) {
+    Property annotation = property.element.getAnnotation(Property.class);
+    if (annotation != null && annotation.equalsCost() >= 0) {
+      return annotation.equalsCost();
+    }
+    TypeMirror type = property.erasedType;
+    if (type.getKind().isPrimitive()) {
+      return 0;
+    }
+    if (type.getKind() == TypeKind.ARRAY) {
+      return 3;
+    }
+    if (type.getKind() == TypeKind.DECLARED) {
+      TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+      String typeName = typeElement.getQualifiedName().toString();
+      if (typeElement.getKind() == ElementKind.ENUM) {
+        return 0;
+      }
+      if (BOXED_OR_STRING_TYPES.contains(typeName)) {
+        return 1;
+      }
+      if ("java.lang.Object".equals(typeName) || isSubtype(type, "java.util.Collection")
+        || isSubtype(type, "java.util.Map")) {
+        return 3;
+      }
+    }
+    return 2;
+  }
+
+  private boolean isSubtype(TypeMirror type, String className) {
+    return types.isAssignable(type, types.erasure(elements.getTypeElement(className).asType()));
+  }
+
+  private boolean isAccessibleMember(Element member) {
+    Set<Modifier> modifiers = member.getModifiers();
+    if (modifiers.contains(Modifier.PRIVATE)) {
+      return false;
+    }
+    return modifiers.contains(Modifier.PUBLIC) || isInPackage(member);
+  }
+
+  private boolean isAccessible(TypeMirror type) {
+    if (type.getKind() == TypeKind.ARRAY) {
+      return isAccessible(((ArrayType) type).getComponentType());
+    }
+    if (type.getKind() == TypeKind.DECLARED) {
+      return isAccessible((TypeElement) ((DeclaredType) type).asElement());
+    }
+    return true;
+  }
+
+  private boolean isInPackage(Element element) {
+    return elements.getPackageOf(element).getQualifiedName().contentEquals(packageName);
+  }
+
+  /**
+   * The compile-time analog of {@code org.pojomatic.internal.OverridableMethods}. Public and protected methods are
+   * tracked by name; package private methods by name and package.
+   */
+  private class OverridableMethods {
+    private final Map<String, Set<PropertyRole>> publicOrProtectedMethods = new HashMap<>();
+    private final Map<String, Set<PropertyRole>> packageMethods = new HashMap<>();
+
+    Set<PropertyRole> checkAndMaybeAddRolesToMethod(ExecutableElement method, Set<PropertyRole> newRoles)
+      throws SkipGenerationException {
+      Set<PropertyRole> existingRoles = findExistingRoles(method);
+      if (existingRoles.contains(PropertyRole.EQUALS)
+        && !existingRoles.contains(PropertyRole.HASH_CODE)
+        && newRoles.contains(PropertyRole.HASH_CODE)) {
+        throw new SkipGenerationException(
+          Diagnostic.Kind.WARNING,
+          "method " + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName()
+          + " is requested to be included in hashCode computations, but already overrides a method"
+          + " which is requested for equals computations, but not hashCode computations.");
+      }
+      Set<PropertyRole> addedRoles = EnumSet.noneOf(PropertyRole.class);
+      for (PropertyRole role : newRoles) {
+        if (!existingRoles.contains(role)) {
+          addedRoles.add(role);
+          existingRoles.add(role);
+        }
+      }
+      return addedRoles;
+    }
+
+    private Set<PropertyRole> findExistingRoles(ExecutableElement method) {
+      String name = method.getSimpleName().toString();
+      String packageMethodKey = elements.getPackageOf(method).getQualifiedName() + "#" + name;
+      Set<PropertyRole> existingRoles;
+      if (!(method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.PROTECTED))) {
+        existingRoles = packageMethods.get(packageMethodKey);
+        if (existingRoles == null) {
+          existingRoles = EnumSet.noneOf(PropertyRole.class);
+          packageMethods.put(packageMethodKey, existingRoles);
+        }
+      }
+      else {
+        existingRoles = publicOrProtectedMethods.get(name);
+        if (existingRoles == null) {
+          existingRoles = packageMethods.get(packageMethodKey);
+        }
+        if (existingRoles == null) {
+          existingRoles = EnumSet.noneOf(PropertyRole.class);
+          publicOrProtectedMethods.put(name, existingRoles);
+        }
+      }
+      return existingRoles;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package org.pojomatic.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.Property;
+
+/**
+ * An annotation processor which generates a {@link org.pojomatic.Pojomator} at compile time for each class annotated
+ * with {@link AutoProperty}, or with members annotated with {@link Property}.
+ * {@link org.pojomatic.Pojomatic#pojomator(Class)} will use a generated pojomator if it finds one, rather than
+ * generating one at runtime; this reduces startup costs, and allows Pojomatic to be used in environments where
+ * defining classes at runtime is not possible.
+ * <p>
+ * Classes for which a pojomator cannot be generated at compile time (for example, private nested classes) are
+ * skipped with a note; their pojomators will continue to be generated at runtime. Similarly, subclasses of a processed
+ * class which are not themselves annotated will have their pojomators generated at runtime.
+ */
+public class PojomaticProcessor extends AbstractProcessor {
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return new LinkedHashSet<>(
+      Arrays.asList(AutoProperty.class.getCanonicalName(), Property.class.getCanonicalName()));
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> pojoClasses = new LinkedHashSet<>();
+    for (Element element: roundEnv.getElementsAnnotatedWith(AutoProperty.class)) {
+      if (element instanceof TypeElement) {
+        pojoClasses.add((TypeElement) element);
+      }
+    }
+    for (Element element: roundEnv.getElementsAnnotatedWith(Property.class)) {
+      if (element.getEnclosingElement() instanceof TypeElement) {
+        pojoClasses.add((TypeElement) element.getEnclosingElement());
+      }
+    }
+    for (TypeElement pojoClass: pojoClasses) {
+      generate(pojoClass);
+    }
+    return false;
+  }
+
+  private void generate(TypeElement pojoClass) {
+    ClassModel model;
+    try {
+      model = new ClassModel(pojoClass, processingEnv.getElementUtils(), processingEnv.getTypeUtils());
+    }
+    catch (SkipGenerationException e) {
+      processingEnv.getMessager().printMessage(
+        e.getKind(), "Not generating a Pojomator for " + pojoClass.getQualifiedName() + ": " + e.getMessage(),
+        pojoClass);
+      return;
+    }
+    try {
+      JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(model.generatedClassName, pojoClass);
+      try (Writer writer = sourceFile.openWriter()) {
+        new PojomatorWriter(model).write(writer);
+      }
+    }
+    catch (IOException e) {
+      processingEnv.getMessager().printMessage(
+        Diagnostic.Kind.ERROR,
+        "Unable to write Pojomator " + model.generatedClassName + ": " + e.getMessage(),
+        pojoClass);
+    }
+  }
+}
@@ -0,0 +1,420 @@
+package org.pojomatic.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes the source for a {@link org.pojomatic.generated.GeneratedPojomator}. The generated methods mirror those
+ * produced at runtime by {@code org.pojomatic.internal.PojomatorByteCodeGenerator}, so that a class behaves the same
+ * whether or not it was compiled with the annotation processor.
+ */
+class PojomatorWriter {
+  private final ClassModel model;
+  private final StringBuilder out = new StringBuilder();
+
+  PojomatorWriter(ClassModel model) {
+    this.model = model;
+  }
+
+  void write(Writer writer) throws IOException {
+    writeClass();
+    writer.write(out.toString());
+  }
+
+  private void writeClass() {
+    if (!model.packageName.isEmpty()) {
+      line("package " + model.packageName + ";");
+      line("");
+    }
+    line("/**");
+    line(" * Pojomator for {@link " + model.pojoClassName + "}.");
+    line(" * Generated by " + PojomaticProcessor.class.getName() + "; do not edit.");
+    line(" */");
+    line("@SuppressWarnings({\"rawtypes\", \"unchecked\", \"deprecation\"})");
+    line("public final class " + model.generatedSimpleName
+      + " extends org.pojomatic.generated.GeneratedPojomator<" + model.pojoTypeName + "> {");
+    writeStaticFields();
+    writeConstructor();
+    writeDoEquals();
+    writeDoHashCode();
+    if (model.toStringCacheFieldName != null) {
+      writeDoToString();
+    }
+    writeDoAppendTo();
+    writeDoDiff();
+    writeDoCompare();
+    writeAccessors();
+    line("}");
+  }
+
+  private void writeStaticFields() {
+    for (PropertyModel property: model.getAllProperties()) {
+      line("  private static final org.pojomatic.PropertyElement " + elementName(property) + " = "
+        + (property.isMethod() ? "method(" : "field(") + property.declaringClass.getQualifiedName() + ".class, "
+        + quote(property.elementName()) + ", " + quote(property.annotatedName) + ");");
+    }
+    for (PropertyModel property: model.getToStringProperties()) {
+      line("  private static final org.pojomatic.formatter.EnhancedPropertyFormatter " + formatterName(property)
+        + " = propertyFormatter(" + elementName(property) + ");");
+    }
+    for (PropertyModel property: model.getAllProperties()) {
+      if (!property.directAccess) {
+        line("  private final java.lang.invoke.MethodHandle " + handleName(property) + ";");
+      }
+    }
+  }
+
+  private void writeConstructor() {
+    line("");
+    line("  public " + model.generatedSimpleName + "() {");
+    line("    super(");
+    line("      " + model.pojoClassName + ".class,");
+    line("      " + names(model.getEqualsProperties()) + ",");
+    line("      " + names(model.getHashCodeProperties()) + ",");
+    line("      " + names(model.getToStringProperties()) + ");");
+    for (PropertyModel property: model.getAllProperties()) {
+      if (!property.directAccess) {
+        line("    " + handleName(property) + " = accessor(" + elementName(property) + ");");
+      }
+    }
+    line("  }");
+  }
+
+  private void writeDoEquals() {
+    line("");
+    line("  @Override");
+    line("  public boolean doEquals(" + model.pojoTypeName + " pojo1, java.lang.Object pojo2) {");
+    line("    checkNotNull(pojo1);");
+    line("    if (pojo1 == pojo2) {");
+    line("      return true;");
+    line("    }");
+    line("    if (pojo2 == null || !isCompatibleForEquality(pojo2.getClass())) {");
+    line("      return false;");
+    line("    }");
+    if (model.hashCodeCacheFieldName != null) {
+      String hashCode1 = "pojo1." + model.hashCodeCacheFieldName;
+      line("    if (" + hashCode1 + " != 0 && pojo2 instanceof " + model.pojoClassName + ") {");
+      line("      int otherHashCode = ((" + model.pojoClassName + ") pojo2)." + model.hashCodeCacheFieldName + ";");
+      line("      if (otherHashCode != 0 && otherHashCode != " + hashCode1 + ") {");
+      line("        return false;");
+      line("      }");
+      line("    }");
+    }
+    for (PropertyModel property: model.getEqualsComparisonOrder()) {
+      line("    if (" + notEqual(property, accessor(property, "pojo1"), accessor(property, "pojo2")) + ") {");
+      line("      return false;");
+      line("    }");
+    }
+    line("    return true;");
+    line("  }");
+  }
+
+  private void writeDoHashCode() {
+    line("");
+    line("  @Override");
+    line("  public int doHashCode(" + model.pojoTypeName + " pojo) {");
+    line("    checkNotNull(pojo);");
+    if (model.hashCodeCacheFieldName != null) {
+      line("    int cachedHashCode = pojo." + model.hashCodeCacheFieldName + ";");
+      line("    if (cachedHashCode != 0) {");
+      line("      return cachedHashCode;");
+      line("    }");
+    }
+    line("    int result = 1;");
+    for (PropertyModel property: model.getHashCodeProperties()) {
+      String value = valueName(property, "");
+      line("    " + property.valueTypeName() + " " + value + " = " + accessor(property, "pojo") + ";");
+      line("    result = 31 * result + " + hashCode(property, value) + ";");
+    }
+    if (model.hashCodeCacheFieldName != null) {
+      line("    pojo." + model.hashCodeCacheFieldName + " = result;");
+    }
+    line("    return result;");
+    line("  }");
+  }
+
+  private void writeDoToString() {
+    line("");
+    line("  @Override");
+    line("  public java.lang.String doToString(" + model.pojoTypeName + " pojo) {");
+    line("    checkNotNull(pojo);");
+    line("    java.lang.String cachedString = pojo." + model.toStringCacheFieldName + ";");
+    line("    if (cachedString != null) {");
+    line("      return cachedString;");
+    line("    }");
+    line("    java.lang.String result = super.doToString(pojo);");
+    line("    pojo." + model.toStringCacheFieldName + " = result;");
+    line("    return result;");
+    line("  }");
+  }
+
+  private void writeDoAppendTo() {
+    line("");
+    line("  @Override");
+    line("  public void doAppendTo(" + model.pojoTypeName + " pojo, java.lang.StringBuilder builder) {");
+    line("    checkNotNull(pojo);");
+    line("    checkNotNull(builder);");
+    line("    org.pojomatic.formatter.EnhancedPojoFormatter pojoFormatter = " + newPojoFormatter() + ";");
+    line("    pojoFormatter.appendToStringPrefix(builder, pojoClass);");
+    for (PropertyModel property: model.getToStringProperties()) {
+      line("    pojoFormatter.appendPropertyPrefix(builder, " + elementName(property) + ");");
+      line("    " + formatterName(property)
+        + (property.possiblyHoldingArray ? ".appendFormattedPossibleArray(" : ".appendFormatted(")
+        + "builder, " + accessor(property, "pojo") + ");");
+      line("    pojoFormatter.appendPropertySuffix(builder, " + elementName(property) + ");");
+    }
+    line("    pojoFormatter.appendToStringSuffix(builder, pojoClass);");
+    line("  }");
+  }
+
+  private String newPojoFormatter() {
+    if (model.pojoFormatterClassName == null) {
+      return "new org.pojomatic.formatter.DefaultEnhancedPojoFormatter()";
+    }
+    else if (model.enhancedPojoFormatter) {
+      return "new " + model.pojoFormatterClassName + "()";
+    }
+    else {
+      return "enhance(new " + model.pojoFormatterClassName + "())";
+    }
+  }
+
+  private void writeDoDiff() {
+    line("");
+    line("  @Override");
+    line("  public void doDiff(" + model.pojoTypeName + " instance, " + model.pojoTypeName
+      + " other, org.pojomatic.diff.DiffVisitor visitor) {");
+    line("    checkNotNull(visitor);");
+    line("    checkNotNull(instance, \"instance is null\");");
+    line("    checkNotNull(other, \"other is null\");");
+    line("    if (instance == other) {");
+    line("      return;");
+    line("    }");
+    line("    checkCompatibleForEquality(instance, \"instance\");");
+    line("    checkCompatibleForEquality(other, \"other\");");
+    // As with runtime generated pojomators, diff considers the hashCode properties.
+    for (PropertyModel property: model.getHashCodeProperties()) {
+      String value1 = valueName(property, "_1");
+      String value2 = valueName(property, "_2");
+      line("    " + property.valueTypeName() + " " + value1 + " = " + accessor(property, "instance") + ";");
+      line("    " + property.valueTypeName() + " " + value2 + " = " + accessor(property, "other") + ";");
+      line("    if (" + notEqual(property, value1, value2) + ") {");
+      line("      visitor." + visitorMethod(property) + "(" + elementName(property) + ", " + value1 + ", " + value2
+        + ");");
+      line("    }");
+    }
+    line("  }");
+  }
+
+  /**
+   * The name of the {@link org.pojomatic.diff.DiffVisitor} method for differences in a property.
+   */
+  private static String visitorMethod(PropertyModel property) {
+    switch (property.valueKind) {
+      case BOOLEAN:
+        return "onBooleanDifference";
+      case BYTE:
+        return "onByteDifference";
+      case CHAR:
+        return "onCharDifference";
+      case SHORT:
+        return "onShortDifference";
+      case INT:
+        return "onIntDifference";
+      case LONG:
+        return "onLongDifference";
+      case FLOAT:
+        return "onFloatDifference";
+      case DOUBLE:
+        return "onDoubleDifference";
+      default:
+        return "onObjectDifference";
+    }
+  }
+
+  private void writeDoCompare() {
+    line("");
+    line("  @Override");
+    line("  public int doCompare(" + model.pojoTypeName + " instance, " + model.pojoTypeName + " other) {");
+    line("    checkNotNull(instance, \"instance is null\");");
+    line("    checkNotNull(other, \"other is null\");");
+    line("    if (instance == other) {");
+    line("      return 0;");
+    line("    }");
+    line("    checkCompatibleForEquality(instance, \"instance\");");
+    line("    checkCompatibleForEquality(other, \"other\");");
+    line("    int result;");
+    for (PropertyModel property: model.getCompareProperties()) {
+      line("    if ((result = " + compare(property, accessor(property, "instance"), accessor(property, "other"))
+        + ") != 0) {");
+      line("      return result;");
+      line("    }");
+    }
+    line("    return 0;");
+    line("  }");
+  }
+
+  /**
+   * An expression comparing two values of a property, following the same rules as the runtime bytecode generator.
+   */
+  private static String compare(PropertyModel property, String value1, String value2) {
+    switch (property.valueKind) {
+      case BOOLEAN:
+        return "java.lang.Boolean.compare(" + value1 + ", " + value2 + ")";
+      case BYTE:
+      case CHAR:
+      case SHORT:
+        return value1 + " - " + value2;
+      case INT:
+        return "java.lang.Integer.compare(" + value1 + ", " + value2 + ")";
+      case LONG:
+        return "java.lang.Long.compare(" + value1 + ", " + value2 + ")";
+      case FLOAT:
+        return "java.lang.Float.compare(" + value1 + ", " + value2 + ")";
+      case DOUBLE:
+        return "java.lang.Double.compare(" + value1 + ", " + value2 + ")";
+      default:
+        return "compareValues(" + value1 + ", " + value2 + ", " + property.nullsFirst + ")";
+    }
+  }
+
+  private void writeAccessors() {
+    for (PropertyModel property: model.getAllProperties()) {
+      line("");
+      line("  private " + (property.directAccess ? "static " : "") + property.valueTypeName() + " "
+        + accessorName(property)
+        + "(java.lang.Object pojo) {");
+      if (property.directAccess) {
+        line("    return ((" + property.declaringClass.getQualifiedName() + ") pojo)." + property.elementName()
+          + (property.isMethod() ? "()" : "") + ";");
+      }
+      else {
+        line("    try {");
+        line("      return (" + property.valueTypeName() + ") " + handleName(property) + ".invokeExact(pojo);");
+        line("    }");
+        line("    catch (java.lang.Throwable t) {");
+        line("      throw rethrow(t);");
+        line("    }");
+      }
+      line("  }");
+    }
+  }
+
+  /**
+   * An expression which is true if two values of a property are not equal, following the same rules as the runtime
+   * bytecode generator.
+   */
+  private static String notEqual(PropertyModel property, String value1, String value2) {
+    switch (property.valueKind) {
+      case FLOAT:
+        return "java.lang.Float.floatToIntBits(" + value1 + ") != java.lang.Float.floatToIntBits(" + value2 + ")";
+      case DOUBLE:
+        return "java.lang.Double.doubleToLongBits(" + value1 + ")"
+          + " != java.lang.Double.doubleToLongBits(" + value2 + ")";
+      case PRIMITIVE_ARRAY:
+        return "!java.util.Arrays.equals(" + value1 + ", " + value2 + ")";
+      case OBJECT_ARRAY:
+        return "!compareArrays(" + value1 + ", " + value2 + ")";
+      case OBJECT:
+        return property.possiblyHoldingArray
+          ? "!areObjectValuesEqual(" + value1 + ", " + value2 + ")"
+          : "!java.util.Objects.equals(" + value1 + ", " + value2 + ")";
+      default:
+        return value1 + " != " + value2;
+    }
+  }
+
+  private static String hashCode(PropertyModel property, String value) {
+    switch (property.valueKind) {
+      case BOOLEAN:
+        return "(" + value + " ? 1231 : 1237)";
+      case LONG:
+        return "(int) (" + value + " ^ (" + value + " >>> 32))";
+      case FLOAT:
+        return "java.lang.Float.floatToIntBits(" + value + ")";
+      case DOUBLE:
+        return "(int) (java.lang.Double.doubleToLongBits(" + value + ")"
+          + " ^ (java.lang.Double.doubleToLongBits(" + value + ") >>> 32))";
+      case PRIMITIVE_ARRAY:
+        return "(" + value + " == null ? 0 : java.util.Arrays.hashCode(" + value + "))";
+      case OBJECT_ARRAY:
+        return "(" + value + " == null ? 0 : java.util.Arrays." + (property.deepArray ? "deepHashCode(" : "hashCode(")
+          + value + "))";
+      case OBJECT:
+        return property.possiblyHoldingArray
+          ? "(" + value + " == null ? 0 : " + value + ".getClass().isArray() ? arrayHashCode(" + value + ", true) : "
+            + value + ".hashCode())"
+          : "(" + value + " == null ? 0 : " + value + ".hashCode())";
+      default:
+        return value;
+    }
+  }
+
+  private static String accessor(PropertyModel property, String pojo) {
+    return accessorName(property) + "(" + pojo + ")";
+  }
+
+  private static String accessorName(PropertyModel property) {
+    return "get_" + property.index + "_" + property.elementName();
+  }
+
+  private static String elementName(PropertyModel property) {
+    return "element_" + property.index;
+  }
+
+  private static String formatterName(PropertyModel property) {
+    return "formatter_" + property.index;
+  }
+
+  private static String handleName(PropertyModel property) {
+    return "handle_" + property.index;
+  }
+
+  private static String valueName(PropertyModel property, String suffix) {
+    return "value_" + property.index + suffix;
+  }
+
+  private static String names(List<PropertyModel> properties) {
+    StringBuilder builder = new StringBuilder("new java.lang.String[] {");
+    for (int i = 0; i < properties.size(); i++) {
+      builder.append(i == 0 ? " " : ", ").append(quote(properties.get(i).name));
+    }
+    return builder.append(properties.isEmpty() ? "}" : " }").toString();
+  }
+
+  private static String quote(String string) {
+    StringBuilder builder = new StringBuilder("\"");
+    for (char c: string.toCharArray()) {
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (c < ' ' || c > '~') {
+            builder.append(String.format("\\u%04x", (int) c));
+          }
+          else {
+            builder.append(c);
+          }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  private void line(String line) {
+    out.append(line).append('\n');
+  }
+}
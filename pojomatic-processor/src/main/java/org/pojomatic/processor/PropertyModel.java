@@ -0,0 +1,177 @@
+package org.pojomatic.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+import org.pojomatic.annotations.NullOrdering;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.annotations.SkipArrayCheck;
+
+/**
+ * The compile-time analog of {@link org.pojomatic.PropertyElement}: a field or no-arg method of a pojo class which
+ * is used by at least one of the methods of a generated pojomator.
+ */
+class PropertyModel {
+  /**
+   * How generated code treats the value of a property. This mirrors the "effective type" used by the runtime
+   * bytecode generator: primitives and arrays of primitives are kept as is, other arrays are treated as
+   * {@code Object[]}, and everything else as {@code Object}.
+   */
+  enum ValueKind {
+    BOOLEAN("boolean"), BYTE("byte"), CHAR("char"), SHORT("short"), INT("int"), LONG("long"), FLOAT("float"),
+    DOUBLE("double"), PRIMITIVE_ARRAY(null), OBJECT_ARRAY("java.lang.Object[]"), OBJECT("java.lang.Object");
+
+    final String typeName;
+
+    private ValueKind(String typeName) {
+      this.typeName = typeName;
+    }
+
+    boolean isPrimitive() {
+      return ordinal() <= DOUBLE.ordinal();
+    }
+  }
+
+  final Element element;
+  final TypeElement declaringClass;
+  final String name;
+  final String annotatedName;
+  final TypeMirror erasedType;
+  final ValueKind valueKind;
+  final boolean possiblyHoldingArray;
+  final boolean deepArray;
+  final int compareOrder;
+  final boolean nullsFirst;
+
+  /**
+   * The index of this property among all properties of the pojo; assigned once all properties are known.
+   */
+  int index;
+
+  /**
+   * Whether generated code can read this property directly, rather than through a method handle.
+   */
+  boolean directAccess;
+
+  /**
+   * The relative cost of comparing values of this property for equality, as by
+   * {@link org.pojomatic.internal.ClassProperties#equalsCost(org.pojomatic.PropertyElement)}; assigned once all
+   * properties are known.
+   */
+  int equalsCost;
+
+  PropertyModel(Element element, TypeMirror erasedType, Property property) {
+    this.element = element;
+    this.declaringClass = (TypeElement) element.getEnclosingElement();
+    this.annotatedName = property == null ? "" : property.name();
+    this.erasedType = erasedType;
+    this.name = annotatedName.isEmpty() ? defaultName(element, erasedType) : annotatedName;
+    this.valueKind = valueKind(erasedType);
+    this.possiblyHoldingArray = valueKind == ValueKind.OBJECT
+      && "java.lang.Object".equals(erasedType.toString())
+      && element.getAnnotation(SkipArrayCheck.class) == null;
+    this.deepArray = valueKind == ValueKind.OBJECT_ARRAY && isDeepArray((ArrayType) erasedType);
+    this.compareOrder = property == null ? 0 : property.compareOrder();
+    this.nullsFirst = property == null || property.nullOrdering() == NullOrdering.FIRST;
+  }
+
+  boolean isMethod() {
+    return element.getKind() == ElementKind.METHOD;
+  }
+
+  String elementName() {
+    return element.getSimpleName().toString();
+  }
+
+  /**
+   * The type name to use for values of this property in generated code.
+   * @return the type name to use for values of this property in generated code.
+   */
+  String valueTypeName() {
+    return valueKind == ValueKind.PRIMITIVE_ARRAY ? erasedType.toString() : valueKind.typeName;
+  }
+
+  boolean throwsExceptions() {
+    return isMethod() && !((ExecutableElement) element).getThrownTypes().isEmpty();
+  }
+
+  private static ValueKind valueKind(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return ValueKind.BOOLEAN;
+      case BYTE:
+        return ValueKind.BYTE;
+      case CHAR:
+        return ValueKind.CHAR;
+      case SHORT:
+        return ValueKind.SHORT;
+      case INT:
+        return ValueKind.INT;
+      case LONG:
+        return ValueKind.LONG;
+      case FLOAT:
+        return ValueKind.FLOAT;
+      case DOUBLE:
+        return ValueKind.DOUBLE;
+      case ARRAY:
+        return ((ArrayType) type).getComponentType().getKind().isPrimitive()
+          ? ValueKind.PRIMITIVE_ARRAY
+          : ValueKind.OBJECT_ARRAY;
+      default:
+        return ValueKind.OBJECT;
+    }
+  }
+
+  /**
+   * Mirrors the runtime rule that a property of type {@code Object[]}, or an array whose component type is an array,
+   * is hashed with {@link java.util.Arrays#deepHashCode(Object[])}.
+   */
+  private static boolean isDeepArray(ArrayType type) {
+    TypeMirror componentType = type.getComponentType();
+    return componentType.getKind() == TypeKind.ARRAY || "java.lang.Object".equals(componentType.toString());
+  }
+
+  /**
+   * Mirrors the naming rules of {@link org.pojomatic.internal.PropertyAccessor} and
+   * {@link org.pojomatic.internal.PropertyField}.
+   */
+  private static String defaultName(Element element, TypeMirror type) {
+    String elementName = element.getSimpleName().toString();
+    if (element.getKind() != ElementKind.METHOD) {
+      return elementName;
+    }
+    if (isPrefixedWith(elementName, "get")) {
+      return decapitalize(elementName.substring(3));
+    }
+    else if (isBoolean(type) && isPrefixedWith(elementName, "is")) {
+      return decapitalize(elementName.substring(2));
+    }
+    else {
+      return elementName;
+    }
+  }
+
+  private static boolean isBoolean(TypeMirror type) {
+    return type.getKind() == TypeKind.BOOLEAN || "java.lang.Boolean".equals(type.toString());
+  }
+
+  private static boolean isPrefixedWith(String name, String prefix) {
+    return name.length() > prefix.length()
+      && name.startsWith(prefix)
+      && Character.isUpperCase(name.charAt(prefix.length()));
+  }
+
+  private static String decapitalize(String name) {
+    if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+      return name;
+    }
+    char chars[] = name.toCharArray();
+    chars[0] = Character.toLowerCase(chars[0]);
+    return new String(chars);
+  }
+}
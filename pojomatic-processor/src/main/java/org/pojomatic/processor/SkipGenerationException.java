@@ -0,0 +1,27 @@
+package org.pojomatic.processor;
+
+import javax.tools.Diagnostic;
+
+/**
+ * Thrown when a pojomator cannot, or should not, be generated for a class at compile time. The class will still work
+ * with Pojomatic; its pojomator will be generated at runtime, as if this processor had not been run.
+ */
+class SkipGenerationException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  private final Diagnostic.Kind kind;
+
+  /**
+   * @param kind the kind of diagnostic to report; {@link Diagnostic.Kind#WARNING WARNING} if runtime generation will
+   * fail as well, {@link Diagnostic.Kind#NOTE NOTE} otherwise.
+   * @param message the reason the pojomator was not generated
+   */
+  SkipGenerationException(Diagnostic.Kind kind, String message) {
+    super(message);
+    this.kind = kind;
+  }
+
+  Diagnostic.Kind getKind() {
+    return kind;
+  }
+}
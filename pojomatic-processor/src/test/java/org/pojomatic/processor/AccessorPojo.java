@@ -0,0 +1,42 @@
+package org.pojomatic.processor;
+
+import org.pojomatic.annotations.AutoDetectPolicy;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.PojomaticPolicy;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.annotations.PropertyFormat;
+import org.pojomatic.formatter.AccountNumberFormatter;
+
+@AutoProperty(autoDetect = AutoDetectPolicy.METHOD)
+public class AccessorPojo {
+  private final String name;
+  private final boolean active;
+  private final String accountNumber;
+  private final int hidden;
+
+  public AccessorPojo(String name, boolean active, String accountNumber, int hidden) {
+    this.name = name;
+    this.active = active;
+    this.accountNumber = accountNumber;
+    this.hidden = hidden;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  @PropertyFormat(AccountNumberFormatter.class)
+  @Property(name = "account", policy = PojomaticPolicy.EQUALS_TO_STRING)
+  public String getAccountNumber() throws Exception {
+    return accountNumber;
+  }
+
+  @Property(policy = PojomaticPolicy.TO_STRING)
+  private int getHidden() {
+    return hidden;
+  }
+}
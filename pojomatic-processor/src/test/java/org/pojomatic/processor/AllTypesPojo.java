@@ -0,0 +1,34 @@
+package org.pojomatic.processor;
+
+import java.util.List;
+
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.SkipArrayCheck;
+
+@AutoProperty
+public class AllTypesPojo {
+  boolean booleanValue;
+  byte byteValue;
+  char charValue;
+  short shortValue;
+  int intValue;
+  long longValue;
+  float floatValue;
+  double doubleValue;
+  int[] intArray;
+  double[] doubleArray;
+  String[] stringArray;
+  Object[] objectArray;
+  int[][] intArrayArray;
+  String string;
+  Object object;
+  @SkipArrayCheck Object skippedArrayCheck;
+  List<String> list;
+  private long privateLong;
+  private Object privateObject;
+
+  void setPrivates(long privateLong, Object privateObject) {
+    this.privateLong = privateLong;
+    this.privateObject = privateObject;
+  }
+}
@@ -0,0 +1,16 @@
+package org.pojomatic.processor;
+
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.formatter.DefaultPojoFormatter;
+
+@AutoProperty
+@PojoFormat(DefaultPojoFormatter.class)
+public class ChildPojo extends ParentPojo {
+  String shadowed;
+
+  public ChildPojo(int parentValue, String parentShadowed, String shadowed) {
+    super(parentValue, parentShadowed);
+    this.shadowed = shadowed;
+  }
+}
@@ -0,0 +1,14 @@
+package org.pojomatic.processor;
+
+import org.pojomatic.annotations.Property;
+import org.pojomatic.processor.other.OtherPackageParent;
+
+public class OtherPackageChild extends OtherPackageParent {
+  @Property
+  final int own;
+
+  public OtherPackageChild(int inherited, int own) {
+    super(inherited);
+    this.own = own;
+  }
+}
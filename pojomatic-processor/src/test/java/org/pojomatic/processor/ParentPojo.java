@@ -0,0 +1,16 @@
+package org.pojomatic.processor;
+
+import org.pojomatic.annotations.Property;
+
+public class ParentPojo {
+  @Property
+  private int parentValue;
+
+  @Property
+  protected String shadowed;
+
+  public ParentPojo(int parentValue, String shadowed) {
+    this.parentValue = parentValue;
+    this.shadowed = shadowed;
+  }
+}
@@ -0,0 +1,393 @@
+package org.pojomatic.processor;
+
+import static org.testng.Assert.*;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.AutoDetectPolicy;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.pojomatic.annotations.CacheToString;
+import org.pojomatic.annotations.EqualsOrder;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.diff.DiffVisitor;
+import org.pojomatic.generated.GeneratedPojomator;
+import org.pojomatic.internal.PojomatorFactory;
+import org.pojomatic.internal.PropertyField;
+import org.pojomatic.processor.other.OtherPackageParent;
+import org.testng.annotations.Test;
+
+/**
+ * Verify that pojomators generated by {@link PojomaticProcessor} (which runs when compiling these tests) behave the
+ * same as those generated at runtime.
+ */
+public class PojomaticProcessorTest {
+
+  @AutoProperty
+  public static class GenericPojo<T extends Comparable<T>> {
+    T value;
+    List<T> values;
+
+    GenericPojo(T value, List<T> values) {
+      this.value = value;
+      this.values = values;
+    }
+  }
+
+  @AutoProperty(autoDetect = AutoDetectPolicy.METHOD, equalsOrder = EqualsOrder.COST)
+  public static class CostOrderedPojo {
+    static final List<String> ACCESSED = new ArrayList<>();
+
+    private final List<String> tags;
+    private final long version;
+
+    CostOrderedPojo(List<String> tags, long version) {
+      this.tags = tags;
+      this.version = version;
+    }
+
+    public List<String> getTags() {
+      ACCESSED.add("tags");
+      return tags;
+    }
+
+    public long getVersion() {
+      ACCESSED.add("version");
+      return version;
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  public static class CachedHashCodePojo {
+    final String s;
+    final int[] values;
+    int hash;
+
+    CachedHashCodePojo(String s, int... values) {
+      this.s = s;
+      this.values = values;
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  public static class PrivateCacheFieldPojo {
+    int x;
+    private int hash;
+  }
+
+  @AutoProperty
+  @CacheToString
+  public static class CachedToStringPojo {
+    final String s;
+    final int[] values;
+    String toString;
+
+    CachedToStringPojo(String s, int... values) {
+      this.s = s;
+      this.values = values;
+    }
+  }
+
+  public static class Outer {
+    public class Inner {
+      @Property int x;
+    }
+  }
+
+  @AutoProperty
+  private static class PrivatePojo {
+    int x;
+  }
+
+  @Test
+  public void testGeneratedPojomatorsAreUsed() {
+    for (Class<?> pojoClass: Arrays.<Class<?>>asList(
+      AllTypesPojo.class, AccessorPojo.class, ParentPojo.class, ChildPojo.class, OtherPackageChild.class,
+      OtherPackageParent.class, GenericPojo.class, Outer.Inner.class)) {
+      Pojomator<?> pojomator = Pojomatic.pojomator(pojoClass);
+      assertTrue(pojomator instanceof GeneratedPojomator, pojoClass.getName());
+      assertEquals(pojomator.getClass().getName(), GeneratedPojomator.generatedClassName(pojoClass.getName()));
+      assertEquals(pojomator.toString(), PojomatorFactory.makePojomator(pojoClass).toString());
+    }
+  }
+
+  @Test
+  public void testPrivateClassFallsBackToRuntimeGeneration() {
+    assertNull(PojomatorFactory.findGeneratedPojomator(PrivatePojo.class));
+    assertFalse(Pojomatic.pojomator(PrivatePojo.class) instanceof GeneratedPojomator);
+  }
+
+  @Test
+  public void testAllTypes() {
+    AllTypesPojo pojo = new AllTypesPojo();
+    AllTypesPojo populated = new AllTypesPojo();
+    populated.booleanValue = true;
+    populated.byteValue = -3;
+    populated.charValue = 'c';
+    populated.shortValue = 300;
+    populated.intValue = -7;
+    populated.longValue = Long.MIN_VALUE + 5;
+    populated.floatValue = Float.NaN;
+    populated.doubleValue = -0.0;
+    populated.intArray = new int[] { 1, 2 };
+    populated.doubleArray = new double[] { 1.5 };
+    populated.stringArray = new String[] { "a", null };
+    populated.objectArray = new Object[] { new int[] { 3 }, "b" };
+    populated.intArrayArray = new int[][] { { 4 }, { 5, 6 } };
+    populated.string = "string";
+    populated.object = new long[] { 7 };
+    populated.skippedArrayCheck = "skipped";
+    populated.list = Arrays.asList("x", "y");
+    populated.setPrivates(8, new String[] { "private" });
+    AllTypesPojo copy = new AllTypesPojo();
+    copy.booleanValue = true;
+    copy.byteValue = -3;
+    copy.charValue = 'c';
+    copy.shortValue = 300;
+    copy.intValue = -7;
+    copy.longValue = Long.MIN_VALUE + 5;
+    copy.floatValue = Float.NaN;
+    copy.doubleValue = -0.0;
+    copy.intArray = new int[] { 1, 2 };
+    copy.doubleArray = new double[] { 1.5 };
+    copy.stringArray = new String[] { "a", null };
+    copy.objectArray = new Object[] { new int[] { 3 }, "b" };
+    copy.intArrayArray = new int[][] { { 4 }, { 5, 6 } };
+    copy.string = "string";
+    copy.object = new long[] { 7 };
+    copy.skippedArrayCheck = "skipped";
+    copy.list = Arrays.asList("x", "y");
+    copy.setPrivates(8, new String[] { "private" });
+    AllTypesPojo zeroDouble = new AllTypesPojo();
+    zeroDouble.doubleValue = 0.0;
+    checkSameBehavior(AllTypesPojo.class, pojo, populated, copy, zeroDouble);
+  }
+
+  @Test
+  public void testAccessors() {
+    checkSameBehavior(
+      AccessorPojo.class,
+      new AccessorPojo("name", true, "1234567890", 1),
+      new AccessorPojo("name", true, "1234567890", 2),
+      new AccessorPojo("name", false, "1234567890", 1),
+      new AccessorPojo(null, true, "0987654321", 1));
+  }
+
+  @Test
+  public void testInheritance() {
+    checkSameBehavior(
+      ChildPojo.class,
+      new ChildPojo(1, "a", "b"),
+      new ChildPojo(1, "a", "b"),
+      new ChildPojo(1, "b", "b"),
+      new ChildPojo(2, "a", null));
+    checkSameBehavior(
+      OtherPackageChild.class,
+      new OtherPackageChild(1, 2),
+      new OtherPackageChild(1, 2),
+      new OtherPackageChild(3, 2),
+      new OtherPackageChild(1, 3));
+  }
+
+  @Test
+  public void testCompatibilityForEquality() {
+    Pojomator<ParentPojo> pojomator = Pojomatic.pojomator(ParentPojo.class);
+    ParentPojo parent = new ParentPojo(1, "a");
+    ChildPojo child = new ChildPojo(1, "a", "b");
+    assertTrue(pojomator.isCompatibleForEquality(ParentPojo.class));
+    assertFalse(pojomator.isCompatibleForEquality(ChildPojo.class));
+    assertFalse(pojomator.doEquals(parent, child));
+    try {
+      pojomator.doDiff(parent, child);
+      fail("exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals(
+        e.getMessage(),
+        "other has type org.pojomatic.processor.ChildPojo which is not compatible for equality with "
+        + "org.pojomatic.processor.ParentPojo");
+    }
+  }
+
+  @Test
+  public void testGenericPojo() {
+    checkSameBehavior(
+      GenericPojo.class,
+      new GenericPojo<>("a", Arrays.asList("b")),
+      new GenericPojo<>("a", Arrays.asList("b")),
+      new GenericPojo<>(1, Arrays.asList(2)));
+  }
+
+  @Test
+  public void testEqualsCostOrder() {
+    List<String> tags = Arrays.asList("a");
+    checkSameBehavior(
+      CostOrderedPojo.class,
+      new CostOrderedPojo(tags, 1),
+      new CostOrderedPojo(tags, 2),
+      new CostOrderedPojo(Arrays.asList("b"), 1));
+    CostOrderedPojo.ACCESSED.clear();
+    assertFalse(Pojomatic.pojomator(CostOrderedPojo.class).doEquals(
+      new CostOrderedPojo(tags, 1), new CostOrderedPojo(tags, 2)));
+    assertEquals(CostOrderedPojo.ACCESSED, Arrays.asList("version", "version"));
+  }
+
+  @Test
+  public void testCacheHashCode() {
+    checkSameBehavior(
+      CachedHashCodePojo.class,
+      new CachedHashCodePojo("a", 1, 2),
+      new CachedHashCodePojo("a", 1, 2),
+      new CachedHashCodePojo("b"));
+    CachedHashCodePojo pojo = new CachedHashCodePojo("a", 1, 2);
+    int hashCode = Pojomatic.pojomator(CachedHashCodePojo.class).doHashCode(pojo);
+    assertEquals(pojo.hash, hashCode);
+    // once cached, different hash codes make pojos unequal without comparing their properties
+    CachedHashCodePojo other = new CachedHashCodePojo("b");
+    Pojomatic.pojomator(CachedHashCodePojo.class).doHashCode(other);
+    assertFalse(Pojomatic.pojomator(CachedHashCodePojo.class).doEquals(pojo, other));
+    // a private cache field cannot be written by a generated pojomator
+    assertNull(PojomatorFactory.findGeneratedPojomator(PrivateCacheFieldPojo.class));
+    PrivateCacheFieldPojo privatePojo = new PrivateCacheFieldPojo();
+    assertEquals(Pojomatic.pojomator(PrivateCacheFieldPojo.class).doHashCode(privatePojo), 31);
+    assertEquals(privatePojo.hash, 31);
+  }
+
+  @Test
+  public void testCacheToString() {
+    checkSameBehavior(
+      CachedToStringPojo.class,
+      new CachedToStringPojo("a", 1, 2),
+      new CachedToStringPojo("a", 1, 2),
+      new CachedToStringPojo("b"));
+    CachedToStringPojo pojo = new CachedToStringPojo("a", 1, 2);
+    String string = Pojomatic.pojomator(CachedToStringPojo.class).doToString(pojo);
+    assertEquals(string, "CachedToStringPojo{s: {a}, values: {[1, 2]}}");
+    assertSame(pojo.toString, string);
+    assertSame(Pojomatic.pojomator(CachedToStringPojo.class).doToString(pojo), string);
+  }
+
+  @Test
+  public void testNulls() {
+    Pojomator<AllTypesPojo> pojomator = Pojomatic.pojomator(AllTypesPojo.class);
+    assertFalse(pojomator.doEquals(new AllTypesPojo(), null));
+    try {
+      pojomator.doHashCode(null);
+      fail("exception expected");
+    }
+    catch (NullPointerException e) {}
+    try {
+      pojomator.doDiff(new AllTypesPojo(), null);
+      fail("exception expected");
+    }
+    catch (NullPointerException e) {
+      assertEquals(e.getMessage(), "other is null");
+    }
+  }
+
+  @Test
+  public void testAccessorRefusesOtherClasses() throws Exception {
+    RoguePojomator rogue = new RoguePojomator(AccessorPojo.class);
+    try {
+      rogue.steal(new PropertyField(String.class.getDeclaredField("hash"), ""));
+      fail("exception expected");
+    }
+    catch (SecurityException e) {
+      assertEquals(e.getMessage(), "java.lang.String is not " + AccessorPojo.class.getName()
+        + " or one of its superclasses");
+    }
+    try {
+      rogue.steal(new PropertyField(AccessorPojo.class.getDeclaredField("hidden"), ""));
+      fail("exception expected");
+    }
+    catch (SecurityException e) {
+      assertEquals(e.getMessage(), RoguePojomator.class.getName() + " is not the generated pojomator for "
+        + AccessorPojo.class.getName());
+    }
+  }
+
+  /**
+   * A subclass of {@link GeneratedPojomator} which was not generated for the class it claims to be for.
+   */
+  private static class RoguePojomator extends GeneratedPojomator<Object> {
+    RoguePojomator(Class<?> pojoClass) {
+      super(pojoClass, new String[0], new String[0], new String[0]);
+    }
+
+    MethodHandle steal(PropertyElement propertyElement) {
+      return accessor(propertyElement);
+    }
+
+    @Override
+    public boolean doEquals(Object instance, Object other) {
+      return false;
+    }
+
+    @Override
+    public int doHashCode(Object instance) {
+      return 0;
+    }
+
+    @Override
+    public void doAppendTo(Object instance, StringBuilder builder) {}
+
+    @Override
+    public int doCompare(Object instance, Object other) {
+      return 0;
+    }
+
+    @Override
+    public void doDiff(Object instance, Object other, DiffVisitor visitor) {}
+  }
+
+  /**
+   * Check that the generated pojomator for {@code pojoClass} gives the same results as a runtime generated one.
+   */
+  @SafeVarargs
+  private static <T> void checkSameBehavior(Class<?> pojoClass, T... pojos) {
+    @SuppressWarnings("unchecked")
+    Pojomator<T> generated = (Pojomator<T>) Pojomatic.pojomator(pojoClass);
+    assertTrue(generated instanceof GeneratedPojomator);
+    @SuppressWarnings("unchecked")
+    Pojomator<T> runtime = (Pojomator<T>) PojomatorFactory.makePojomator(pojoClass);
+    for (T pojo: pojos) {
+      assertEquals(generated.doHashCode(pojo), runtime.doHashCode(pojo));
+      assertEquals(generated.doToString(pojo), runtime.doToString(pojo));
+      StringBuilder builder = new StringBuilder();
+      generated.doAppendTo(pojo, builder);
+      assertEquals(builder.toString(), runtime.doToString(pojo));
+      ByteBuffer buffer = ByteBuffer.allocate(1000);
+      generated.doWriteUtf8(pojo, buffer);
+      assertEquals(
+        Arrays.copyOf(buffer.array(), buffer.position()), runtime.doToString(pojo).getBytes(StandardCharsets.UTF_8));
+      for (T other: pojos) {
+        assertEquals(generated.doEquals(pojo, other), runtime.doEquals(pojo, other));
+        assertEquals(generated.doDiff(pojo, other), runtime.doDiff(pojo, other));
+        assertEquals(compareResult(generated, pojo, other), compareResult(runtime, pojo, other));
+      }
+    }
+  }
+
+  /**
+   * The result of {@link Pojomator#doCompare(Object, Object)}, or the exception class if property values cannot be
+   * compared.
+   */
+  private static <T> Object compareResult(Pojomator<T> pojomator, T pojo, T other) {
+    try {
+      return pojomator.doCompare(pojo, other);
+    }
+    catch (ClassCastException e) {
+      return e.getClass();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package org.pojomatic.processor.other;
+
+import org.pojomatic.annotations.Property;
+
+public class OtherPackageParent {
+  @Property
+  protected int inherited;
+
+  @Property
+  public int publicInherited;
+
+  protected OtherPackageParent(int inherited) {
+    this.inherited = inherited;
+    this.publicInherited = -inherited;
+  }
+}
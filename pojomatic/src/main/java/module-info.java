@@ -1,8 +1,12 @@
 module org.pojomatic {
   requires java.base;
+  requires java.logging;
   requires org.objectweb.asm;
+  requires static java.management;
+  requires static jdk.jfr;
   exports org.pojomatic;
   exports org.pojomatic.annotations;
   exports org.pojomatic.formatter;
   exports org.pojomatic.diff;
+  exports org.pojomatic.generated;
 }
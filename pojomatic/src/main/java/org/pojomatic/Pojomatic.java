@@ -1,8 +1,25 @@
 package org.pojomatic;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.pojomatic.diff.DiffVisitor;
 import org.pojomatic.diff.Differences;
+import org.pojomatic.internal.AdaptivePojomator;
+import org.pojomatic.internal.DeepDiffer;
+import org.pojomatic.internal.InvocationCounters;
+import org.pojomatic.internal.PojomaticManagement;
 import org.pojomatic.internal.PojomatorFactory;
-import org.pojomatic.internal.SelfPopulatingMap;
+import org.pojomatic.internal.PojomatorMonitoring;
+import org.pojomatic.internal.Prewarmer;
+import org.pojomatic.internal.SelfPopulatingClassValue;
+import org.pojomatic.internal.SystemProperties;
+import org.pojomatic.internal.TieredPojomator;
 
 /**
  * Static methods for implementing the {@link java.lang.Object#equals(Object)},
@@ -63,21 +80,63 @@ import org.pojomatic.internal.SelfPopulatingMap;
  *   &nbsp;&nbsp;...<br>
  *   }</code>
  * </p>
+ * If a class was compiled with the Pojomatic annotation processor ({@code org.pojomatic:pojomatic-processor}) on the
+ * annotation processor path, the {@code Pojomator} generated for it at build time will be used; otherwise, one is
+ * generated at runtime the first time it is needed. If the system property {@code org.pojomatic.tiered} is set to
+ * {@code true}, a runtime generated {@code Pojomator} first reads properties reflectively, while its bytecode is
+ * generated on a background thread; this reduces the latency of the first call for each class.
+ * <p>
+ * The cache of {@code Pojomator}s does not prevent POJO classes, or their class loaders, from being garbage
+ * collected. Applications which load a great many classes, and use each only for a while, can also bound the number
+ * of {@code Pojomator}s cached by setting the system property {@value #MAXIMUM_CACHE_SIZE_PROPERTY}; the
+ * {@code Pojomator} for an evicted class is created again the next time it is needed. {@link #cacheStatistics()}
+ * reports on the cache.
+ * <p>
+ * To find which classes account for most calls, set the system property {@code org.pojomatic.instrumentation} to
+ * {@code true}; runtime generated {@code Pojomator}s then count their calls, and {@link #invocationCounts()} reports
+ * the counts. Without this property, no counting code is generated.
+ * <p>
+ * If the system property {@code org.pojomatic.adaptiveEquals} is set to {@code true}, each runtime generated
+ * {@code Pojomator} profiles which properties most often differ when {@code doEquals} returns {@code false}, and once
+ * that profile is stable, is regenerated to compare those properties first. This takes precedence over tiered creation.
  *
  * @see Pojomator
  */
 public class Pojomatic {
+  /**
+   * The system property which, if set to a positive integer, is the maximum number of {@code Pojomator}s cached.
+   * @since 3.0
+   */
+  public static final String MAXIMUM_CACHE_SIZE_PROPERTY = "org.pojomatic.maximumCacheSize";
 
-  private final static SelfPopulatingMap<Class<?>, Pojomator<?>> POJOMATORS =
-    new SelfPopulatingMap<Class<?>, Pojomator<?>>() {
+  private final static SelfPopulatingClassValue<Pojomator<?>> POJOMATORS =
+    new SelfPopulatingClassValue<Pojomator<?>>(maximumCacheSize()) {
       @Override
       // compiler does not know that the type parameter to Pojomator is the same as the type
       // parameter to Class
       protected Pojomator<?> create(Class<?> key) {
-        return PojomatorFactory.makePojomator(key);
+        Pojomator<?> generated = PojomatorFactory.findGeneratedPojomator(key);
+        if (generated != null) {
+          return generated;
+        }
+        if (AdaptivePojomator.isEnabled()) {
+          return new AdaptivePojomator<>(key);
+        }
+        return TieredPojomator.isEnabled() ? new TieredPojomator<>(key) : PojomatorFactory.makePojomator(key);
       }
   };
 
+  static {
+    if (isManagementEnabled()) {
+      try {
+        PojomaticManagement.register();
+      }
+      catch (LinkageError e) {
+        // the java.management module is not available
+      }
+    }
+  }
+
   private Pojomatic() {}
 
   /**
@@ -90,7 +149,57 @@ public class Pojomatic {
    * @see Pojomator#doToString(Object)
    */
   public static <T> String toString(T pojo) throws NoPojomaticPropertiesException {
-    return pojomator(getClass(pojo)).doToString(pojo);
+    Class<T> pojoClass = getClass(pojo);
+    Pojomator<T> pojomator = pojomator(pojoClass);
+    Object call = PojomatorMonitoring.beginCall();
+    String result = pojomator.doToString(pojo);
+    PojomatorMonitoring.endCall(call, "doToString", pojoClass);
+    return result;
+  }
+
+  /**
+   * Append the {@code toString} representation for a POJO to a {@code StringBuilder}.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @param builder the builder to append to - must not be null
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doAppendTo(Object, StringBuilder)
+   * @since 3.0
+   */
+  public static <T> void appendTo(T pojo, StringBuilder builder) throws NoPojomaticPropertiesException {
+    pojomator(getClass(pojo)).doAppendTo(pojo, builder);
+  }
+
+  /**
+   * Append the {@code toString} representation for a POJO to an {@code Appendable}.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @param appendable the appendable to append to - must not be null
+   * @throws IOException if {@code appendable} throws an {@code IOException}
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doAppendTo(Object, Appendable)
+   * @since 3.0
+   */
+  public static <T> void appendTo(T pojo, Appendable appendable) throws IOException, NoPojomaticPropertiesException {
+    pojomator(getClass(pojo)).doAppendTo(pojo, appendable);
+  }
+
+  /**
+   * Write the {@code toString} representation for a POJO, encoded as UTF-8, to a {@code ByteBuffer}.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @param buffer the buffer to write to - must not be null
+   * @throws BufferOverflowException if the representation does not fit in the remaining space of {@code buffer}, in
+   * which case the buffer is left unchanged
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doWriteUtf8(Object, ByteBuffer)
+   * @since 3.0
+   */
+  public static <T> void writeUtf8(T pojo, ByteBuffer buffer) throws NoPojomaticPropertiesException {
+    pojomator(getClass(pojo)).doWriteUtf8(pojo, buffer);
   }
 
   /**
@@ -134,6 +243,23 @@ public class Pojomatic {
     return pojomator(classA).isCompatibleForEquality(classB);
   }
 
+  /**
+   * Compare two POJOs by the properties examined by {@link #equals(Object, Object)} for type {@code T}.
+   *
+   * @param <T> the static type of the first object to compare
+   * @param <S> the static type of the second object to compare
+   * @param pojo the instance to compare against - must not be null
+   * @param other the instance to compare - must not be null
+   * @return a negative integer, zero, or a positive integer as {@code pojo} is less than, equal to, or greater than
+   * {@code other}
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for use with Pojomatic
+   * @see Pojomator#doCompare(Object, Object)
+   * @since 3.0
+   */
+  public static <T, S extends T> int compare(T pojo, S other) throws NoPojomaticPropertiesException {
+    return pojomator(getClass(pojo)).doCompare(pojo, other);
+  }
+
   /**
    * Compute the differences between {@code pojo} and {@code other} among the properties
    * examined by {@link #equals(Object, Object)} for type {@code T}.
@@ -158,7 +284,74 @@ public class Pojomatic {
     if (other == null) {
       throw new NullPointerException("other is null");
     }
-    return pojomator(getClass(pojo)).doDiff(pojo, other);
+    Class<T> pojoClass = getClass(pojo);
+    Pojomator<T> pojomator = pojomator(pojoClass);
+    Object call = PojomatorMonitoring.beginCall();
+    Differences differences = pojomator.doDiff(pojo, other);
+    PojomatorMonitoring.endCall(call, "doDiff", pojoClass);
+    return differences;
+  }
+
+  /**
+   * Visit the differences between {@code pojo} and {@code other} among the properties
+   * examined by {@link #equals(Object, Object)} for type {@code T}.
+   *
+   * @param <T> the static type of the first object to compare
+   * @param <S> the static type of the first object to compare
+   * @param pojo the instance to diff against
+   * @param other the instance to diff
+   * @param visitor the visitor to call for each differing property
+   * @throws NullPointerException if {@code pojo}, {@code other} or {@code visitor} are null
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties
+   * annotated for use with Pojomatic
+   * @see Pojomator#doDiff(Object, Object, DiffVisitor)
+   * @since 3.0
+   */
+  public static <T, S extends T> void diff(T pojo, S other, DiffVisitor visitor)
+  throws NullPointerException, NoPojomaticPropertiesException {
+    if (pojo == null) {
+      throw new NullPointerException("pojo is null");
+    }
+    if (other == null) {
+      throw new NullPointerException("other is null");
+    }
+    Class<T> pojoClass = getClass(pojo);
+    Pojomator<T> pojomator = pojomator(pojoClass);
+    Object call = PojomatorMonitoring.beginCall();
+    pojomator.doDiff(pojo, other, visitor);
+    PojomatorMonitoring.endCall(call, "doDiff", pojoClass);
+  }
+
+  /**
+   * Compute the differences between {@code pojo} and {@code other}, descending into differing property values. Where
+   * {@link #diff(Object, Object)} reports a differing property holding a POJO as a single difference between the two
+   * POJOs, this method reports the differences within them. Properties holding POJOs (of classes with properties
+   * annotated for use with Pojomatic), {@code List}s, {@code Map}s, arrays and {@code Optional}s are descended into;
+   * each difference is reported with the path to the differing value as its property name, such as
+   * {@code customer.address.zip}, {@code lines[2].price} or {@code prices[EUR]}. A value present at a path in only one
+   * of the two objects is reported as differing from {@code null}.
+   *
+   * @param <T> the static type of the first object to compare
+   * @param <S> the static type of the first object to compare
+   * @param pojo the instance to diff against
+   * @param other the instance to diff
+   * @return the list of differences (possibly empty) between {@code instance} and {@code other}, keyed by path
+   * @throws NullPointerException if {@code pojo} or {@code other} are null
+   * (this behavior may change in future releases).
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties
+   * annotated for use with Pojomatic
+   * @see #diff(Object, Object)
+   * @since 3.0
+   */
+  public static <T, S extends T> Differences deepDiff(T pojo, S other)
+  throws NullPointerException, NoPojomaticPropertiesException {
+    if (pojo == null) {
+      throw new NullPointerException("pojo is null");
+    }
+    if (other == null) {
+      throw new NullPointerException("other is null");
+    }
+    return DeepDiffer.diff(pojomator(getClass(pojo)), pojo, other);
   }
 
   /**
@@ -178,6 +371,78 @@ public class Pojomatic {
     return (Pojomator<T>) POJOMATORS.get(pojoClass);
   }
 
+  /**
+   * Create the {@code Pojomator}s for a number of classes in parallel, so that the cost of generating them is paid
+   * up front (for example, before an application starts accepting requests) rather than on first use. If tiered
+   * {@code Pojomator} creation is enabled, this also waits for the bytecode of each {@code Pojomator} to be generated.
+   * @param pojoClasses the classes to create {@code Pojomator}s for
+   * @return the time taken to create the {@code Pojomator} for each class, in nanoseconds, in the order the classes
+   * were given
+   * @throws NoPojomaticPropertiesException if any of {@code pojoClasses} has no properties annotated for use with
+   * Pojomatic
+   * @since 3.0
+   */
+  public static Map<Class<?>, Long> prewarm(Class<?>... pojoClasses) throws NoPojomaticPropertiesException {
+    return Prewarmer.prewarm(Arrays.asList(pojoClasses), false);
+  }
+
+  /**
+   * Create the {@code Pojomator}s for the classes in some packages, and their subpackages, in parallel. The packages
+   * are searched for in the directories and jar files on the class path of {@code classLoader}, for classes which
+   * are annotated with {@link org.pojomatic.annotations.AutoProperty AutoProperty}, or which declare a field or method
+   * annotated with {@link org.pojomatic.annotations.Property Property}. Such classes with no properties, and
+   * classes which cannot be loaded, are skipped.
+   * @param classLoader the class loader to search, and to load classes with
+   * @param packageNames the names of the packages to search; the empty string searches every package under a
+   * directory on the class path
+   * @return the time taken to create the {@code Pojomator} for each class found, in nanoseconds, ordered by class
+   * name
+   * @throws IOException if a directory or jar file on the class path cannot be read
+   * @see #prewarm(Class...)
+   * @since 3.0
+   */
+  public static Map<Class<?>, Long> prewarm(ClassLoader classLoader, String... packageNames) throws IOException {
+    return Prewarmer.prewarm(Prewarmer.scan(classLoader, packageNames), true);
+  }
+
+  /**
+   * Get the statistics of the cache of {@code Pojomator}s.
+   * @return a snapshot of the statistics of the cache
+   * @see #MAXIMUM_CACHE_SIZE_PROPERTY
+   * @since 3.0
+   */
+  public static PojomatorCacheStatistics cacheStatistics() {
+    return new PojomatorCacheStatistics(
+      POJOMATORS.size(),
+      POJOMATORS.getMaximumSize(),
+      POJOMATORS.getCreationCount(),
+      POJOMATORS.getEvictionCount(),
+      POJOMATORS.getRegenerationCount());
+  }
+
+  /**
+   * Report the number of calls made to the {@code Pojomator}s generated for each class, if instrumentation was enabled
+   * by setting the system property {@code org.pojomatic.instrumentation} to {@code true} before they were generated.
+   * Calls to {@code Pojomator}s generated at build time, or to a tiered {@code Pojomator} before its bytecode has
+   * been generated, are not counted.
+   * @return the counts for each instrumented class, with the most frequently called first; empty if instrumentation
+   * is not enabled
+   * @since 3.0
+   */
+  public static List<PojomatorInvocationCounts> invocationCounts() {
+    return InvocationCounters.isEnabled()
+      ? InvocationCounters.report() : Collections.<PojomatorInvocationCounts>emptyList();
+  }
+
+  private static boolean isManagementEnabled() {
+    return SystemProperties.getBoolean(PojomaticMXBean.JMX_PROPERTY);
+  }
+
+  private static int maximumCacheSize() {
+    Integer maximumSize = SystemProperties.getInteger(MAXIMUM_CACHE_SIZE_PROPERTY);
+    return maximumSize != null && maximumSize > 0 ? maximumSize : SelfPopulatingClassValue.UNBOUNDED;
+  }
+
   @SuppressWarnings("unchecked") // Since Object.getClass returns Class<?>
   private static <T> Class<T> getClass(T pojo) {
     return (Class<T>) pojo.getClass();
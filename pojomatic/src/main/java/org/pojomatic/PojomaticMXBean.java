@@ -0,0 +1,58 @@
+package org.pojomatic;
+
+/**
+ * The management interface for Pojomatic, registered with the platform MBean server under the name
+ * {@value #OBJECT_NAME} if the system property {@value #JMX_PROPERTY} is set to {@code true}.
+ * @since 3.0
+ */
+public interface PojomaticMXBean {
+  /**
+   * The name under which the MXBean is registered.
+   */
+  String OBJECT_NAME = "org.pojomatic:type=Pojomatic";
+
+  /**
+   * The system property which, if set to {@code true}, causes the MXBean to be registered when {@link Pojomatic} is
+   * initialized.
+   */
+  String JMX_PROPERTY = "org.pojomatic.jmx";
+
+  /**
+   * @return the number of {@code Pojomator}s currently cached
+   * @see PojomatorCacheStatistics#getSize()
+   */
+  int getCacheSize();
+
+  /**
+   * @return the maximum number of {@code Pojomator}s which will be cached
+   * @see PojomatorCacheStatistics#getMaximumSize()
+   */
+  int getMaximumCacheSize();
+
+  /**
+   * @return the number of {@code Pojomator}s evicted from the cache
+   * @see PojomatorCacheStatistics#getEvictionCount()
+   */
+  long getEvictionCount();
+
+  /**
+   * @return the number of {@code Pojomator}s created again after being evicted from the cache
+   * @see PojomatorCacheStatistics#getRegenerationCount()
+   */
+  long getRegenerationCount();
+
+  /**
+   * @return the number of {@code Pojomator}s whose bytecode has been generated at runtime
+   */
+  long getGeneratedCount();
+
+  /**
+   * @return the total time spent generating {@code Pojomator}s at runtime, in milliseconds
+   */
+  long getTotalGenerationTime();
+
+  /**
+   * @return the total size of the {@code Pojomator} classes generated at runtime, in bytes
+   */
+  long getGeneratedBytes();
+}
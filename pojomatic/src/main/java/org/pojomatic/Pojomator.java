@@ -1,6 +1,10 @@
 package org.pojomatic;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.pojomatic.annotations.OverridesEquals;
@@ -8,6 +12,7 @@ import org.pojomatic.annotations.PojomaticPolicy;
 import org.pojomatic.annotations.Property;
 import org.pojomatic.annotations.SkipArrayCheck;
 import org.pojomatic.annotations.SubclassCannotOverrideEquals;
+import org.pojomatic.diff.DiffVisitor;
 import org.pojomatic.diff.Differences;
 import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
@@ -27,6 +32,11 @@ import org.pojomatic.formatter.EnhancedPropertyFormatter;
  * with {@code @SkipArrayCheck} would be to gain a slight performance advantage by avoiding a call to
  * {@link Object#getClass()}.{@link Class#isArray() isArray()}.
  *
+ * <h3>Implementing this interface</h3>
+ * {@code Pojomator}s are provided by {@link Pojomatic#pojomator(Class)}, and by the Pojomatic annotation processor.
+ * Methods may be added to this interface in a new major release, breaking classes outside of Pojomatic which
+ * implement it.
+ *
  * @param <T> the class this {@code Pojomator} is generated for.
  */
 public interface Pojomator<T> {
@@ -84,6 +94,55 @@ public interface Pojomator<T> {
    */
   String doToString(T instance);
 
+  /**
+   * Append the {@code toString} representation for a given instance of {@code T} to a {@code StringBuilder}. The text
+   * appended is the same as that returned by {@link #doToString(Object)}, but no intermediate {@code String} is
+   * created.
+   * <p>
+   * Runtime generated {@code Pojomator}s call this method for properties without a
+   * {@link org.pojomatic.annotations.PropertyFormat} whose declared type is a final class implementing
+   * {@code toString()} as {@code return Pojomatic.toString(this);}, so that nested POJOs are appended directly to the
+   * builder of the POJO containing them. Values of other properties are formatted by their property formatter.
+   *
+   * @param instance the instance to append the {@code toString} representation of - must not be {@code null}
+   * @param builder the builder to append to - must not be {@code null}
+   * @throws NullPointerException if {@code instance} or {@code builder} is {@code null}
+   * @see #doToString(Object)
+   * @since 3.0
+   */
+  void doAppendTo(T instance, StringBuilder builder);
+
+  /**
+   * Append the {@code toString} representation for a given instance of {@code T} to an {@code Appendable}, such as a
+   * {@link java.io.Writer}. The text appended is the same as that returned by {@link #doToString(Object)}.
+   *
+   * @param instance the instance to append the {@code toString} representation of - must not be {@code null}
+   * @param appendable the appendable to append to - must not be {@code null}
+   * @throws IOException if {@code appendable} throws an {@code IOException}
+   * @throws NullPointerException if {@code instance} or {@code appendable} is {@code null}
+   * @see #doToString(Object)
+   * @since 3.0
+   */
+  void doAppendTo(T instance, Appendable appendable) throws IOException;
+
+  /**
+   * Write the {@code toString} representation for a given instance of {@code T}, encoded as UTF-8, to a
+   * {@code ByteBuffer}, starting at its current position. The bytes written are the same as those of
+   * {@code doToString(instance).getBytes(StandardCharsets.UTF_8)}, but neither that {@code String} nor its encoding
+   * is created.
+   * <p>
+   * If there is not enough room in the buffer for the entire representation, a {@link BufferOverflowException} is
+   * thrown, and the buffer is left unchanged; the caller may then flush or replace the buffer, and try again.
+   *
+   * @param instance the instance to write the {@code toString} representation of - must not be {@code null}
+   * @param buffer the buffer to write to - must not be {@code null}
+   * @throws BufferOverflowException if the representation does not fit in the remaining space of {@code buffer}
+   * @throws NullPointerException if {@code instance} or {@code buffer} is {@code null}
+   * @see #doToString(Object)
+   * @since 3.0
+   */
+  void doWriteUtf8(T instance, ByteBuffer buffer);
+
   /**
    * Compute whether {@code instance} and {@code other} are equal to each other in the sense of
    * {@code Object}'s {@link Object#equals(Object) equals} method. For two instances to be
@@ -127,6 +186,45 @@ public interface Pojomator<T> {
    */
   boolean doEquals(T instance, Object other);
 
+  /**
+   * Compare {@code instance} and {@code other}, in the sense of {@link Comparable#compareTo(Object)}, by the
+   * properties examined by {@link #doEquals(Object, Object)}. Properties are compared one at a time, in increasing
+   * order of {@link Property#compareOrder()} and otherwise in the order used by {@code doEquals}, until a pair of
+   * values is found which is not equal; the result of comparing that pair is returned. Values are compared as follows:
+   * <ul>
+   * <li>Primitive values are compared as by the {@code compare} method of their wrapper class, such as
+   * {@link Integer#compare(int, int)}. In particular, {@code float} and {@code double} values are ordered consistently
+   * with {@code doEquals}.</li>
+   * <li>A {@code null} value is ordered before or after any non-null value, according to
+   * {@link Property#nullOrdering()}.</li>
+   * <li>Arrays are compared lexicographically, element by element, with a shorter array ordered before a longer one
+   * of which it is a prefix.</li>
+   * <li>Any other value must implement {@link Comparable}, and is compared using its {@code compareTo} method.</li>
+   * </ul>
+   * Provided that the {@code compareTo} methods of the property values are consistent with {@code equals}, this
+   * method returns {@code 0} if and only if {@code doEquals(instance, other)} returns {@code true}.
+   *
+   * @param instance the instance to compare against - must not be {@code null}
+   * @param other the instance to compare - must not be {@code null}
+   * @return a negative integer, zero, or a positive integer as {@code instance} is less than, equal to, or greater
+   * than {@code other}
+   * @throws NullPointerException if {@code instance} or {@code other} is {@code null}
+   * @throws IllegalArgumentException if the type of {@code instance} or of {@code other} is not a class which is
+   * compatible for equality with {@code T}
+   * @throws ClassCastException if a non-null, non-array property value does not implement {@link Comparable}
+   * @see #comparator()
+   * @since 3.0
+   */
+  int doCompare(T instance, T other);
+
+  /**
+   * Get a {@link Comparator} which compares instances of {@code T} using {@link #doCompare(Object, Object)}.
+   *
+   * @return a {@code Comparator} delegating to {@link #doCompare(Object, Object)}
+   * @since 3.0
+   */
+  Comparator<T> comparator();
+
   /**
    * Compute whether {@code otherClass} is compatible for equality with {@code T}.
    * Classes {@code A} and {@code B} are compatible for equality if
@@ -169,6 +267,24 @@ public interface Pojomator<T> {
    */
   Differences doDiff(T instance, T other);
 
+  /**
+   * Visit the differences between {@code instance} and {@code other} among the properties examined by
+   * {@link #doDiff(Object, Object)}. For each property whose values differ, in the same order as the differences
+   * returned by {@code doDiff(instance, other)}, the method of {@code visitor} corresponding to the property's type
+   * is called. Values of primitive properties are not boxed, and the {@code Pojomator} itself allocates nothing, so this
+   * method is suited to comparing large numbers of pairs of POJOs.
+   *
+   * @param instance the instance to diff against
+   * @param other the instance to diff
+   * @param visitor the visitor to call for each differing property
+   * @throws NullPointerException if {@code instance}, {@code other} or {@code visitor} is null
+   * @throws IllegalArgumentException the type of {@code instance} or of {@code other} is not a
+   * class which is compatible for equality with {@code T}
+   * @see #doDiff(Object, Object)
+   * @since 3.0
+   */
+  void doDiff(T instance, T other, DiffVisitor visitor);
+
   /**
    * Return a simple String representation of this Pojomator. This is meant to aid in debugging
    * which properties are being used for which purposes. The contents and format of this
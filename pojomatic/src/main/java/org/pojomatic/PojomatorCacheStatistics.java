@@ -0,0 +1,80 @@
+package org.pojomatic;
+
+import org.pojomatic.annotations.AutoProperty;
+
+/**
+ * A snapshot of the statistics of the cache of {@link Pojomator}s kept by {@link Pojomatic}.
+ * @see Pojomatic#cacheStatistics()
+ * @since 3.0
+ */
+@AutoProperty
+public final class PojomatorCacheStatistics {
+  private final int size;
+  private final int maximumSize;
+  private final long creationCount;
+  private final long evictionCount;
+  private final long regenerationCount;
+
+  public PojomatorCacheStatistics(
+    int size, int maximumSize, long creationCount, long evictionCount, long regenerationCount) {
+    this.size = size;
+    this.maximumSize = maximumSize;
+    this.creationCount = creationCount;
+    this.evictionCount = evictionCount;
+    this.regenerationCount = regenerationCount;
+  }
+
+  /**
+   * @return the number of {@code Pojomator}s currently cached, for classes which have not been garbage collected
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the maximum number of {@code Pojomator}s which will be cached, or {@link Integer#MAX_VALUE} if the cache
+   * is not bounded
+   * @see Pojomatic#MAXIMUM_CACHE_SIZE_PROPERTY
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * @return the number of {@code Pojomator}s which have been created, including those created again after being
+   * evicted
+   */
+  public long getCreationCount() {
+    return creationCount;
+  }
+
+  /**
+   * @return the number of {@code Pojomator}s which have been evicted from the cache to keep within its maximum size
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return the number of {@code Pojomator}s which have been created again after being evicted. If this is a large
+   * fraction of {@link #getCreationCount()}, the maximum size is too small for the number of classes in use.
+   */
+  public long getRegenerationCount() {
+    return regenerationCount;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return Pojomatic.equals(this, other);
+  }
+
+  @Override
+  public int hashCode() {
+    return Pojomatic.hashCode(this);
+  }
+
+  @Override
+  public String toString() {
+    return Pojomatic.toString(this);
+  }
+}
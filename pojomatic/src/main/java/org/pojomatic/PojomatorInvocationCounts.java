@@ -0,0 +1,122 @@
+package org.pojomatic;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pojomatic.annotations.AutoProperty;
+
+/**
+ * A snapshot of the number of calls made to the {@link Pojomator}s generated for a class, when instrumentation is
+ * enabled.
+ * @see Pojomatic#invocationCounts()
+ * @since 3.0
+ */
+@AutoProperty
+public final class PojomatorInvocationCounts {
+  private final String pojoClassName;
+  private final long equalsCount;
+  private final long sameInstanceCount;
+  private final long typeMismatchCount;
+  private final Map<String, Long> firstDifferenceCounts;
+  private final long hashCodeCount;
+  private final long toStringCount;
+
+  public PojomatorInvocationCounts(
+    String pojoClassName, long equalsCount, long sameInstanceCount, long typeMismatchCount,
+    Map<String, Long> firstDifferenceCounts, long hashCodeCount, long toStringCount) {
+    this.pojoClassName = pojoClassName;
+    this.equalsCount = equalsCount;
+    this.sameInstanceCount = sameInstanceCount;
+    this.typeMismatchCount = typeMismatchCount;
+    this.firstDifferenceCounts = Collections.unmodifiableMap(new LinkedHashMap<>(firstDifferenceCounts));
+    this.hashCodeCount = hashCodeCount;
+    this.toStringCount = toStringCount;
+  }
+
+  /**
+   * @return the name of the class
+   */
+  public String getPojoClassName() {
+    return pojoClassName;
+  }
+
+  /**
+   * @return the number of calls to {@link Pojomator#doEquals(Object, Object)}
+   */
+  public long getEqualsCount() {
+    return equalsCount;
+  }
+
+  /**
+   * @return the number of calls to {@code doEquals} which returned {@code true} because they were passed the same
+   * instance twice
+   */
+  public long getSameInstanceCount() {
+    return sameInstanceCount;
+  }
+
+  /**
+   * @return the number of calls to {@code doEquals} which returned {@code false} because the other instance was
+   * {@code null}, or of a type not compatible for equality
+   */
+  public long getTypeMismatchCount() {
+    return typeMismatchCount;
+  }
+
+  /**
+   * @return for each equals property, in the order in which properties are compared, the number of calls to
+   * {@code doEquals} for which it was the first property found to differ
+   */
+  public Map<String, Long> getFirstDifferenceCounts() {
+    return firstDifferenceCounts;
+  }
+
+  /**
+   * @return the number of calls to {@code doEquals} which compared every equals property, and returned {@code true}
+   */
+  public long getFullComparisonCount() {
+    long count = equalsCount - sameInstanceCount - typeMismatchCount;
+    for (long differences: firstDifferenceCounts.values()) {
+      count -= differences;
+    }
+    // counters are read one at a time, so calls in progress may not yet have been counted as exits
+    return Math.max(count, 0);
+  }
+
+  /**
+   * @return the number of calls to {@link Pojomator#doHashCode(Object)}
+   */
+  public long getHashCodeCount() {
+    return hashCodeCount;
+  }
+
+  /**
+   * @return the number of calls to {@link Pojomator#doToString(Object)}
+   */
+  public long getToStringCount() {
+    return toStringCount;
+  }
+
+  /**
+   * @return the total number of calls to {@code doEquals}, {@code doHashCode} and {@code doToString}
+   */
+  public long getCallCount() {
+    return equalsCount + hashCodeCount + toStringCount;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return Pojomatic.equals(this, other);
+  }
+
+  @Override
+  public int hashCode() {
+    return Pojomatic.hashCode(this);
+  }
+
+  @Override
+  public String toString() {
+    return Pojomatic.toString(this);
+  }
+}
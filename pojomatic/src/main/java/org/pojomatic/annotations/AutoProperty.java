@@ -30,4 +30,12 @@ public @interface AutoProperty {
    * @return whether to auto-detect properties by their fields, getters or not at all.
    */
   public AutoDetectPolicy autoDetect() default AutoDetectPolicy.FIELD;
+
+  /**
+   * The order in which {@link org.pojomatic.Pojomator#doEquals(Object, Object)} compares properties. This does not
+   * affect the order used by {@code hashCode}, {@code toString}, {@code diff} or {@code compare}.
+   * @return the order in which properties are compared for {@code equals}
+   * @since 3.0
+   */
+  public EqualsOrder equalsOrder() default EqualsOrder.DECLARATION;
 }
@@ -0,0 +1,46 @@
+package org.pojomatic.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.pojomatic.Pojomator;
+
+/**
+ * Declares that the annotated type is immutable, as far as its {@code hashCode} properties are concerned, so that
+ * {@link Pojomator#doHashCode(Object)} may compute the hash code of an instance once, and cache it in a field of the
+ * instance. The annotated type must declare a non-static, non-final {@code int} field with the name given by
+ * {@link #field()}; this field is not a property, and should not otherwise be used. As with
+ * {@link String#hashCode()}, a value of {@code 0} means that the hash code has not yet been computed, so an instance
+ * whose hash code is {@code 0} will have it computed on each call.
+ * <p>
+ * Caching is safe without synchronization, since every thread which computes the hash code of an instance computes
+ * the same value, and writes of an {@code int} field are atomic.
+ * <p>
+ * For example:
+ * <pre>
+ * &#64;AutoProperty
+ * &#64;CacheHashCode
+ * public final class Key {
+ *   private final String name;
+ *   private final int[] path;
+ *   private int hash;
+ *   ...
+ * }
+ * </pre>
+ *
+ * @see Pojomator#doHashCode(Object)
+ * @since 3.0
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheHashCode {
+  /**
+   * The name of the field, declared by the annotated type, in which to cache the hash code.
+   * @return the name of the field in which to cache the hash code
+   */
+  public String field() default "hash";
+}
@@ -0,0 +1,53 @@
+package org.pojomatic.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
+import org.pojomatic.formatter.StatelessPojoFormatter;
+
+/**
+ * Declares that the annotated type is immutable, as far as its {@code toString} properties are concerned, so that
+ * {@link Pojomator#doToString(Object)} may format an instance once, and cache the result in a field of the instance.
+ * The annotated type must declare a non-static, non-final {@code String} field with the name given by
+ * {@link #field()}; this field is not a property, and should not otherwise be used. A value of {@code null} means that
+ * the string has not yet been computed.
+ * <p>
+ * Since a cached string is only correct if formatting an instance always produces the same text, the annotated type
+ * must either use the {@link DefaultEnhancedPojoFormatter}, or specify a {@link PojoFormat} which implements
+ * {@link StatelessPojoFormatter}. Any {@link PropertyFormat} used by a {@code toString} property must likewise format a
+ * given value in the same way each time, as the default property formatter does.
+ * <p>
+ * Caching is safe without synchronization, since every thread which formats an instance computes an equal string, and
+ * strings are immutable. Only {@code doToString} uses the cache; {@code doAppendTo} always formats the instance.
+ * <p>
+ * For example:
+ * <pre>
+ * &#64;AutoProperty
+ * &#64;CacheToString
+ * public final class Address {
+ *   private final String street;
+ *   private final String city;
+ *   private String toString;
+ *   ...
+ * }
+ * </pre>
+ *
+ * @see Pojomator#doToString(Object)
+ * @see CacheHashCode
+ * @since 3.0
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheToString {
+  /**
+   * The name of the field, declared by the annotated type, in which to cache the result of {@code toString}.
+   * @return the name of the field in which to cache the result of {@code toString}
+   */
+  public String field() default "toString";
+}
@@ -0,0 +1,23 @@
+package org.pojomatic.annotations;
+
+import org.pojomatic.Pojomator;
+
+/**
+ * The order in which {@link Pojomator#doEquals(Object, Object)} compares the properties of a class. Since
+ * {@code doEquals} returns as soon as it finds a property whose values differ, the order does not change its result,
+ * but can change how long it takes. This is set class-wide using {@link AutoProperty#equalsOrder()}.
+ *
+ * @since 3.0
+ */
+public enum EqualsOrder {
+  /**
+   * Compare properties in the order in which they are declared, as for {@code hashCode} and {@code toString}.
+   */
+  DECLARATION,
+
+  /**
+   * Compare the properties which are cheapest to compare first, as estimated from their types or given by
+   * {@link Property#equalsCost()}. Properties of the same cost are compared in the order in which they are declared.
+   */
+  COST
+}
@@ -0,0 +1,21 @@
+package org.pojomatic.annotations;
+
+import org.pojomatic.Pojomator;
+
+/**
+ * Where {@code null} values of a property are placed by {@link Pojomator#doCompare(Object, Object)}, relative to
+ * non-null values. This is set using {@link Property#nullOrdering()}.
+ *
+ * @since 3.0
+ */
+public enum NullOrdering {
+  /**
+   * A {@code null} value compares as less than any non-null value.
+   */
+  FIRST,
+
+  /**
+   * A {@code null} value compares as greater than any non-null value.
+   */
+  LAST
+}
@@ -38,4 +38,45 @@ public @interface Property {
    * @return the name used to identify the property in the standard {@code toString} representation.
    */
   public String name() default "";
+
+  /**
+   * The position of the property in the order in which properties are compared by
+   * {@link org.pojomatic.Pojomator#doCompare(Object, Object)}. Properties are compared in increasing order of this
+   * value; properties with the same value are compared in the order in which they are used for {@code equals}. Only
+   * properties used for {@code equals} are compared.
+   *
+   * @return the position of the property in the order in which properties are compared
+   * @since 3.0
+   */
+  public int compareOrder() default 0;
+
+  /**
+   * Where {@link org.pojomatic.Pojomator#doCompare(Object, Object)} orders {@code null} values of the property,
+   * relative to non-null values.
+   *
+   * @return where {@code null} values of the property are ordered
+   * @since 3.0
+   */
+  public NullOrdering nullOrdering() default NullOrdering.FIRST;
+
+  /**
+   * The relative cost of comparing values of the property, for a class whose
+   * {@link AutoProperty#equalsOrder() equalsOrder} is {@link EqualsOrder#COST}. If negative, the cost is estimated from
+   * the type of the property: 0 for primitives and enums; 1 for boxed primitives and {@code String}s; 2 for other
+   * types; and 3 for arrays, collections, maps and properties of type {@code Object}, which may hold arrays.
+   *
+   * @return the relative cost of comparing values of the property, or a negative number to estimate it
+   * @since 3.0
+   */
+  public int equalsCost() default -1;
+
+  /**
+   * Whether the value of the property is never {@code null}. If so, generated pojomators compare and hash its values
+   * without first checking for {@code null}; given an instance for which the property is {@code null} nonetheless,
+   * they may throw a {@link NullPointerException}. This has no effect on properties of primitive type.
+   *
+   * @return {@code true} if the value of the property is never {@code null}
+   * @since 3.0
+   */
+  public boolean nonNull() default false;
 }
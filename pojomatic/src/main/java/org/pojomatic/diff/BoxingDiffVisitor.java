@@ -0,0 +1,52 @@
+package org.pojomatic.diff;
+
+import org.pojomatic.PropertyElement;
+
+/**
+ * A {@link DiffVisitor} which reports differences in primitive properties through
+ * {@link #onObjectDifference(PropertyElement, Object, Object)}, with their values boxed. Subclasses need only implement
+ * {@code onObjectDifference}, and may override the methods for primitive types they wish to handle without boxing.
+ *
+ * @since 3.0
+ */
+public abstract class BoxingDiffVisitor implements DiffVisitor {
+  @Override
+  public void onBooleanDifference(PropertyElement property, boolean instanceValue, boolean otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onByteDifference(PropertyElement property, byte instanceValue, byte otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onShortDifference(PropertyElement property, short instanceValue, short otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onCharDifference(PropertyElement property, char instanceValue, char otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onIntDifference(PropertyElement property, int instanceValue, int otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onLongDifference(PropertyElement property, long instanceValue, long otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onFloatDifference(PropertyElement property, float instanceValue, float otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+
+  @Override
+  public void onDoubleDifference(PropertyElement property, double instanceValue, double otherValue) {
+    onObjectDifference(property, instanceValue, otherValue);
+  }
+}
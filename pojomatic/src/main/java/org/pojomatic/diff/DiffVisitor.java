@@ -0,0 +1,89 @@
+package org.pojomatic.diff;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+
+/**
+ * A visitor of the differences between two POJOs, as reported by
+ * {@link Pojomator#doDiff(Object, Object, DiffVisitor)}. For each property whose values differ, the method
+ * corresponding to the type of the property is called; properties of primitive type are reported without boxing their
+ * values, and properties of any other type (including arrays) are reported through
+ * {@link #onObjectDifference(PropertyElement, Object, Object)}.
+ * <p>
+ * Implementations which do not need primitive values unboxed can extend {@link BoxingDiffVisitor}.
+ *
+ * @since 3.0
+ */
+public interface DiffVisitor {
+  /**
+   * Called for a differing property of type {@code boolean}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onBooleanDifference(PropertyElement property, boolean instanceValue, boolean otherValue);
+
+  /**
+   * Called for a differing property of type {@code byte}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onByteDifference(PropertyElement property, byte instanceValue, byte otherValue);
+
+  /**
+   * Called for a differing property of type {@code short}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onShortDifference(PropertyElement property, short instanceValue, short otherValue);
+
+  /**
+   * Called for a differing property of type {@code char}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onCharDifference(PropertyElement property, char instanceValue, char otherValue);
+
+  /**
+   * Called for a differing property of type {@code int}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onIntDifference(PropertyElement property, int instanceValue, int otherValue);
+
+  /**
+   * Called for a differing property of type {@code long}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onLongDifference(PropertyElement property, long instanceValue, long otherValue);
+
+  /**
+   * Called for a differing property of type {@code float}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onFloatDifference(PropertyElement property, float instanceValue, float otherValue);
+
+  /**
+   * Called for a differing property of type {@code double}.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance
+   * @param otherValue the value of the property in the second instance
+   */
+  void onDoubleDifference(PropertyElement property, double instanceValue, double otherValue);
+
+  /**
+   * Called for a differing property of any non-primitive type, including array types.
+   * @param property the property
+   * @param instanceValue the value of the property in the first instance (possibly {@code null})
+   * @param otherValue the value of the property in the second instance (possibly {@code null})
+   */
+  void onObjectDifference(PropertyElement property, Object instanceValue, Object otherValue);
+}
@@ -0,0 +1,32 @@
+package org.pojomatic.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pojomatic.PropertyElement;
+
+/**
+ * A {@link DiffVisitor} which collects the differences it visits as {@link ValueDifference}s. This is how
+ * {@link org.pojomatic.Pojomator#doDiff(Object, Object)} is built on top of
+ * {@link org.pojomatic.Pojomator#doDiff(Object, Object, DiffVisitor)}.
+ *
+ * @since 3.0
+ */
+public class DifferencesCollector extends BoxingDiffVisitor {
+  private List<Difference> differences;
+
+  @Override
+  public void onObjectDifference(PropertyElement property, Object instanceValue, Object otherValue) {
+    if (differences == null) {
+      differences = new ArrayList<>();
+    }
+    differences.add(new ValueDifference(property.getName(), instanceValue, otherValue));
+  }
+
+  /**
+   * @return the differences visited so far, or {@link NoDifferences} if there have been none
+   */
+  public Differences getDifferences() {
+    return differences == null ? NoDifferences.getInstance() : new PropertyDifferences(differences);
+  }
+}
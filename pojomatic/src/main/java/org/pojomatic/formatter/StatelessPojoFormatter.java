@@ -0,0 +1,21 @@
+package org.pojomatic.formatter;
+
+import org.pojomatic.Pojomator;
+
+/**
+ * An {@link EnhancedPojoFormatter} whose output depends only on the class being formatted, its properties, and the
+ * order in which its methods are called &mdash; not on anything which might change from one call of
+ * {@link Pojomator#doToString(Object)} to the next.
+ * <p>
+ * For a class formatted by a {@code StatelessPojoFormatter}, Pojomatic creates a single instance of the formatter
+ * when it creates the {@code Pojomator}, and uses it to compute the text which appears before, between and after the
+ * property values. That text is then reused for every call to {@code doToString}, so that the formatter is not
+ * created or called again.
+ * <p>
+ * {@link DefaultEnhancedPojoFormatter} is treated as stateless. Since a subclass of it need not be, the subclass must
+ * implement this interface itself to be treated as stateless.
+ *
+ * @since 3.0
+ */
+public interface StatelessPojoFormatter extends EnhancedPojoFormatter {
+}
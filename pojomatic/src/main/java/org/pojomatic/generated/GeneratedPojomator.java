@@ -0,0 +1,351 @@
+package org.pojomatic.generated;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Comparator;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.diff.Differences;
+import org.pojomatic.diff.DifferencesCollector;
+import org.pojomatic.diff.NoDifferences;
+import org.pojomatic.formatter.EnhancedPojoFormatter;
+import org.pojomatic.formatter.EnhancedPropertyFormatter;
+import org.pojomatic.internal.BasePojomator;
+import org.pojomatic.internal.ClassProperties;
+import org.pojomatic.internal.PojomatorComparator;
+import org.pojomatic.internal.PojomatorFactory;
+import org.pojomatic.internal.PropertyAccessor;
+import org.pojomatic.internal.PropertyField;
+import org.pojomatic.internal.Utf8;
+
+/**
+ * Base class for {@link Pojomator} implementations generated at build time by the Pojomatic annotation processor
+ * ({@code org.pojomatic:pojomatic-processor}). This class is public only so that generated code can extend it; it is
+ * not intended to be used directly, and its protected API is subject to change.
+ * <p>
+ * A generated pojomator for a class {@code com.example.Outer$Inner} is named
+ * {@code com.example.Outer_Inner_Pojomator}; see {@link #generatedClassName(String)}.
+ *
+ * @param <T> the class this {@code Pojomator} is generated for.
+ * @since 3.0
+ */
+public abstract class GeneratedPojomator<T> implements Pojomator<T> {
+  /**
+   * The suffix appended to the name of a pojo class to form the name of its generated pojomator.
+   */
+  public static final String CLASS_NAME_SUFFIX = "_Pojomator";
+
+  protected final Class<?> pojoClass;
+  private final String[] equalsProperties;
+  private final String[] hashCodeProperties;
+  private final String[] toStringProperties;
+  private final Comparator<T> comparator = new PojomatorComparator<>(this);
+
+  protected GeneratedPojomator(
+    Class<?> pojoClass, String[] equalsProperties, String[] hashCodeProperties, String[] toStringProperties) {
+    this.pojoClass = pojoClass;
+    this.equalsProperties = equalsProperties;
+    this.hashCodeProperties = hashCodeProperties;
+    this.toStringProperties = toStringProperties;
+  }
+
+  /**
+   * Compute the name of the generated pojomator for a pojo class.
+   * @param pojoClassName the binary name of the pojo class, as returned by {@link Class#getName()}
+   * @return the binary name of the generated pojomator class
+   */
+  public static String generatedClassName(String pojoClassName) {
+    int packageEnd = pojoClassName.lastIndexOf('.') + 1;
+    return pojoClassName.substring(0, packageEnd)
+      + pojoClassName.substring(packageEnd).replace('$', '_')
+      + CLASS_NAME_SUFFIX;
+  }
+
+  /**
+   * Get the class this pojomator was generated for.
+   * @return the class this pojomator was generated for
+   */
+  public Class<?> getPojoClass() {
+    return pojoClass;
+  }
+
+  @Override
+  public String doToString(T instance) {
+    checkNotNull(instance);
+    StringBuilder builder = new StringBuilder();
+    doAppendTo(instance, builder);
+    return builder.toString();
+  }
+
+  @Override
+  public void doAppendTo(T instance, Appendable appendable) throws IOException {
+    if (appendable instanceof StringBuilder) {
+      doAppendTo(instance, (StringBuilder) appendable);
+    }
+    else {
+      checkNotNull(appendable);
+      StringBuilder builder = new StringBuilder();
+      doAppendTo(instance, builder);
+      appendable.append(builder);
+    }
+  }
+
+  @Override
+  public void doWriteUtf8(T instance, ByteBuffer buffer) {
+    checkNotNull(buffer);
+    StringBuilder builder = new StringBuilder();
+    doAppendTo(instance, builder);
+    Utf8.encode(builder, buffer);
+  }
+
+  @Override
+  public Comparator<T> comparator() {
+    return comparator;
+  }
+
+  @Override
+  public Differences doDiff(T instance, T other) {
+    checkNotNull(instance, "instance is null");
+    checkNotNull(other, "other is null");
+    if (instance == other) {
+      return NoDifferences.getInstance();
+    }
+    DifferencesCollector collector = new DifferencesCollector();
+    doDiff(instance, other, collector);
+    return collector.getDifferences();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The compatibility rules are evaluated at runtime, but only the first time a class other than the pojo class
+   * itself is checked.
+   */
+  @Override
+  public boolean isCompatibleForEquality(Class<?> otherClass) {
+    return otherClass == pojoClass || ClassProperties.forClass(pojoClass).isCompatibleForEquals(otherClass);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Pojomator for ").append(pojoClass.getName()).append(" with equals properties ");
+    propertiesList(builder, equalsProperties);
+    builder.append(", hashCodeProperties ");
+    propertiesList(builder, hashCodeProperties);
+    builder.append(", and toStringProperties ");
+    propertiesList(builder, toStringProperties);
+    return builder.toString();
+  }
+
+  private static void propertiesList(StringBuilder builder, String[] properties) {
+    builder.append("{");
+    for (int i = 0; i < properties.length; i++) {
+      if (i > 0) {
+        builder.append(",");
+      }
+      builder.append(properties[i]);
+    }
+    builder.append("}");
+  }
+
+  protected static void checkNotNull(Object reference) {
+    if (reference == null) {
+      throw new NullPointerException();
+    }
+  }
+
+  protected static void checkNotNull(Object reference, String message) {
+    if (reference == null) {
+      throw new NullPointerException(message);
+    }
+  }
+
+  protected void checkCompatibleForEquality(Object instance, String label) {
+    if (!isCompatibleForEquality(instance.getClass())) {
+      throw new IllegalArgumentException(
+        label + " has type " + instance.getClass().getName()
+        + " which is not compatible for equality with " + pojoClass.getName());
+    }
+  }
+
+  protected static boolean areObjectValuesEqual(Object instanceValue, Object otherValue) {
+    return Values.equalValues(instanceValue, otherValue);
+  }
+
+  protected static boolean compareArrays(Object instanceValue, Object otherValue) {
+    return Values.equalArrays(instanceValue, otherValue);
+  }
+
+  protected static int compareValues(Object instanceValue, Object otherValue, boolean nullsFirst) {
+    return Values.compare(instanceValue, otherValue, nullsFirst);
+  }
+
+  protected static int arrayHashCode(Object array, boolean deepArray) {
+    return Values.hashArray(array, deepArray);
+  }
+
+  /**
+   * Create a {@link PropertyElement} for a field.
+   * @param declaringClass the class declaring the field
+   * @param fieldName the name of the field
+   * @param propertyName the name specified by {@link org.pojomatic.annotations.Property#name()}, or the empty string
+   * @return the property element
+   */
+  protected static PropertyElement field(Class<?> declaringClass, String fieldName, String propertyName) {
+    try {
+      return new PropertyField(declaringClass.getDeclaredField(fieldName), propertyName);
+    }
+    catch (NoSuchFieldException e) {
+      throw staleGeneratedCode(declaringClass, e);
+    }
+  }
+
+  /**
+   * Create a {@link PropertyElement} for a no-arg method.
+   * @param declaringClass the class declaring the method
+   * @param methodName the name of the method
+   * @param propertyName the name specified by {@link org.pojomatic.annotations.Property#name()}, or the empty string
+   * @return the property element
+   */
+  protected static PropertyElement method(Class<?> declaringClass, String methodName, String propertyName) {
+    try {
+      return new PropertyAccessor(declaringClass.getDeclaredMethod(methodName), propertyName);
+    }
+    catch (NoSuchMethodException e) {
+      throw staleGeneratedCode(declaringClass, e);
+    }
+  }
+
+  /**
+   * Create the property formatter for a property.
+   * @param propertyElement the property
+   * @return the initialized property formatter
+   */
+  protected static EnhancedPropertyFormatter propertyFormatter(PropertyElement propertyElement) {
+    try {
+      return PojomatorFactory.createPropertyFormatter(propertyElement.getElement());
+    }
+    catch (InstantiationException | IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Wrap a {@link org.pojomatic.formatter.PojoFormatter} as an {@link EnhancedPojoFormatter} if need be.
+   * @param pojoFormatter the formatter specified by {@link org.pojomatic.annotations.PojoFormat}
+   * @return an {@code EnhancedPojoFormatter} delegating to {@code pojoFormatter}
+   */
+  @Deprecated
+  protected static EnhancedPojoFormatter enhance(org.pojomatic.formatter.PojoFormatter pojoFormatter) {
+    return pojoFormatter instanceof EnhancedPojoFormatter
+      ? (EnhancedPojoFormatter) pojoFormatter
+      : new org.pojomatic.internal.EnhancedPojoFormatterWrapper(pojoFormatter);
+  }
+
+  /**
+   * Create a method handle to read a property which generated code cannot access directly, such as a private field.
+   * The handle takes a single argument of type {@code Object}, and returns the property's type if it is primitive or
+   * an array of primitives, {@code Object[]} if it is any other array type, and {@code Object} otherwise.
+   * <p>
+   * The property must be declared by the pojo class or one of its superclasses, and this pojomator must be the one
+   * generated for the pojo class: named as described by {@link #generatedClassName(String)}, and loaded by the pojo
+   * class's class loader. Otherwise, a subclass could use Pojomatic's privileges to read members of any class.
+   * @param propertyElement the property to access
+   * @return a method handle for reading the property
+   * @throws SecurityException if the property is not one of the pojo class's, or this is not the pojo class's
+   * generated pojomator
+   */
+  protected final MethodHandle accessor(final PropertyElement propertyElement) {
+    final AccessibleObject element = (AccessibleObject) propertyElement.getElement();
+    Class<?> declaringClass = ((Member) element).getDeclaringClass();
+    if (!declaringClass.isAssignableFrom(pojoClass) || declaringClass.isInterface()) {
+      throw new SecurityException(
+        declaringClass.getName() + " is not " + pojoClass.getName() + " or one of its superclasses");
+    }
+    if (!getClass().getName().equals(generatedClassName(pojoClass.getName()))
+      || getClass().getClassLoader() != pojoClass.getClassLoader()) {
+      throw new SecurityException(getClass().getName() + " is not the generated pojomator for " + pojoClass.getName());
+    }
+    AccessController.doPrivileged(new PrivilegedAction<Void>() {
+      @Override
+      public Void run() {
+        element.setAccessible(true);
+        return null;
+      }
+    });
+    try {
+      MethodHandle handle = element instanceof Field
+        ? MethodHandles.lookup().unreflectGetter((Field) element)
+        : MethodHandles.lookup().unreflect((Method) element);
+      return MethodHandles.explicitCastArguments(
+        handle, MethodType.methodType(effectiveType(propertyElement.getPropertyType()), Object.class));
+    }
+    catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Rethrow a throwable from a property accessor without wrapping it, even if it is a checked exception.
+   * @param throwable the throwable to rethrow
+   * @return nothing; this method always throws. Declared so that callers can write {@code throw rethrow(t);}
+   */
+  protected static RuntimeException rethrow(Throwable throwable) {
+    throw GeneratedPojomator.<RuntimeException>sneakyThrow(throwable);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> E sneakyThrow(Throwable throwable) throws E {
+    throw (E) throwable;
+  }
+
+  private static Class<?> effectiveType(Class<?> propertyClass) {
+    if (propertyClass.isArray()) {
+      return propertyClass.getComponentType().isPrimitive() ? propertyClass : Object[].class;
+    }
+    else {
+      return propertyClass.isPrimitive() ? propertyClass : Object.class;
+    }
+  }
+
+  /**
+   * Bridges to the value helpers of {@link BasePojomator}, which are only accessible to its subclasses.
+   */
+  abstract static class Values extends BasePojomator<Object> {
+    private Values() {
+      super(null, null);
+    }
+
+    static boolean equalValues(Object instanceValue, Object otherValue) {
+      return BasePojomator.areObjectValuesEqual(instanceValue, otherValue);
+    }
+
+    static boolean equalArrays(Object instanceValue, Object otherValue) {
+      return BasePojomator.compareArrays(instanceValue, otherValue);
+    }
+
+    static int compare(Object instanceValue, Object otherValue, boolean nullsFirst) {
+      return BasePojomator.compareValues(instanceValue, otherValue, nullsFirst);
+    }
+
+    static int hashArray(Object array, boolean deepArray) {
+      return BasePojomator.arrayHashCode(array, deepArray);
+    }
+  }
+
+  private static IllegalStateException staleGeneratedCode(Class<?> declaringClass, Exception cause) {
+    return new IllegalStateException(
+      "Generated pojomator is out of date with respect to " + declaringClass.getName(), cause);
+  }
+}
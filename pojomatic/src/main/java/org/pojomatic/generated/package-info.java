@@ -0,0 +1,5 @@
+/**
+ * Support classes for {@link org.pojomatic.Pojomator Pojomators} generated at build time by the Pojomatic annotation
+ * processor. Nothing in this package is intended to be used directly.
+ */
+package org.pojomatic.generated;
@@ -0,0 +1,239 @@
+package org.pojomatic.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.diff.DiffVisitor;
+import org.pojomatic.diff.Differences;
+
+/**
+ * A {@link Pojomator} which profiles which properties most often cause {@code doEquals} to return {@code false}, and
+ * once that profile is stable, regenerates its bytecode pojomator to compare those properties first. Since
+ * {@code doEquals} stops at the first property found to differ, this avoids comparing properties which almost always
+ * match (such as large strings or collections) before one which usually differs (such as a version number).
+ * <p>
+ * The profile is taken from the {@link InvocationCounters} generated into the initial pojomator. Every
+ * {@value #CHECK_INTERVAL} calls to {@code doEquals}, once at least {@value #MINIMUM_DIFFERENCES} differences have
+ * been counted, the order the profile calls for is computed; when two checks in a row agree on an order, the
+ * pojomator is regenerated on a background thread with that order. After that, the order is not changed again, and
+ * unless instrumentation was requested with {@value InvocationCounters#INSTRUMENTATION_PROPERTY}, the regenerated
+ * pojomator does not count calls; if it was requested, the pojomator is only regenerated if the order has changed.
+ * A class with fewer than two equals properties has no order to profile, and is never instrumented unless requested.
+ * <p>
+ * Adaptive ordering is enabled by setting the system property {@value #ADAPTIVE_EQUALS_PROPERTY} to {@code true}.
+ *
+ * @param <T> the type this pojomator works on
+ */
+public class AdaptivePojomator<T> implements Pojomator<T> {
+  /**
+   * The system property which, if set to {@code true}, causes {@link org.pojomatic.Pojomatic} to create
+   * {@code AdaptivePojomator}s.
+   */
+  public static final String ADAPTIVE_EQUALS_PROPERTY = "org.pojomatic.adaptiveEquals";
+
+  private static final boolean ENABLED = SystemProperties.getBoolean(ADAPTIVE_EQUALS_PROPERTY);
+
+  /**
+   * The number of calls to {@code doEquals} between checks of the profile; a power of two.
+   */
+  static final int CHECK_INTERVAL = 1024;
+
+  /**
+   * The number of differences which must have been counted before the profile is used.
+   */
+  static final int MINIMUM_DIFFERENCES = 100;
+
+  private final Class<T> pojoClass;
+  private final List<PropertyElement> equalsProperties;
+  private final List<PropertyElement> initialOrder;
+  private final InvocationCounters counters;
+  private final Comparator<T> comparator = new PojomatorComparator<>(this);
+  private volatile Pojomator<T> delegate;
+
+  /**
+   * The number of calls to {@code doEquals} since this was created. Updates may race, and so be lost; this only
+   * affects how often the profile is checked.
+   */
+  private int equalsCalls;
+
+  /**
+   * Whether the order of equals properties has been settled. Only set while holding the lock on {@code this}.
+   */
+  private volatile boolean settled;
+
+  /**
+   * The order computed at the last check of the profile, or {@code null}. Guarded by {@code this}.
+   */
+  private List<PropertyElement> lastOrder;
+
+  private volatile Future<?> regeneration;
+
+  public AdaptivePojomator(Class<T> pojoClass) {
+    this.pojoClass = pojoClass;
+    ClassProperties classProperties = ClassProperties.forClass(pojoClass);
+    this.equalsProperties = new ArrayList<>(classProperties.getEqualsProperties());
+    this.initialOrder = classProperties.getEqualsComparisonOrder();
+    this.counters = InvocationCounters.forClass(pojoClass, classProperties);
+    // with fewer than two equals properties there is no order to choose, so no profile is needed
+    this.settled = equalsProperties.size() < 2;
+    this.delegate = PojomatorFactory.makePojomator(pojoClass, !settled || InvocationCounters.isRequested());
+  }
+
+  /**
+   * Whether adaptive ordering has been enabled via the {@value #ADAPTIVE_EQUALS_PROPERTY} system property, as it was
+   * set when this class was initialized.
+   * @return {@code true} if adaptive ordering is enabled
+   */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Compute the order in which to compare equals properties: those most often the first found to differ come first,
+   * and among properties which have differed equally often, those cheapest to compare, as estimated by
+   * {@link ClassProperties#equalsCost(PropertyElement)}, come first. Otherwise, properties keep their original order.
+   * @param equalsProperties the equals properties, in their original order
+   * @param firstDifferenceCounts the number of times each property has been the first found to differ
+   * @return the equals properties, in the order in which to compare them
+   */
+  static List<PropertyElement> profiledOrder(
+    List<PropertyElement> equalsProperties, long[] firstDifferenceCounts) {
+    final Map<PropertyElement, Long> counts = new IdentityHashMap<>();
+    for (int i = 0; i < firstDifferenceCounts.length; i++) {
+      counts.put(equalsProperties.get(i), firstDifferenceCounts[i]);
+    }
+    List<PropertyElement> order = new ArrayList<>(equalsProperties);
+    // the sort is stable, so otherwise equal properties keep their original order
+    Collections.sort(order, new Comparator<PropertyElement>() {
+      @Override
+      public int compare(PropertyElement property1, PropertyElement property2) {
+        int result = Long.compare(counts.get(property2), counts.get(property1));
+        if (result != 0) {
+          return result;
+        }
+        return Integer.compare(ClassProperties.equalsCost(property1), ClassProperties.equalsCost(property2));
+      }
+    });
+    return order;
+  }
+
+  /**
+   * @return the regeneration of the bytecode pojomator with a profiled order, for tests which need to wait on it, or
+   * {@code null} if it has not been started
+   */
+  Future<?> getRegeneration() {
+    return regeneration;
+  }
+
+  /**
+   * @return whether the order of equals properties has been settled, and the profile is no longer checked
+   */
+  boolean isSettled() {
+    return settled;
+  }
+
+  @Override
+  public boolean doEquals(T instance, Object other) {
+    boolean result = delegate.doEquals(instance, other);
+    if (!settled && (++equalsCalls & (CHECK_INTERVAL - 1)) == 0) {
+      checkProfile();
+    }
+    return result;
+  }
+
+  private synchronized void checkProfile() {
+    if (settled) {
+      return;
+    }
+    long[] firstDifferenceCounts = counters.firstDifferenceCounts();
+    long differences = 0;
+    for (long count: firstDifferenceCounts) {
+      differences += count;
+    }
+    if (differences < MINIMUM_DIFFERENCES) {
+      return;
+    }
+    List<PropertyElement> order = profiledOrder(equalsProperties, firstDifferenceCounts);
+    if (!order.equals(lastOrder)) {
+      lastOrder = order;
+      return;
+    }
+    settled = true;
+    // The profile is no longer needed, so unless instrumentation was requested, regenerate the pojomator without it,
+    // even if the order has not changed.
+    if (!order.equals(initialOrder) || !InvocationCounters.isRequested()) {
+      final List<PropertyElement> equalsOrder = Collections.unmodifiableList(order);
+      regeneration = TieredPojomator.compileInBackground(new Runnable() {
+        @Override
+        public void run() {
+          // if generation fails, the current pojomator remains in use
+          delegate = PojomatorFactory.makePojomator(pojoClass, equalsOrder, InvocationCounters.isRequested());
+        }
+      });
+    }
+  }
+
+  @Override
+  public int doHashCode(T instance) {
+    return delegate.doHashCode(instance);
+  }
+
+  @Override
+  public String doToString(T instance) {
+    return delegate.doToString(instance);
+  }
+
+  @Override
+  public void doAppendTo(T instance, StringBuilder builder) {
+    delegate.doAppendTo(instance, builder);
+  }
+
+  @Override
+  public void doAppendTo(T instance, Appendable appendable) throws IOException {
+    delegate.doAppendTo(instance, appendable);
+  }
+
+  @Override
+  public void doWriteUtf8(T instance, ByteBuffer buffer) {
+    delegate.doWriteUtf8(instance, buffer);
+  }
+
+  @Override
+  public int doCompare(T instance, T other) {
+    return delegate.doCompare(instance, other);
+  }
+
+  @Override
+  public Comparator<T> comparator() {
+    return comparator;
+  }
+
+  @Override
+  public boolean isCompatibleForEquality(Class<?> otherClass) {
+    return delegate.isCompatibleForEquality(otherClass);
+  }
+
+  @Override
+  public Differences doDiff(T instance, T other) {
+    return delegate.doDiff(instance, other);
+  }
+
+  @Override
+  public void doDiff(T instance, T other, DiffVisitor visitor) {
+    delegate.doDiff(instance, other, visitor);
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
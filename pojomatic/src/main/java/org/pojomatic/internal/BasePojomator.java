@@ -1,35 +1,88 @@
 package org.pojomatic.internal;
 
+import java.io.IOException;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.Arrays;
+import java.util.Comparator;
 
+import org.pojomatic.Pojomatic;
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
+import org.pojomatic.diff.Differences;
+import org.pojomatic.diff.DifferencesCollector;
+import org.pojomatic.diff.NoDifferences;
 
 public abstract class BasePojomator<T> implements Pojomator<T> {
+  private static final int INITIAL_TO_STRING_BUILDER_CAPACITY = 256;
+  private static final int MAX_REUSED_TO_STRING_BUILDER_CAPACITY = 8192;
+  private static final ThreadLocal<StringBuilder> TO_STRING_BUILDER = new ThreadLocal<>();
+
   protected final Class<?> pojoClass;
   private final ClassProperties classProperties;
+  private final Comparator<T> comparator = new PojomatorComparator<>(this);
 
   protected BasePojomator(Class<?> pojoClass, ClassProperties classProperties) {
     this.pojoClass = pojoClass;
     this.classProperties = classProperties;
   }
 
+  @Override
+  public Comparator<T> comparator() {
+    return comparator;
+  }
+
   @Override
   public boolean isCompatibleForEquality(Class<?> otherClass) {
     return classProperties.isCompatibleForEquals(otherClass);
   }
 
+  @Override
+  public void doAppendTo(T instance, Appendable appendable) throws IOException {
+    if (appendable instanceof StringBuilder) {
+      doAppendTo(instance, (StringBuilder) appendable);
+    }
+    else {
+      checkNotNull(appendable);
+      StringBuilder builder = acquireToStringBuilder();
+      doAppendTo(instance, builder);
+      appendable.append(builder);
+      recycleToStringBuilder(builder);
+    }
+  }
+
+  @Override
+  public void doWriteUtf8(T instance, ByteBuffer buffer) {
+    checkNotNull(buffer);
+    StringBuilder builder = acquireToStringBuilder();
+    doAppendTo(instance, builder);
+    Utf8.encode(builder, buffer);
+    recycleToStringBuilder(builder);
+  }
+
+  @Override
+  public Differences doDiff(T instance, T other) {
+    checkNotNull(instance, "instance is null");
+    checkNotNull(other, "other is null");
+    if (instance == other) {
+      return NoDifferences.getInstance();
+    }
+    DifferencesCollector collector = new DifferencesCollector();
+    doDiff(instance, other, collector);
+    return collector.getDifferences();
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -68,6 +121,7 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
    *   or method
    * @param pojomatorClass the type of the pojomator class
    * @return a CallSite which invokes the method or gets the field value.
+   * @throws SecurityException if {@code caller} is not a pojomator generated by Pojomatic to access the property
    * @throws Throwable if there are reflection issues
    */
   protected static CallSite bootstrap(
@@ -79,6 +133,64 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
         MethodType.methodType(methodType.returnType(), Object.class)));
   }
 
+  /**
+   * Construct a call site for a property accessor of a pojomator defined as a hidden class. The property element is
+   * passed as a static argument, loaded from the pojomator's class data, rather than read from a static field.
+   * @param caller A Lookup from the original call site.
+   * @param name the name of the dynamic method
+   * @param methodType the type of the dynamic method; the return type should be the type of the property
+   * @param property the property to access
+   * @return a CallSite which invokes the method or gets the field value.
+   * @throws SecurityException if {@code caller} is not a pojomator generated by Pojomatic to access the property
+   * @throws Throwable if there are reflection issues
+   */
+  protected static CallSite bootstrapElement(
+      MethodHandles.Lookup caller, String name, MethodType methodType, PropertyElement property)
+      throws Throwable {
+    return new ConstantCallSite(
+      MethodHandles.explicitCastArguments(
+        getTypedMethod(caller, property),
+        MethodType.methodType(methodType.returnType(), Object.class)));
+  }
+
+  /**
+   * Construct a call site for a method setting the field in which a pojo caches a value, such as its hash code. As
+   * with {@link #bootstrap(java.lang.invoke.MethodHandles.Lookup, String, MethodType, Class)}, the pojo parameter in
+   * {@code methodType} is {@code Object.class}.
+   * @param caller A Lookup from the original call site.
+   * @param name the name of the dynamic method. This should be of the form "set_xxx", where "element_xxx" will be a
+   * static field containing a {@link PropertyElement} instance referring to the field to be set.
+   * @param methodType the type of the dynamic method, taking the pojo and the value to set
+   * @param pojomatorClass the type of the pojomator class
+   * @return a CallSite which sets the field value.
+   * @throws SecurityException if {@code caller} is not a pojomator generated by Pojomatic to access the property
+   * @throws Throwable if there are reflection issues
+   */
+  protected static CallSite bootstrapSetter(
+      MethodHandles.Lookup caller, String name, MethodType methodType, Class<?> pojomatorClass)
+      throws Throwable {
+    return new ConstantCallSite(
+      MethodHandles.explicitCastArguments(getSetter(caller, name, pojomatorClass, null), methodType));
+  }
+
+  /**
+   * Construct a call site for a method setting the field in which a pojo caches a value, for a pojomator defined as a
+   * hidden class. The field is passed as a static argument, loaded from the pojomator's class data.
+   * @param caller A Lookup from the original call site.
+   * @param name the name of the dynamic method
+   * @param methodType the type of the dynamic method, taking the pojo and the value to set
+   * @param field the field to set
+   * @return a CallSite which sets the field value.
+   * @throws SecurityException if {@code caller} is not a pojomator generated by Pojomatic to access the property
+   * @throws Throwable if there are reflection issues
+   */
+  protected static CallSite bootstrapSetterElement(
+      MethodHandles.Lookup caller, String name, MethodType methodType, PropertyElement field)
+      throws Throwable {
+    return new ConstantCallSite(
+      MethodHandles.explicitCastArguments(getSetter(caller, name, null, field), methodType));
+  }
+
   /**
    * Compare two values of static type Object for equality. If both values are arrays, then they will be considered
    * equal iff they have the same class, and (recursively) an equal set of elements.
@@ -106,6 +218,98 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     return true;
   }
 
+  /**
+   * Compare a value of a property of type {@code String} with another value, as
+   * {@link java.util.Objects#equals(Object, Object)} would. Since {@code String} is final, the call to its
+   * {@code equals} method is bound statically, rather than dispatched on the class of {@code instanceValue}.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(String instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Boolean} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Boolean instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Byte} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Byte instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Character} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Character instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Short} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Short instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Integer} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Integer instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Long} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Long instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Float} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Float instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
+  /**
+   * Compare a value of a property of type {@code Double} with another value, as {@link #areEqual(String, Object)} does.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return true if {@code instanceValue} and {@code otherValue} are equal to each other.
+   */
+  public static boolean areEqual(Double instanceValue, Object otherValue) {
+    return instanceValue == null ? otherValue == null : instanceValue.equals(otherValue);
+  }
+
   /**
    * Compare two values of array type for equality. They will be considered
    * equal iff they have the same class, and (recursively) an equal set of elements.
@@ -161,6 +365,42 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     }
   }
 
+  /**
+   * Compare two values of static type Object, as described for {@link Pojomator#doCompare(Object, Object)}. Arrays
+   * are compared lexicographically; any other non-null value must be {@link Comparable}.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @param nullsFirst whether {@code null} is ordered before, rather than after, non-null values
+   * @return a negative integer, zero, or a positive integer as {@code instanceValue} is less than, equal to, or greater
+   * than {@code otherValue}
+   * @throws ClassCastException if {@code instanceValue} is neither {@code null}, an array, nor {@code Comparable}
+   */
+  protected static int compareValues(Object instanceValue, Object otherValue, boolean nullsFirst) {
+    if (instanceValue == otherValue) {
+      return 0;
+    }
+    if (instanceValue == null) {
+      return nullsFirst ? -1 : 1;
+    }
+    if (otherValue == null) {
+      return nullsFirst ? 1 : -1;
+    }
+    if (instanceValue.getClass().isArray() && otherValue.getClass().isArray()) {
+      int instanceLength = Array.getLength(instanceValue);
+      int otherLength = Array.getLength(otherValue);
+      for (int i = 0; i < Math.min(instanceLength, otherLength); i++) {
+        int result = compareValues(Array.get(instanceValue, i), Array.get(otherValue, i), nullsFirst);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return Integer.compare(instanceLength, otherLength);
+    }
+    @SuppressWarnings("unchecked")
+    Comparable<Object> comparable = (Comparable<Object>) instanceValue;
+    return comparable.compareTo(otherValue);
+  }
+
 
   /**
    * Given an object which is of array type, compute it's hashCode by calling the appropriate signature of
@@ -221,6 +461,63 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     }
   }
 
+  /**
+   * Get a {@link StringBuilder} to build the result of {@code doToString} in. To avoid allocating a new builder (and
+   * growing it) for each call, each thread keeps a builder for reuse; while it is in use, nested calls to
+   * {@code doToString} on the same thread get a new builder.
+   * @return an empty builder
+   * @see #releaseToStringBuilder(StringBuilder)
+   */
+  protected static StringBuilder acquireToStringBuilder() {
+    StringBuilder builder = TO_STRING_BUILDER.get();
+    if (builder == null) {
+      return new StringBuilder(INITIAL_TO_STRING_BUILDER_CAPACITY);
+    }
+    TO_STRING_BUILDER.set(null);
+    return builder;
+  }
+
+  /**
+   * Get the contents of a builder obtained from {@link #acquireToStringBuilder()}, and make it available for reuse by
+   * the current thread, unless it has grown too large to keep around.
+   * @param builder the builder
+   * @return the contents of {@code builder}
+   */
+  protected static String releaseToStringBuilder(StringBuilder builder) {
+    String result = builder.toString();
+    recycleToStringBuilder(builder);
+    return result;
+  }
+
+  /**
+   * Make a builder obtained from {@link #acquireToStringBuilder()} available for reuse by the current thread, unless
+   * it has grown too large to keep around.
+   * @param builder the builder, whose contents are no longer needed
+   */
+  protected static void recycleToStringBuilder(StringBuilder builder) {
+    if (builder.capacity() <= MAX_REUSED_TO_STRING_BUILDER_CAPACITY) {
+      builder.setLength(0);
+      TO_STRING_BUILDER.set(builder);
+    }
+  }
+
+  /**
+   * Append a property value to a builder, as {@link org.pojomatic.formatter.DefaultEnhancedPropertyFormatter} would,
+   * for a value whose class implements {@code toString()} by delegating to Pojomatic. Rather than building a separate
+   * {@code String}, the value's pojomator appends to {@code builder} directly.
+   * @param builder the builder to append to
+   * @param value the property value, which may be {@code null}
+   * @see ToStringDelegation#isAppendableInline(Class)
+   */
+  protected static void appendPojo(StringBuilder builder, Object value) {
+    if (value == null) {
+      builder.append("null");
+    }
+    else {
+      Pojomatic.appendTo(value, builder);
+    }
+  }
+
   protected void checkCompatibleForEquality(T instance, String label) {
     if (!isCompatibleForEquality(instance.getClass())) {
       throw new IllegalArgumentException(
@@ -269,6 +566,74 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     Field elementField = pojomatorClass.getDeclaredField(elementName);
     elementField.setAccessible(true);
     PropertyElement property = (PropertyElement) elementField.get(null);
+    GeneratedElements.checkReadable(caller, property);
+    return unreflectPrivileged(caller, property);
+  }
+
+  /**
+   * Get a method handle to set a field in which a pojo caches a value.
+   * @param caller A Lookup from the original call site.
+   * @param name the name of the dynamic method, of the form "set_xxx"
+   * @param pojomatorClass if {@code field} is {@code null}, the type of the pojomator class, whose static field
+   * "element_xxx" contains the field to be set
+   * @param field the field to be set, or {@code null}
+   * @return the MethodHandle
+   * @throws Throwable
+   */
+  private static MethodHandle getSetter(
+    final MethodHandles.Lookup caller, final String name, final Class<?> pojomatorClass, final PropertyElement field)
+    throws Throwable {
+    try {
+      return AccessController.doPrivileged(new PrivilegedExceptionAction<MethodHandle>() {
+        @Override
+        public MethodHandle run() throws Exception {
+          PropertyElement element = field;
+          if (element == null) {
+            Field elementField = pojomatorClass.getDeclaredField("element_" + name.substring(4));
+            elementField.setAccessible(true);
+            element = (PropertyElement) elementField.get(null);
+          }
+          GeneratedElements.checkWritable(caller, element);
+          Field cacheField = (Field) element.getElement();
+          cacheField.setAccessible(true);
+          return caller.unreflectSetter(cacheField);
+        }
+      });
+    } catch (PrivilegedActionException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Get a method handle to access a field or invoke a no-arg method.
+   * @param caller A Lookup from the original call site.
+   * @param property the property to be accessed
+   * @return the MethodHandle
+   * @throws Throwable
+   */
+  private static MethodHandle getTypedMethod(final MethodHandles.Lookup caller, final PropertyElement property)
+    throws Throwable {
+    try {
+      return AccessController.doPrivileged(new PrivilegedExceptionAction<MethodHandle>() {
+        @Override
+        public MethodHandle run() throws Exception {
+          GeneratedElements.checkReadable(caller, property);
+          return unreflectPrivileged(caller, property);
+        }
+      });
+    } catch (PrivilegedActionException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Make the field or method for a property accessible, and get a method handle for it. This method will be run inside
+   * of a {@link AccessController#doPrivileged(PrivilegedExceptionAction)} block, hence should make sure to not run
+   * untrusted code.
+   * @throws IllegalAccessException
+   */
+  private static MethodHandle unreflectPrivileged(MethodHandles.Lookup caller, PropertyElement property)
+    throws IllegalAccessException {
     AnnotatedElement element = property.getElement();
     // Note that while element is a reference to untrusted code, we do not actually invoke this code inside a
     // doPrivileged block - we merely make it accessible to be invoked later, outside of a doPriviliged block
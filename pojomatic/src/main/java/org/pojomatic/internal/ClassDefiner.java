@@ -1,7 +1,57 @@
 package org.pojomatic.internal;
 
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
 public interface ClassDefiner {
 
-  Class<?> defineClass(String className, byte[] classBytes) throws IllegalAccessException;
+  /**
+   * Define a class.
+   * @param pojoClass the pojo class which the class is a pojomator for
+   * @param className the name of the class
+   * @param classBytes the bytes of the class
+   * @return the defined class
+   * @throws IllegalAccessException if the class cannot be defined
+   */
+  Class<?> defineClass(Class<?> pojoClass, String className, byte[] classBytes) throws IllegalAccessException;
+
+  /**
+   * @return whether this definer can define hidden classes with class data, via
+   * {@link #defineHiddenClass(byte[], List)}
+   */
+  boolean supportsHiddenClasses();
+
+  /**
+   * Define a hidden class, which may be unloaded once it is no longer reachable, and whose class data can be loaded
+   * as dynamic constants.
+   * @param classBytes the bytes of the class
+   * @param classData the class data, whose elements are loaded by {@code MethodHandles.classDataAt}
+   * @return the defined class
+   * @throws IllegalAccessException if the class cannot be defined
+   * @throws UnsupportedOperationException if {@link #supportsHiddenClasses()} is {@code false}
+   */
+  Class<?> defineHiddenClass(byte[] classBytes, List<?> classData) throws IllegalAccessException;
+
+  /**
+   * Get a lookup in which a pojomator for a pojo class can be defined as a hidden nestmate of the pojo class, via
+   * {@link #defineHiddenNestmate(MethodHandles.Lookup, byte[], List)}. Such a pojomator is in the same package and
+   * nest as the pojo class, so it can read the pojo's fields and call its methods directly.
+   * @param pojoClass the pojo class
+   * @return a lookup on {@code pojoClass} with private access, or {@code null} if this definer does not support hidden
+   * classes, or if {@code pojoClass}'s package is not open to Pojomatic, or cannot see Pojomatic's classes
+   */
+  MethodHandles.Lookup nestmateLookup(Class<?> pojoClass);
+
+  /**
+   * Define a hidden class, with class data, as a nestmate of the lookup class of {@code nestmateLookup}.
+   * @param nestmateLookup a lookup returned by {@link #nestmateLookup(Class)}
+   * @param classBytes the bytes of the class, which must be in the same package as the lookup class
+   * @param classData the class data, whose elements are loaded by {@code MethodHandles.classDataAt}
+   * @return the defined class
+   * @throws IllegalAccessException if the class cannot be defined
+   * @throws UnsupportedOperationException if {@link #supportsHiddenClasses()} is {@code false}
+   */
+  Class<?> defineHiddenNestmate(MethodHandles.Lookup nestmateLookup, byte[] classBytes, List<?> classData)
+    throws IllegalAccessException;
 
 }
@@ -1,6 +1,12 @@
 package org.pojomatic.internal;
 
 public class ClassDefinerFactory {
+  /**
+   * The system property which, if set to {@code false}, prevents pojomators from being defined as hidden classes,
+   * even on JVMs which support them.
+   */
+  public static final String HIDDEN_CLASSES_PROPERTY = "org.pojomatic.hiddenClasses";
+
   private static volatile ClassDefiner CLASS_DEFINER;
   private final static Object MUTEX = new Object();
 
@@ -17,12 +23,31 @@ public class ClassDefinerFactory {
   }
 
   private static ClassDefiner makeDefiner() {
+    if (hiddenClassesAllowed()) {
+      ClassDefiner hiddenClassDefiner = loadDefiner("org.pojomatic.internal.HiddenClassDefiner");
+      if (hiddenClassDefiner != null) {
+        return hiddenClassDefiner;
+      }
+    }
+    ClassDefiner lookupClassDefiner = loadDefiner("org.pojomatic.internal.LookupClassDefiner");
+    return lookupClassDefiner != null ? lookupClassDefiner : new ClassLoaderClassDefiner();
+  }
+
+  /**
+   * Load a definer which requires a later version of Java than Pojomatic itself.
+   * @return the definer, or {@code null} if it is not supported by this JVM
+   */
+  private static ClassDefiner loadDefiner(String className) {
     try {
-      return (ClassDefiner) ClassDefiner.class.getClassLoader().loadClass("org.pojomatic.internal.LookupClassDefiner")
+      return (ClassDefiner) ClassDefiner.class.getClassLoader().loadClass(className)
         .getConstructor()
         .newInstance();
     } catch (ReflectiveOperationException | UnsupportedClassVersionError e) {
-      return new ClassLoaderClassDefiner();
+      return null;
     }
   }
+
+  private static boolean hiddenClassesAllowed() {
+    return !"false".equals(SystemProperties.getProperty(HIDDEN_CLASSES_PROPERTY));
+  }
 }
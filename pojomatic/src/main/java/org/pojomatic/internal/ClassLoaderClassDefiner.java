@@ -1,7 +1,12 @@
 package org.pojomatic.internal;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.WeakReference;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class ClassLoaderClassDefiner implements ClassDefiner {
 
@@ -15,17 +20,54 @@ public class ClassLoaderClassDefiner implements ClassDefiner {
     }
   }
 
-  private DynamicClassLoader classLoader = AccessController.doPrivileged(
-    new PrivilegedAction<DynamicClassLoader>() {
-      @Override
-      public DynamicClassLoader run() {
-        return new DynamicClassLoader(PojomatorFactory.class.getClassLoader());
+  /**
+   * The loader for the pojomators of the pojo classes loaded by each class loader. Generated pojomators refer to their
+   * pojo classes, so each dynamic class loader is only weakly referenced; it is kept alive by the pojomators it has
+   * defined, and so can be unloaded, along with them, once the pojo classes' loader is otherwise unreachable. Guarded
+   * by itself.
+   */
+  private final Map<ClassLoader, WeakReference<DynamicClassLoader>> classLoaders = new WeakHashMap<>();
+
+  @Override
+  public Class<?> defineClass(Class<?> pojoClass, String className, byte[] classBytes) {
+    return getClassLoader(pojoClass.getClassLoader()).loadClass(className, classBytes);
+  }
+
+  private DynamicClassLoader getClassLoader(ClassLoader pojoClassLoader) {
+    synchronized (classLoaders) {
+      WeakReference<DynamicClassLoader> reference = classLoaders.get(pojoClassLoader);
+      DynamicClassLoader classLoader = reference == null ? null : reference.get();
+      if (classLoader == null) {
+        classLoader = AccessController.doPrivileged(
+          new PrivilegedAction<DynamicClassLoader>() {
+            @Override
+            public DynamicClassLoader run() {
+              return new DynamicClassLoader(PojomatorFactory.class.getClassLoader());
+            }
+          });
+        classLoaders.put(pojoClassLoader, new WeakReference<>(classLoader));
       }
-    });
+      return classLoader;
+    }
+  }
+
+  @Override
+  public boolean supportsHiddenClasses() {
+    return false;
+  }
 
+  @Override
+  public Class<?> defineHiddenClass(byte[] classBytes, List<?> classData) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public MethodHandles.Lookup nestmateLookup(Class<?> pojoClass) {
+    return null;
+  }
 
   @Override
-  public Class<?> defineClass(String className, byte[] classBytes) {
-    return classLoader.loadClass(className, classBytes);
+  public Class<?> defineHiddenNestmate(MethodHandles.Lookup nestmateLookup, byte[] classBytes, List<?> classData) {
+    throw new UnsupportedOperationException();
   }
 }
@@ -1,11 +1,14 @@
 package org.pojomatic.internal;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -18,6 +21,8 @@ import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
 import org.pojomatic.NoPojomaticPropertiesException;
 import org.pojomatic.annotations.*;
+import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
+import org.pojomatic.formatter.StatelessPojoFormatter;
 
 /**
  * The properties of a class used for {@link Pojomator#doHashCode(Object)},
@@ -28,12 +33,39 @@ public class ClassProperties {
 
   private final Map<PropertyRole, List<PropertyElement>> properties = makeProperties();
 
+  private final List<PropertyElement> compareProperties;
+
+  private final List<PropertyElement> equalsComparisonOrder;
+
+  /**
+   * The field in which to cache the hash code, if the class is annotated with {@link CacheHashCode}, or {@code null}.
+   */
+  private final PropertyElement hashCodeCacheField;
+
+  /**
+   * The field in which to cache the result of {@code toString}, if the class is annotated with {@link CacheToString},
+   * or {@code null}.
+   */
+  private final PropertyElement toStringCacheField;
+
   private final Class<?> equalsParentClass;
 
   private final boolean subclassCannotOverrideEquals;
 
-  private final static SelfPopulatingMap<Class<?>, ClassProperties> INSTANCES =
-    new SelfPopulatingMap<Class<?>, ClassProperties>() {
+  /**
+   * Whether only instances of the pojo class itself are compatible for equals with it.
+   */
+  private final boolean onlyCompatibleWithItself;
+
+  /**
+   * The time taken to create this instance, in nanoseconds, of which {@link #classReadingNanos} was spent reading
+   * class files for the order of properties.
+   */
+  private final long creationNanos;
+  private long classReadingNanos;
+
+  private final static SelfPopulatingClassValue<ClassProperties> INSTANCES =
+    new SelfPopulatingClassValue<ClassProperties>() {
       @Override
       protected ClassProperties create(Class<?> key) {
         return new ClassProperties(key);
@@ -72,6 +104,19 @@ public class ClassProperties {
    * with Pojomatic.
    */
   private ClassProperties(Class<?> pojoClass) throws NoPojomaticPropertiesException {
+    long start = System.nanoTime();
+    CacheHashCode cacheHashCode = pojoClass.getAnnotation(CacheHashCode.class);
+    hashCodeCacheField = cacheHashCode == null
+      ? null
+      : findCacheField(pojoClass, cacheHashCode.field(), int.class, CacheHashCode.class);
+    CacheToString cacheToString = pojoClass.getAnnotation(CacheToString.class);
+    if (cacheToString == null) {
+      toStringCacheField = null;
+    }
+    else {
+      checkStatelessPojoFormat(pojoClass);
+      toStringCacheField = findCacheField(pojoClass, cacheToString.field(), String.class, CacheToString.class);
+    }
     if (pojoClass.isInterface()) {
       extractClassProperties(pojoClass, new OverridableMethods(), new ClassContributionTracker());
       equalsParentClass = pojoClass;
@@ -82,8 +127,30 @@ public class ClassProperties {
       equalsParentClass = classContributionTracker.getMostSpecificContributingClass();
     }
     verifyPropertiesNotEmpty(pojoClass);
+    compareProperties = sortForCompare(properties.get(PropertyRole.EQUALS));
+    AutoProperty autoProperty = pojoClass.getAnnotation(AutoProperty.class);
+    equalsComparisonOrder = autoProperty != null && autoProperty.equalsOrder() == EqualsOrder.COST
+      ? sortByEqualsCost(properties.get(PropertyRole.EQUALS))
+      : properties.get(PropertyRole.EQUALS);
     subclassCannotOverrideEquals = pojoClass.isAnnotationPresent(SubclassCannotOverrideEquals.class)
       || pojoClass.isInterface();
+    onlyCompatibleWithItself = Modifier.isFinal(pojoClass.getModifiers()) && equalsParentClass == pojoClass;
+    creationNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * @return the time taken to determine these properties, in nanoseconds, including
+   * {@link #getClassReadingNanos()}
+   */
+  long getCreationNanos() {
+    return creationNanos;
+  }
+
+  /**
+   * @return the time spent reading class files to determine the order of properties, in nanoseconds
+   */
+  long getClassReadingNanos() {
+    return classReadingNanos;
   }
 
   /**
@@ -102,6 +169,24 @@ public class ClassProperties {
     return properties.get(PropertyRole.HASH_CODE);
   }
 
+  /**
+   * Gets the field in which {@link Pojomator#doHashCode(Object)} caches the hash code of an instance, as specified by
+   * {@link CacheHashCode}. This field is not a property.
+   * @return the field in which to cache the hash code, or {@code null} if the hash code is not cached.
+   */
+  public PropertyElement getHashCodeCacheField() {
+    return hashCodeCacheField;
+  }
+
+  /**
+   * Gets the field in which {@link Pojomator#doToString(Object)} caches the result of formatting an instance, as
+   * specified by {@link CacheToString}. This field is not a property.
+   * @return the field in which to cache the result of {@code toString}, or {@code null} if it is not cached.
+   */
+  public PropertyElement getToStringCacheField() {
+    return toStringCacheField;
+  }
+
   /**
    * Gets the properties to use for {@link Pojomator#doToString(Object)}.
    * @return the properties to use for {@link Pojomator#doToString(Object)}.
@@ -110,6 +195,72 @@ public class ClassProperties {
     return properties.get(PropertyRole.TO_STRING);
   }
 
+  /**
+   * Gets the properties to use for {@link Pojomator#doCompare(Object, Object)}: the properties used for
+   * {@link Pojomator#doEquals(Object, Object)}, ordered by {@link Property#compareOrder()}.
+   * @return the properties to use for {@link Pojomator#doCompare(Object, Object)}.
+   */
+  public Collection<PropertyElement> getCompareProperties() {
+    return compareProperties;
+  }
+
+  /**
+   * Gets the order in which {@link Pojomator#doEquals(Object, Object)} should compare the properties used for it: the
+   * order of {@link #getEqualsProperties()}, unless the class is annotated with
+   * {@link AutoProperty#equalsOrder() equalsOrder} {@link EqualsOrder#COST}, in which case they are ordered by
+   * {@link #equalsCost(PropertyElement)}.
+   * @return the properties to use for {@link Pojomator#doEquals(Object, Object)}, in the order to compare them
+   */
+  public List<PropertyElement> getEqualsComparisonOrder() {
+    return equalsComparisonOrder;
+  }
+
+  /**
+   * The relative cost of comparing values of a property for equality: {@link Property#equalsCost()} if that is set,
+   * and otherwise an estimate from the type of the property.
+   * @param propertyElement the property
+   * @return the relative cost of comparing values of the property
+   */
+  public static int equalsCost(PropertyElement propertyElement) {
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    if (property != null && property.equalsCost() >= 0) {
+      return property.equalsCost();
+    }
+    Class<?> type = propertyElement.getPropertyType();
+    if (type.isPrimitive() || type.isEnum()) {
+      return 0;
+    }
+    if (type == String.class || Primitives.isWrapperClass(type)) {
+      return 1;
+    }
+    if (type.isArray() || type == Object.class
+      || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+      return 3;
+    }
+    return 2;
+  }
+
+  /**
+   * Whether {@code null} values of a property should be ordered before non-null values by
+   * {@link Pojomator#doCompare(Object, Object)}.
+   * @param propertyElement the property
+   * @return {@code true} if {@code null} values of the property are ordered first
+   */
+  public static boolean isNullsFirst(PropertyElement propertyElement) {
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    return property == null || property.nullOrdering() == NullOrdering.FIRST;
+  }
+
+  /**
+   * Whether the values of a property are declared never to be {@code null}, using {@link Property#nonNull()}.
+   * @param propertyElement the property
+   * @return {@code true} if the values of the property are never {@code null}
+   */
+  public static boolean isNonNull(PropertyElement propertyElement) {
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    return property != null && property.nonNull();
+  }
+
   /**
    * Get the union of all properties used for any Pojomator methods. The resulting set will have a predictable iteration
    * order: first, the ordered list of elements used for equals, followed by an ordered list of any additional elements
@@ -145,6 +296,17 @@ public class ClassProperties {
     }
   }
 
+  /**
+   * Whether instances of no class other than the pojo class itself are compatible for equals with it. This is the case
+   * if the pojo class is final, and adds properties to those of its superclasses, or is annotated with
+   * {@link OverridesEquals}. A pojo may then be known to be compatible for equals by comparing its class with the pojo
+   * class.
+   * @return {@code true} if only instances of the pojo class are compatible for equals with it
+   */
+  public boolean isOnlyCompatibleWithItself() {
+    return onlyCompatibleWithItself;
+  }
+
   /**
    * Walk up to the top of the hierarchy of {@code clazz}, then start extracting properties from it, working back down
    * the inheritance chain from parent to child.
@@ -180,7 +342,9 @@ public class ClassProperties {
     Map<PropertyRole, Map<String, PropertyElement>> methodsMap = extractMethods(
       clazz, classPolicy, autoDetectPolicy, overridableMethods, classContributionTracker);
     if (containsValues(fieldsMap) || containsValues(methodsMap)) {
+      long start = System.nanoTime();
       PropertyClassVisitor propertyClassVisitor = PropertyClassVisitor.visitClass(clazz, fieldsMap, methodsMap);
+      classReadingNanos += System.nanoTime() - start;
       if (propertyClassVisitor != null) {
         for (PropertyRole role: PropertyRole.values()) {
           properties.get(role).addAll(propertyClassVisitor.getSortedProperties().get(role));
@@ -267,6 +431,22 @@ public class ClassProperties {
         continue;
       }
       Property property = field.getAnnotation(Property.class);
+      if (hashCodeCacheField != null && field.equals(hashCodeCacheField.getElement())) {
+        if (property != null) {
+          throw new IllegalArgumentException(
+            "Field " + clazz.getName() + "." + field.getName()
+            + " is used to cache the hash code, but is annotated with @Property");
+        }
+        continue;
+      }
+      if (toStringCacheField != null && field.equals(toStringCacheField.getElement())) {
+        if (property != null) {
+          throw new IllegalArgumentException(
+            "Field " + clazz.getName() + "." + field.getName()
+            + " is used to cache the result of toString, but is annotated with @Property");
+        }
+        continue;
+      }
       if (isStatic(field)) {
         if (property != null) {
           throw new IllegalArgumentException(
@@ -297,6 +477,35 @@ public class ClassProperties {
     return propertiesMap;
   }
 
+  private static List<PropertyElement> sortForCompare(List<PropertyElement> equalsProperties) {
+    List<PropertyElement> sorted = new ArrayList<>(equalsProperties);
+    // Collections.sort is stable, so properties with the same compareOrder stay in equals order
+    Collections.sort(sorted, new Comparator<PropertyElement>() {
+      @Override
+      public int compare(PropertyElement property1, PropertyElement property2) {
+        return Integer.compare(compareOrder(property1), compareOrder(property2));
+      }
+    });
+    return sorted;
+  }
+
+  private static List<PropertyElement> sortByEqualsCost(List<PropertyElement> equalsProperties) {
+    List<PropertyElement> sorted = new ArrayList<>(equalsProperties);
+    // Collections.sort is stable, so properties with the same cost stay in equals order
+    Collections.sort(sorted, new Comparator<PropertyElement>() {
+      @Override
+      public int compare(PropertyElement property1, PropertyElement property2) {
+        return Integer.compare(equalsCost(property1), equalsCost(property2));
+      }
+    });
+    return Collections.unmodifiableList(sorted);
+  }
+
+  private static int compareOrder(PropertyElement propertyElement) {
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    return property == null ? 0 : property.compareOrder();
+  }
+
   private void verifyPropertiesNotEmpty(Class<?> pojoClass) {
     for (Collection<PropertyElement> propertyElements : properties.values()) {
       if (!propertyElements.isEmpty()) {
@@ -324,6 +533,50 @@ public class ClassProperties {
     return ACCESSOR_PATTERN.matcher(name).matches();
   }
 
+  /**
+   * Find the field in which a pojo class caches a value.
+   * @param pojoClass the pojo class
+   * @param fieldName the name of the field
+   * @param type the type the field must have
+   * @param annotationClass the annotation specifying the field
+   * @return the field
+   * @throws IllegalArgumentException if {@code pojoClass} does not declare a non-static, non-final field named
+   * {@code fieldName} of type {@code type}
+   */
+  private static PropertyElement findCacheField(
+    Class<?> pojoClass, String fieldName, Class<?> type, Class<? extends Annotation> annotationClass) {
+    Field field;
+    try {
+      field = pojoClass.getDeclaredField(fieldName);
+    }
+    catch (NoSuchFieldException e) {
+      field = null;
+    }
+    if (field == null || isStatic(field) || Modifier.isFinal(field.getModifiers()) || field.getType() != type) {
+      throw new IllegalArgumentException(
+        "Class " + pojoClass.getName() + " is annotated with @" + annotationClass.getSimpleName()
+        + ", but does not declare a non-static, non-final " + type.getName() + " field named " + fieldName);
+    }
+    return new PropertyField(field, "");
+  }
+
+  /**
+   * Check that a pojo class annotated with {@link CacheToString} is formatted by a pojo formatter whose output does not
+   * change from one call to the next.
+   * @param pojoClass the pojo class
+   * @throws IllegalArgumentException if {@code pojoClass} specifies a {@link PojoFormat} which is neither
+   * {@link DefaultEnhancedPojoFormatter} nor a {@link StatelessPojoFormatter}
+   */
+  private static void checkStatelessPojoFormat(Class<?> pojoClass) {
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    if (format != null && format.value() != DefaultEnhancedPojoFormatter.class
+      && !StatelessPojoFormatter.class.isAssignableFrom(format.value())) {
+      throw new IllegalArgumentException(
+        "Class " + pojoClass.getName() + " is annotated with @CacheToString, but its pojo formatter "
+        + format.value().getName() + " does not implement " + StatelessPojoFormatter.class.getName());
+    }
+  }
+
   private static boolean isStatic(Member member) {
     return Modifier.isStatic(member.getModifiers());
   }
@@ -0,0 +1,232 @@
+package org.pojomatic.internal;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.pojomatic.NoPojomaticPropertiesException;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.diff.BoxingDiffVisitor;
+import org.pojomatic.diff.Difference;
+import org.pojomatic.diff.Differences;
+import org.pojomatic.diff.NoDifferences;
+import org.pojomatic.diff.PropertyDifferences;
+import org.pojomatic.diff.ValueDifference;
+
+/**
+ * Computes the differences between two POJOs, descending into property values which are themselves POJOs, as well as
+ * into the elements of {@code List}s, {@code Map}s and arrays, and the contents of {@code Optional}s. Each difference
+ * found is reported as a {@link ValueDifference} whose property name is the path to the differing value, such as
+ * {@code customer.address.zip}, {@code lines[2].price} or {@code prices[EUR]}.
+ * <p>
+ * Only properties which {@link Pojomator#doDiff(Object, Object, org.pojomatic.diff.DiffVisitor) doDiff} reports as
+ * differing are descended into, and values which are the same instance are skipped outright, so the cost of a deep
+ * diff beyond that of {@code doEquals} is proportional to the part of the object graph which has changed.
+ */
+public final class DeepDiffer {
+  private static final String OPTIONAL_CLASS_NAME = "java.util.Optional";
+
+  /**
+   * {@code Optional.orElse(Object)}, or {@code null} if running on a JVM without {@code java.util.Optional}.
+   */
+  private static final Method OPTIONAL_OR_ELSE = optionalOrElse();
+
+  /**
+   * Whether a class has properties for use with Pojomatic, and so can be descended into.
+   */
+  private static final ClassValue<Boolean> POJOMATIC_CLASSES = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      if (type.isArray() || type.isPrimitive() || type.isEnum() || type.getName().startsWith("java.")) {
+        return false;
+      }
+      try {
+        ClassProperties.forClass(type);
+        return true;
+      }
+      catch (NoPojomaticPropertiesException e) {
+        return false;
+      }
+    }
+  };
+
+  private final List<Difference> differences = new ArrayList<>();
+
+  private DeepDiffer() {}
+
+  /**
+   * Compute the deep differences between two POJOs.
+   * @param <T> the type of the first POJO
+   * @param pojomator the pojomator for the class of {@code instance}
+   * @param instance the instance to diff against
+   * @param other the instance to diff
+   * @return the differences between {@code instance} and {@code other}, keyed by path
+   * @throws NullPointerException if {@code instance} or {@code other} is null
+   * @throws IllegalArgumentException if the type of {@code instance} or of {@code other} is not a class which is
+   * compatible for equality with {@code T}
+   */
+  public static <T> Differences diff(Pojomator<T> pojomator, T instance, T other) {
+    DeepDiffer differ = new DeepDiffer();
+    pojomator.doDiff(instance, other, differ.new PathVisitor(""));
+    return differ.differences.isEmpty()
+      ? NoDifferences.getInstance()
+      : new PropertyDifferences(differ.differences);
+  }
+
+  /**
+   * Record the differences between two values found at {@code path}, descending into them if possible.
+   */
+  private void diffValues(String path, Object instanceValue, Object otherValue) {
+    if (instanceValue == otherValue) {
+      return;
+    }
+    if (instanceValue == null || otherValue == null) {
+      differences.add(new ValueDifference(path, instanceValue, otherValue));
+      return;
+    }
+    Class<?> instanceClass = instanceValue.getClass();
+    if (POJOMATIC_CLASSES.get(instanceClass)) {
+      @SuppressWarnings("unchecked")
+      Pojomator<Object> pojomator = (Pojomator<Object>) Pojomatic.pojomator(instanceClass);
+      if (pojomator.isCompatibleForEquality(otherValue.getClass())) {
+        pojomator.doDiff(instanceValue, otherValue, new PathVisitor(path + "."));
+        return;
+      }
+    }
+    else if (instanceValue instanceof List && otherValue instanceof List) {
+      diffLists(path, (List<?>) instanceValue, (List<?>) otherValue);
+      return;
+    }
+    else if (instanceValue instanceof Map && otherValue instanceof Map) {
+      diffMaps(path, (Map<?, ?>) instanceValue, (Map<?, ?>) otherValue);
+      return;
+    }
+    else if (instanceClass.isArray() && otherValue.getClass().isArray()) {
+      diffArrays(path, instanceValue, otherValue);
+      return;
+    }
+    else if (OPTIONAL_CLASS_NAME.equals(instanceClass.getName()) && instanceClass == otherValue.getClass()) {
+      diffValues(path, optionalValue(instanceValue), optionalValue(otherValue));
+      return;
+    }
+    if (!instanceValue.equals(otherValue)) {
+      differences.add(new ValueDifference(path, instanceValue, otherValue));
+    }
+  }
+
+  private void diffLists(String path, List<?> instanceList, List<?> otherList) {
+    int commonSize = Math.min(instanceList.size(), otherList.size());
+    for (int i = 0; i < commonSize; i++) {
+      diffElements(path + "[" + i + "]", instanceList.get(i), otherList.get(i));
+    }
+    for (int i = commonSize; i < instanceList.size(); i++) {
+      differences.add(new ValueDifference(path + "[" + i + "]", instanceList.get(i), null));
+    }
+    for (int i = commonSize; i < otherList.size(); i++) {
+      differences.add(new ValueDifference(path + "[" + i + "]", null, otherList.get(i)));
+    }
+  }
+
+  private void diffMaps(String path, Map<?, ?> instanceMap, Map<?, ?> otherMap) {
+    for (Map.Entry<?, ?> entry: instanceMap.entrySet()) {
+      String elementPath = path + "[" + entry.getKey() + "]";
+      if (otherMap.containsKey(entry.getKey())) {
+        diffElements(elementPath, entry.getValue(), otherMap.get(entry.getKey()));
+      }
+      else {
+        differences.add(new ValueDifference(elementPath, entry.getValue(), null));
+      }
+    }
+    for (Map.Entry<?, ?> entry: otherMap.entrySet()) {
+      if (!instanceMap.containsKey(entry.getKey())) {
+        differences.add(new ValueDifference(path + "[" + entry.getKey() + "]", null, entry.getValue()));
+      }
+    }
+  }
+
+  private void diffArrays(String path, Object instanceArray, Object otherArray) {
+    if (instanceArray.getClass() != otherArray.getClass()
+      && (instanceArray.getClass().getComponentType().isPrimitive()
+        || otherArray.getClass().getComponentType().isPrimitive())) {
+      differences.add(new ValueDifference(path, instanceArray, otherArray));
+      return;
+    }
+    int instanceLength = Array.getLength(instanceArray);
+    int otherLength = Array.getLength(otherArray);
+    int commonLength = Math.min(instanceLength, otherLength);
+    for (int i = 0; i < commonLength; i++) {
+      diffElements(path + "[" + i + "]", Array.get(instanceArray, i), Array.get(otherArray, i));
+    }
+    for (int i = commonLength; i < instanceLength; i++) {
+      differences.add(new ValueDifference(path + "[" + i + "]", Array.get(instanceArray, i), null));
+    }
+    for (int i = commonLength; i < otherLength; i++) {
+      differences.add(new ValueDifference(path + "[" + i + "]", null, Array.get(otherArray, i)));
+    }
+  }
+
+  /**
+   * Record the differences between two elements of a collection or array. Unlike property values, elements have not
+   * already been compared for equality, so those which are equal but not descended into must not be reported.
+   */
+  private void diffElements(String path, Object instanceElement, Object otherElement) {
+    if (!elementsEqual(instanceElement, otherElement)) {
+      diffValues(path, instanceElement, otherElement);
+    }
+  }
+
+  private static boolean elementsEqual(Object instanceElement, Object otherElement) {
+    if (instanceElement == otherElement) {
+      return true;
+    }
+    if (instanceElement != null && otherElement != null
+      && instanceElement.getClass().isArray() && otherElement.getClass().isArray()) {
+      return Arrays.deepEquals(new Object[] { instanceElement }, new Object[] { otherElement });
+    }
+    return Objects.equals(instanceElement, otherElement);
+  }
+
+  private static Object optionalValue(Object optional) {
+    try {
+      return OPTIONAL_OR_ELSE.invoke(optional, (Object) null);
+    }
+    catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    catch (InvocationTargetException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private static Method optionalOrElse() {
+    try {
+      return Class.forName(OPTIONAL_CLASS_NAME).getMethod("orElse", Object.class);
+    }
+    catch (ClassNotFoundException | NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /**
+   * A visitor which records differences between properties under a common path prefix.
+   */
+  private final class PathVisitor extends BoxingDiffVisitor {
+    private final String prefix;
+
+    PathVisitor(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public void onObjectDifference(PropertyElement property, Object instanceValue, Object otherValue) {
+      diffValues(prefix + property.getName(), instanceValue, otherValue);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package org.pojomatic.internal;
+
+/**
+ * Records events for the creation and use of pojomators, for monitoring tools such as JDK Flight Recorder.
+ * @see PojomatorMonitoring
+ */
+interface EventRecorder {
+  /**
+   * Record the creation of a bytecode generated pojomator.
+   * @param pojoClass the class the pojomator was created for
+   * @param propertyCount the number of properties of {@code pojoClass}
+   * @param classPropertiesNanos the time taken to determine the properties of {@code pojoClass}, excluding
+   * {@code classReadingNanos}
+   * @param classReadingNanos the time spent reading class files to determine the order of properties
+   * @param byteCodeNanos the time taken to generate the bytecode of the pojomator
+   * @param defineNanos the time taken to define and instantiate the pojomator class
+   * @param byteCodeSize the size of the pojomator class, in bytes
+   * @param hidden whether the pojomator was defined as a hidden class
+   */
+  void pojomatorCreated(
+    Class<?> pojoClass, int propertyCount, long classPropertiesNanos, long classReadingNanos, long byteCodeNanos,
+    long defineNanos, int byteCodeSize, boolean hidden);
+
+  /**
+   * Start timing a call to a pojomator.
+   * @return a token to pass to {@link #endCall(Object, String, Class)}, or {@code null} if calls are not being
+   * recorded
+   */
+  Object beginCall();
+
+  /**
+   * Finish timing a call to a pojomator, recording it if it was slow enough to be of interest.
+   * @param call the token returned by {@link #beginCall()}
+   * @param methodName the name of the pojomator method called
+   * @param pojoClass the class of the pojo passed to the call
+   */
+  void endCall(Object call, String methodName, Class<?> pojoClass);
+}
@@ -0,0 +1,105 @@
+package org.pojomatic.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AnnotatedElement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.pojomatic.PropertyElement;
+
+/**
+ * Records, for each pojomator class generated at runtime, the fields and methods it was generated to access. The
+ * bootstrap methods of {@link BasePojomator} make these accessible with Pojomatic's privileges, and are callable by any
+ * subclass; they only do so for a caller with private access to a pojomator class which was registered here, and only
+ * for the elements registered for it. A class which was not generated by Pojomatic has no elements registered.
+ */
+final class GeneratedElements {
+  private static final ClassValue<GeneratedElements> ELEMENTS = new ClassValue<GeneratedElements>() {
+    @Override
+    protected GeneratedElements computeValue(Class<?> type) {
+      return new GeneratedElements();
+    }
+  };
+
+  /**
+   * The elements which may be read, and those which may be written. Guarded by {@code this}; set at most once.
+   */
+  private Set<AnnotatedElement> readable = Collections.emptySet();
+  private Set<AnnotatedElement> writable = Collections.emptySet();
+  private boolean registered;
+
+  private GeneratedElements() {}
+
+  /**
+   * Register the elements a newly defined pojomator class may access. This must be called before the class is
+   * instantiated, and can only be called once for a class.
+   * @param pojomatorClass the pojomator class
+   * @param readable the properties, and other fields, which the pojomator reads
+   * @param writable the fields in which the pojomator caches values
+   * @throws IllegalStateException if elements have already been registered for {@code pojomatorClass}
+   */
+  static void register(
+    Class<?> pojomatorClass, Collection<PropertyElement> readable, Collection<PropertyElement> writable) {
+    GeneratedElements elements = ELEMENTS.get(pojomatorClass);
+    synchronized (elements) {
+      if (elements.registered) {
+        throw new IllegalStateException("Elements already registered for " + pojomatorClass.getName());
+      }
+      elements.readable = elementsOf(readable);
+      elements.writable = elementsOf(writable);
+      elements.registered = true;
+    }
+  }
+
+  /**
+   * Check that a bootstrap method's caller may read a property.
+   * @param caller the lookup passed to the bootstrap method
+   * @param property the property to be read
+   * @throws SecurityException if the caller is not a pojomator generated to read {@code property}
+   */
+  static void checkReadable(MethodHandles.Lookup caller, PropertyElement property) {
+    GeneratedElements elements = forCaller(caller);
+    synchronized (elements) {
+      if (!elements.readable.contains(property.getElement())) {
+        throw notGeneratedFor(caller, property);
+      }
+    }
+  }
+
+  /**
+   * Check that a bootstrap method's caller may write a cache field.
+   * @param caller the lookup passed to the bootstrap method
+   * @param field the field to be written
+   * @throws SecurityException if the caller is not a pojomator generated to cache values in {@code field}
+   */
+  static void checkWritable(MethodHandles.Lookup caller, PropertyElement field) {
+    GeneratedElements elements = forCaller(caller);
+    synchronized (elements) {
+      if (!elements.writable.contains(field.getElement())) {
+        throw notGeneratedFor(caller, field);
+      }
+    }
+  }
+
+  private static GeneratedElements forCaller(MethodHandles.Lookup caller) {
+    if ((caller.lookupModes() & MethodHandles.Lookup.PRIVATE) == 0) {
+      throw new SecurityException("Lookup on " + caller.lookupClass().getName() + " does not have private access");
+    }
+    return ELEMENTS.get(caller.lookupClass());
+  }
+
+  private static SecurityException notGeneratedFor(MethodHandles.Lookup caller, PropertyElement element) {
+    return new SecurityException(
+      caller.lookupClass().getName() + " was not generated by Pojomatic to access " + element.getElement());
+  }
+
+  private static Set<AnnotatedElement> elementsOf(Collection<PropertyElement> properties) {
+    Set<AnnotatedElement> elements = new HashSet<>();
+    for (PropertyElement property: properties) {
+      elements.add(property.getElement());
+    }
+    return elements;
+  }
+}
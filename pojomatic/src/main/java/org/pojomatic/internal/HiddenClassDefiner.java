@@ -0,0 +1,78 @@
+package org.pojomatic.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodHandles.Lookup.ClassOption;
+import java.util.List;
+
+/**
+ * A {@link ClassDefiner} which defines pojomators as hidden classes, passing their property elements and formatters
+ * as class data. Unlike a class defined by {@link LookupClassDefiner}, a hidden pojomator class is not strongly
+ * reachable from Pojomatic's class loader, so it can be unloaded along with the pojo class it serves; and its class
+ * data constants are trusted by the JIT as truly final, which static fields set reflectively are not. Where the pojo
+ * class's package is open to Pojomatic, a pojomator can instead be defined as a hidden nestmate of the pojo class, and
+ * read its properties without going through method handles. Requires Java 16.
+ */
+public class HiddenClassDefiner implements ClassDefiner {
+  /**
+   * Defining a hidden class requires a lookup with full privilege access.
+   */
+  private final Lookup lookup = MethodHandles.lookup();
+  private final Lookup packageLookup = lookup.dropLookupMode(Lookup.PRIVATE);
+
+  @Override
+  public Class<?> defineClass(Class<?> pojoClass, String className, byte[] classBytes) throws IllegalAccessException {
+    return packageLookup.defineClass(classBytes);
+  }
+
+  @Override
+  public boolean supportsHiddenClasses() {
+    return true;
+  }
+
+  @Override
+  public Class<?> defineHiddenClass(byte[] classBytes, List<?> classData) throws IllegalAccessException {
+    return lookup.defineHiddenClassWithClassData(classBytes, classData, true).lookupClass();
+  }
+
+  @Override
+  public Lookup nestmateLookup(Class<?> pojoClass) {
+    // the pojomator will extend BasePojomator from within the pojo's module and class loader
+    Module pojoModule = pojoClass.getModule();
+    Module pojomaticModule = BasePojomator.class.getModule();
+    if (pojoClass.isHidden()
+      || !pojomaticModule.isExported(BasePojomator.class.getPackageName(), pojoModule)
+      || !pojoModule.canRead(pojomaticModule)
+      || !isVisible(BasePojomator.class, pojoClass.getClassLoader())) {
+      return null;
+    }
+    try {
+      pojomaticModule.addReads(pojoModule);
+      Lookup pojoLookup = MethodHandles.privateLookupIn(pojoClass, lookup);
+      // a lookup into another module lacks module access, without which it cannot define classes
+      return pojoLookup.hasFullPrivilegeAccess() ? pojoLookup : null;
+    }
+    catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public Class<?> defineHiddenNestmate(Lookup nestmateLookup, byte[] classBytes, List<?> classData)
+    throws IllegalAccessException {
+    return nestmateLookup.defineHiddenClassWithClassData(classBytes, classData, true, ClassOption.NESTMATE)
+      .lookupClass();
+  }
+
+  private static boolean isVisible(Class<?> clazz, ClassLoader classLoader) {
+    if (classLoader == null) {
+      return false;
+    }
+    try {
+      return Class.forName(clazz.getName(), false, classLoader) == clazz;
+    }
+    catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package org.pojomatic.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.pojomatic.PojomatorInvocationCounts;
+import org.pojomatic.PropertyElement;
+
+/**
+ * Counters of the calls made to the pojomators generated for a class, incremented by code generated into those
+ * pojomators. Counters are striped, so that threads calling the same pojomator rarely contend on a single counter.
+ * <p>
+ * Instrumentation is enabled by setting the system property {@value #INSTRUMENTATION_PROPERTY} to {@code true} before
+ * the first pojomator is generated, or by enabling {@link AdaptivePojomator adaptive equals ordering}. Without it, no counting
+ * code is generated, and no counters are created.
+ */
+public final class InvocationCounters {
+  /**
+   * The system property which, if set to {@code true}, causes counting code to be generated into pojomators.
+   */
+  public static final String INSTRUMENTATION_PROPERTY = "org.pojomatic.instrumentation";
+
+  private static final boolean REQUESTED = SystemProperties.getBoolean(INSTRUMENTATION_PROPERTY);
+
+  private static final boolean ENABLED = REQUESTED || AdaptivePojomator.isEnabled();
+
+  /**
+   * The counters for each class. Counters do not refer to their class, so do not prevent it from being unloaded;
+   * they are shared by each pojomator generated for the class, including any generated after the pojomator for it is
+   * evicted from the cache. Guarded by itself.
+   */
+  private static final Map<Class<?>, InvocationCounters> COUNTERS = new WeakHashMap<>();
+
+  private static final Comparator<PojomatorInvocationCounts> HOTTEST_FIRST =
+    new Comparator<PojomatorInvocationCounts>() {
+      @Override
+      public int compare(PojomatorInvocationCounts counts1, PojomatorInvocationCounts counts2) {
+        return Long.compare(counts2.getCallCount(), counts1.getCallCount());
+      }
+    };
+
+  private final String pojoClassName;
+  private final String[] equalsPropertyNames;
+  private final Counter equalsCount = new Counter();
+  private final Counter sameInstanceCount = new Counter();
+  private final Counter typeMismatchCount = new Counter();
+  private final Counter[] firstDifferenceCounts;
+  private final Counter hashCodeCount = new Counter();
+  private final Counter toStringCount = new Counter();
+
+  private InvocationCounters(Class<?> pojoClass, ClassProperties classProperties) {
+    pojoClassName = pojoClass.getName();
+    List<String> names = new ArrayList<>();
+    for (PropertyElement property: classProperties.getEqualsProperties()) {
+      String name = property.getName();
+      // properties declared by different classes in the hierarchy may share a name
+      names.add(names.contains(name) ? property.getDeclaringClass().getName() + "." + name : name);
+    }
+    equalsPropertyNames = names.toArray(new String[names.size()]);
+    firstDifferenceCounts = new Counter[equalsPropertyNames.length];
+    for (int i = 0; i < firstDifferenceCounts.length; i++) {
+      firstDifferenceCounts[i] = new Counter();
+    }
+  }
+
+  /**
+   * Whether instrumentation has been enabled via the {@value #INSTRUMENTATION_PROPERTY} system property, or is needed
+   * for {@link AdaptivePojomator adaptive equals ordering}, as they were set when this class was initialized.
+   * @return {@code true} if instrumentation is enabled
+   */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Whether instrumentation has been requested via the {@value #INSTRUMENTATION_PROPERTY} system property, as it was
+   * set when this class was initialized, rather than only being needed for adaptive equals ordering.
+   * @return {@code true} if instrumentation has been requested
+   */
+  static boolean isRequested() {
+    return REQUESTED;
+  }
+
+  /**
+   * Get the counters for a class, creating them if need be.
+   * @param pojoClass the class
+   * @param classProperties the properties of {@code pojoClass}
+   * @return the counters for {@code pojoClass}
+   */
+  static InvocationCounters forClass(Class<?> pojoClass, ClassProperties classProperties) {
+    synchronized (COUNTERS) {
+      InvocationCounters counters = COUNTERS.get(pojoClass);
+      if (counters == null) {
+        counters = new InvocationCounters(pojoClass, classProperties);
+        COUNTERS.put(pojoClass, counters);
+      }
+      return counters;
+    }
+  }
+
+  /**
+   * Report the counts for each instrumented class which has not been garbage collected.
+   * @return the counts for each class, in descending order of the number of calls made
+   */
+  public static List<PojomatorInvocationCounts> report() {
+    List<InvocationCounters> allCounters;
+    synchronized (COUNTERS) {
+      allCounters = new ArrayList<>(COUNTERS.values());
+    }
+    List<PojomatorInvocationCounts> report = new ArrayList<>(allCounters.size());
+    for (InvocationCounters counters: allCounters) {
+      report.add(counters.snapshot());
+    }
+    Collections.sort(report, HOTTEST_FIRST);
+    return report;
+  }
+
+  /**
+   * Called at the start of {@code doEquals}.
+   */
+  public void equalsCalled() {
+    equalsCount.increment();
+  }
+
+  /**
+   * Called when {@code doEquals} returns {@code true} because it was passed the same instance twice.
+   */
+  public void sameInstance() {
+    sameInstanceCount.increment();
+  }
+
+  /**
+   * Called when {@code doEquals} returns {@code false} because the other instance was {@code null}, or of a type not
+   * compatible for equality.
+   */
+  public void typeMismatch() {
+    typeMismatchCount.increment();
+  }
+
+  /**
+   * Called when {@code doEquals} returns {@code false} because the values of a property differ.
+   * @param propertyIndex the index of the first property found to differ, among the equals properties
+   */
+  public void propertyDiffered(int propertyIndex) {
+    firstDifferenceCounts[propertyIndex].increment();
+  }
+
+  /**
+   * Called at the start of {@code doHashCode}.
+   */
+  public void hashCodeCalled() {
+    hashCodeCount.increment();
+  }
+
+  /**
+   * Called at the start of {@code doToString}.
+   */
+  public void toStringCalled() {
+    toStringCount.increment();
+  }
+
+  /**
+   * @return the number of times each equals property has been the first found to differ, in the order of
+   * {@link ClassProperties#getEqualsProperties()}
+   */
+  long[] firstDifferenceCounts() {
+    long[] counts = new long[firstDifferenceCounts.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = firstDifferenceCounts[i].sum();
+    }
+    return counts;
+  }
+
+  PojomatorInvocationCounts snapshot() {
+    Map<String, Long> firstDifferences = new LinkedHashMap<>();
+    for (int i = 0; i < equalsPropertyNames.length; i++) {
+      firstDifferences.put(equalsPropertyNames[i], firstDifferenceCounts[i].sum());
+    }
+    return new PojomatorInvocationCounts(
+      pojoClassName,
+      equalsCount.sum(),
+      sameInstanceCount.sum(),
+      typeMismatchCount.sum(),
+      firstDifferences,
+      hashCodeCount.sum(),
+      toStringCount.sum());
+  }
+
+  /**
+   * A counter striped across several cells, one of which is chosen by the incrementing thread, so that threads
+   * incrementing the same counter rarely contend. Cells are a cache line apart, so that they are not falsely shared.
+   * This is a much simplified {@code LongAdder}, which needs Java 8.
+   */
+  private static final class Counter {
+    /**
+     * The number of cells; a power of two.
+     */
+    private static final int CELLS = 4;
+
+    /**
+     * The distance between cells, in longs.
+     */
+    private static final int SPACING = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * SPACING);
+
+    void increment() {
+      cells.getAndIncrement(((int) Thread.currentThread().getId() & (CELLS - 1)) * SPACING);
+    }
+
+    long sum() {
+      long sum = 0;
+      for (int i = 0; i < CELLS; i++) {
+        sum += cells.get(i * SPACING);
+      }
+      return sum;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package org.pojomatic.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * An {@link EventRecorder} which records JDK Flight Recorder events. Requires Java 11.
+ */
+public class JfrEventRecorder implements EventRecorder {
+
+  @Name("org.pojomatic.PojomatorCreation")
+  @Label("Pojomator Creation")
+  @Category("Pojomatic")
+  @Description("A pojomator was generated for a class")
+  @StackTrace(false)
+  static class PojomatorCreationEvent extends Event {
+    @Label("POJO Class")
+    Class<?> pojoClass;
+
+    @Label("Property Count")
+    int propertyCount;
+
+    @Label("Class Properties Time")
+    @Description("Time spent determining the properties of the class by reflection")
+    @Timespan(Timespan.NANOSECONDS)
+    long classPropertiesTime;
+
+    @Label("Class Reading Time")
+    @Description("Time spent reading class files to determine the order of properties")
+    @Timespan(Timespan.NANOSECONDS)
+    long classReadingTime;
+
+    @Label("Bytecode Generation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long byteCodeTime;
+
+    @Label("Definition Time")
+    @Description("Time spent defining and instantiating the pojomator class")
+    @Timespan(Timespan.NANOSECONDS)
+    long defineTime;
+
+    @Label("Bytecode Size")
+    @DataAmount(DataAmount.BYTES)
+    int byteCodeSize;
+
+    @Label("Hidden Class")
+    boolean hidden;
+  }
+
+  @Name("org.pojomatic.SlowPojomatorCall")
+  @Label("Slow Pojomator Call")
+  @Category("Pojomatic")
+  @Description("A call to Pojomatic.toString or Pojomatic.diff took longer than the threshold")
+  @Enabled(false)
+  @Threshold("10 ms")
+  static class SlowCallEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("POJO Class")
+    Class<?> pojoClass;
+  }
+
+  @Override
+  public void pojomatorCreated(
+    Class<?> pojoClass, int propertyCount, long classPropertiesNanos, long classReadingNanos, long byteCodeNanos,
+    long defineNanos, int byteCodeSize, boolean hidden) {
+    PojomatorCreationEvent event = new PojomatorCreationEvent();
+    if (event.isEnabled()) {
+      event.pojoClass = pojoClass;
+      event.propertyCount = propertyCount;
+      event.classPropertiesTime = classPropertiesNanos;
+      event.classReadingTime = classReadingNanos;
+      event.byteCodeTime = byteCodeNanos;
+      event.defineTime = defineNanos;
+      event.byteCodeSize = byteCodeSize;
+      event.hidden = hidden;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginCall() {
+    SlowCallEvent event = new SlowCallEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endCall(Object call, String methodName, Class<?> pojoClass) {
+    SlowCallEvent event = (SlowCallEvent) call;
+    event.end();
+    if (event.shouldCommit()) {
+      event.method = methodName;
+      event.pojoClass = pojoClass;
+      event.commit();
+    }
+  }
+}
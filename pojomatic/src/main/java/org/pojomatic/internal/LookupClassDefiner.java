@@ -2,13 +2,34 @@ package org.pojomatic.internal;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
+import java.util.List;
 
 public class LookupClassDefiner implements ClassDefiner {
   private final Lookup lookup = MethodHandles.lookup().dropLookupMode(Lookup.PRIVATE);
 
   @Override
-  public Class<?> defineClass(String className, byte[] classBytes) throws IllegalAccessException {
+  public Class<?> defineClass(Class<?> pojoClass, String className, byte[] classBytes) throws IllegalAccessException {
     return lookup.defineClass(classBytes);
   }
 
+  @Override
+  public boolean supportsHiddenClasses() {
+    return false;
+  }
+
+  @Override
+  public Class<?> defineHiddenClass(byte[] classBytes, List<?> classData) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Lookup nestmateLookup(Class<?> pojoClass) {
+    return null;
+  }
+
+  @Override
+  public Class<?> defineHiddenNestmate(Lookup nestmateLookup, byte[] classBytes, List<?> classData) {
+    throw new UnsupportedOperationException();
+  }
+
 }
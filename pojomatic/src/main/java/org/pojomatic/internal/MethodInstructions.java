@@ -0,0 +1,164 @@
+package org.pojomatic.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Reads the instructions of a method from the byte code of the class which declares it, in a simplified form which is
+ * enough to recognize a method body which just delegates to Pojomatic. Only {@code ALOAD}, {@code INVOKESTATIC},
+ * {@code ARETURN} and {@code IRETURN} instructions are recorded in detail, as for example {@code "ALOAD 0"},
+ * {@code "INVOKESTATIC org/pojomatic/Pojomatic.toString(Ljava/lang/Object;)Ljava/lang/String;"} or
+ * {@code "ARETURN"}; any other instruction is recorded as {@code "?"}.
+ * <p>
+ * Callers are expected to run with sufficient privileges to read class files.
+ */
+final class MethodInstructions {
+  private MethodInstructions() {}
+
+  /**
+   * Read the instructions of the public method a class has with the given name and parameter types.
+   * @param clazz the class
+   * @param name the name of the method
+   * @param parameterTypes the parameter types of the method
+   * @return the instructions of the method, as declared by {@code clazz} or the superclass from which it inherits it,
+   * or {@code null} if the method does not exist, is declared by a bootstrap class, or its byte code cannot be read
+   */
+  static List<String> read(Class<?> clazz, String name, Class<?>... parameterTypes) {
+    Method method;
+    try {
+      method = clazz.getMethod(name, parameterTypes);
+    }
+    catch (NoSuchMethodException | SecurityException e) {
+      return null;
+    }
+    Class<?> declaringClass = method.getDeclaringClass();
+    ClassLoader classLoader = declaringClass.getClassLoader();
+    if (classLoader == null) {
+      return null; // neither Object nor any other bootstrap class delegates to Pojomatic
+    }
+    String classPath = declaringClass.getName().replace(".", "/") + ".class";
+    try (InputStream stream = classLoader.getResourceAsStream(classPath)) {
+      if (stream == null) {
+        return null;
+      }
+      InstructionVisitor visitor = new InstructionVisitor(name, Type.getMethodDescriptor(method));
+      new ClassReader(stream).accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+      return visitor.instructions;
+    }
+    catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Records the instructions of a non-static method with a given name and descriptor.
+   */
+  private static class InstructionVisitor extends ClassVisitor {
+    private final String name;
+    private final String descriptor;
+    private final List<String> instructions = new ArrayList<>();
+
+    InstructionVisitor(String name, String descriptor) {
+      super(Opcodes.ASM7);
+      this.name = name;
+      this.descriptor = descriptor;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+      int access, String name, String descriptor, String signature, String[] exceptions) {
+      if (this.name.equals(name) && this.descriptor.equals(descriptor) && (access & Opcodes.ACC_STATIC) == 0) {
+        return new InstructionRecorder();
+      }
+      return null;
+    }
+
+    private class InstructionRecorder extends MethodVisitor {
+      InstructionRecorder() {
+        super(Opcodes.ASM7);
+      }
+
+      @Override
+      public void visitVarInsn(int opcode, int var) {
+        instructions.add(opcode == Opcodes.ALOAD ? "ALOAD " + var : "?");
+      }
+
+      @Override
+      public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        instructions.add(opcode == Opcodes.INVOKESTATIC ? "INVOKESTATIC " + owner + "." + name + descriptor : "?");
+      }
+
+      @Override
+      public void visitInsn(int opcode) {
+        instructions.add(opcode == Opcodes.ARETURN ? "ARETURN" : opcode == Opcodes.IRETURN ? "IRETURN" : "?");
+      }
+
+      @Override
+      public void visitIntInsn(int opcode, int operand) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitTypeInsn(int opcode, String type) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitInvokeDynamicInsn(
+        String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitJumpInsn(int opcode, Label label) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitLdcInsn(Object value) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitIincInsn(int var, int increment) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        instructions.add("?");
+      }
+
+      @Override
+      public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        instructions.add("?");
+      }
+    }
+  }
+}
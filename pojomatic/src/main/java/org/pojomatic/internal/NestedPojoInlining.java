@@ -0,0 +1,131 @@
+package org.pojomatic.internal;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.CacheHashCode;
+
+/**
+ * Determines the property types whose instances a generated pojomator may compare and hash itself, using their own
+ * properties, rather than by calling their {@code equals} and {@code hashCode} methods. This saves, for each such
+ * property, a virtual call, a lookup of the nested class's pojomator, and an interface call to it.
+ * <p>
+ * A type qualifies if it is a final class which implements {@code equals(Object)} as
+ * {@code return Pojomatic.equals(this, other);} and {@code hashCode()} as {@code return Pojomatic.hashCode(this);},
+ * is not annotated with {@link CacheHashCode}, and has properties which Pojomatic can access. Since the type is final,
+ * a non-null property value is an instance of exactly that type, so that comparing and hashing the values of its
+ * properties gives the same result as {@link Pojomatic#equals(Object, Object)} and {@link Pojomatic#hashCode(Object)}
+ * would. As with {@link ToStringDelegation}, the implementations of {@code equals} and {@code hashCode} are determined
+ * by examining byte code; results are cached per class.
+ * <p>
+ * The properties of a qualifying type may themselves be of qualifying types, up to the depth given by the system
+ * property {@value #INLINE_DEPTH_PROPERTY}, which defaults to {@value #DEFAULT_INLINE_DEPTH}. A depth of {@code 0}
+ * disables inlining. The property is read once, when the first pojomator is generated.
+ */
+public final class NestedPojoInlining {
+  /**
+   * The system property giving how many levels of nested property types a generated pojomator may inline.
+   */
+  public static final String INLINE_DEPTH_PROPERTY = "org.pojomatic.inlineDepth";
+
+  /**
+   * The inline depth used if {@value #INLINE_DEPTH_PROPERTY} is not set.
+   */
+  public static final int DEFAULT_INLINE_DEPTH = 2;
+
+  private static final int INLINE_DEPTH = toInlineDepth(SystemProperties.getInteger(INLINE_DEPTH_PROPERTY));
+
+  /**
+   * The instructions of {@code return Pojomatic.equals(this, other);}, in the form recorded by
+   * {@link MethodInstructions}.
+   */
+  private static final List<String> DELEGATING_EQUALS_INSTRUCTIONS = Arrays.asList(
+    "ALOAD 0",
+    "ALOAD 1",
+    "INVOKESTATIC org/pojomatic/Pojomatic.equals(Ljava/lang/Object;Ljava/lang/Object;)Z",
+    "IRETURN");
+
+  /**
+   * The instructions of {@code return Pojomatic.hashCode(this);}, in the form recorded by {@link MethodInstructions}.
+   */
+  private static final List<String> DELEGATING_HASH_CODE_INSTRUCTIONS = Arrays.asList(
+    "ALOAD 0",
+    "INVOKESTATIC org/pojomatic/Pojomatic.hashCode(Ljava/lang/Object;)I",
+    "IRETURN");
+
+  private static final ClassValue<Boolean> INLINABLE = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(final Class<?> type) {
+      return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+        @Override
+        public Boolean run() {
+          return computeInlinable(type);
+        }
+      });
+    }
+  };
+
+  private NestedPojoInlining() {}
+
+  /**
+   * The maximum depth of nested property types to inline, as set by the {@value #INLINE_DEPTH_PROPERTY} system
+   * property when this class was initialized.
+   * @return the inline depth, or {@value #DEFAULT_INLINE_DEPTH} if it is not set or cannot be read
+   */
+  public static int getInlineDepth() {
+    return INLINE_DEPTH;
+  }
+
+  /**
+   * @param depth the value of the {@value #INLINE_DEPTH_PROPERTY} system property, or {@code null} if it is not set,
+   * is not an integer, or cannot be read
+   * @return the inline depth to use
+   */
+  static int toInlineDepth(Integer depth) {
+    return depth == null ? DEFAULT_INLINE_DEPTH : Math.max(0, depth);
+  }
+
+  /**
+   * Determine whether a generated pojomator may compare and hash values of a property type using the type's own
+   * properties.
+   * @param type the declared type of a property
+   * @return {@code true} if values of {@code type} may be compared and hashed inline
+   */
+  public static boolean isInlinable(Class<?> type) {
+    return !type.isPrimitive() && INLINABLE.get(type);
+  }
+
+  private static boolean computeInlinable(Class<?> type) {
+    if (type.isArray() || type.isInterface() || !Modifier.isFinal(type.getModifiers())
+      || type.isAnnotationPresent(CacheHashCode.class)) {
+      return false;
+    }
+    if (!DELEGATING_EQUALS_INSTRUCTIONS.equals(MethodInstructions.read(type, "equals", Object.class))
+      || !DELEGATING_HASH_CODE_INSTRUCTIONS.equals(MethodInstructions.read(type, "hashCode"))) {
+      return false;
+    }
+    ClassProperties classProperties;
+    try {
+      classProperties = ClassProperties.forClass(type);
+    }
+    catch (IllegalArgumentException e) {
+      // including NoPojomaticPropertiesException; leave Pojomatic.equals to report the problem
+      return false;
+    }
+    try {
+      for (PropertyElement property: classProperties.getAllProperties()) {
+        ((AccessibleObject) property.getElement()).setAccessible(true);
+      }
+    }
+    catch (RuntimeException e) {
+      return false; // for example, the type is in a module which is not open to Pojomatic
+    }
+    return true;
+  }
+}
@@ -0,0 +1,67 @@
+package org.pojomatic.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.PojomaticMXBean;
+
+/**
+ * The implementation of {@link PojomaticMXBean}.
+ */
+public class PojomaticManagement implements PojomaticMXBean {
+
+  /**
+   * Register the MXBean with the platform MBean server. Failure to register, including because an MXBean is already
+   * registered (for example, by a copy of Pojomatic in another class loader), is ignored, since it should not prevent
+   * Pojomatic from being used.
+   */
+  public static void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(new PojomaticManagement(), new ObjectName(OBJECT_NAME));
+    }
+    catch (JMException | SecurityException e) {
+      // leave Pojomatic unmanaged
+    }
+  }
+
+  @Override
+  public int getCacheSize() {
+    return Pojomatic.cacheStatistics().getSize();
+  }
+
+  @Override
+  public int getMaximumCacheSize() {
+    return Pojomatic.cacheStatistics().getMaximumSize();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return Pojomatic.cacheStatistics().getEvictionCount();
+  }
+
+  @Override
+  public long getRegenerationCount() {
+    return Pojomatic.cacheStatistics().getRegenerationCount();
+  }
+
+  @Override
+  public long getGeneratedCount() {
+    return PojomatorMonitoring.getGeneratedCount();
+  }
+
+  @Override
+  public long getTotalGenerationTime() {
+    return TimeUnit.NANOSECONDS.toMillis(PojomatorMonitoring.getGenerationNanos());
+  }
+
+  @Override
+  public long getGeneratedBytes() {
+    return PojomatorMonitoring.getGeneratedBytes();
+  }
+}
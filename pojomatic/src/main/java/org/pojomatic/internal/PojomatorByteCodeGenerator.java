@@ -3,16 +3,28 @@ package org.pojomatic.internal;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -20,14 +32,13 @@ import org.objectweb.asm.Type;
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
 import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.PropertyFormat;
 import org.pojomatic.annotations.SkipArrayCheck;
-import org.pojomatic.diff.Differences;
-import org.pojomatic.diff.NoDifferences;
-import org.pojomatic.diff.PropertyDifferences;
-import org.pojomatic.diff.ValueDifference;
+import org.pojomatic.diff.DiffVisitor;
 import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
 import org.pojomatic.formatter.EnhancedPojoFormatter;
 import org.pojomatic.formatter.EnhancedPropertyFormatter;
+import org.pojomatic.formatter.StatelessPojoFormatter;
 
 import static org.objectweb.asm.Opcodes.*;
 
@@ -40,6 +51,73 @@ class PojomatorByteCodeGenerator {
   private static final String BASE_POJOMATOR_INTERNAL_NAME = internalName(BasePojomator.class);
   static final String POJO_CLASS_FIELD_NAME = "pojoClass";
   private static final String BOOTSTRAP_METHOD_NAME = "bootstrap";
+  private static final String CLASS_DATA_BOOTSTRAP_METHOD_NAME = "bootstrapElement";
+  private static final String SETTER_BOOTSTRAP_METHOD_NAME = "bootstrapSetter";
+  private static final String CLASS_DATA_SETTER_BOOTSTRAP_METHOD_NAME = "bootstrapSetterElement";
+
+  /**
+   * {@code MethodHandles.classDataAt}, which loads an element of the class data of a hidden class (Java 16+).
+   */
+  private static final Handle CLASS_DATA_AT = new Handle(
+    H_INVOKESTATIC,
+    internalName(MethodHandles.class),
+    "classDataAt",
+    methodDesc(Object.class, MethodHandles.Lookup.class, String.class, Class.class, int.class),
+    false);
+
+  /**
+   * The name given to dynamic constants loaded from class data; {@code classDataAt} ignores it.
+   */
+  private static final String CLASS_DATA_CONSTANT_NAME = "_";
+
+  /**
+   * The suffix appended to the name of a pojo class to name a pojomator defined as its nestmate.
+   */
+  private static final String NESTMATE_CLASS_NAME_SUFFIX = "$$Pojomator";
+  static final String INVOCATION_COUNTERS_FIELD_NAME = "invocationCounters";
+  private static final String INLINED_EQUALS_METHOD_NAME = "inlinedEquals";
+  private static final String INLINED_HASH_CODE_METHOD_NAME = "inlinedHashCode";
+
+  /**
+   * Final classes of the JDK, for which a property value of the class is known to be an instance of exactly that class,
+   * so that calls to its {@code equals} and {@code hashCode} methods can be bound statically. Each has an
+   * {@code areEqual} method in {@link BasePojomator}.
+   */
+  private static final Set<Class<?>> KNOWN_FINAL_TYPES = new HashSet<>(Arrays.<Class<?>>asList(
+    String.class, Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class,
+    Double.class));
+
+  /**
+   * The largest amount of byte code, in bytes, which we aim to emit for a single method working on several properties.
+   * This is HotSpot's default {@code FreqInlineSize}; keeping below it allows a method to be inlined into its callers,
+   * and keeps it well away from the {@code HugeMethodLimit} (8000 bytes), above which HotSpot will not compile a method
+   * at all. When the properties handled by {@code doEquals}, {@code doHashCode}, {@code doAppendTo}, {@code doDiff} or
+   * {@code doCompare} would exceed this, they are split into groups, each handled by a private static helper method.
+   */
+  static final int MAX_METHOD_BYTE_CODE_SIZE = 325;
+
+  /**
+   * An upper bound on the byte code emitted by a generated method other than that emitted for each property.
+   */
+  private static final int METHOD_OVERHEAD_BYTE_CODE_SIZE = 40;
+
+  // Upper bounds on the byte code emitted for each property by the respective generated methods.
+  private static final int EQUALS_BYTE_CODE_SIZE_PER_PROPERTY = 20;
+  private static final int HASH_CODE_BYTE_CODE_SIZE_PER_PROPERTY = 40;
+  private static final int TO_STRING_BYTE_CODE_SIZE_PER_PROPERTY = 33;
+  private static final int DIFF_BYTE_CODE_SIZE_PER_PROPERTY = 62;
+  private static final int COMPARE_BYTE_CODE_SIZE_PER_PROPERTY = 20;
+  /**
+   * The extra byte code generated for each property compared by {@code doEquals} when instrumentation is enabled, to
+   * count the property as the first difference found.
+   */
+  private static final int INSTRUMENTED_EQUALS_BYTE_CODE_SIZE_PER_PROPERTY = 12;
+
+  /**
+   * The length of the longest string which is certain to fit in the constant pool; each character takes at most three
+   * bytes.
+   */
+  private static final int MAX_CONSTANT_LENGTH = 65535 / 3;
 
   private static final AtomicLong counter = new AtomicLong();
 
@@ -50,8 +128,86 @@ class PojomatorByteCodeGenerator {
   private final String pojoDescriptor;
   private final ClassProperties classProperties;
   private final Handle bootstrapMethod;
+  private final Handle setterBootstrapMethod;
   private final Map<PropertyElement, Integer> propertyNumbers = new HashMap<>();
 
+  /**
+   * The index in the class data of the property formatter for each {@code toString} property.
+   */
+  private final Map<PropertyElement, Integer> formatterIndexes = new HashMap<>();
+
+  /**
+   * Whether the pojomator will be defined as a hidden class, with its property elements and formatters passed as
+   * class data and loaded as dynamic constants, rather than injected into static fields after it is defined.
+   */
+  private final boolean useClassData;
+
+  /**
+   * The properties which the pojomator, being a nestmate of the pojo class, reads directly with {@code GETFIELD} or
+   * {@code INVOKEVIRTUAL}, rather than through an {@code invokedynamic} accessor method.
+   */
+  private final Set<PropertyElement> directProperties = new HashSet<>();
+
+  /**
+   * If the pojo class is formatted by a stateless pojo formatter, the text that formatter produces before the first
+   * toString property (or, if there are none, the entire toString text); otherwise {@code null}.
+   */
+  private final String constantToStringPrefix;
+
+  /**
+   * If the pojo class is formatted by a stateless pojo formatter, the text that formatter produces after each
+   * toString property, up to the next property value; otherwise {@code null}.
+   */
+  private final Map<PropertyElement, String> constantToStringSuffixes;
+
+  /**
+   * The counters to increment from the generated code, or {@code null} if instrumentation is not enabled, in which
+   * case no counting code is generated.
+   */
+  private final InvocationCounters invocationCounters;
+
+  /**
+   * The equals properties, in the order in which {@code doEquals} compares them. Since the result of {@code doEquals}
+   * does not depend on the order, this need not be the order of {@link ClassProperties#getEqualsProperties()}; by
+   * default, it is {@link ClassProperties#getEqualsComparisonOrder()}.
+   */
+  private final Collection<PropertyElement> equalsOrder;
+
+  /**
+   * The field in which {@code doHashCode} caches the hash code, or {@code null} if it is not cached.
+   */
+  private final PropertyElement hashCodeCacheField;
+
+  /**
+   * The field in which {@code doToString} caches its result, or {@code null} if it is not cached.
+   */
+  private final PropertyElement toStringCacheField;
+
+  /**
+   * The fields of the pojo in which the pojomator caches values. Each has an accessor method and a setter method,
+   * unless it is one of {@link #directProperties}.
+   */
+  private final List<PropertyElement> cacheFields = new ArrayList<>();
+
+  /**
+   * The property types whose values are compared and hashed by helper methods generated into the pojomator, rather
+   * than by calling their {@code equals} and {@code hashCode} methods, each with the index of its helper methods. See
+   * {@link NestedPojoInlining}.
+   */
+  private final Map<Class<?>, Integer> inlinedTypes = new LinkedHashMap<>();
+
+  /**
+   * The properties of the {@link #inlinedTypes} which are not also properties of the pojo class. Each has an accessor
+   * method, unless it is one of {@link #directProperties}.
+   */
+  private final List<PropertyElement> inlinedProperties = new ArrayList<>();
+
+  /**
+   * The {@code toString} properties whose values are appended by calling their own pojomators, rather than through
+   * their property formatters. See {@link ToStringDelegation}.
+   */
+  private final Set<PropertyElement> nestedPojoToStringProperties = new HashSet<>();
+
   private MethodVisitor mv; // the active method visitor
 
   /**
@@ -68,22 +224,388 @@ class PojomatorByteCodeGenerator {
     }
   }
 
-  PojomatorByteCodeGenerator(Class<?> pojoClass, ClassProperties classProperties) {
-    this.pojomatorClassName = PojomatorStub.class.getName() + "$" + counter.incrementAndGet();
+  PojomatorByteCodeGenerator(Class<?> pojoClass, ClassProperties classProperties)
+    throws InstantiationException, IllegalAccessException {
+    this(pojoClass, classProperties, false);
+  }
+
+  /**
+   * @param pojoClass the class to generate a pojomator for
+   * @param classProperties the properties of {@code pojoClass}
+   * @param useClassData if {@code true}, generate a class to be defined as a hidden class with the class data
+   * returned by {@link #makeClassData()}; otherwise, generate a class whose static fields must be set after it is
+   * defined.
+   */
+  PojomatorByteCodeGenerator(Class<?> pojoClass, ClassProperties classProperties, boolean useClassData)
+    throws InstantiationException, IllegalAccessException {
+    this(pojoClass, classProperties, useClassData, null);
+  }
+
+  /**
+   * @param pojoClass the class to generate a pojomator for
+   * @param classProperties the properties of {@code pojoClass}
+   * @param useClassData if {@code true}, generate a class to be defined as a hidden class with the class data
+   * returned by {@link #makeClassData()}; otherwise, generate a class whose static fields must be set after it is
+   * defined.
+   * @param nestmateLookup if not {@code null}, a lookup from {@link ClassDefiner#nestmateLookup(Class)}; the class is
+   * generated to be defined as a hidden nestmate of {@code pojoClass}, accessing directly those properties which
+   * {@code nestmateLookup} can access. Requires {@code useClassData}.
+   */
+  PojomatorByteCodeGenerator(
+    Class<?> pojoClass, ClassProperties classProperties, boolean useClassData, MethodHandles.Lookup nestmateLookup)
+    throws InstantiationException, IllegalAccessException {
+    this(pojoClass, classProperties, useClassData, nestmateLookup, classProperties.getEqualsComparisonOrder());
+  }
+
+  /**
+   * @param pojoClass the class to generate a pojomator for
+   * @param classProperties the properties of {@code pojoClass}
+   * @param useClassData if {@code true}, generate a class to be defined as a hidden class with the class data
+   * returned by {@link #makeClassData()}; otherwise, generate a class whose static fields must be set after it is
+   * defined.
+   * @param nestmateLookup if not {@code null}, a lookup from {@link ClassDefiner#nestmateLookup(Class)}; the class is
+   * generated to be defined as a hidden nestmate of {@code pojoClass}, accessing directly those properties which
+   * {@code nestmateLookup} can access. Requires {@code useClassData}.
+   * @param equalsOrder the equals properties of {@code pojoClass}, in the order in which {@code doEquals} should
+   * compare them
+   */
+  PojomatorByteCodeGenerator(
+    Class<?> pojoClass, ClassProperties classProperties, boolean useClassData, MethodHandles.Lookup nestmateLookup,
+    Collection<PropertyElement> equalsOrder)
+    throws InstantiationException, IllegalAccessException {
+    this(
+      pojoClass, classProperties, useClassData, nestmateLookup, equalsOrder, InvocationCounters.isEnabled(),
+      NestedPojoInlining.getInlineDepth());
+  }
+
+  /**
+   * @param pojoClass the class to generate a pojomator for
+   * @param classProperties the properties of {@code pojoClass}
+   * @param useClassData if {@code true}, generate a class to be defined as a hidden class with the class data
+   * returned by {@link #makeClassData()}; otherwise, generate a class whose static fields must be set after it is
+   * defined.
+   * @param nestmateLookup if not {@code null}, a lookup from {@link ClassDefiner#nestmateLookup(Class)}; the class is
+   * generated to be defined as a hidden nestmate of {@code pojoClass}, accessing directly those properties which
+   * {@code nestmateLookup} can access. Requires {@code useClassData}.
+   * @param equalsOrder the equals properties of {@code pojoClass}, in the order in which {@code doEquals} should
+   * compare them
+   * @param instrument whether to generate code which increments the {@link InvocationCounters} for {@code pojoClass}
+   * @param inlineDepth the number of levels of nested property types to inline; see {@link NestedPojoInlining}
+   */
+  PojomatorByteCodeGenerator(
+    Class<?> pojoClass, ClassProperties classProperties, boolean useClassData, MethodHandles.Lookup nestmateLookup,
+    Collection<PropertyElement> equalsOrder, boolean instrument, int inlineDepth)
+    throws InstantiationException, IllegalAccessException {
+    this.useClassData = useClassData;
+    this.equalsOrder = equalsOrder;
+    this.pojomatorClassName = nestmateLookup != null
+      ? pojoClass.getName() + NESTMATE_CLASS_NAME_SUFFIX
+      : PojomatorStub.class.getName() + "$" + counter.incrementAndGet();
     this.pojomatorInternalClassName = internalName(pojomatorClassName);
     this.pojomatorInternalClassDesc = "L" + pojomatorInternalClassName + ";";
     this.pojoClass = pojoClass;
     this.pojoDescriptor = classDesc(pojoClass);
     this.classProperties = classProperties;
-    this.bootstrapMethod = new Handle(
+    this.bootstrapMethod = useClassData
+      ? new Handle(
+        H_INVOKESTATIC,
+        BASE_POJOMATOR_INTERNAL_NAME,
+        CLASS_DATA_BOOTSTRAP_METHOD_NAME,
+        methodDesc(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, PropertyElement.class),
+        false)
+      : new Handle(
+        H_INVOKESTATIC,
+        BASE_POJOMATOR_INTERNAL_NAME,
+        BOOTSTRAP_METHOD_NAME,
+        methodDesc(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, Class.class), false);
+    this.setterBootstrapMethod = new Handle(
       H_INVOKESTATIC,
       BASE_POJOMATOR_INTERNAL_NAME,
-      BOOTSTRAP_METHOD_NAME,
-      methodDesc(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, Class.class), false);
+      useClassData ? CLASS_DATA_SETTER_BOOTSTRAP_METHOD_NAME : SETTER_BOOTSTRAP_METHOD_NAME,
+      methodDesc(
+        CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class,
+        useClassData ? PropertyElement.class : Class.class),
+      false);
+    this.hashCodeCacheField = classProperties.getHashCodeCacheField();
+    if (hashCodeCacheField != null) {
+      cacheFields.add(hashCodeCacheField);
+    }
+    this.toStringCacheField = classProperties.getToStringCacheField();
+    if (toStringCacheField != null) {
+      cacheFields.add(toStringCacheField);
+    }
+    findInlinedTypes(inlineDepth);
     int propertyNumber = 1;
     for (PropertyElement property: classProperties.getAllProperties()) {
       propertyNumbers.put(property, propertyNumber++);
     }
+    if (nestmateLookup != null) {
+      for (PropertyElement property: classProperties.getAllProperties()) {
+        if (isDirectlyAccessible(nestmateLookup, property)) {
+          directProperties.add(property);
+        }
+      }
+      for (PropertyElement property: inlinedProperties) {
+        if (isDirectlyAccessible(nestmateLookup, property)) {
+          directProperties.add(property);
+        }
+      }
+      for (PropertyElement cacheField: cacheFields) {
+        if (isDirectlyWritable(nestmateLookup, cacheField)) {
+          directProperties.add(cacheField);
+        }
+      }
+    }
+    int formatterIndex = classProperties.getAllProperties().size();
+    for (PropertyElement property: classProperties.getToStringProperties()) {
+      formatterIndexes.put(property, formatterIndex++);
+      if (!property.getElement().isAnnotationPresent(PropertyFormat.class)
+        && ToStringDelegation.isAppendableInline(property.getPropertyType())) {
+        nestedPojoToStringProperties.add(property);
+      }
+    }
+
+    EnhancedPojoFormatter statelessPojoFormatter = createStatelessPojoFormatter(pojoClass);
+    String prefix = null;
+    Map<PropertyElement, String> suffixes = null;
+    if (statelessPojoFormatter != null) {
+      try {
+        suffixes = new HashMap<>();
+        prefix = constantToStringText(statelessPojoFormatter, pojoClass, classProperties, suffixes);
+      }
+      catch (RuntimeException | LinkageError e) {
+        // Leave the formatter to fail when doToString is called, as it would if it were not stateless
+        prefix = null;
+      }
+    }
+    if (prefix != null && isConstantLength(prefix) && isConstantLength(suffixes.values())) {
+      constantToStringPrefix = prefix;
+      constantToStringSuffixes = suffixes;
+    }
+    else {
+      constantToStringPrefix = null;
+      constantToStringSuffixes = null;
+    }
+    invocationCounters = instrument ? InvocationCounters.forClass(pojoClass, classProperties) : null;
+  }
+
+  /**
+   * Find the property types to inline, and their properties. Types are found a level at a time, starting with the
+   * types of the equals and hash code properties of the pojo class; a type is only inlined if its helper methods need
+   * not be split into groups.
+   * @param depth the number of levels of property types to inline
+   */
+  private void findInlinedTypes(int depth) {
+    Collection<PropertyElement> level = equalsAndHashCodeProperties(classProperties);
+    for (int i = 0; i < depth && !level.isEmpty(); i++) {
+      Collection<PropertyElement> nextLevel = new LinkedHashSet<>();
+      for (PropertyElement property: level) {
+        Class<?> type = property.getPropertyType();
+        if (inlinedTypes.containsKey(type) || !NestedPojoInlining.isInlinable(type)) {
+          continue;
+        }
+        ClassProperties typeProperties = ClassProperties.forClass(type);
+        if (groupProperties(typeProperties.getEqualsProperties(), EQUALS_BYTE_CODE_SIZE_PER_PROPERTY).size() > 1
+          || groupProperties(typeProperties.getHashCodeProperties(), HASH_CODE_BYTE_CODE_SIZE_PER_PROPERTY).size() > 1) {
+          continue;
+        }
+        inlinedTypes.put(type, inlinedTypes.size());
+        for (PropertyElement typeProperty: equalsAndHashCodeProperties(typeProperties)) {
+          if (!classProperties.getAllProperties().contains(typeProperty) && !inlinedProperties.contains(typeProperty)) {
+            inlinedProperties.add(typeProperty);
+          }
+          nextLevel.add(typeProperty);
+        }
+      }
+      level = nextLevel;
+    }
+  }
+
+  private static Collection<PropertyElement> equalsAndHashCodeProperties(ClassProperties classProperties) {
+    Collection<PropertyElement> properties = new LinkedHashSet<>(classProperties.getEqualsProperties());
+    properties.addAll(classProperties.getHashCodeProperties());
+    return properties;
+  }
+
+  /**
+   * Determine whether a nestmate of the lookup class of a lookup can read a property without reflection. Protected
+   * members inherited from another package are excluded: the lookup class may access them, but only as a subclass,
+   * which its nestmate is not.
+   * @param nestmateLookup a lookup with private access to the pojo class
+   * @param property the property
+   * @return {@code true} if the property can be read with {@code GETFIELD} or {@code INVOKEVIRTUAL}
+   */
+  private static boolean isDirectlyAccessible(MethodHandles.Lookup nestmateLookup, PropertyElement property) {
+    AnnotatedElement element = property.getElement();
+    Class<?> declaringClass = property.getDeclaringClass();
+    Class<?> lookupClass = nestmateLookup.lookupClass();
+    if (Modifier.isProtected(((Member) element).getModifiers())
+      && (declaringClass.getClassLoader() != lookupClass.getClassLoader()
+        || !packageName(declaringClass).equals(packageName(lookupClass)))) {
+      return false;
+    }
+    // unlike unreflect, the find methods check access even if the element has been made accessible
+    try {
+      if (element instanceof Field) {
+        Field field = (Field) element;
+        nestmateLookup.findGetter(declaringClass, field.getName(), field.getType());
+      }
+      else {
+        Method method = (Method) element;
+        nestmateLookup.findVirtual(declaringClass, method.getName(), MethodType.methodType(method.getReturnType()));
+      }
+      return true;
+    }
+    catch (NoSuchFieldException | NoSuchMethodException | IllegalAccessException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Determine whether a nestmate of the lookup class of a lookup can read and write a cache field without reflection.
+   * @param nestmateLookup a lookup with private access to the pojo class
+   * @param cacheField the cache field, declared by the pojo class
+   * @return {@code true} if the field can be read and written with {@code GETFIELD} and {@code PUTFIELD}
+   */
+  private static boolean isDirectlyWritable(MethodHandles.Lookup nestmateLookup, PropertyElement cacheField) {
+    Field field = (Field) cacheField.getElement();
+    try {
+      nestmateLookup.findGetter(field.getDeclaringClass(), field.getName(), field.getType());
+      nestmateLookup.findSetter(field.getDeclaringClass(), field.getName(), field.getType());
+      return true;
+    }
+    catch (NoSuchFieldException | IllegalAccessException e) {
+      return false;
+    }
+  }
+
+  private static String packageName(Class<?> clazz) {
+    String className = clazz.getName();
+    int lastDot = className.lastIndexOf('.');
+    return lastDot < 0 ? "" : className.substring(0, lastDot);
+  }
+
+  /**
+   * Call a stateless pojo formatter in the same order that a generated {@code doAppendTo} would, collecting the text it
+   * appends before, between and after property values.
+   * @param pojoFormatter the pojo formatter
+   * @param pojoClass the pojo class
+   * @param classProperties the properties of the pojo class
+   * @param suffixes a map to add the text after each toString property, up to the next property value, to
+   * @return the text before the first toString property (or, if there are none, the entire toString text)
+   */
+  private static String constantToStringText(
+    EnhancedPojoFormatter pojoFormatter, Class<?> pojoClass, ClassProperties classProperties,
+    Map<PropertyElement, String> suffixes) {
+    StringBuilder builder = new StringBuilder();
+    pojoFormatter.appendToStringPrefix(builder, pojoClass);
+    String prefix = null;
+    PropertyElement previousProperty = null;
+    for (PropertyElement property: classProperties.getToStringProperties()) {
+      pojoFormatter.appendPropertyPrefix(builder, property);
+      if (previousProperty == null) {
+        prefix = builder.toString();
+      }
+      else {
+        suffixes.put(previousProperty, builder.toString());
+      }
+      builder.setLength(0);
+      pojoFormatter.appendPropertySuffix(builder, property);
+      previousProperty = property;
+    }
+    pojoFormatter.appendToStringSuffix(builder, pojoClass);
+    if (previousProperty == null) {
+      return builder.toString();
+    }
+    suffixes.put(previousProperty, builder.toString());
+    return prefix;
+  }
+
+  /**
+   * Create the pojo formatter for a class, if it is stateless.
+   * @param pojoClass the pojo class
+   * @return the pojo formatter for {@code pojoClass}, or {@code null} if that formatter is not stateless
+   * @see StatelessPojoFormatter
+   */
+  private static EnhancedPojoFormatter createStatelessPojoFormatter(Class<?> pojoClass)
+    throws InstantiationException, IllegalAccessException {
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    if (format == null || format.value() == DefaultEnhancedPojoFormatter.class) {
+      return new DefaultEnhancedPojoFormatter();
+    }
+    else if (StatelessPojoFormatter.class.isAssignableFrom(format.value())) {
+      return (StatelessPojoFormatter) format.value().newInstance();
+    }
+    else {
+      return null;
+    }
+  }
+
+  /**
+   * Determine whether strings can be held in the constant pool, which limits them to 65535 bytes in modified UTF-8.
+   */
+  private static boolean isConstantLength(String string) {
+    return string.length() <= MAX_CONSTANT_LENGTH;
+  }
+
+  private static boolean isConstantLength(Collection<String> strings) {
+    for (String string: strings) {
+      if (!isConstantLength(string)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Create the class data for a pojomator generated with {@code useClassData}: the property element for each property,
+   * in the order of {@link ClassProperties#getAllProperties()}, followed by the property formatter for each
+   * {@code toString} property, in the order of {@link ClassProperties#getToStringProperties()}, followed by the
+   * {@link #getInvocationCounters() invocation counters}, if instrumentation is enabled, followed by the
+   * {@link #getCacheFields() cache fields}.
+   * @return the class data
+   * @throws InstantiationException if a property formatter cannot be instantiated
+   * @throws IllegalAccessException if a property formatter's constructor is not accessible
+   */
+  List<Object> makeClassData() throws InstantiationException, IllegalAccessException {
+    List<Object> classData = new ArrayList<>();
+    classData.addAll(classProperties.getAllProperties());
+    for (PropertyElement property: classProperties.getToStringProperties()) {
+      classData.add(PojomatorFactory.createPropertyFormatter(property.getElement()));
+    }
+    if (invocationCounters != null) {
+      classData.add(invocationCounters);
+    }
+    classData.addAll(cacheFields);
+    classData.addAll(inlinedProperties);
+    return Collections.unmodifiableList(classData);
+  }
+
+  /**
+   * @return the fields of the pojo in which the generated class caches values. For a class not generated with
+   * {@code useClassData}, each must be stored in the static field named by {@link #propertyElementName(PropertyElement)}
+   * after it is defined.
+   */
+  List<PropertyElement> getCacheFields() {
+    return Collections.unmodifiableList(cacheFields);
+  }
+
+  /**
+   * @return the properties of nested property types which the generated class compares and hashes itself, other than
+   * those which are also properties of the pojo class. For a class not generated with {@code useClassData}, each must
+   * be stored in the static field named by {@link #propertyElementName(PropertyElement)} after it is defined.
+   */
+  List<PropertyElement> getInlinedProperties() {
+    return Collections.unmodifiableList(inlinedProperties);
+  }
+
+  /**
+   * @return the counters which the generated class increments, or {@code null} if instrumentation is not enabled. For
+   * a class not generated with {@code useClassData}, these must be stored in its {@value #INVOCATION_COUNTERS_FIELD_NAME}
+   * field after it is defined.
+   */
+  InvocationCounters getInvocationCounters() {
+    return invocationCounters;
   }
 
   byte[] makeClassBytes() {
@@ -94,23 +616,46 @@ class PojomatorByteCodeGenerator {
   }
 
   private void acceptClassVisitor(ClassVisitor classWriter) {
-    classWriter.visit(V1_7, ACC_PUBLIC + ACC_SUPER + ACC_SYNTHETIC, pojomatorInternalClassName, null,
+    // dynamic constants require class file version 55 (Java 11)
+    classWriter.visit(useClassData ? V11 : V1_7, ACC_PUBLIC + ACC_SUPER + ACC_SYNTHETIC, pojomatorInternalClassName, null,
         BASE_POJOMATOR_INTERNAL_NAME, new String[] { internalName(Pojomator.class) });
 
     classWriter.visitSource("Look for visitLineNumber", null);
 
-    makeFields(classWriter);
+    if (!useClassData) {
+      makeFields(classWriter);
+    }
 
     makeConstructor(classWriter);
 
     for (PropertyElement propertyElement: classProperties.getAllProperties()) {
-      makeAccessor(classWriter, propertyElement);
+      if (!directProperties.contains(propertyElement)) {
+        makeAccessor(classWriter, propertyElement);
+      }
+    }
+    for (PropertyElement cacheField: cacheFields) {
+      if (!directProperties.contains(cacheField)) {
+        makeAccessor(classWriter, cacheField);
+        makeSetter(classWriter, cacheField);
+      }
+    }
+    for (PropertyElement propertyElement: inlinedProperties) {
+      if (!directProperties.contains(propertyElement)) {
+        makeAccessor(classWriter, propertyElement);
+      }
     }
 
     makeDoEquals(classWriter);
     makeDoHashCode(classWriter);
     makeDoToString(classWriter);
+    makeDoAppendTo(classWriter);
     makeDoDiff(classWriter);
+    makeDoCompare(classWriter);
+    for (Map.Entry<Class<?>, Integer> inlinedType: inlinedTypes.entrySet()) {
+      ClassProperties typeProperties = ClassProperties.forClass(inlinedType.getKey());
+      makeInlinedEquals(classWriter, inlinedType.getValue(), typeProperties.getEqualsProperties());
+      makeInlinedHashCode(classWriter, inlinedType.getValue(), typeProperties.getHashCodeProperties());
+    }
 
     classWriter.visitEnd();
   }
@@ -125,6 +670,18 @@ class PojomatorByteCodeGenerator {
       visitField(
         classVisitor, ACC_STATIC, propertyElementName(property), classDesc(PropertyElement.class));
     }
+    if (invocationCounters != null) {
+      visitField(
+        classVisitor, ACC_STATIC, INVOCATION_COUNTERS_FIELD_NAME, classDesc(InvocationCounters.class));
+    }
+    for (PropertyElement cacheField: cacheFields) {
+      visitField(
+        classVisitor, ACC_STATIC, propertyElementName(cacheField), classDesc(PropertyElement.class));
+    }
+    for (PropertyElement property: inlinedProperties) {
+      visitField(
+        classVisitor, ACC_STATIC, propertyElementName(property), classDesc(PropertyElement.class));
+    }
   }
 
   private static void visitField(ClassVisitor classVisitor, int flags, String name, String classDescriptor) {
@@ -148,7 +705,12 @@ class PojomatorByteCodeGenerator {
     pojo.acceptLoad(mv);
     visitLineNumber(4, propertyElement);
     mv.visitInvokeDynamicInsn(
-      accessorName, accessorMethodDescription(propertyElement), bootstrapMethod, Type.getType(pojomatorInternalClassDesc));
+      accessorName,
+      accessorMethodDescription(propertyElement),
+      bootstrapMethod,
+      useClassData
+        ? propertyElementConstant(propertyElement)
+        : Type.getType(pojomatorInternalClassDesc));
     visitLineNumber(5, propertyElement);
 
     // return using the appropriate return byte code, based on type
@@ -179,6 +741,39 @@ class PojomatorByteCodeGenerator {
     mv.visitEnd();
   }
 
+  /**
+   * Generate a setter method for a cache field, which uses InvokeDynamic in the same way as the accessor generated by
+   * {@link #makeAccessor(ClassVisitor, PropertyElement)}.
+   * @param classWriter
+   * @param cacheField the cache field to generate the setter for
+   */
+  private void makeSetter(ClassVisitor classWriter, PropertyElement cacheField) {
+    LocalVariable pojo = new LocalVariable("pojo", Object.class, null, 0);
+    Class<?> valueType = effectiveType(cacheField.getPropertyType());
+    LocalVariable value = new LocalVariable("value", valueType, null, 1);
+    String setterName = setterName(cacheField);
+    String setterDescription = methodDesc(void.class, Object.class, valueType);
+    mv = classWriter.visitMethod(ACC_PRIVATE | ACC_STATIC, setterName, setterDescription, null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    pojo.acceptLoad(mv);
+    value.acceptLoad(mv);
+    visitLineNumber(85, null);
+    mv.visitInvokeDynamicInsn(
+      setterName,
+      setterDescription,
+      setterBootstrapMethod,
+      useClassData
+        ? propertyElementConstant(cacheField)
+        : Type.getType(pojomatorInternalClassDesc));
+    mv.visitInsn(RETURN);
+    Label end = visitNewLabel();
+    pojo.withScope(start, end).acceptLocalVariable(mv);
+    value.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(2, 2);
+    mv.visitEnd();
+  }
+
   private void makeConstructor(ClassVisitor cw) {
     LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
     LocalVariable varPojoClass = new LocalVariable(POJO_CLASS_FIELD_NAME, Class.class, null, 1);
@@ -217,11 +812,14 @@ class PojomatorByteCodeGenerator {
 
     // where to jump if we should return false
     Label returnFalse = new Label();
+    // where to jump if pojo2 is null, or of a type not compatible with that of pojo1
+    Label typeMismatch = invocationCounters == null ? returnFalse : new Label();
     // where to jump if we determine that pojo1 and pojo2 have types which are compatible for equality
     Label compatibleTypes = new Label();
 
     mv.visitCode();
     Label start = visitNewLabel();
+    countInvocation(79, "equalsCalled");
     varPojo1.acceptLoad(mv);
     visitLineNumber(7, null);
     checkNotNull();
@@ -231,6 +829,7 @@ class PojomatorByteCodeGenerator {
     mv.visitJumpInsn(IF_ACMPNE, notSameInstance);
 
     // same instance; return true
+    countInvocation(80, "sameInstance");
     mv.visitInsn(ICONST_1);
     mv.visitInsn(IRETURN);
 
@@ -240,43 +839,71 @@ class PojomatorByteCodeGenerator {
     mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
     visitLineNumber(9, null);
     varPojo2.acceptLoad(mv);
-    mv.visitJumpInsn(IFNULL, returnFalse);
+    mv.visitJumpInsn(IFNULL, typeMismatch);
 
-    // common case: if both types are the same, they are compatible for equality
-    varThis.acceptLoad(mv);
+    // common case: pojo2 is of the pojo class itself, which is always compatible for equality with it
+    varPojo2.acceptLoad(mv);
     visitLineNumber(10, null);
     invokeVirtual(Object.class, "getClass", Class.class);
-    varPojo1.acceptLoad(mv);
+    loadPojoClass(varThis);
     visitLineNumber(11, null);
-    invokeVirtual(Object.class, "getClass", Class.class);
-    mv.visitJumpInsn(IF_ACMPEQ, compatibleTypes);
-
-    // types are not the same; check for compatibility
-    varThis.acceptLoad(mv);
-    varPojo2.acceptLoad(mv);
-    visitLineNumber(12, null);
-    invokeVirtual(Object.class, "getClass", Class.class);
-    visitLineNumber(13, null);
-    invokeVirtual(BasePojomator.class, "isCompatibleForEquality", boolean.class, Class.class);
-    mv.visitJumpInsn(IFEQ, returnFalse);
+    if (classProperties.isOnlyCompatibleWithItself()) {
+      // no other class is compatible, so there is nothing more to check
+      mv.visitJumpInsn(IF_ACMPNE, typeMismatch);
+    }
+    else {
+      mv.visitJumpInsn(IF_ACMPEQ, compatibleTypes);
+
+      // types are not the same; check for compatibility
+      varThis.acceptLoad(mv);
+      varPojo2.acceptLoad(mv);
+      visitLineNumber(12, null);
+      invokeVirtual(Object.class, "getClass", Class.class);
+      visitLineNumber(13, null);
+      invokeVirtual(BasePojomator.class, "isCompatibleForEquality", boolean.class, Class.class);
+      mv.visitJumpInsn(IFEQ, typeMismatch);
+    }
 
     // types are compatible, so start comparing properties
     mv.visitLabel(compatibleTypes);
     mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
 
+    if (hashCodeCacheField != null) {
+      compareCachedHashCodes(varThis, varPojo1, varPojo2, localVars, returnFalse);
+    }
+
     // Compare properties
-    for(PropertyElement propertyElement: classProperties.getEqualsProperties()) {
-      visitLineNumber(14, propertyElement);
-      visitAccessorAndConvert(varPojo1, propertyElement);
-      visitLineNumber(15, propertyElement);
-      visitAccessorAndConvert(varPojo2, propertyElement);
-      visitLineNumber(16, propertyElement);
-      compareProperties(mv, returnFalse, propertyElement, stackAdjustments);
+    List<List<PropertyElement>> propertyGroups =
+      groupProperties(equalsOrder, equalsByteCodeSizePerProperty());
+    Map<PropertyElement, Label> firstDifferences = null;
+    if (propertyGroups.size() == 1) {
+      firstDifferences =
+        compareEqualsProperties(propertyGroups.get(0), varPojo1, varPojo2, returnFalse, stackAdjustments);
+    }
+    else {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        varPojo1.acceptLoad(mv);
+        varPojo2.acceptLoad(mv);
+        visitLineNumber(67, null);
+        invokeHelper("doEquals", i, boolean.class, Object.class, Object.class);
+        mv.visitJumpInsn(IFEQ, returnFalse);
+      }
     }
     // If we have gotten this far, all properties are equal, so return true.
     mv.visitInsn(ICONST_1);
     mv.visitInsn(IRETURN);
 
+    if (firstDifferences != null) {
+      countFirstDifferences(firstDifferences, returnFalse);
+    }
+    if (invocationCounters != null) {
+      mv.visitLabel(typeMismatch);
+      mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
+      countInvocation(81, "typeMismatch");
+      mv.visitInsn(ICONST_0);
+      mv.visitInsn(IRETURN);
+    }
+
     mv.visitLabel(returnFalse);
     mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
     mv.visitInsn(ICONST_0);
@@ -288,6 +915,159 @@ class PojomatorByteCodeGenerator {
     varPojo2.withScope(start, end).acceptLocalVariable(mv);
     mv.visitMaxs(2 + stackAdjustments.adjustments(2), 3);
     mv.visitEnd();
+
+    if (propertyGroups.size() > 1) {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        makeDoEqualsHelper(cw, i, propertyGroups.get(i));
+      }
+    }
+  }
+
+  /**
+   * Return false if both pojos have cached their hash codes, and the cached values differ. Since the hash code
+   * properties are a subset of the equals properties, pojos with different hash codes cannot be equal. A cached value
+   * of {@code 0} means that the hash code has not been computed. Since a pojo compatible for equality need not be an
+   * instance of the pojo class, which declares the cache field, {@code pojo2} is checked to be one first, unless the
+   * pojo class is {@link ClassProperties#isOnlyCompatibleWithItself() only compatible with itself}.
+   * @param varThis the pojomator
+   * @param varPojo1 the first pojo
+   * @param varPojo2 the second pojo, known to be compatible for equality with the first
+   * @param localVars the local variable types for the frame
+   * @param returnFalse where to jump if the cached hash codes differ
+   */
+  private void compareCachedHashCodes(
+    LocalVariable varThis, LocalVariable varPojo1, LocalVariable varPojo2, Object[] localVars, Label returnFalse) {
+    Label compareProperties = new Label();
+    visitLineNumber(90, null);
+    visitAccessor(varPojo1, hashCodeCacheField);
+    mv.visitJumpInsn(IFEQ, compareProperties);
+    if (!classProperties.isOnlyCompatibleWithItself()) {
+      if (directProperties.contains(hashCodeCacheField)) {
+        varPojo2.acceptLoad(mv);
+        mv.visitTypeInsn(INSTANCEOF, internalName(hashCodeCacheField.getDeclaringClass()));
+      }
+      else {
+        // the pojo class may not be accessible by name; the cache field is declared by it
+        loadPojoClass(varThis);
+        varPojo2.acceptLoad(mv);
+        invokeVirtual(Class.class, "isInstance", boolean.class, Object.class);
+      }
+      mv.visitJumpInsn(IFEQ, compareProperties);
+    }
+    visitAccessor(varPojo2, hashCodeCacheField);
+    mv.visitJumpInsn(IFEQ, compareProperties);
+    visitLineNumber(91, null);
+    visitAccessor(varPojo1, hashCodeCacheField);
+    visitAccessor(varPojo2, hashCodeCacheField);
+    mv.visitJumpInsn(IF_ICMPNE, returnFalse);
+    mv.visitLabel(compareProperties);
+    mv.visitFrame(F_FULL, localVars.length, localVars, 0, NO_STACK);
+  }
+
+  /**
+   * Generate a helper method for {@link #makeDoEquals(ClassVisitor)}, which returns {@code true} if the values of each
+   * of a group of properties are equal for two pojos.
+   * @param cw
+   * @param index the index of the group
+   * @param properties the properties to compare
+   */
+  private void makeDoEqualsHelper(ClassVisitor cw, int index, List<PropertyElement> properties) {
+    LocalVariable varPojo1 = new LocalVariable("pojo1", pojoClass, pojoDescriptor, 0);
+    LocalVariable varPojo2 = new LocalVariable("pojo2", pojoClass, pojoDescriptor, 1);
+
+    StackAdjustments stackAdjustments = new StackAdjustments();
+
+    Object[] localVars = new Object[] {OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME};
+
+    visitHelper(cw, "doEquals", index, boolean.class, Object.class, Object.class);
+    Label returnFalse = new Label();
+
+    mv.visitCode();
+    Label start = visitNewLabel();
+    Map<PropertyElement, Label> firstDifferences =
+      compareEqualsProperties(properties, varPojo1, varPojo2, returnFalse, stackAdjustments);
+    mv.visitInsn(ICONST_1);
+    mv.visitInsn(IRETURN);
+
+    if (firstDifferences != null) {
+      countFirstDifferences(firstDifferences, returnFalse);
+    }
+
+    mv.visitLabel(returnFalse);
+    mv.visitFrame(F_FULL, 2, localVars, 0, NO_STACK);
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+
+    Label end = visitNewLabel();
+    varPojo1.withScope(start, end).acceptLocalVariable(mv);
+    varPojo2.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(2 + stackAdjustments.adjustments(2), 2);
+    mv.visitEnd();
+  }
+
+  /**
+   * Compare the values of each of a group of properties for two pojos, jumping to {@code notEqualLabel} if any differ.
+   * If instrumentation is enabled, each property instead jumps to its own label, from which
+   * {@link #countFirstDifferences(Map, Label)} must then generate code which counts it as the first difference, before
+   * jumping to {@code notEqualLabel}.
+   * @param properties the properties to compare
+   * @param varPojo1 the first pojo
+   * @param varPojo2 the second pojo
+   * @param notEqualLabel where to jump if the property values are not equal
+   * @param stackAdjustments adjustments to be made to the max stack size, based on property type
+   * @return the label to which each property jumps if its values are not equal, or {@code null} if instrumentation is
+   * not enabled
+   */
+  private Map<PropertyElement, Label> compareEqualsProperties(
+    List<PropertyElement> properties, LocalVariable varPojo1, LocalVariable varPojo2, Label notEqualLabel,
+    StackAdjustments stackAdjustments) {
+    Map<PropertyElement, Label> firstDifferences = invocationCounters == null ? null
+      : new LinkedHashMap<PropertyElement, Label>();
+    for(PropertyElement propertyElement: properties) {
+      Label propertyNotEqualLabel = notEqualLabel;
+      if (firstDifferences != null) {
+        propertyNotEqualLabel = new Label();
+        firstDifferences.put(propertyElement, propertyNotEqualLabel);
+      }
+      visitLineNumber(14, propertyElement);
+      visitAccessorAndConvert(varPojo1, propertyElement);
+      visitLineNumber(15, propertyElement);
+      visitAccessorAndConvert(varPojo2, propertyElement);
+      visitLineNumber(16, propertyElement);
+      compareProperties(mv, propertyNotEqualLabel, propertyElement, stackAdjustments);
+    }
+    return firstDifferences;
+  }
+
+  /**
+   * Generate the code which counts each of a group of properties as the first difference found by {@code doEquals},
+   * for the labels returned by
+   * {@link #compareEqualsProperties(List, LocalVariable, LocalVariable, Label, StackAdjustments)}. This must follow
+   * an unconditional return, with the locals unchanged since the last frame.
+   * @param firstDifferences the label for each property
+   * @param notEqualLabel where to jump once the difference has been counted
+   */
+  private void countFirstDifferences(Map<PropertyElement, Label> firstDifferences, Label notEqualLabel) {
+    List<PropertyElement> equalsProperties = new ArrayList<>(classProperties.getEqualsProperties());
+    for (Map.Entry<PropertyElement, Label> entry: firstDifferences.entrySet()) {
+      PropertyElement propertyElement = entry.getKey();
+      mv.visitLabel(entry.getValue());
+      mv.visitFrame(F_SAME, 0, null, 0, null);
+      loadInvocationCounters();
+      visitLineNumber(82, propertyElement);
+      mv.visitLdcInsn(equalsProperties.indexOf(propertyElement));
+      invokeVirtual(InvocationCounters.class, "propertyDiffered", void.class, int.class);
+      mv.visitJumpInsn(GOTO, notEqualLabel);
+    }
+  }
+
+  /**
+   * @return an upper bound on the size of the byte code generated by {@code doEquals} for each property
+   */
+  private int equalsByteCodeSizePerProperty() {
+    return invocationCounters == null
+      ? EQUALS_BYTE_CODE_SIZE_PER_PROPERTY
+      : EQUALS_BYTE_CODE_SIZE_PER_PROPERTY + INSTRUMENTED_EQUALS_BYTE_CODE_SIZE_PER_PROPERTY;
   }
 
   /**
@@ -312,6 +1092,11 @@ class PojomatorByteCodeGenerator {
         mv.visitJumpInsn(IF_ICMPNE, notEqualLabel);
       }
     }
+    else if (isIdentityType(propertyType)) {
+      // equals is reference equality, and is true of two nulls
+      visitLineNumber(97, propertyElement);
+      mv.visitJumpInsn(IF_ACMPNE, notEqualLabel);
+    }
     else {
       if(propertyType.isArray()) {
         Class<?> componentType = propertyType.getComponentType();
@@ -325,10 +1110,35 @@ class PojomatorByteCodeGenerator {
         }
       }
       else {
-        if (isObjectPossiblyHoldingArray(propertyElement)) {
+        if (inlinedTypes.containsKey(propertyType)) {
+          visitLineNumber(92, propertyElement);
+          invokeHelper(
+            INLINED_EQUALS_METHOD_NAME, inlinedTypes.get(propertyType), boolean.class, Object.class, Object.class);
+        }
+        else if (isObjectPossiblyHoldingArray(propertyElement)) {
           visitLineNumber(19, propertyElement);
           invokeStatic(BasePojomator.class, "areObjectValuesEqual", boolean.class, Object.class, Object.class);
         }
+        else if (KNOWN_FINAL_TYPES.contains(propertyType)) {
+          // the first value is known to be of propertyType, whose equals method can be bound statically
+          visitLineNumber(98, propertyElement);
+          if (!directProperties.contains(propertyElement)) {
+            // accessor methods return Object
+            mv.visitInsn(SWAP);
+            mv.visitTypeInsn(CHECKCAST, internalName(propertyType));
+            mv.visitInsn(SWAP);
+          }
+          if (ClassProperties.isNonNull(propertyElement)) {
+            invokeVirtual(propertyType, "equals", boolean.class, Object.class);
+          }
+          else {
+            invokeStatic(BasePojomator.class, "areEqual", boolean.class, propertyType, Object.class);
+          }
+        }
+        else if (ClassProperties.isNonNull(propertyElement)) {
+          visitLineNumber(99, propertyElement);
+          invokeVirtual(Object.class, "equals", boolean.class, Object.class);
+        }
         else {
           visitLineNumber(20, propertyElement);
           invokeStatic(Objects.class,  "equals", boolean.class, Object.class, Object.class);
@@ -338,6 +1148,102 @@ class PojomatorByteCodeGenerator {
     }
   }
 
+  /**
+   * Determine whether values of a type are equal only if they are the same instance, so that they may be compared
+   * using {@code ==}. This is the case for enums, whose {@code equals} and {@code hashCode} methods are final, and
+   * inherited from {@link Object}.
+   * @param propertyType the declared type of a property
+   * @return {@code true} if values of {@code propertyType} are equal only if they are the same instance
+   */
+  private static boolean isIdentityType(Class<?> propertyType) {
+    return Enum.class.isAssignableFrom(propertyType);
+  }
+
+  /**
+   * Generate a helper method which compares two values of an {@link #inlinedTypes inlined type} as
+   * {@link org.pojomatic.Pojomatic#equals(Object, Object)} would, given that neither value is of a subclass of it.
+   * @param cw
+   * @param index the index of the inlined type
+   * @param properties the equals properties of the inlined type
+   */
+  private void makeInlinedEquals(ClassVisitor cw, int index, Collection<PropertyElement> properties) {
+    LocalVariable varValue1 = new LocalVariable("value1", Object.class, null, 0);
+    LocalVariable varValue2 = new LocalVariable("value2", Object.class, null, 1);
+    Object[] localVars = new Object[] {OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME};
+    StackAdjustments stackAdjustments = new StackAdjustments();
+
+    visitHelper(cw, INLINED_EQUALS_METHOD_NAME, index, boolean.class, Object.class, Object.class);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    Label returnFalse = new Label();
+
+    // as with Objects.equals, the same instance (or both null) is equal, and null is not equal to non-null
+    varValue1.acceptLoad(mv);
+    varValue2.acceptLoad(mv);
+    visitLineNumber(94, null);
+    Label notSameInstance = new Label();
+    mv.visitJumpInsn(IF_ACMPNE, notSameInstance);
+    mv.visitInsn(ICONST_1);
+    mv.visitInsn(IRETURN);
+    mv.visitLabel(notSameInstance);
+    mv.visitFrame(F_FULL, localVars.length, localVars, 0, NO_STACK);
+    varValue1.acceptLoad(mv);
+    mv.visitJumpInsn(IFNULL, returnFalse);
+    varValue2.acceptLoad(mv);
+    mv.visitJumpInsn(IFNULL, returnFalse);
+
+    for (PropertyElement propertyElement: properties) {
+      visitLineNumber(95, propertyElement);
+      visitAccessorAndConvert(varValue1, propertyElement);
+      visitAccessorAndConvert(varValue2, propertyElement);
+      compareProperties(mv, returnFalse, propertyElement, stackAdjustments);
+    }
+    mv.visitInsn(ICONST_1);
+    mv.visitInsn(IRETURN);
+
+    mv.visitLabel(returnFalse);
+    mv.visitFrame(F_FULL, localVars.length, localVars, 0, NO_STACK);
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+
+    Label end = visitNewLabel();
+    varValue1.withScope(start, end).acceptLocalVariable(mv);
+    varValue2.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(2 + stackAdjustments.adjustments(2), 2);
+    mv.visitEnd();
+  }
+
+  /**
+   * Generate a helper method which computes the hash code of a possibly null value of an
+   * {@link #inlinedTypes inlined type} as {@link java.util.Objects#hashCode(Object)} would.
+   * @param cw
+   * @param index the index of the inlined type
+   * @param properties the hash code properties of the inlined type
+   */
+  private void makeInlinedHashCode(ClassVisitor cw, int index, Collection<PropertyElement> properties) {
+    LocalVariable varValue = new LocalVariable("value", Object.class, null, 0);
+    Object[] localVars = new Object[] {OBJECT_INTERNAL_NAME};
+
+    visitHelper(cw, INLINED_HASH_CODE_METHOD_NAME, index, int.class, Object.class);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varValue.acceptLoad(mv);
+    visitLineNumber(96, null);
+    Label notNull = new Label();
+    mv.visitJumpInsn(IFNONNULL, notNull);
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+    mv.visitLabel(notNull);
+    mv.visitFrame(F_FULL, localVars.length, localVars, 0, NO_STACK);
+    mv.visitInsn(ICONST_1);
+    int longOrDoubleStackAdjustment = hashProperties(new ArrayList<PropertyElement>(properties), varValue, localVars);
+    mv.visitInsn(IRETURN);
+    Label end = visitNewLabel();
+    varValue.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 1);
+    mv.visitEnd();
+  }
+
   /**
    * Generate the {@link Pojomator#doHashCode(Object)} method.
    * @param cw
@@ -352,17 +1258,98 @@ class PojomatorByteCodeGenerator {
     mv = cw.visitMethod(ACC_PUBLIC, "doHashCode", methodDesc(int.class, Object.class), null, null);
     mv.visitCode();
     Label start = visitNewLabel();
+    countInvocation(83, "hashCodeCalled");
     visitLineNumber(21, null);
     varPojo.acceptLoad(mv);
     visitLineNumber(22, null);
     checkNotNullPop();
 
+    if (hashCodeCacheField != null) {
+      // return the cached hash code, unless it is 0, meaning that it has not been computed
+      visitLineNumber(86, null);
+      visitAccessor(varPojo, hashCodeCacheField);
+      mv.visitInsn(DUP);
+      Label notCached = new Label();
+      mv.visitJumpInsn(IFEQ, notCached);
+      mv.visitInsn(IRETURN);
+      mv.visitLabel(notCached);
+      mv.visitFrame(F_FULL, localVars.length, localVars, 1, new Object[] {INTEGER});
+      mv.visitInsn(POP);
+    }
+
     //algorithm:
     // hashCode(prop_n) + 31 * (hashCode(prop_n-1) + 31 * ( ... (hashCode(prop_1) + 31 * 1) ... ))
 
     mv.visitInsn(ICONST_1); // this will just be multiplied by 31; let the optimizer take care of it
 
-    for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
+    List<List<PropertyElement>> propertyGroups =
+      groupProperties(classProperties.getHashCodeProperties(), HASH_CODE_BYTE_CODE_SIZE_PER_PROPERTY);
+    if (propertyGroups.size() == 1) {
+      longOrDoubleStackAdjustment = hashProperties(propertyGroups.get(0), varPojo, localVars);
+    }
+    else {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        varPojo.acceptLoad(mv);
+        visitLineNumber(68, null);
+        invokeHelper("doHashCode", i, int.class, int.class, Object.class);
+      }
+    }
+    if (hashCodeCacheField != null) {
+      mv.visitInsn(DUP);
+      visitLineNumber(87, null);
+      visitCacheFieldStore(varPojo, hashCodeCacheField);
+    }
+    mv.visitInsn(IRETURN);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 2);
+    mv.visitEnd();
+
+    if (propertyGroups.size() > 1) {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        makeDoHashCodeHelper(cw, i, propertyGroups.get(i));
+      }
+    }
+  }
+
+  /**
+   * Generate a helper method for {@link #makeDoHashCode(ClassVisitor)}, which continues the hash code computation,
+   * starting from the hash code so far, for a group of properties.
+   * @param cw
+   * @param index the index of the group
+   * @param properties the properties to include in the hash code
+   */
+  private void makeDoHashCodeHelper(ClassVisitor cw, int index, List<PropertyElement> properties) {
+    LocalVariable varResult = new LocalVariable("result", int.class, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, pojoDescriptor, 1);
+
+    Object[] localVars = new Object[] {INTEGER, OBJECT_INTERNAL_NAME};
+
+    visitHelper(cw, "doHashCode", index, int.class, int.class, Object.class);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varResult.acceptLoad(mv);
+    int longOrDoubleStackAdjustment = hashProperties(properties, varPojo, localVars);
+    mv.visitInsn(IRETURN);
+    Label end = visitNewLabel();
+    varResult.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 2);
+    mv.visitEnd();
+  }
+
+  /**
+   * Fold the hash codes of a group of properties into the hash code so far, which is expected to be on the top of the
+   * stack.
+   * @param properties the properties to include in the hash code
+   * @param varPojo the pojo
+   * @param localVars the types of the local variables, for use in stack map frames
+   * @return the adjustment to be made to the max stack size, based on property type
+   */
+  private int hashProperties(List<PropertyElement> properties, LocalVariable varPojo, Object[] localVars) {
+    int longOrDoubleStackAdjustment = 0;
+    for(PropertyElement propertyElement: properties) {
       // multiply what we have so far by 31.
       visitLineNumber(23, propertyElement);
       mv.visitIntInsn(BIPUSH, 31);
@@ -383,10 +1370,10 @@ class PojomatorByteCodeGenerator {
             Label hashCodeDetermined = new Label();
             mv.visitJumpInsn(GOTO, hashCodeDetermined);
             mv.visitLabel(ifeq);
-            mv.visitFrame(F_FULL, 2, localVars, 1, new Object[] {INTEGER});
+            mv.visitFrame(F_FULL, localVars.length, localVars, 1, new Object[] {INTEGER});
             mv.visitIntInsn(SIPUSH, Boolean.FALSE.hashCode());
             mv.visitLabel(hashCodeDetermined);
-            mv.visitFrame(F_FULL, 2, localVars, 2, new Object[] {INTEGER, INTEGER});
+            mv.visitFrame(F_FULL, localVars.length, localVars, 2, new Object[] {INTEGER, INTEGER});
             break;
           case "byte":
           case "char":
@@ -415,21 +1402,30 @@ class PojomatorByteCodeGenerator {
             throw new IllegalStateException("unknown primitive type " + propertyType.getName());
         }
       }
+      else if (isIdentityType(propertyType)) {
+        // the identity hash code, which is also that of null
+        visitLineNumber(32, propertyElement);
+        invokeStatic(System.class, "identityHashCode", int.class, Object.class);
+      }
       else {
-        Label ifNonNull = new Label();
+        boolean nonNull = ClassProperties.isNonNull(propertyElement);
         Label hashCodeDetermined = new Label();
 
-        mv.visitInsn(DUP); // if it is non-null, let's not have to get it a second time.
-        mv.visitJumpInsn(IFNONNULL, ifNonNull);
-        // it's null
-        mv.visitInsn(POP); // won't need that duped copy after all
-        mv.visitInsn(ICONST_0);
-        mv.visitJumpInsn(GOTO, hashCodeDetermined);
+        if (!nonNull) {
+          Label ifNonNull = new Label();
+          mv.visitInsn(DUP); // if it is non-null, let's not have to get it a second time.
+          mv.visitJumpInsn(IFNONNULL, ifNonNull);
+          // it's null
+          mv.visitInsn(POP); // won't need that duped copy after all
+          mv.visitInsn(ICONST_0);
+          mv.visitJumpInsn(GOTO, hashCodeDetermined);
 
-        // it's not null
-        mv.visitLabel(ifNonNull);
-        mv.visitFrame(
-          F_FULL, 2, localVars, 2, new Object[] {INTEGER, Type.getInternalName(effectiveType(propertyType))});
+          // it's not null
+          mv.visitLabel(ifNonNull);
+          mv.visitFrame(
+            F_FULL, localVars.length, localVars, 2,
+            new Object[] {INTEGER, Type.getInternalName(effectiveType(propertyType))});
+        }
 
         if(propertyType.isArray()) {
           visitLineNumber(28, propertyElement);
@@ -457,87 +1453,271 @@ class PojomatorByteCodeGenerator {
 
           // add a deep parameter to arrayHashCode, like we did for compareProperties
           mv.visitLabel(isArray);
-          mv.visitFrame(F_FULL, 2, localVars, 2, new Object[] { INTEGER, Type.getInternalName(propertyType) });
+          mv.visitFrame(F_FULL, localVars.length, localVars, 2, new Object[] { INTEGER, Type.getInternalName(propertyType) });
 
           mv.visitInsn(ICONST_1);
           visitLineNumber(31, propertyElement);
           invokeStatic(BasePojomator.class, "arrayHashCode", int.class, Object.class, boolean.class);
         }
+        else if (inlinedTypes.containsKey(propertyType)) {
+          visitLineNumber(93, propertyElement);
+          invokeHelper(INLINED_HASH_CODE_METHOD_NAME, inlinedTypes.get(propertyType), int.class, Object.class);
+        }
+        else if (KNOWN_FINAL_TYPES.contains(propertyType)) {
+          visitLineNumber(32, propertyElement);
+          if (!nonNull || !directProperties.contains(propertyElement)) {
+            // the frame above, or an accessor method, has left the value typed as an Object
+            mv.visitTypeInsn(CHECKCAST, internalName(propertyType));
+          }
+          invokeVirtual(propertyType, "hashCode", int.class);
+        }
         else {
           visitLineNumber(32, propertyElement);
           invokeVirtual(Object.class, "hashCode", int.class);
         }
 
-        mv.visitLabel(hashCodeDetermined);
-        mv.visitFrame(F_FULL, 2, localVars, 2, new Object[] {INTEGER, INTEGER});
+        if (!nonNull || isObjectPossiblyHoldingArray(propertyElement)) {
+          mv.visitLabel(hashCodeDetermined);
+          mv.visitFrame(F_FULL, localVars.length, localVars, 2, new Object[] {INTEGER, INTEGER});
+        }
       }
       // add result to what we have so far
       mv.visitInsn(IADD);
     }
-    mv.visitInsn(IRETURN);
-    Label end = visitNewLabel();
-    varThis.withScope(start, end).acceptLocalVariable(mv);
-    varPojo.withScope(start, end).acceptLocalVariable(mv);
-    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 2);
-    mv.visitEnd();
+    return longOrDoubleStackAdjustment;
   }
 
   /**
-   * Generate {@link Pojomator#doToString(Object)}
+   * Generate {@link Pojomator#doToString(Object)}, which appends to a builder obtained from
+   * {@link BasePojomator#acquireToStringBuilder()} using {@link Pojomator#doAppendTo(Object, StringBuilder)}.
    * @param cw
    */
   private void makeDoToString(ClassVisitor cw) {
-    int longOrDoubleStackAdjustment = 1;
     LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
     LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, 1);
-    LocalVariable varPojoFormatter=
-      new LocalVariable("pojoFormattor", classDesc(EnhancedPojoFormatter.class), null, 2);
-    LocalVariable varBuilder= new LocalVariable("builder", classDesc(String.class), null, 3);
+    LocalVariable varBuilder= new LocalVariable("builder", classDesc(StringBuilder.class), null, 2);
 
     mv = cw.visitMethod(ACC_PUBLIC, "doToString", methodDesc(String.class, Object.class), null, null);
     mv.visitCode();
     Label start = visitNewLabel();
+    countInvocation(84, "toStringCalled");
     varPojo.acceptLoad(mv);
     checkNotNullPop();
 
-    constructEnhancedPojoFormatter();
-    varPojoFormatter.acceptStore(mv);
+    if (toStringCacheField != null) {
+      // return the cached string, unless it is null, meaning that it has not been computed
+      visitLineNumber(88, null);
+      visitAccessor(varPojo, toStringCacheField);
+      if (!directProperties.contains(toStringCacheField)) {
+        mv.visitTypeInsn(CHECKCAST, internalName(String.class));
+      }
+      mv.visitInsn(DUP);
+      Label notCached = new Label();
+      mv.visitJumpInsn(IFNULL, notCached);
+      mv.visitInsn(ARETURN);
+      mv.visitLabel(notCached);
+      mv.visitFrame(
+        F_FULL, 2, new Object[] {pojomatorInternalClassName, OBJECT_INTERNAL_NAME},
+        1, new Object[] {internalName(String.class)});
+      mv.visitInsn(POP);
+    }
 
     visitLineNumber(33, null);
-    mv.visitTypeInsn(NEW, internalName(StringBuilder.class));
-    mv.visitInsn(DUP);
-    construct(StringBuilder.class);
+    invokeStatic(BasePojomator.class, "acquireToStringBuilder", StringBuilder.class);
     varBuilder.acceptStore(mv);
 
-    varPojoFormatter.acceptLoad(mv);
+    varThis.acceptLoad(mv);
+    varPojo.acceptLoad(mv);
     varBuilder.acceptLoad(mv);
-    loadPojoClass(varThis);
+    visitLineNumber(72, null);
+    mv.visitMethodInsn(
+      INVOKEVIRTUAL, pojomatorInternalClassName, "doAppendTo", methodDesc(void.class, Object.class, StringBuilder.class),
+      false);
+
+    // get the result, and make the builder available for reuse
+    varBuilder.acceptLoad(mv);
+    visitLineNumber(44, null);
+    invokeStatic(BasePojomator.class, "releaseToStringBuilder", String.class, StringBuilder.class);
+    if (toStringCacheField != null) {
+      mv.visitInsn(DUP);
+      visitLineNumber(89, null);
+      visitCacheFieldStore(varPojo, toStringCacheField);
+    }
+    mv.visitInsn(ARETURN);
+
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    varBuilder.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(3, 3);
+    mv.visitEnd();
+  }
+
+  /**
+   * Generate {@link Pojomator#doAppendTo(Object, StringBuilder)}
+   * @param cw
+   */
+  private void makeDoAppendTo(ClassVisitor cw) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, 1);
+    LocalVariable varBuilder= new LocalVariable("builder", classDesc(StringBuilder.class), null, 2);
+    LocalVariable varPojoFormatter=
+      new LocalVariable("pojoFormattor", classDesc(EnhancedPojoFormatter.class), null, 3);
+
+    mv = cw.visitMethod(
+      ACC_PUBLIC, "doAppendTo", methodDesc(void.class, Object.class, StringBuilder.class), null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varPojo.acceptLoad(mv);
+    checkNotNullPop();
+    varBuilder.acceptLoad(mv);
+    checkNotNullPop();
+
+    if (constantToStringPrefix == null) {
+      constructEnhancedPojoFormatter();
+      varPojoFormatter.acceptStore(mv);
+    }
+
+    if (constantToStringPrefix == null) {
+      varPojoFormatter.acceptLoad(mv);
+      varBuilder.acceptLoad(mv);
+      loadPojoClass(varThis);
 
-    visitLineNumber(34, null);
+      visitLineNumber(34, null);
+
+      invokeInterface(
+        EnhancedPojoFormatter.class, "appendToStringPrefix", void.class, StringBuilder.class, Class.class);
+    }
+    else {
+      appendConstant(varBuilder, constantToStringPrefix, null);
+    }
 
-    invokeInterface(EnhancedPojoFormatter.class,  "appendToStringPrefix", void.class, StringBuilder.class, Class.class);
+    List<List<PropertyElement>> propertyGroups =
+      groupProperties(classProperties.getToStringProperties(), TO_STRING_BYTE_CODE_SIZE_PER_PROPERTY);
+    if (propertyGroups.size() == 1) {
+      appendProperties(propertyGroups.get(0), varPojoFormatter, varBuilder, varPojo);
+    }
+    else {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        if (constantToStringPrefix == null) {
+          varPojoFormatter.acceptLoad(mv);
+        }
+        varBuilder.acceptLoad(mv);
+        varPojo.acceptLoad(mv);
+        visitLineNumber(69, null);
+        invokeHelper("doAppendTo", i, void.class, toStringHelperParameterTypes());
+      }
+    }
+
+    if (constantToStringPrefix == null) {
+      // Have any toString suffix appended
+      varPojoFormatter.acceptLoad(mv);
+      varBuilder.acceptLoad(mv);
+      loadPojoClass(varThis);
+      visitLineNumber(43, null);
+      invokeInterface(
+        EnhancedPojoFormatter.class, "appendToStringSuffix", void.class, StringBuilder.class, Class.class);
+    }
+    mv.visitInsn(RETURN);
+
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    if (constantToStringPrefix == null) {
+      varPojoFormatter.withScope(start, end).acceptLocalVariable(mv);
+    }
+    varBuilder.withScope(start, end).acceptLocalVariable(mv);
+    // the property formatter, builder and a double-wide property value
+    mv.visitMaxs(4, 4);
+    mv.visitEnd();
+
+    if (propertyGroups.size() > 1) {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        makeDoToStringHelper(cw, i, propertyGroups.get(i));
+      }
+    }
+  }
+
+  /**
+   * Generate a helper method for {@link #makeDoAppendTo(ClassVisitor)}, which appends a group of properties.
+   * @param cw
+   * @param index the index of the group
+   * @param properties the properties to append
+   */
+  private void makeDoToStringHelper(ClassVisitor cw, int index, List<PropertyElement> properties) {
+    int firstVariable = constantToStringPrefix == null ? 1 : 0;
+    LocalVariable varPojoFormatter =
+      new LocalVariable("pojoFormattor", classDesc(EnhancedPojoFormatter.class), null, 0);
+    LocalVariable varBuilder = new LocalVariable("builder", classDesc(StringBuilder.class), null, firstVariable);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, firstVariable + 1);
+
+    visitHelper(cw, "doAppendTo", index, void.class, toStringHelperParameterTypes());
+    mv.visitCode();
+    Label start = visitNewLabel();
+    appendProperties(properties, varPojoFormatter, varBuilder, varPojo);
+    mv.visitInsn(RETURN);
+    Label end = visitNewLabel();
+    if (constantToStringPrefix == null) {
+      varPojoFormatter.withScope(start, end).acceptLocalVariable(mv);
+    }
+    varBuilder.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(4, firstVariable + 2);
+    mv.visitEnd();
+  }
+
+  private Class<?>[] toStringHelperParameterTypes() {
+    return constantToStringPrefix == null
+      ? new Class<?>[] { EnhancedPojoFormatter.class, StringBuilder.class, Object.class }
+      : new Class<?>[] { StringBuilder.class, Object.class };
+  }
 
-    for(PropertyElement propertyElement: classProperties.getToStringProperties()) {
-      if (isWide(propertyElement)) {
-        longOrDoubleStackAdjustment = 1; // having any double-wide values on our stack increases max stack depth by one
+  /**
+   * Append a group of properties, with their prefixes and suffixes, to the builder. If the pojo formatter is
+   * stateless, the prefixes and suffixes are appended as constants; otherwise, the pojo formatter is called.
+   * @param properties the properties to append
+   * @param varPojoFormatter the pojo formatter, if it is not stateless
+   * @param varBuilder the builder to append to
+   * @param varPojo the pojo
+   */
+  private void appendProperties(
+    List<PropertyElement> properties, LocalVariable varPojoFormatter, LocalVariable varBuilder,
+    LocalVariable varPojo) {
+    for(PropertyElement propertyElement: properties) {
+      if (constantToStringPrefix == null) {
+        // append the property prefix
+        varPojoFormatter.acceptLoad(mv);
+        varBuilder.acceptLoad(mv);
+        visitLineNumber(35, propertyElement);
+        loadPropertyElementField(propertyElement);
+        visitLineNumber(36, propertyElement);
+        invokeInterface(
+          EnhancedPojoFormatter.class, "appendPropertyPrefix", void.class, StringBuilder.class, PropertyElement.class);
       }
 
-      // append the property prefix
-      varPojoFormatter.acceptLoad(mv);
-      varBuilder.acceptLoad(mv);
-      visitLineNumber(35, propertyElement);
-      loadPropertyElementField(propertyElement);
-      visitLineNumber(36, propertyElement);
-      invokeInterface(
-        EnhancedPojoFormatter.class, "appendPropertyPrefix", void.class, StringBuilder.class, PropertyElement.class);
+      if (nestedPojoToStringProperties.contains(propertyElement)) {
+        // append the nested pojo as the default property formatter would, but straight into our StringBuilder
+        varBuilder.acceptLoad(mv);
+        visitLineNumber(38, propertyElement);
+        visitAccessor(varPojo, propertyElement);
+        visitLineNumber(60, propertyElement);
+        invokeStatic(BasePojomator.class, "appendPojo", void.class, StringBuilder.class, Object.class);
+        appendPropertySuffix(propertyElement, varPojoFormatter, varBuilder);
+        continue;
+      }
 
       // get the propertyFormatter for this property
       visitLineNumber(37, propertyElement);
-      mv.visitFieldInsn(
-        GETSTATIC,
-        pojomatorInternalClassName,
-        propertyFormatterName(propertyElement),
-        classDesc(EnhancedPropertyFormatter.class));
+      if (useClassData) {
+        mv.visitLdcInsn(classDataConstant(formatterIndexes.get(propertyElement), EnhancedPropertyFormatter.class));
+      }
+      else {
+        mv.visitFieldInsn(
+          GETSTATIC,
+          pojomatorInternalClassName,
+          propertyFormatterName(propertyElement),
+          classDesc(EnhancedPropertyFormatter.class));
+      }
 
       // The propertyFormatter will format the property value and append the results to our StringBuilder
       varBuilder.acceptLoad(mv);
@@ -555,6 +1735,21 @@ class PojomatorByteCodeGenerator {
           EnhancedPropertyFormatter.class,  "appendFormatted", void.class, StringBuilder.class, appendType);
       }
 
+      appendPropertySuffix(propertyElement, varPojoFormatter, varBuilder);
+    }
+
+  }
+
+  /**
+   * Append the suffix of a property to the builder, as a constant if the pojo formatter is stateless, and otherwise by
+   * calling the pojo formatter.
+   * @param propertyElement the property
+   * @param varPojoFormatter the pojo formatter, if it is not stateless
+   * @param varBuilder the builder to append to
+   */
+  private void appendPropertySuffix(
+    PropertyElement propertyElement, LocalVariable varPojoFormatter, LocalVariable varBuilder) {
+    if (constantToStringPrefix == null) {
       // have any property suffix appended to the StringBuilder
       varPojoFormatter.acceptLoad(mv);
       varBuilder.acceptLoad(mv);
@@ -562,29 +1757,27 @@ class PojomatorByteCodeGenerator {
       loadPropertyElementField(propertyElement);
       visitLineNumber(42, propertyElement);
       invokeInterface(
-        EnhancedPojoFormatter.class,  "appendPropertySuffix", void.class, StringBuilder.class, PropertyElement.class);
+        EnhancedPojoFormatter.class, "appendPropertySuffix", void.class, StringBuilder.class, PropertyElement.class);
     }
+    else {
+      appendConstant(varBuilder, constantToStringSuffixes.get(propertyElement), propertyElement);
+    }
+  }
 
-    // Have any toString suffix appended
-    varPojoFormatter.acceptLoad(mv);
-    varBuilder.acceptLoad(mv);
-    loadPojoClass(varThis);
-    visitLineNumber(43, null);
-    invokeInterface(EnhancedPojoFormatter.class,  "appendToStringSuffix", void.class, StringBuilder.class, Class.class);
-
-    // invoke toString and return the result
-    varBuilder.acceptLoad(mv);
-    visitLineNumber(44, null);
-    invokeVirtual(StringBuilder.class, "toString", String.class);
-    mv.visitInsn(ARETURN);
-
-    Label end = visitNewLabel();
-    varThis.withScope(start, end).acceptLocalVariable(mv);
-    varPojo.withScope(start, end).acceptLocalVariable(mv);
-    varPojoFormatter.withScope(start, end).acceptLocalVariable(mv);
-    varBuilder.withScope(start, end).acceptLocalVariable(mv);
-    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 4);
-    mv.visitEnd();
+  /**
+   * Append a constant string to the builder, unless it is empty.
+   * @param varBuilder the builder to append to
+   * @param constant the string to append
+   * @param propertyElement the property the constant follows, or {@code null} if it precedes the first property
+   */
+  private void appendConstant(LocalVariable varBuilder, String constant, PropertyElement propertyElement) {
+    if (!constant.isEmpty()) {
+      varBuilder.acceptLoad(mv);
+      mv.visitLdcInsn(constant);
+      visitLineNumber(71, propertyElement);
+      invokeVirtual(StringBuilder.class, "append", StringBuilder.class, String.class);
+      mv.visitInsn(POP);
+    }
   }
 
   private static Class<?> appendFormattedType(Class<?> propertyType) {
@@ -600,11 +1793,70 @@ class PojomatorByteCodeGenerator {
   }
 
   private void loadPropertyElementField(PropertyElement propertyElement) {
-    mv.visitFieldInsn(
-      GETSTATIC,
-      pojomatorInternalClassName,
-      propertyElementName(propertyElement),
-      classDesc(PropertyElement.class));
+    if (useClassData) {
+      mv.visitLdcInsn(propertyElementConstant(propertyElement));
+    }
+    else {
+      mv.visitFieldInsn(
+        GETSTATIC,
+        pojomatorInternalClassName,
+        propertyElementName(propertyElement),
+        classDesc(PropertyElement.class));
+    }
+  }
+
+  /**
+   * If instrumentation is enabled, increment one of the {@link #invocationCounters}; otherwise, generate nothing.
+   * @param lineNumberBase the line number base for the call
+   * @param counterMethodName the name of the {@link InvocationCounters} method to call
+   */
+  private void countInvocation(int lineNumberBase, String counterMethodName) {
+    if (invocationCounters != null) {
+      loadInvocationCounters();
+      visitLineNumber(lineNumberBase, null);
+      invokeVirtual(InvocationCounters.class, counterMethodName, void.class);
+    }
+  }
+
+  private void loadInvocationCounters() {
+    if (useClassData) {
+      mv.visitLdcInsn(classDataConstant(
+        classProperties.getAllProperties().size() + classProperties.getToStringProperties().size(),
+        InvocationCounters.class));
+    }
+    else {
+      mv.visitFieldInsn(
+        GETSTATIC, pojomatorInternalClassName, INVOCATION_COUNTERS_FIELD_NAME, classDesc(InvocationCounters.class));
+    }
+  }
+
+  private ConstantDynamic propertyElementConstant(PropertyElement propertyElement) {
+    int cacheFieldIndex = cacheFields.indexOf(propertyElement);
+    if (cacheFieldIndex >= 0) {
+      // cache fields follow the property elements, formatters and invocation counters
+      return classDataConstant(
+        classProperties.getAllProperties().size() + classProperties.getToStringProperties().size()
+          + (invocationCounters != null ? 1 : 0) + cacheFieldIndex,
+        PropertyElement.class);
+    }
+    int inlinedPropertyIndex = inlinedProperties.indexOf(propertyElement);
+    if (inlinedPropertyIndex >= 0) {
+      // properties of inlined types follow the cache fields
+      return classDataConstant(
+        classProperties.getAllProperties().size() + classProperties.getToStringProperties().size()
+          + (invocationCounters != null ? 1 : 0) + cacheFields.size() + inlinedPropertyIndex,
+        PropertyElement.class);
+    }
+    return classDataConstant(propertyNumbers.get(propertyElement) - 1, PropertyElement.class);
+  }
+
+  /**
+   * A dynamic constant for an element of the class data built by {@link #makeClassData()}.
+   * @param index the index of the element in the class data
+   * @param type the type of the element
+   */
+  private static ConstantDynamic classDataConstant(int index, Class<?> type) {
+    return new ConstantDynamic(CLASS_DATA_CONSTANT_NAME, classDesc(type), CLASS_DATA_AT, index);
   }
 
   /**
@@ -655,59 +1907,143 @@ class PojomatorByteCodeGenerator {
   }
 
   /**
-   * Generate {@link Pojomator#doDiff(Object, Object)}
+   * Generate {@link Pojomator#doDiff(Object, Object, DiffVisitor)}
    * @param cw
    */
   private void makeDoDiff(ClassVisitor cw) {
     LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
     LocalVariable varPojo1 = new LocalVariable("instance", pojoClass, pojoDescriptor, 1);
     LocalVariable varPojo2 = new LocalVariable("other", pojoClass, pojoDescriptor, 2);
-    LocalVariable varDifferencesList = new LocalVariable(
-      "differences", List.class, "Ljava/util/List<Lorg/pojomatic/diff/Difference;>;", 3);
+    LocalVariable varVisitor = new LocalVariable("visitor", DiffVisitor.class, null, 3);
 
     StackAdjustments stackAdjustments = new StackAdjustments();
     Object[] localVarTypes = new Object[] {
-      pojomatorInternalClassName, OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME, internalName(List.class), null, null };
+      pojomatorInternalClassName, OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME, internalName(DiffVisitor.class),
+      null, null };
 
-    mv = cw.visitMethod(ACC_PUBLIC, "doDiff", methodDesc(Differences.class, Object.class, Object.class), null, null);
+    mv = cw.visitMethod(
+      ACC_PUBLIC, "doDiff", methodDesc(void.class, Object.class, Object.class, DiffVisitor.class), null, null);
     mv.visitCode();
     Label start = visitNewLabel();
+    varVisitor.acceptLoad(mv);
+    visitLineNumber(49, null);
+    checkNotNullPop();
     varPojo1.acceptLoad(mv);
     visitLineNumber(50, null);
     checkNotNull("instance is null");
     varPojo2.acceptLoad(mv);
     checkNotNull("other is null");
 
-    // If instance and other are the same object, then return NoDifferences.getInstance();
+    // If instance and other are the same object, then there are no differences to visit
     Label notSameInstance = new Label();
     mv.visitJumpInsn(IF_ACMPNE, notSameInstance);
-    invokeStatic(NoDifferences.class, "getInstance", NoDifferences.class);
-    mv.visitInsn(ARETURN);
+    mv.visitInsn(RETURN);
 
     // not the same instance, some work to do
     mv.visitLabel(notSameInstance);
-    mv.visitFrame(F_FULL, 3, localVarTypes, 0, NO_STACK);
+    mv.visitFrame(F_FULL, 4, localVarTypes, 0, NO_STACK);
     visitLineNumber(51, null);
     checkCompatibleForEquality(varThis, varPojo1, "instance");
     visitLineNumber(52, null);
     checkCompatibleForEquality(varThis, varPojo2, "other");
 
-    Label makeDiferences = notSameInstance;
-    mv.visitTypeInsn(NEW, "java/util/ArrayList");
-    mv.visitInsn(DUP);
-    construct(ArrayList.class);
-    varDifferencesList.acceptStore(mv);
-
     List<LocalVariable> propertyVariables = new ArrayList<>(); // these will occur in a block scope
     // compare properties
-    for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
+    List<List<PropertyElement>> propertyGroups =
+      groupProperties(classProperties.getHashCodeProperties(), DIFF_BYTE_CODE_SIZE_PER_PROPERTY);
+    if (propertyGroups.size() == 1) {
+      diffProperties(
+        propertyGroups.get(0), varPojo1, varPojo2, varVisitor, localVarTypes, propertyVariables, stackAdjustments);
+    }
+    else {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        varPojo1.acceptLoad(mv);
+        varPojo2.acceptLoad(mv);
+        varVisitor.acceptLoad(mv);
+        visitLineNumber(70, null);
+        invokeHelper("doDiff", i, void.class, Object.class, Object.class, DiffVisitor.class);
+      }
+    }
+    mv.visitInsn(RETURN);
+
+    Label end = visitNewLabel();
+
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo1.withScope(start, end).acceptLocalVariable(mv);
+    varPojo2.withScope(start, end).acceptLocalVariable(mv);
+    varVisitor.withScope(start, end).acceptLocalVariable(mv);
+    for (LocalVariable var: propertyVariables) {
+      var.acceptLocalVariable(mv);
+    }
+    mv.visitMaxs(6 + stackAdjustments.adjustments(2), 6 + stackAdjustments.adjustments(2));
+    mv.visitEnd();
+
+    if (propertyGroups.size() > 1) {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        makeDoDiffHelper(cw, i, propertyGroups.get(i));
+      }
+    }
+  }
+
+  /**
+   * Generate a helper method for {@link #makeDoDiff(ClassVisitor)}, which visits any differences between two pojos in
+   * a group of properties.
+   * @param cw
+   * @param index the index of the group
+   * @param properties the properties to compare
+   */
+  private void makeDoDiffHelper(ClassVisitor cw, int index, List<PropertyElement> properties) {
+    LocalVariable varPojo1 = new LocalVariable("instance", pojoClass, pojoDescriptor, 0);
+    LocalVariable varPojo2 = new LocalVariable("other", pojoClass, pojoDescriptor, 1);
+    LocalVariable varVisitor = new LocalVariable("visitor", DiffVisitor.class, null, 2);
+
+    StackAdjustments stackAdjustments = new StackAdjustments();
+    Object[] localVarTypes = new Object[] {
+      OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME, internalName(DiffVisitor.class), null, null };
+
+    visitHelper(cw, "doDiff", index, void.class, Object.class, Object.class, DiffVisitor.class);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    List<LocalVariable> propertyVariables = new ArrayList<>();
+    diffProperties(properties, varPojo1, varPojo2, varVisitor, localVarTypes, propertyVariables, stackAdjustments);
+    mv.visitInsn(RETURN);
+    Label end = visitNewLabel();
+
+    varPojo1.withScope(start, end).acceptLocalVariable(mv);
+    varPojo2.withScope(start, end).acceptLocalVariable(mv);
+    varVisitor.withScope(start, end).acceptLocalVariable(mv);
+    for (LocalVariable var: propertyVariables) {
+      var.acceptLocalVariable(mv);
+    }
+    mv.visitMaxs(6 + stackAdjustments.adjustments(2), 5 + stackAdjustments.adjustments(2));
+    mv.visitEnd();
+  }
+
+  /**
+   * Compare a group of properties of two pojos, calling the visitor method matching the property's type for each
+   * property whose values differ. The two property values are stored in the last two entries of
+   * {@code localVarTypes}; all earlier local variables are assumed to take a single slot.
+   * @param properties the properties to compare
+   * @param varPojo1 the first pojo
+   * @param varPojo2 the second pojo
+   * @param varVisitor the {@link DiffVisitor}
+   * @param localVarTypes the types of the local variables, for use in stack map frames
+   * @param propertyVariables a list to which the local variables for property values are added
+   * @param stackAdjustments adjustments to be made to the max stack size, based on property type
+   */
+  private void diffProperties(
+    List<PropertyElement> properties, LocalVariable varPojo1, LocalVariable varPojo2,
+    LocalVariable varVisitor, Object[] localVarTypes, List<LocalVariable> propertyVariables,
+    StackAdjustments stackAdjustments) {
+    int firstPropertyVariable = localVarTypes.length - 2;
+    for(PropertyElement propertyElement: properties) {
       int width = isWide(propertyElement) ? 2 : 1;
       Class<?> propertyType = propertyElement.getPropertyType();
       LocalVariable varProp1 = new LocalVariable(
-        "property_" + propertyElement.getName() + "_1", propertyType, null, 4);
-      //If the type is long or double, we need to store the next var at 6, not 5.
+        "property_" + propertyElement.getName() + "_1", propertyType, null, firstPropertyVariable);
+      // If the type is long or double, the second variable needs an extra slot.
       LocalVariable varProp2 = new LocalVariable(
-        "property_" + propertyElement.getName() + "_2", propertyType, null, 4 + width);
+        "property_" + propertyElement.getName() + "_2", propertyType, null, firstPropertyVariable + width);
       propertyVariables.add(varProp1);
       propertyVariables.add(varProp2);
 
@@ -733,71 +2069,240 @@ class PojomatorByteCodeGenerator {
 
       mv.visitLabel(propertiesNotEqual);
 
-      localVarTypes[5] = localVarTypes[4] = propertyType.isPrimitive()
+      localVarTypes[firstPropertyVariable + 1] = localVarTypes[firstPropertyVariable] = propertyType.isPrimitive()
         ? Primitives.getOpcode(propertyType)
         : internalName(effectiveType(propertyType));
-      mv.visitFrame(F_FULL, 6, localVarTypes, 0, NO_STACK);
+      mv.visitFrame(F_FULL, localVarTypes.length, localVarTypes, 0, NO_STACK);
 
-      // Create a ValueDifference instance, initialized with the property name and the two values, and add it to our list
-      varDifferencesList.acceptLoad(mv); // we'll need this to add to the list
-      mv.visitTypeInsn(NEW, "org/pojomatic/diff/ValueDifference");
-      mv.visitInsn(DUP);
-      mv.visitLdcInsn(propertyElement.getName());
-      varProp1.acceptLoad(mv);
+      // Pass the property element and the two values, unboxed, to the visitor method for the property's type
+      varVisitor.acceptLoad(mv);
       visitLineNumber(58, propertyElement);
-      convertToObject(propertyType);
+      loadPropertyElementField(propertyElement);
+      varProp1.acceptLoad(mv);
       varProp2.acceptLoad(mv);
       visitLineNumber(59, propertyElement);
-      convertToObject(propertyType);
-      visitLineNumber(60, propertyElement);
-      construct(ValueDifference.class, String.class, Object.class, Object.class);
-
-      // add the ValueDifference instance to our list
-      visitLineNumber(61, propertyElement);
-      invokeInterface(List.class, "add", boolean.class, Object.class);
-      mv.visitInsn(POP); // ignore the return value of List#add
+      if (propertyType.isPrimitive()) {
+        String typeName = propertyType.getName();
+        invokeInterface(
+          DiffVisitor.class,
+          "on" + Character.toUpperCase(typeName.charAt(0)) + typeName.substring(1) + "Difference",
+          void.class, PropertyElement.class, propertyType, propertyType);
+      }
+      else {
+        invokeInterface(
+          DiffVisitor.class, "onObjectDifference", void.class, PropertyElement.class, Object.class, Object.class);
+      }
       mv.visitLabel(next);
-      mv.visitFrame(F_FULL, 4, localVarTypes, 0, NO_STACK);
+      mv.visitFrame(F_FULL, firstPropertyVariable, localVarTypes, 0, NO_STACK);
 
       varProp1.withScope(blockStart, next);
       varProp2.withScope(blockStart, next);
     }
 
-    // if our list is empty, return the NoDifferences instance
-    varDifferencesList.acceptLoad(mv);
-    visitLineNumber(62, null);
-    invokeInterface(List.class, "isEmpty", boolean.class);
-    Label hasDifferences = new Label();
-    mv.visitJumpInsn(IFEQ, hasDifferences);
-    visitLineNumber(63, null);
-    invokeStatic(NoDifferences.class, "getInstance", NoDifferences.class);
-    mv.visitInsn(ARETURN);
+  }
 
-    // our list is not empty, so wrap it in a PropertyDiferences instance
-    mv.visitLabel(hasDifferences);
-    mv.visitFrame(F_FULL, 4, localVarTypes, 0, NO_STACK);
+  /**
+   * Generate {@link Pojomator#doCompare(Object, Object)}
+   * @param cw
+   */
+  private void makeDoCompare(ClassVisitor cw) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo1 = new LocalVariable("instance", pojoClass, pojoDescriptor, 1);
+    LocalVariable varPojo2 = new LocalVariable("other", pojoClass, pojoDescriptor, 2);
 
-    visitLineNumber(64, null);
-    mv.visitTypeInsn(NEW, internalName(PropertyDifferences.class));
-    mv.visitInsn(DUP);
-    varDifferencesList.acceptLoad(mv);
-    visitLineNumber(65, null);
-    construct(PropertyDifferences.class, List.class);
-    mv.visitInsn(ARETURN);
+    StackAdjustments stackAdjustments = new StackAdjustments();
+    Object[] localVars = new Object[] {pojomatorInternalClassName, OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME};
 
-    Label end = visitNewLabel();
+    mv = cw.visitMethod(ACC_PUBLIC, "doCompare", methodDesc(int.class, Object.class, Object.class), null, null);
+    // where to jump, with the result on the stack, once a pair of property values compare as unequal
+    Label returnResult = new Label();
+
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varPojo1.acceptLoad(mv);
+    visitLineNumber(73, null);
+    checkNotNull("instance is null");
+    varPojo2.acceptLoad(mv);
+    checkNotNull("other is null");
+
+    // If instance and other are the same object, then return 0
+    Label notSameInstance = new Label();
+    mv.visitJumpInsn(IF_ACMPNE, notSameInstance);
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+
+    mv.visitLabel(notSameInstance);
+    mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
+    visitLineNumber(74, null);
+    checkCompatibleForEquality(varThis, varPojo1, "instance");
+    checkCompatibleForEquality(varThis, varPojo2, "other");
+
+    List<List<PropertyElement>> propertyGroups =
+      groupProperties(classProperties.getCompareProperties(), COMPARE_BYTE_CODE_SIZE_PER_PROPERTY);
+    if (propertyGroups.size() == 1) {
+      compareOrderedProperties(propertyGroups.get(0), varPojo1, varPojo2, returnResult, stackAdjustments);
+    }
+    else {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        varPojo1.acceptLoad(mv);
+        varPojo2.acceptLoad(mv);
+        visitLineNumber(78, null);
+        invokeHelper("doCompare", i, int.class, Object.class, Object.class);
+        mv.visitInsn(DUP);
+        mv.visitJumpInsn(IFNE, returnResult);
+        mv.visitInsn(POP);
+      }
+    }
+    // If we have gotten this far, all properties are equal, so return 0.
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+
+    mv.visitLabel(returnResult);
+    mv.visitFrame(F_FULL, 3, localVars, 1, new Object[] {INTEGER});
+    mv.visitInsn(IRETURN);
 
+    Label end = visitNewLabel();
     varThis.withScope(start, end).acceptLocalVariable(mv);
     varPojo1.withScope(start, end).acceptLocalVariable(mv);
     varPojo2.withScope(start, end).acceptLocalVariable(mv);
-    varDifferencesList.withScope(makeDiferences, end).acceptLocalVariable(mv);
-    for (LocalVariable var: propertyVariables) {
-      var.acceptLocalVariable(mv);
+    mv.visitMaxs(3 + stackAdjustments.adjustments(1), 3);
+    mv.visitEnd();
+
+    if (propertyGroups.size() > 1) {
+      for (int i = 0; i < propertyGroups.size(); i++) {
+        makeDoCompareHelper(cw, i, propertyGroups.get(i));
+      }
     }
-    mv.visitMaxs(6 + stackAdjustments.adjustments(2), 6 + stackAdjustments.adjustments(2));
+  }
+
+  /**
+   * Generate a helper method for {@link #makeDoCompare(ClassVisitor)}, which returns the result of comparing the first
+   * pair of unequal property values among a group of properties of two pojos, or 0 if all are equal.
+   * @param cw
+   * @param index the index of the group
+   * @param properties the properties to compare
+   */
+  private void makeDoCompareHelper(ClassVisitor cw, int index, List<PropertyElement> properties) {
+    LocalVariable varPojo1 = new LocalVariable("instance", pojoClass, pojoDescriptor, 0);
+    LocalVariable varPojo2 = new LocalVariable("other", pojoClass, pojoDescriptor, 1);
+
+    StackAdjustments stackAdjustments = new StackAdjustments();
+    Object[] localVars = new Object[] {OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME};
+
+    visitHelper(cw, "doCompare", index, int.class, Object.class, Object.class);
+    Label returnResult = new Label();
+
+    mv.visitCode();
+    Label start = visitNewLabel();
+    compareOrderedProperties(properties, varPojo1, varPojo2, returnResult, stackAdjustments);
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+
+    mv.visitLabel(returnResult);
+    mv.visitFrame(F_FULL, 2, localVars, 1, new Object[] {INTEGER});
+    mv.visitInsn(IRETURN);
+
+    Label end = visitNewLabel();
+    varPojo1.withScope(start, end).acceptLocalVariable(mv);
+    varPojo2.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(3 + stackAdjustments.adjustments(1), 2);
     mv.visitEnd();
   }
 
+  /**
+   * Compare the values of each of a group of properties for two pojos, in order, jumping to {@code returnResult} with
+   * the result of the comparison on the stack as soon as a pair of values is not equal.
+   * @param properties the properties to compare
+   * @param varPojo1 the first pojo
+   * @param varPojo2 the second pojo
+   * @param returnResult where to jump if the property values are not equal
+   * @param stackAdjustments adjustments to be made to the max stack size, based on property type
+   */
+  private void compareOrderedProperties(
+    List<PropertyElement> properties, LocalVariable varPojo1, LocalVariable varPojo2, Label returnResult,
+    StackAdjustments stackAdjustments) {
+    for (PropertyElement propertyElement: properties) {
+      visitLineNumber(75, propertyElement);
+      visitAccessor(varPojo1, propertyElement);
+      visitLineNumber(76, propertyElement);
+      visitAccessor(varPojo2, propertyElement);
+      visitLineNumber(77, propertyElement);
+      Class<?> propertyType = propertyElement.getPropertyType();
+      if (propertyType == boolean.class) {
+        invokeStatic(Boolean.class, "compare", int.class, boolean.class, boolean.class);
+      }
+      else if (propertyType == int.class) {
+        invokeStatic(Integer.class, "compare", int.class, int.class, int.class);
+      }
+      else if (propertyType == long.class) {
+        stackAdjustments.wideProperty = true;
+        invokeStatic(Long.class, "compare", int.class, long.class, long.class);
+      }
+      else if (propertyType == float.class) {
+        invokeStatic(Float.class, "compare", int.class, float.class, float.class);
+      }
+      else if (propertyType == double.class) {
+        stackAdjustments.wideProperty = true;
+        invokeStatic(Double.class, "compare", int.class, double.class, double.class);
+      }
+      else if (propertyType.isPrimitive()) {
+        // byte, char or short; as with their compareTo methods, the difference cannot overflow
+        mv.visitInsn(ISUB);
+      }
+      else {
+        mv.visitInsn(ClassProperties.isNullsFirst(propertyElement) ? ICONST_1 : ICONST_0);
+        invokeStatic(BasePojomator.class, "compareValues", int.class, Object.class, Object.class, boolean.class);
+      }
+      mv.visitInsn(DUP);
+      mv.visitJumpInsn(IFNE, returnResult);
+      mv.visitInsn(POP);
+    }
+  }
+
+  /**
+   * Split properties into groups, such that the code generated for each group, at {@code byteCodeSizePerProperty}
+   * bytes per property, stays within {@link #MAX_METHOD_BYTE_CODE_SIZE}. If there is only one group, code for it can
+   * be generated directly in the calling method; otherwise, a helper method should be generated for each group.
+   * @param properties the properties to split
+   * @param byteCodeSizePerProperty an upper bound on the size of the byte code generated for each property
+   * @return the groups of properties, in order
+   */
+  static List<List<PropertyElement>> groupProperties(
+    Collection<PropertyElement> properties, int byteCodeSizePerProperty) {
+    int groupSize = Math.max(
+      1, (MAX_METHOD_BYTE_CODE_SIZE - METHOD_OVERHEAD_BYTE_CODE_SIZE) / byteCodeSizePerProperty);
+    List<List<PropertyElement>> groups = new ArrayList<>();
+    List<PropertyElement> group = null;
+    for (PropertyElement property: properties) {
+      if (group == null || group.size() == groupSize) {
+        group = new ArrayList<>(groupSize);
+        groups.add(group);
+      }
+      group.add(property);
+    }
+    return groups;
+  }
+
+  /**
+   * Begin a private static helper method, making it the active method visitor.
+   * @param cw
+   * @param methodName the name of the method the helper is for
+   * @param index the index of the group of properties the helper handles
+   * @param returnType the return type of the helper
+   * @param parameterTypes the parameter types of the helper
+   */
+  private void visitHelper(
+    ClassVisitor cw, String methodName, int index, Class<?> returnType, Class<?>... parameterTypes) {
+    mv = cw.visitMethod(
+      ACC_PRIVATE | ACC_STATIC, helperName(methodName, index), methodDesc(returnType, parameterTypes), null, null);
+  }
+
+  private void invokeHelper(String methodName, int index, Class<?> returnType, Class<?>... parameterTypes) {
+    mv.visitMethodInsn(
+      INVOKESTATIC, pojomatorInternalClassName, helperName(methodName, index),
+      methodDesc(returnType, parameterTypes), false);
+  }
+
   /**
    * Invoke {@link BasePojomator#checkCompatibleForEquality(Object, String)} on the specified variable
    * @param message the message to include in the {@link IllegalArgumentException} if the variable fails the
@@ -839,18 +2344,6 @@ class PojomatorByteCodeGenerator {
           && ! propertyElement.getElement().isAnnotationPresent(SkipArrayCheck.class);
   }
 
-  /**
-   * If the parameter on the stack (of type propertyType) is primitive, convert it to the appropriate wrapper object.
-   * Otherwise, leave it alone
-   * @param propertyType the type of the parameter on the stack
-   */
-  private void convertToObject(Class<?> propertyType) {
-    if (propertyType.isPrimitive()) {
-      Class<?> wrapperClass = Primitives.getWrapperClass(propertyType);
-      invokeStatic(wrapperClass, "valueOf", wrapperClass, propertyType);
-    }
-  }
-
   /**
    * Visit an accessor, converting floats or doubles to int bits or long bits respectively.
    * @param propertyElement the property to access
@@ -873,9 +2366,60 @@ class PojomatorByteCodeGenerator {
    */
   private void visitAccessor(LocalVariable var, PropertyElement propertyElement) {
     var.acceptLoad(mv);
-    mv.visitMethodInsn(
-      INVOKESTATIC, pojomatorInternalClassName, propertyAccessorName(propertyElement),
-      accessorMethodDescription(propertyElement), false);
+    if (directProperties.contains(propertyElement)) {
+      visitDirectAccess(propertyElement);
+    }
+    else {
+      mv.visitMethodInsn(
+        INVOKESTATIC, pojomatorInternalClassName, propertyAccessorName(propertyElement),
+        accessorMethodDescription(propertyElement), false);
+    }
+  }
+
+  /**
+   * Store the value on the top of the stack in a cache field of a pojo.
+   * @param var the local variable holding the pojo
+   * @param cacheField the cache field, one of {@link #cacheFields}
+   */
+  private void visitCacheFieldStore(LocalVariable var, PropertyElement cacheField) {
+    var.acceptLoad(mv);
+    if (directProperties.contains(cacheField)) {
+      Field field = (Field) cacheField.getElement();
+      String owner = internalName(field.getDeclaringClass());
+      mv.visitTypeInsn(CHECKCAST, owner);
+      mv.visitInsn(SWAP);
+      mv.visitFieldInsn(PUTFIELD, owner, field.getName(), classDesc(field.getType()));
+    }
+    else {
+      mv.visitInsn(SWAP);
+      Class<?> valueType = effectiveType(cacheField.getPropertyType());
+      mv.visitMethodInsn(
+        INVOKESTATIC, pojomatorInternalClassName, setterName(cacheField),
+        methodDesc(void.class, Object.class, valueType), false);
+    }
+  }
+
+  /**
+   * Read a property of the pojo on the top of the stack directly, leaving a value of the property's declared type,
+   * which is assignable to its {@link #effectiveType(Class) effective type}.
+   * @param propertyElement the property to access, which must be one of {@link #directProperties}
+   */
+  private void visitDirectAccess(PropertyElement propertyElement) {
+    AnnotatedElement element = propertyElement.getElement();
+    Class<?> declaringClass = propertyElement.getDeclaringClass();
+    String owner = internalName(declaringClass);
+    mv.visitTypeInsn(CHECKCAST, owner);
+    if (element instanceof Field) {
+      Field field = (Field) element;
+      mv.visitFieldInsn(GETFIELD, owner, field.getName(), classDesc(field.getType()));
+    }
+    else {
+      Method method = (Method) element;
+      boolean isInterface = declaringClass.isInterface();
+      mv.visitMethodInsn(
+        isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL, owner, method.getName(), Type.getMethodDescriptor(method),
+        isInterface);
+    }
   }
 
   private String accessorMethodDescription(PropertyElement propertyElement) {
@@ -1002,6 +2546,14 @@ class PojomatorByteCodeGenerator {
     return "get_" + qualifiedPropertyName(property);
   }
 
+  private static String setterName(PropertyElement cacheField) {
+    return "set_" + qualifiedPropertyName(cacheField);
+  }
+
+  static String helperName(String methodName, int index) {
+    return methodName + "_" + index;
+  }
+
   static String propertyElementName(PropertyElement property) {
     return "element_" + qualifiedPropertyName(property);
   }
@@ -0,0 +1,28 @@
+package org.pojomatic.internal;
+
+import java.util.Comparator;
+
+import org.pojomatic.Pojomator;
+
+/**
+ * A {@link Comparator} which delegates to {@link Pojomator#doCompare(Object, Object)}.
+ *
+ * @param <T> the type compared
+ */
+public final class PojomatorComparator<T> implements Comparator<T> {
+  private final Pojomator<T> pojomator;
+
+  public PojomatorComparator(Pojomator<T> pojomator) {
+    this.pojomator = pojomator;
+  }
+
+  @Override
+  public int compare(T instance, T other) {
+    return pojomator.doCompare(instance, other);
+  }
+
+  @Override
+  public String toString() {
+    return "Comparator for " + pojomator;
+  }
+}
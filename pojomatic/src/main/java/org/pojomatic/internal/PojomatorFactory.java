@@ -1,25 +1,83 @@
 package org.pojomatic.internal;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
 import org.pojomatic.annotations.PropertyFormat;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
 import org.pojomatic.formatter.EnhancedPropertyFormatter;
+import org.pojomatic.generated.GeneratedPojomator;
 
 public class PojomatorFactory {
   public static <T> Pojomator<T> makePojomator(final Class<T> pojoClass) {
+    return makePojomator(pojoClass, ClassDefinerFactory.getDefiner());
+  }
+
+  /**
+   * Generate a pojomator for a class, with or without instrumentation.
+   * @param <T> the type represented by {@code pojoClass}
+   * @param pojoClass the class to generate a {@code Pojomator} for.
+   * @param instrument whether the pojomator should increment the {@link InvocationCounters} for {@code pojoClass}
+   * @return a generated pojomator
+   */
+  static <T> Pojomator<T> makePojomator(Class<T> pojoClass, boolean instrument) {
+    return makePojomator(pojoClass, ClassDefinerFactory.getDefiner(), null, instrument);
+  }
+
+  /**
+   * Generate a pojomator for a class, defining it with a given class definer.
+   * @param <T> the type represented by {@code pojoClass}
+   * @param pojoClass the class to generate a {@code Pojomator} for.
+   * @param classDefiner the definer for the generated class; if it supports hidden classes, the pojomator is defined
+   * as a hidden class
+   * @return a generated pojomator
+   */
+  static <T> Pojomator<T> makePojomator(final Class<T> pojoClass, final ClassDefiner classDefiner) {
+    return makePojomator(pojoClass, classDefiner, InvocationCounters.isEnabled());
+  }
+
+  /**
+   * Generate a pojomator for a class, defining it with a given class definer, with or without instrumentation.
+   * @param <T> the type represented by {@code pojoClass}
+   * @param pojoClass the class to generate a {@code Pojomator} for.
+   * @param classDefiner the definer for the generated class; if it supports hidden classes, the pojomator is defined
+   * as a hidden class
+   * @param instrument whether the pojomator should increment the {@link InvocationCounters} for {@code pojoClass}
+   * @return a generated pojomator
+   */
+  static <T> Pojomator<T> makePojomator(Class<T> pojoClass, ClassDefiner classDefiner, boolean instrument) {
+    return makePojomator(pojoClass, classDefiner, null, instrument);
+  }
+
+  /**
+   * Generate a pojomator for a class whose {@code doEquals} compares properties in a given order.
+   * @param <T> the type represented by {@code pojoClass}
+   * @param pojoClass the class to generate a {@code Pojomator} for.
+   * @param equalsOrder the equals properties of {@code pojoClass}, in the order in which to compare them
+   * @param instrument whether the pojomator should increment the {@link InvocationCounters} for {@code pojoClass}
+   * @return a generated pojomator
+   */
+  static <T> Pojomator<T> makePojomator(Class<T> pojoClass, List<PropertyElement> equalsOrder, boolean instrument) {
+    return makePojomator(pojoClass, ClassDefinerFactory.getDefiner(), equalsOrder, instrument);
+  }
+
+  private static <T> Pojomator<T> makePojomator(
+    final Class<T> pojoClass, final ClassDefiner classDefiner, final List<PropertyElement> equalsOrder,
+    final boolean instrument) {
     try {
       return AccessController.doPrivileged(new PrivilegedExceptionAction<Pojomator<T>>() {
         @Override
         public Pojomator<T> run() throws Exception {
-          return makePojomatorChecked(pojoClass);
+          return makePojomatorChecked(pojoClass, classDefiner, equalsOrder, instrument);
         }
       });
     } catch (PrivilegedActionException e) {
@@ -27,24 +85,109 @@ public class PojomatorFactory {
     }
   }
 
-  private static <T> Pojomator<T> makePojomatorChecked(Class<T> pojoClass)
+  /**
+   * Find the pojomator generated at build time for a class by the Pojomatic annotation processor, if there is one. A
+   * class with the generated pojomator's name is only initialized if it extends {@link GeneratedPojomator}.
+   * @param <T> the type represented by {@code pojoClass}
+   * @param pojoClass the class to find a generated {@code Pojomator} for.
+   * @return the generated pojomator for {@code pojoClass}, or {@code null} if none was generated.
+   * @throws IllegalStateException if the generated pojomator cannot be created, for instance because it is out of date
+   * with respect to {@code pojoClass}
+   */
+  public static <T> Pojomator<T> findGeneratedPojomator(Class<T> pojoClass) {
+    ClassLoader classLoader = pojoClass.getClassLoader();
+    if (classLoader == null) {
+      return null;
+    }
+    String pojomatorClassName = GeneratedPojomator.generatedClassName(pojoClass.getName());
+    Class<?> pojomatorClass;
+    try {
+      pojomatorClass = Class.forName(pojomatorClassName, false, classLoader);
+    }
+    catch (ClassNotFoundException e) {
+      return null;
+    }
+    if (!GeneratedPojomator.class.isAssignableFrom(pojomatorClass)) {
+      return null;
+    }
+    GeneratedPojomator<T> pojomator;
+    try {
+      @SuppressWarnings("unchecked")
+      GeneratedPojomator<T> instance = (GeneratedPojomator<T>) pojomatorClass.getConstructor().newInstance();
+      pojomator = instance;
+    }
+    catch (InvocationTargetException e) {
+      throw new IllegalStateException("Unable to create generated pojomator " + pojomatorClassName, e.getCause());
+    }
+    catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create generated pojomator " + pojomatorClassName, e);
+    }
+    catch (ExceptionInInitializerError e) {
+      // including a generated pojomator which is out of date with respect to pojoClass
+      throw new IllegalStateException("Unable to initialize generated pojomator " + pojomatorClassName, e.getCause());
+    }
+    return pojomator.getPojoClass() == pojoClass ? pojomator : null;
+  }
+
+  private static <T> Pojomator<T> makePojomatorChecked(
+    Class<T> pojoClass, ClassDefiner classDefiner, List<PropertyElement> equalsOrder, boolean instrument)
       throws IllegalAccessException, NoSuchFieldException, SecurityException, InstantiationException,
       InvocationTargetException, NoSuchMethodException {
     ClassProperties classProperties = ClassProperties.forClass(pojoClass);
-    PojomatorByteCodeGenerator generator = new PojomatorByteCodeGenerator(pojoClass, classProperties);
-    Class<?> pojomatorClass = ClassDefinerFactory.getDefiner().defineClass(generator.pojomatorClassName, generator.makeClassBytes());
+    long start = System.nanoTime();
+    boolean hidden = classDefiner.supportsHiddenClasses();
+    MethodHandles.Lookup nestmateLookup = hidden ? classDefiner.nestmateLookup(pojoClass) : null;
+    PojomatorByteCodeGenerator generator = new PojomatorByteCodeGenerator(
+      pojoClass, classProperties, hidden, nestmateLookup,
+      equalsOrder == null ? classProperties.getEqualsComparisonOrder() : equalsOrder, instrument,
+      NestedPojoInlining.getInlineDepth());
+    byte[] classBytes = generator.makeClassBytes();
+    long generated = System.nanoTime();
+    Class<?> pojomatorClass;
+    if (nestmateLookup != null) {
+      pojomatorClass = classDefiner.defineHiddenNestmate(nestmateLookup, classBytes, generator.makeClassData());
+    }
+    else if (hidden) {
+      pojomatorClass = classDefiner.defineHiddenClass(classBytes, generator.makeClassData());
+    }
+    else {
+      pojomatorClass = classDefiner.defineClass(pojoClass, generator.pojomatorClassName, classBytes);
+    }
+    List<PropertyElement> readable = new ArrayList<>(classProperties.getAllProperties());
+    readable.addAll(generator.getCacheFields());
+    readable.addAll(generator.getInlinedProperties());
+    GeneratedElements.register(pojomatorClass, readable, generator.getCacheFields());
     @SuppressWarnings("unchecked")
     Pojomator<T> pojomator = (Pojomator<T>) pojomatorClass.getConstructor(Class.class, ClassProperties.class)
       .newInstance(pojoClass, classProperties);
-    for (PropertyElement propertyElement: classProperties.getToStringProperties()) {
-      setStaticField(
-        pojomatorClass,
-        PojomatorByteCodeGenerator.propertyFormatterName(propertyElement),
-        createPropertyFormatter(propertyElement.getElement()));
-    }
-    for (PropertyElement propertyElement: classProperties.getAllProperties()) {
-      setStaticField(pojomatorClass, PojomatorByteCodeGenerator.propertyElementName(propertyElement), propertyElement);
+    // the property elements, formatters, invocation counters and cache fields of a hidden pojomator were passed as
+    // class data
+    if (!hidden) {
+      for (PropertyElement propertyElement: classProperties.getToStringProperties()) {
+        setStaticField(
+          pojomatorClass,
+          PojomatorByteCodeGenerator.propertyFormatterName(propertyElement),
+          createPropertyFormatter(propertyElement.getElement()));
+      }
+      for (PropertyElement propertyElement: classProperties.getAllProperties()) {
+        setStaticField(
+          pojomatorClass, PojomatorByteCodeGenerator.propertyElementName(propertyElement), propertyElement);
+      }
+      if (generator.getInvocationCounters() != null) {
+        setStaticField(
+          pojomatorClass,
+          PojomatorByteCodeGenerator.INVOCATION_COUNTERS_FIELD_NAME,
+          generator.getInvocationCounters());
+      }
+      for (PropertyElement cacheField: generator.getCacheFields()) {
+        setStaticField(pojomatorClass, PojomatorByteCodeGenerator.propertyElementName(cacheField), cacheField);
+      }
+      for (PropertyElement property: generator.getInlinedProperties()) {
+        setStaticField(pojomatorClass, PojomatorByteCodeGenerator.propertyElementName(property), property);
+      }
     }
+    PojomatorMonitoring.pojomatorGenerated(
+      pojoClass, classProperties, generated - start, System.nanoTime() - generated, classBytes.length, hidden);
     return pojomator;
   }
 
@@ -55,7 +198,15 @@ public class PojomatorFactory {
     field.set(null, value);
   }
 
-  private static EnhancedPropertyFormatter createPropertyFormatter(AnnotatedElement annotatedElement)
+  /**
+   * Create and initialize the property formatter for a property, as specified by any {@link PropertyFormat}
+   * annotation on it.
+   * @param annotatedElement the field or method for the property
+   * @return an initialized property formatter
+   * @throws InstantiationException if the formatter cannot be instantiated
+   * @throws IllegalAccessException if the formatter's constructor is not accessible
+   */
+  public static EnhancedPropertyFormatter createPropertyFormatter(AnnotatedElement annotatedElement)
     throws InstantiationException, IllegalAccessException {
     PropertyFormat propertyFormat = annotatedElement.getAnnotation(PropertyFormat.class);
     EnhancedPropertyFormatter propertyFormatter = constructPropertyFormatter(propertyFormat);
@@ -0,0 +1,100 @@
+package org.pojomatic.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals for the pojomators generated at runtime, and the recording of events for monitoring tools. When JDK Flight
+ * Recorder is available (Java 11 and later), events are recorded by {@code JfrEventRecorder}:
+ * <ul>
+ * <li>{@code org.pojomatic.PojomatorCreation}, enabled by default, for each pojomator generated, with the time spent
+ * in each phase of generation, and the size of the generated class.</li>
+ * <li>{@code org.pojomatic.SlowPojomatorCall}, disabled by default, for calls to {@code Pojomatic.toString} and
+ * {@code Pojomatic.diff} which take longer than the event's threshold.</li>
+ * </ul>
+ */
+public final class PojomatorMonitoring {
+  private static final EventRecorder RECORDER = loadRecorder();
+
+  private static final AtomicLong GENERATED_COUNT = new AtomicLong();
+  private static final AtomicLong GENERATION_NANOS = new AtomicLong();
+  private static final AtomicLong GENERATED_BYTES = new AtomicLong();
+
+  private PojomatorMonitoring() {}
+
+  /**
+   * @return the number of pojomators whose bytecode has been generated at runtime
+   */
+  public static long getGeneratedCount() {
+    return GENERATED_COUNT.get();
+  }
+
+  /**
+   * @return the total time spent generating pojomators at runtime, in nanoseconds, including determining the
+   * properties of their classes
+   */
+  public static long getGenerationNanos() {
+    return GENERATION_NANOS.get();
+  }
+
+  /**
+   * @return the total size of the pojomator classes generated at runtime, in bytes
+   */
+  public static long getGeneratedBytes() {
+    return GENERATED_BYTES.get();
+  }
+
+  /**
+   * Start timing a call to a pojomator.
+   * @return a token to pass to {@link #endCall(Object, String, Class)}, or {@code null} if calls are not being
+   * recorded
+   */
+  public static Object beginCall() {
+    return RECORDER == null ? null : RECORDER.beginCall();
+  }
+
+  /**
+   * Finish timing a call to a pojomator.
+   * @param call the token returned by {@link #beginCall()}
+   * @param methodName the name of the pojomator method called
+   * @param pojoClass the class of the pojo passed to the call
+   */
+  public static void endCall(Object call, String methodName, Class<?> pojoClass) {
+    if (call != null) {
+      RECORDER.endCall(call, methodName, pojoClass);
+    }
+  }
+
+  static void pojomatorGenerated(
+    Class<?> pojoClass, ClassProperties classProperties, long byteCodeNanos, long defineNanos, int byteCodeSize,
+    boolean hidden) {
+    GENERATED_COUNT.incrementAndGet();
+    GENERATION_NANOS.addAndGet(classProperties.getCreationNanos() + byteCodeNanos + defineNanos);
+    GENERATED_BYTES.addAndGet(byteCodeSize);
+    if (RECORDER != null) {
+      RECORDER.pojomatorCreated(
+        pojoClass,
+        classProperties.getAllProperties().size(),
+        classProperties.getCreationNanos() - classProperties.getClassReadingNanos(),
+        classProperties.getClassReadingNanos(),
+        byteCodeNanos,
+        defineNanos,
+        byteCodeSize,
+        hidden);
+    }
+  }
+
+  /**
+   * Load the JDK Flight Recorder event recorder, which requires a later version of Java than Pojomatic itself.
+   * @return the recorder, or {@code null} if JDK Flight Recorder is not available
+   */
+  private static EventRecorder loadRecorder() {
+    try {
+      return (EventRecorder) EventRecorder.class.getClassLoader()
+        .loadClass("org.pojomatic.internal.JfrEventRecorder")
+        .getConstructor()
+        .newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package org.pojomatic.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.pojomatic.NoPojomaticPropertiesException;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.Property;
+
+/**
+ * Creates the pojomators for a number of classes in parallel, so that an application can pay the cost of generating
+ * them before it starts serving requests, rather than on the first request for each class. Classes may either be
+ * given explicitly, or found by scanning packages for classes annotated for use with Pojomatic.
+ */
+public final class Prewarmer {
+  private static final String CLASS_FILE_SUFFIX = ".class";
+
+  private Prewarmer() {}
+
+  /**
+   * Create the pojomators for a number of classes in parallel, on a {@link ForkJoinPool} which is shut down before
+   * returning. If tiered pojomator creation is enabled, this also waits for each bytecode pojomator to be generated.
+   * @param pojoClasses the classes to create pojomators for
+   * @param skipClassesWithoutProperties if {@code true}, classes with no properties are skipped; otherwise, they cause
+   * a {@link NoPojomaticPropertiesException}
+   * @return the time taken to create the pojomator for each class, in nanoseconds, in the order the classes were
+   * given. Skipped classes are omitted.
+   * @throws NoPojomaticPropertiesException if {@code skipClassesWithoutProperties} is {@code false}, and one of
+   * {@code pojoClasses} has no properties annotated for use with Pojomatic
+   */
+  public static Map<Class<?>, Long> prewarm(
+    Collection<? extends Class<?>> pojoClasses, boolean skipClassesWithoutProperties) {
+    final List<PrewarmTask> tasks = new ArrayList<>(pojoClasses.size());
+    for (Class<?> pojoClass: pojoClasses) {
+      tasks.add(new PrewarmTask(pojoClass, skipClassesWithoutProperties));
+    }
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      pool.invoke(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    }
+    finally {
+      pool.shutdown();
+    }
+    Map<Class<?>, Long> elapsedTimes = new LinkedHashMap<>();
+    for (PrewarmTask task: tasks) {
+      if (!task.skipped) {
+        elapsedTimes.put(task.pojoClass, task.elapsedNanos);
+      }
+    }
+    return Collections.unmodifiableMap(elapsedTimes);
+  }
+
+  /**
+   * Find the classes in some packages (and their subpackages) which are annotated for use with Pojomatic - that is,
+   * which are annotated with {@link AutoProperty}, or which declare a field or method annotated with {@link Property}.
+   * Packages are searched for in directories and jar files on the class path of {@code classLoader}; as with
+   * {@link ClassLoader#getResources(String)}, a package is only found in a jar file which has an entry for its
+   * directory, as the {@code jar} tool and build tools create. Classes which cannot be loaded are ignored.
+   * @param classLoader the class loader to search, and to load classes with
+   * @param packageNames the names of the packages to search
+   * @return the annotated classes found, ordered by name
+   * @throws IOException if a directory or jar file cannot be read
+   */
+  public static List<Class<?>> scan(ClassLoader classLoader, String... packageNames) throws IOException {
+    Set<String> classNames = new TreeSet<>();
+    for (String packageName: packageNames) {
+      String path = packageName.replace('.', '/');
+      Enumeration<URL> roots = classLoader.getResources(path);
+      while (roots.hasMoreElements()) {
+        URL root = roots.nextElement();
+        if ("file".equals(root.getProtocol())) {
+          addDirectoryClassNames(toFile(root), packageName, classNames);
+        }
+        else if ("jar".equals(root.getProtocol())) {
+          addJarClassNames(root, path, classNames);
+        }
+      }
+    }
+    List<Class<?>> pojoClasses = new ArrayList<>();
+    for (String className: classNames) {
+      Class<?> candidate;
+      try {
+        candidate = Class.forName(className, false, classLoader);
+      }
+      catch (ClassNotFoundException | LinkageError e) {
+        continue;
+      }
+      if (isAnnotated(candidate)) {
+        pojoClasses.add(candidate);
+      }
+    }
+    return pojoClasses;
+  }
+
+  private static File toFile(URL url) throws IOException {
+    try {
+      return new File(url.toURI());
+    }
+    catch (URISyntaxException e) {
+      throw new IOException("Cannot convert " + url + " to a file", e);
+    }
+  }
+
+  private static void addDirectoryClassNames(File directory, String packageName, Set<String> classNames) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file: files) {
+      String name = file.getName();
+      if (file.isDirectory()) {
+        addDirectoryClassNames(file, qualify(packageName, name), classNames);
+      }
+      else if (isClassFileName(name)) {
+        classNames.add(qualify(packageName, name.substring(0, name.length() - CLASS_FILE_SUFFIX.length())));
+      }
+    }
+  }
+
+  private static void addJarClassNames(URL root, String path, Set<String> classNames) throws IOException {
+    URLConnection connection = root.openConnection();
+    if (!(connection instanceof JarURLConnection)) {
+      return;
+    }
+    connection.setUseCaches(false);
+    String prefix = path.isEmpty() ? "" : path + "/";
+    try (JarFile jarFile = ((JarURLConnection) connection).getJarFile()) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (name.startsWith(prefix) && !name.startsWith("META-INF/") && isClassFileName(name)) {
+          classNames.add(name.substring(0, name.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.'));
+        }
+      }
+    }
+  }
+
+  /**
+   * @return whether {@code name} is the name of a class file; this excludes {@code module-info.class} and
+   * {@code package-info.class}, whose names are not valid class names.
+   */
+  private static boolean isClassFileName(String name) {
+    return name.endsWith(CLASS_FILE_SUFFIX) && name.indexOf('-') < 0;
+  }
+
+  private static String qualify(String packageName, String name) {
+    return packageName.isEmpty() ? name : packageName + "." + name;
+  }
+
+  private static boolean isAnnotated(Class<?> candidate) {
+    try {
+      if (candidate.isAnnotationPresent(AutoProperty.class)) {
+        return true;
+      }
+      return hasPropertyAnnotation(candidate.getDeclaredFields())
+        || hasPropertyAnnotation(candidate.getDeclaredMethods());
+    }
+    catch (LinkageError | SecurityException e) {
+      return false;
+    }
+  }
+
+  private static boolean hasPropertyAnnotation(AnnotatedElement[] elements) {
+    for (AnnotatedElement element: elements) {
+      if (element.isAnnotationPresent(Property.class)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final class PrewarmTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final Class<?> pojoClass;
+    private final boolean skipClassesWithoutProperties;
+    long elapsedNanos;
+    boolean skipped;
+
+    PrewarmTask(Class<?> pojoClass, boolean skipClassesWithoutProperties) {
+      this.pojoClass = pojoClass;
+      this.skipClassesWithoutProperties = skipClassesWithoutProperties;
+    }
+
+    @Override
+    protected void compute() {
+      long start = System.nanoTime();
+      try {
+        Pojomator<?> pojomator = Pojomatic.pojomator(pojoClass);
+        if (pojomator instanceof TieredPojomator) {
+          awaitCompilation((TieredPojomator<?>) pojomator);
+        }
+      }
+      catch (NoPojomaticPropertiesException e) {
+        if (!skipClassesWithoutProperties) {
+          throw e;
+        }
+        skipped = true;
+      }
+      elapsedNanos = System.nanoTime() - start;
+    }
+
+    private static void awaitCompilation(TieredPojomator<?> pojomator) {
+      try {
+        pojomator.getCompilation().get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      catch (ExecutionException e) {
+        // the reflection pojomator remains in use, just as it would have without prewarming
+      }
+    }
+  }
+}
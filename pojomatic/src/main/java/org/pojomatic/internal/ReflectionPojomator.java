@@ -0,0 +1,384 @@
+package org.pojomatic.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.SkipArrayCheck;
+import org.pojomatic.diff.DiffVisitor;
+import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
+import org.pojomatic.formatter.EnhancedPojoFormatter;
+import org.pojomatic.formatter.EnhancedPropertyFormatter;
+
+/**
+ * A {@link org.pojomatic.Pojomator} which reads properties through method handles, rather than through a generated
+ * class. It is cheap to create, but slower to run than a pojomator created by {@link PojomatorByteCodeGenerator}; it
+ * serves as the first tier of a {@link TieredPojomator}. The semantics of each method are the same as for a generated
+ * pojomator.
+ *
+ * @param <T> the type this pojomator works on
+ */
+class ReflectionPojomator<T> extends BasePojomator<T> {
+
+  /**
+   * How the value of a property is compared, hashed and formatted. This mirrors the decisions
+   * {@link PojomatorByteCodeGenerator} makes based on the property type.
+   */
+  private enum ValueKind {
+    /** A primitive; boxed values compare and hash exactly as the primitives do in generated code */
+    PRIMITIVE,
+    /** An array of primitives */
+    PRIMITIVE_ARRAY,
+    /** An array of objects */
+    OBJECT_ARRAY,
+    /** A property of type {@code Object} which might hold an array */
+    POSSIBLE_ARRAY,
+    /** Anything else */
+    OBJECT
+  }
+
+  private static final class Property {
+    final PropertyElement element;
+    final MethodHandle getter;
+    final ValueKind valueKind;
+    final boolean deepArray;
+    final boolean nullsFirst;
+    EnhancedPropertyFormatter formatter;
+
+    Property(PropertyElement element) {
+      this.element = element;
+      this.getter = getter(element);
+      Class<?> type = element.getPropertyType();
+      if (type.isPrimitive()) {
+        valueKind = ValueKind.PRIMITIVE;
+      }
+      else if (type.isArray()) {
+        valueKind = type.getComponentType().isPrimitive() ? ValueKind.PRIMITIVE_ARRAY : ValueKind.OBJECT_ARRAY;
+      }
+      else if (type == Object.class && !element.getElement().isAnnotationPresent(SkipArrayCheck.class)) {
+        valueKind = ValueKind.POSSIBLE_ARRAY;
+      }
+      else {
+        valueKind = ValueKind.OBJECT;
+      }
+      deepArray = valueKind == ValueKind.OBJECT_ARRAY
+        && (type == Object[].class || type.getComponentType().isArray());
+      nullsFirst = ClassProperties.isNullsFirst(element);
+    }
+
+    Object get(Object pojo) {
+      try {
+        return getter.invokeExact(pojo);
+      }
+      catch (Throwable t) {
+        throw ReflectionPojomator.<RuntimeException>sneakyThrow(t);
+      }
+    }
+
+    boolean areEqual(Object value1, Object value2) {
+      switch (valueKind) {
+        case PRIMITIVE_ARRAY:
+        case OBJECT_ARRAY:
+          return compareArrays(value1, value2);
+        case POSSIBLE_ARRAY:
+          return areObjectValuesEqual(value1, value2);
+        default:
+          // Float.equals and Double.equals compare bits, as generated code does
+          return Objects.equals(value1, value2);
+      }
+    }
+
+    int hashCode(Object value) {
+      if (value == null) {
+        return 0;
+      }
+      switch (valueKind) {
+        case PRIMITIVE_ARRAY:
+        case OBJECT_ARRAY:
+          return arrayHashCode(value, deepArray);
+        case POSSIBLE_ARRAY:
+          return value.getClass().isArray() ? arrayHashCode(value, true) : value.hashCode();
+        default:
+          // the hashCode of a wrapper is the hashCode generated code computes for the primitive
+          return value.hashCode();
+      }
+    }
+
+    void visitDifference(DiffVisitor visitor, Object value1, Object value2) {
+      Class<?> type = element.getPropertyType();
+      if (valueKind != ValueKind.PRIMITIVE) {
+        visitor.onObjectDifference(element, value1, value2);
+      }
+      else if (type == boolean.class) {
+        visitor.onBooleanDifference(element, (Boolean) value1, (Boolean) value2);
+      }
+      else if (type == byte.class) {
+        visitor.onByteDifference(element, (Byte) value1, (Byte) value2);
+      }
+      else if (type == short.class) {
+        visitor.onShortDifference(element, (Short) value1, (Short) value2);
+      }
+      else if (type == char.class) {
+        visitor.onCharDifference(element, (Character) value1, (Character) value2);
+      }
+      else if (type == int.class) {
+        visitor.onIntDifference(element, (Integer) value1, (Integer) value2);
+      }
+      else if (type == long.class) {
+        visitor.onLongDifference(element, (Long) value1, (Long) value2);
+      }
+      else if (type == float.class) {
+        visitor.onFloatDifference(element, (Float) value1, (Float) value2);
+      }
+      else {
+        visitor.onDoubleDifference(element, (Double) value1, (Double) value2);
+      }
+    }
+
+    void appendFormatted(StringBuilder builder, Object value) {
+      Class<?> type = element.getPropertyType();
+      switch (valueKind) {
+        case PRIMITIVE:
+          if (type == boolean.class) {
+            formatter.appendFormatted(builder, ((Boolean) value).booleanValue());
+          }
+          else if (type == byte.class) {
+            formatter.appendFormatted(builder, ((Byte) value).byteValue());
+          }
+          else if (type == short.class) {
+            formatter.appendFormatted(builder, ((Short) value).shortValue());
+          }
+          else if (type == char.class) {
+            formatter.appendFormatted(builder, ((Character) value).charValue());
+          }
+          else if (type == int.class) {
+            formatter.appendFormatted(builder, ((Integer) value).intValue());
+          }
+          else if (type == long.class) {
+            formatter.appendFormatted(builder, ((Long) value).longValue());
+          }
+          else if (type == float.class) {
+            formatter.appendFormatted(builder, ((Float) value).floatValue());
+          }
+          else {
+            formatter.appendFormatted(builder, ((Double) value).doubleValue());
+          }
+          break;
+        case PRIMITIVE_ARRAY:
+          if (type == boolean[].class) {
+            formatter.appendFormatted(builder, (boolean[]) value);
+          }
+          else if (type == byte[].class) {
+            formatter.appendFormatted(builder, (byte[]) value);
+          }
+          else if (type == short[].class) {
+            formatter.appendFormatted(builder, (short[]) value);
+          }
+          else if (type == char[].class) {
+            formatter.appendFormatted(builder, (char[]) value);
+          }
+          else if (type == int[].class) {
+            formatter.appendFormatted(builder, (int[]) value);
+          }
+          else if (type == long[].class) {
+            formatter.appendFormatted(builder, (long[]) value);
+          }
+          else if (type == float[].class) {
+            formatter.appendFormatted(builder, (float[]) value);
+          }
+          else {
+            formatter.appendFormatted(builder, (double[]) value);
+          }
+          break;
+        case OBJECT_ARRAY:
+          formatter.appendFormatted(builder, (Object[]) value);
+          break;
+        case POSSIBLE_ARRAY:
+          formatter.appendFormattedPossibleArray(builder, value);
+          break;
+        default:
+          formatter.appendFormatted(builder, value);
+      }
+    }
+  }
+
+  private final Property[] equalsProperties;
+  private final Property[] hashCodeProperties;
+  private final Property[] toStringProperties;
+  private final Property[] compareProperties;
+
+  ReflectionPojomator(Class<?> pojoClass, ClassProperties classProperties)
+    throws InstantiationException, IllegalAccessException {
+    super(pojoClass, classProperties);
+    Map<PropertyElement, Property> properties = new HashMap<>();
+    for (PropertyElement propertyElement: classProperties.getAllProperties()) {
+      properties.put(propertyElement, new Property(propertyElement));
+    }
+    for (PropertyElement propertyElement: classProperties.getToStringProperties()) {
+      properties.get(propertyElement).formatter =
+        PojomatorFactory.createPropertyFormatter(propertyElement.getElement());
+    }
+    equalsProperties = properties(properties, classProperties.getEqualsProperties());
+    hashCodeProperties = properties(properties, classProperties.getHashCodeProperties());
+    toStringProperties = properties(properties, classProperties.getToStringProperties());
+    compareProperties = properties(properties, classProperties.getCompareProperties());
+  }
+
+  @Override
+  public int doHashCode(T pojo) {
+    checkNotNullPop(pojo);
+    int result = 1;
+    for (Property property: hashCodeProperties) {
+      result = 31 * result + property.hashCode(property.get(pojo));
+    }
+    return result;
+  }
+
+  @Override
+  public String doToString(T pojo) {
+    checkNotNullPop(pojo);
+    StringBuilder builder = acquireToStringBuilder();
+    doAppendTo(pojo, builder);
+    return releaseToStringBuilder(builder);
+  }
+
+  @Override
+  public void doAppendTo(T pojo, StringBuilder builder) {
+    checkNotNullPop(pojo);
+    checkNotNullPop(builder);
+    EnhancedPojoFormatter pojoFormatter = createPojoFormatter();
+    pojoFormatter.appendToStringPrefix(builder, pojoClass);
+    for (Property property: toStringProperties) {
+      pojoFormatter.appendPropertyPrefix(builder, property.element);
+      property.appendFormatted(builder, property.get(pojo));
+      pojoFormatter.appendPropertySuffix(builder, property.element);
+    }
+    pojoFormatter.appendToStringSuffix(builder, pojoClass);
+  }
+
+  @Override
+  public boolean doEquals(T pojo1, Object pojo2) {
+    checkNotNullPop(pojo1);
+    if (pojo1 == pojo2) {
+      return true;
+    }
+    if (pojo2 == null || !isCompatibleForEquality(pojo2.getClass())) {
+      return false;
+    }
+    for (Property property: equalsProperties) {
+      if (!property.areEqual(property.get(pojo1), property.get(pojo2))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int doCompare(T instance, T other) {
+    checkNotNull(instance, "instance is null");
+    checkNotNull(other, "other is null");
+    if (instance == other) {
+      return 0;
+    }
+    checkCompatibleForEquality(instance, "instance");
+    checkCompatibleForEquality(other, "other");
+    // Boxed primitives compare exactly as the primitives do in generated code
+    for (Property property: compareProperties) {
+      int result = compareValues(property.get(instance), property.get(other), property.nullsFirst);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public void doDiff(T instance, T other, DiffVisitor visitor) {
+    checkNotNullPop(visitor);
+    checkNotNull(instance, "instance is null");
+    checkNotNull(other, "other is null");
+    if (instance == other) {
+      return;
+    }
+    checkCompatibleForEquality(instance, "instance");
+    checkCompatibleForEquality(other, "other");
+    // As with generated pojomators, diff considers the hashCode properties
+    for (Property property: hashCodeProperties) {
+      Object value1 = property.get(instance);
+      Object value2 = property.get(other);
+      if (!property.areEqual(value1, value2)) {
+        property.visitDifference(visitor, value1, value2);
+      }
+    }
+  }
+
+
+  @SuppressWarnings("deprecation")
+  private EnhancedPojoFormatter createPojoFormatter() {
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    if (format == null) {
+      return new DefaultEnhancedPojoFormatter();
+    }
+    org.pojomatic.formatter.PojoFormatter pojoFormatter;
+    try {
+      pojoFormatter = format.value().newInstance();
+    }
+    catch (InstantiationException | IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    return pojoFormatter instanceof EnhancedPojoFormatter
+      ? (EnhancedPojoFormatter) pojoFormatter
+      : new EnhancedPojoFormatterWrapper(pojoFormatter);
+  }
+
+  private static Property[] properties(
+    Map<PropertyElement, Property> properties, Collection<PropertyElement> elements) {
+    Property[] result = new Property[elements.size()];
+    int i = 0;
+    for (PropertyElement element: elements) {
+      result[i++] = properties.get(element);
+    }
+    return result;
+  }
+
+  /**
+   * Get a method handle of type {@code (Object)Object} to read a property.
+   */
+  private static MethodHandle getter(PropertyElement propertyElement) {
+    final AccessibleObject element = (AccessibleObject) propertyElement.getElement();
+    // As in BasePojomator.bootstrap, we merely make the element accessible here; it is invoked later, outside of a
+    // doPrivileged block
+    AccessController.doPrivileged(new PrivilegedAction<Void>() {
+      @Override
+      public Void run() {
+        element.setAccessible(true);
+        return null;
+      }
+    });
+    try {
+      MethodHandle handle = element instanceof Field
+        ? MethodHandles.lookup().unreflectGetter((Field) element)
+        : MethodHandles.lookup().unreflect((Method) element);
+      return handle.asType(MethodType.methodType(Object.class, Object.class));
+    }
+    catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> E sneakyThrow(Throwable throwable) throws E {
+    throw (E) throwable;
+  }
+}
@@ -0,0 +1,223 @@
+package org.pojomatic.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe per-class cache which generates values on demand, with the guarantee that no more than one
+ * value will be auto-created for a given class.
+ * Classes extending this class should override {@link #create(Class)}.
+ * <p>
+ * Values are stored in a {@link ClassValue}, so lookups for a hot class are cheap enough for the JIT to fold, and
+ * entries are not kept alive by this cache once the class (and its class loader) is otherwise unreachable.
+ * {@link ClassValue#computeValue(Class)} may be invoked concurrently for the same class, so rather than creating
+ * values directly there, it creates a lightweight holder; the holder is then responsible for creating the value
+ * exactly once.
+ * <p>
+ * The cache may be given a maximum size. Once more values than that are held, values are evicted using the CLOCK
+ * algorithm: each lookup marks the value found as referenced, and eviction passes over (and unmarks) referenced
+ * values, evicting the first value which has not been referenced since it was last passed over. A value which has
+ * been evicted is created again on its next lookup. Evictions are made as values are created, so lookups of values
+ * already held remain cheap.
+ * @param <V> the value type
+ */
+public abstract class SelfPopulatingClassValue<V> {
+  /**
+   * The maximum size of a cache which is not bounded.
+   */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final int maximumSize;
+
+  /**
+   * The entries for classes whose values are held, in the order in which eviction will consider them. Guarded by
+   * itself.
+   */
+  private final LinkedHashSet<Entry> entries = new LinkedHashSet<>();
+
+  /**
+   * The queue to which entries are added once their holder has been garbage collected, along with its class.
+   */
+  private final ReferenceQueue<Holder> collectedEntries = new ReferenceQueue<>();
+
+  private final AtomicLong creationCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong regenerationCount = new AtomicLong();
+
+  /**
+   * Create a cache which is not bounded.
+   */
+  public SelfPopulatingClassValue() {
+    this(UNBOUNDED);
+  }
+
+  /**
+   * Create a cache which holds at most {@code maximumSize} values.
+   * @param maximumSize the maximum number of values to hold, or {@link #UNBOUNDED}
+   * @throws IllegalArgumentException if {@code maximumSize} is not positive
+   */
+  public SelfPopulatingClassValue(int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be positive, but was " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  public V get(Class<?> key) {
+    return holders.get(key).get(key);
+  }
+
+  /**
+   * Create a value for a class.  This will be called by {@link #get(Class)} when there is not
+   * already an existing value, and no other thread is already creating a value for that class.
+   * The value returned must not be null.
+   * @param key the class to create the value for
+   * @return the value
+   */
+  protected abstract V create(Class<?> key);
+
+  /**
+   * @return the maximum number of values this cache holds, or {@link #UNBOUNDED}
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * @return the number of values currently held, for classes which have not been garbage collected
+   */
+  public int size() {
+    synchronized (entries) {
+      expungeCollectedEntries();
+      return entries.size();
+    }
+  }
+
+  /**
+   * @return the number of values which have been created, including those created again after being evicted
+   */
+  public long getCreationCount() {
+    return creationCount.get();
+  }
+
+  /**
+   * @return the number of values which have been evicted to keep within the maximum size
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * @return the number of values which have been created again after being evicted
+   */
+  public long getRegenerationCount() {
+    return regenerationCount.get();
+  }
+
+  /**
+   * Record that a value has been created, evicting other values if this takes the cache over its maximum size.
+   */
+  private void added(Holder holder) {
+    synchronized (entries) {
+      expungeCollectedEntries();
+      entries.add(new Entry(holder, collectedEntries));
+      while (entries.size() > maximumSize) {
+        Entry candidate = entries.iterator().next();
+        entries.remove(candidate);
+        Holder candidateHolder = candidate.get();
+        if (candidateHolder == null) {
+          // collected, but not yet enqueued
+          continue;
+        }
+        if (candidateHolder.referenced) {
+          candidateHolder.referenced = false;
+          entries.add(candidate);
+        }
+        else {
+          candidateHolder.evict();
+          evictionCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the entries for classes which have been garbage collected. Must be called while holding the lock on
+   * {@link #entries}.
+   */
+  private void expungeCollectedEntries() {
+    Reference<? extends Holder> collected;
+    while ((collected = collectedEntries.poll()) != null) {
+      entries.remove(collected);
+    }
+  }
+
+  private final class Holder {
+    private volatile V value;
+
+    /**
+     * Whether the value has been looked up since eviction last passed over it. Reads and writes of this flag may
+     * race; at worst, a value is evicted slightly earlier or later than it would otherwise be.
+     */
+    boolean referenced;
+
+    /**
+     * Whether the value has ever been evicted. Written before {@link #value} is cleared, so visible to any thread
+     * which sees the cleared value.
+     */
+    private boolean evicted;
+
+    V get(Class<?> key) {
+      V result = value;
+      if (result == null) {
+        synchronized (this) {
+          result = value;
+          // if a previous attempt to create a value failed, we'll give it another shot.
+          if (result == null) {
+            value = result = create(key);
+            creationCount.incrementAndGet();
+            if (evicted) {
+              regenerationCount.incrementAndGet();
+            }
+            // a new value counts as referenced, so that it is not the first to be evicted
+            referenced = true;
+            added(this);
+          }
+        }
+      }
+      else if (!referenced) {
+        referenced = true;
+      }
+      return result;
+    }
+
+    void evict() {
+      evicted = true;
+      value = null;
+    }
+  }
+
+  /**
+   * An entry for a class whose value is held. The holder is otherwise only reachable from its class, so referring to
+   * it weakly does not prevent the class, or the value (which may well refer to the class), from being garbage
+   * collected.
+   */
+  private final class Entry extends WeakReference<Holder> {
+    Entry(Holder holder, ReferenceQueue<Holder> queue) {
+      super(holder, queue);
+    }
+  }
+
+  /**
+   * The holders for values of this cache.
+   */
+  private final ClassValue<Holder> holders = new ClassValue<Holder>() {
+    @Override
+    protected Holder computeValue(Class<?> type) {
+      return new Holder();
+    }
+  };
+}
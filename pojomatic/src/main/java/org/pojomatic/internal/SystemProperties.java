@@ -0,0 +1,71 @@
+package org.pojomatic.internal;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Reads the system properties which configure Pojomatic. Each is read once, when the class it configures is
+ * initialized, with Pojomatic's own privileges, so that neither the caller nor the creation of each pojomator needs
+ * permission to read it.
+ */
+public final class SystemProperties {
+  private SystemProperties() {}
+
+  /**
+   * Read a system property, as {@link System#getProperty(String)} would.
+   * @param name the name of the property
+   * @return the value of the property, or {@code null} if it is not set, or cannot be read
+   */
+  public static String getProperty(final String name) {
+    return AccessController.doPrivileged(new PrivilegedAction<String>() {
+      @Override
+      public String run() {
+        try {
+          return System.getProperty(name);
+        }
+        catch (SecurityException e) {
+          return null;
+        }
+      }
+    });
+  }
+
+  /**
+   * Read a boolean system property, as {@link Boolean#getBoolean(String)} would.
+   * @param name the name of the property
+   * @return {@code true} if the property is set to {@code true}, ignoring case; {@code false} if it is not, or cannot
+   * be read
+   */
+  public static boolean getBoolean(final String name) {
+    return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+      @Override
+      public Boolean run() {
+        try {
+          return Boolean.getBoolean(name);
+        }
+        catch (SecurityException e) {
+          return false;
+        }
+      }
+    });
+  }
+
+  /**
+   * Read an integer system property, as {@link Integer#getInteger(String)} would.
+   * @param name the name of the property
+   * @return the value of the property, or {@code null} if it is not set, is not an integer, or cannot be read
+   */
+  public static Integer getInteger(final String name) {
+    return AccessController.doPrivileged(new PrivilegedAction<Integer>() {
+      @Override
+      public Integer run() {
+        try {
+          return Integer.getInteger(name);
+        }
+        catch (SecurityException e) {
+          return null;
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,181 @@
+package org.pojomatic.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.diff.DiffVisitor;
+import org.pojomatic.diff.Differences;
+
+/**
+ * A {@link Pojomator} which starts out delegating to a {@link ReflectionPojomator}, which can be created quickly,
+ * while a bytecode pojomator is generated on a background thread. Once the bytecode pojomator is ready, it replaces
+ * the reflection pojomator as the delegate. If bytecode generation fails, the reflection pojomator remains in use.
+ * <p>
+ * Tiered creation is enabled by setting the system property {@value #TIERED_PROPERTY} to {@code true}.
+ *
+ * @param <T> the type this pojomator works on
+ */
+public class TieredPojomator<T> implements Pojomator<T> {
+  /**
+   * The system property which, if set to {@code true}, causes {@link org.pojomatic.Pojomatic} to create
+   * {@code TieredPojomator}s.
+   */
+  public static final String TIERED_PROPERTY = "org.pojomatic.tiered";
+
+  private static final boolean ENABLED = SystemProperties.getBoolean(TIERED_PROPERTY);
+
+  private static final ThreadPoolExecutor COMPILER = makeCompiler();
+  private static final Logger LOGGER = Logger.getLogger(TieredPojomator.class.getName());
+
+  private volatile Pojomator<T> delegate;
+  private final Future<?> compilation;
+  private final Comparator<T> comparator = new PojomatorComparator<>(this);
+
+  public TieredPojomator(final Class<T> pojoClass) {
+    try {
+      delegate = new ReflectionPojomator<>(pojoClass, ClassProperties.forClass(pojoClass));
+    }
+    catch (InstantiationException | IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    compilation = compileInBackground(new Runnable() {
+      @Override
+      public void run() {
+        delegate = PojomatorFactory.makePojomator(pojoClass);
+      }
+    });
+  }
+
+  /**
+   * Run a task which generates a pojomator on the background compiler thread. If the task fails, the failure is
+   * logged, and recorded on the returned future.
+   * @param task the task to run
+   * @return the future result of {@code task}
+   */
+  static Future<?> compileInBackground(final Runnable task) {
+    FutureTask<Void> future = new FutureTask<>(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          task.run();
+        }
+        catch (RuntimeException | Error e) {
+          // logged before the future completes, so that callers waiting on it see the failure already logged
+          LOGGER.log(Level.WARNING, "Background pojomator generation failed; the current pojomator remains in use", e);
+          throw e;
+        }
+      }
+    }, null);
+    COMPILER.execute(future);
+    return future;
+  }
+
+  /**
+   * Whether tiered creation has been enabled via the {@value #TIERED_PROPERTY} system property, as it was set when
+   * this class was initialized.
+   * @return {@code true} if tiered creation is enabled
+   */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Whether the bytecode pojomator has replaced the reflection pojomator.
+   * @return {@code true} if calls are now delegated to a bytecode pojomator
+   */
+  public boolean isCompiled() {
+    return !(delegate instanceof ReflectionPojomator);
+  }
+
+  /**
+   * @return the background generation of the bytecode pojomator, for tests which need to wait on it.
+   */
+  Future<?> getCompilation() {
+    return compilation;
+  }
+
+  @Override
+  public int doHashCode(T instance) {
+    return delegate.doHashCode(instance);
+  }
+
+  @Override
+  public String doToString(T instance) {
+    return delegate.doToString(instance);
+  }
+
+  @Override
+  public void doAppendTo(T instance, StringBuilder builder) {
+    delegate.doAppendTo(instance, builder);
+  }
+
+  @Override
+  public void doAppendTo(T instance, Appendable appendable) throws IOException {
+    delegate.doAppendTo(instance, appendable);
+  }
+
+  @Override
+  public void doWriteUtf8(T instance, ByteBuffer buffer) {
+    delegate.doWriteUtf8(instance, buffer);
+  }
+
+  @Override
+  public boolean doEquals(T instance, Object other) {
+    return delegate.doEquals(instance, other);
+  }
+
+  @Override
+  public int doCompare(T instance, T other) {
+    return delegate.doCompare(instance, other);
+  }
+
+  @Override
+  public Comparator<T> comparator() {
+    return comparator;
+  }
+
+  @Override
+  public boolean isCompatibleForEquality(Class<?> otherClass) {
+    return delegate.isCompatibleForEquality(otherClass);
+  }
+
+  @Override
+  public Differences doDiff(T instance, T other) {
+    return delegate.doDiff(instance, other);
+  }
+
+  @Override
+  public void doDiff(T instance, T other, DiffVisitor visitor) {
+    delegate.doDiff(instance, other, visitor);
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  private static ThreadPoolExecutor makeCompiler() {
+    // A single thread, like a JIT compiler thread, which goes away when there is nothing left to compile.
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "pojomatic-compiler");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
@@ -0,0 +1,79 @@
+package org.pojomatic.internal;
+
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.Pojomatic;
+
+/**
+ * Determines the property types whose values a generated pojomator may append to its {@code toString} builder by
+ * calling {@link Pojomatic#appendTo(Object, StringBuilder)}, rather than through the default property formatter,
+ * which would append the result of calling {@code toString()} on them. This saves building a separate {@code String}
+ * for each nested pojo.
+ * <p>
+ * A type qualifies if it is a final class which is annotated for use with Pojomatic and implements
+ * {@code toString()} as {@code return Pojomatic.toString(this);}. Since the type is final, a non-null property value
+ * is an instance of exactly that type, so that appending it gives the same result as its {@code toString()} would.
+ * The implementation of {@code toString()} is determined by examining the byte code of the class when a pojomator is
+ * generated; if the byte code cannot be read, the class is assumed not to delegate. Results are cached per class.
+ */
+public final class ToStringDelegation {
+  /**
+   * The instructions of {@code return Pojomatic.toString(this);}, in the form recorded by {@link MethodInstructions}.
+   */
+  private static final List<String> DELEGATING_INSTRUCTIONS = Arrays.asList(
+    "ALOAD 0",
+    "INVOKESTATIC org/pojomatic/Pojomatic.toString(Ljava/lang/Object;)Ljava/lang/String;",
+    "ARETURN");
+
+  private static final ClassValue<Boolean> DELEGATES = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(final Class<?> type) {
+      return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+        @Override
+        public Boolean run() {
+          return toStringDelegates(type);
+        }
+      });
+    }
+  };
+
+  private ToStringDelegation() {}
+
+  /**
+   * Determine whether instances of a class implement {@code toString()} as {@code return Pojomatic.toString(this);}.
+   * @param clazz the class to check
+   * @return {@code true} if {@code clazz} is known to implement {@code toString()} by delegating to Pojomatic
+   */
+  public static boolean delegatesToPojomatic(Class<?> clazz) {
+    return DELEGATES.get(clazz);
+  }
+
+  /**
+   * Determine whether a generated pojomator may append values of a property type by calling
+   * {@link Pojomatic#appendTo(Object, StringBuilder)}, for a property using the default property formatter.
+   * @param type the declared type of a property
+   * @return {@code true} if values of {@code type} may be appended by their pojomator
+   */
+  public static boolean isAppendableInline(Class<?> type) {
+    if (type.isPrimitive() || type.isArray() || type.isInterface() || !Modifier.isFinal(type.getModifiers())
+      || !delegatesToPojomatic(type)) {
+      return false;
+    }
+    try {
+      ClassProperties.forClass(type);
+      return true;
+    }
+    catch (IllegalArgumentException e) {
+      // including NoPojomaticPropertiesException; leave Pojomatic.toString to report the problem
+      return false;
+    }
+  }
+
+  private static boolean toStringDelegates(Class<?> clazz) {
+    return DELEGATING_INSTRUCTIONS.equals(MethodInstructions.read(clazz, "toString"));
+  }
+}
@@ -0,0 +1,87 @@
+package org.pojomatic.internal;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes characters as UTF-8 directly into a {@link ByteBuffer}, without the intermediate {@code String} and
+ * {@code byte[]} of {@code chars.toString().getBytes(UTF_8)}. As with {@link String#getBytes(java.nio.charset.Charset)},
+ * unpaired surrogates are encoded as {@code '?'}.
+ */
+public final class Utf8 {
+  private Utf8() {}
+
+  /**
+   * Compute the number of bytes needed to encode characters as UTF-8.
+   * @param chars the characters to encode
+   * @return the length of the UTF-8 encoding of {@code chars}
+   */
+  public static int encodedLength(CharSequence chars) {
+    int length = chars.length();
+    int encodedLength = length;
+    for (int i = 0; i < length; i++) {
+      char c = chars.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          encodedLength += 1;
+        }
+        else if (!Character.isSurrogate(c)) {
+          encodedLength += 2;
+        }
+        else if (isSurrogatePair(chars, i)) {
+          encodedLength += 2; // four bytes for two chars
+          i++;
+        }
+        // otherwise, an unpaired surrogate, encoded as '?'
+      }
+    }
+    return encodedLength;
+  }
+
+  /**
+   * Encode characters as UTF-8, writing them to a buffer at its current position. Either all of the encoded bytes are
+   * written, or, if there is not enough room in the buffer, none are.
+   * @param chars the characters to encode
+   * @param buffer the buffer to write to
+   * @throws BufferOverflowException if fewer than {@link #encodedLength(CharSequence) encodedLength(chars)} bytes
+   * remain in {@code buffer}; in this case, the buffer is not modified.
+   * @throws java.nio.ReadOnlyBufferException if {@code buffer} is read-only
+   */
+  public static void encode(CharSequence chars, ByteBuffer buffer) {
+    if (buffer.remaining() < encodedLength(chars)) {
+      throw new BufferOverflowException();
+    }
+    int length = chars.length();
+    for (int i = 0; i < length; i++) {
+      char c = chars.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+      }
+      else if (c < 0x800) {
+        buffer.put((byte) (0xc0 | c >> 6));
+        buffer.put((byte) (0x80 | c & 0x3f));
+      }
+      else if (!Character.isSurrogate(c)) {
+        buffer.put((byte) (0xe0 | c >> 12));
+        buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+        buffer.put((byte) (0x80 | c & 0x3f));
+      }
+      else if (isSurrogatePair(chars, i)) {
+        int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+        buffer.put((byte) (0xf0 | codePoint >> 18));
+        buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+        buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+        buffer.put((byte) (0x80 | codePoint & 0x3f));
+      }
+      else {
+        buffer.put((byte) '?');
+      }
+    }
+  }
+
+  private static boolean isSurrogatePair(CharSequence chars, int index) {
+    return Character.isHighSurrogate(chars.charAt(index))
+      && index + 1 < chars.length()
+      && Character.isLowSurrogate(chars.charAt(index + 1));
+  }
+}
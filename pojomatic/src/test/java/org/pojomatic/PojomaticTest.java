@@ -114,5 +114,20 @@ public class PojomaticTest {
     assertEquals(Pojomatic.hashCode(new Box(new String[] { "x" })), Pojomatic.hashCode(new Box(new String[] { "x" })));
   }
 
+  @Test
+  public void testCacheStatistics() {
+    class Counted {
+      @Property int x;
+    }
+    long creationCount = Pojomatic.cacheStatistics().getCreationCount();
+    Pojomatic.pojomator(Counted.class);
+    Pojomatic.pojomator(Counted.class);
+    PojomatorCacheStatistics statistics = Pojomatic.cacheStatistics();
+    assertEquals(statistics.getCreationCount(), creationCount + 1);
+    assertTrue(statistics.getSize() > 0);
+    assertEquals(statistics.getMaximumSize(), Integer.MAX_VALUE);
+    assertEquals(statistics.getEvictionCount(), 0L);
+    assertEquals(statistics.getRegenerationCount(), 0L);
+  }
 
 }
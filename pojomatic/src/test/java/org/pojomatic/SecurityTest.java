@@ -4,6 +4,7 @@ import static org.testng.Assert.*;
 
 import java.io.FilePermission;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.ReflectPermission;
 import java.net.SocketPermission;
 import java.security.AccessControlException;
@@ -12,12 +13,17 @@ import java.security.Policy;
 import java.security.ProtectionDomain;
 import java.security.SecurityPermission;
 import java.util.HashSet;
+import java.util.PropertyPermission;
 import java.util.Set;
 
 import org.pojomatic.annotations.Property;
 import org.pojomatic.annotations.PropertyFormat;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
+import org.pojomatic.internal.BasePojomator;
+import org.pojomatic.internal.ClassDefinerFactory;
 import org.pojomatic.internal.PojomatorFactoryTest;
+import org.pojomatic.internal.PropertyField;
+import org.pojomatic.internal.SystemProperties;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableSet;
@@ -64,6 +70,11 @@ public class SecurityTest {
 
   private static class Inaccessible{}
 
+  private static class WarmUpPojo {
+    @Property
+    int x = 0;
+  }
+
   private static class SimplePojo {
     @Property
     int x = 0;
@@ -77,6 +88,8 @@ public class SecurityTest {
 
   @Test
   public void testSecurityModel() {
+    // have Pojomatic read its configuration, which it does once, before permissions are recorded
+    Pojomatic.pojomator(WarmUpPojo.class);
     requestedPermissions.clear();
     SimplePojo pojo = new SimplePojo();
     String toString = null;
@@ -100,10 +113,15 @@ public class SecurityTest {
 
     assertEquals(
       requestedPermissions,
-      ImmutableSet.of(
-        new FilePermission(testClassPath + simplePojoPath, "read"),
-        new RuntimePermission(haveLookupDefineClass() ? "defineClass" : "accessDeclaredMembers"),
-        new ReflectPermission("suppressAccessChecks")));
+      ClassDefinerFactory.getDefiner().supportsHiddenClasses()
+        // hidden pojomators receive their property elements as class data, rather than by setting static fields
+        ? ImmutableSet.of(
+          new FilePermission(testClassPath + simplePojoPath, "read"),
+          new ReflectPermission("suppressAccessChecks"))
+        : ImmutableSet.of(
+          new FilePermission(testClassPath + simplePojoPath, "read"),
+          new RuntimePermission(haveLookupDefineClass() ? "defineClass" : "accessDeclaredMembers"),
+          new ReflectPermission("suppressAccessChecks")));
   }
 
   public static class AttackingConstructorFormatter extends DefaultEnhancedPropertyFormatter {
@@ -168,6 +186,79 @@ public class SecurityTest {
     }
   }
 
+  /**
+   * Verify that configuration properties are read with Pojomatic's privileges, not those of the caller
+   */
+  @Test
+  public void testSystemPropertiesReadWithPojomaticPrivileges() {
+    System.setProperty("org.pojomatic.test.boolean", "true");
+    System.setProperty("org.pojomatic.test.integer", "3");
+    try {
+      setPolicy();
+      try {
+        System.getProperty("org.pojomatic.test.boolean");
+        fail("Exception expected");
+      }
+      catch (AccessControlException e) {
+        assertTrue(e.getPermission() instanceof PropertyPermission);
+      }
+      assertEquals(SystemProperties.getProperty("org.pojomatic.test.boolean"), "true");
+      assertTrue(SystemProperties.getBoolean("org.pojomatic.test.boolean"));
+      assertEquals(SystemProperties.getInteger("org.pojomatic.test.integer"), Integer.valueOf(3));
+    }
+    finally {
+      restorePolicy();
+      System.clearProperty("org.pojomatic.test.boolean");
+      System.clearProperty("org.pojomatic.test.integer");
+    }
+  }
+
+  private static class Secret {
+    @SuppressWarnings("unused")
+    private int value;
+  }
+
+  /**
+   * A subclass of {@link BasePojomator} which was not generated by Pojomatic, but calls its bootstrap methods.
+   */
+  private abstract static class AttackingPojomator extends BasePojomator<Object> {
+    private AttackingPojomator() {
+      super(null, null);
+    }
+
+    static void read(PropertyElement property) throws Throwable {
+      bootstrapElement(
+        MethodHandles.lookup(), "get_value", MethodType.methodType(int.class, Object.class), property);
+    }
+
+    static void write(PropertyElement field) throws Throwable {
+      bootstrapSetterElement(
+        MethodHandles.lookup(), "set_value", MethodType.methodType(void.class, Object.class, int.class), field);
+    }
+  }
+
+  /**
+   * Verify that only pojomators generated by Pojomatic can use its bootstrap methods to access fields
+   */
+  @Test
+  public void testBootstrapMethodsRefuseOtherClasses() throws Throwable {
+    PropertyElement secret = new PropertyField(Secret.class.getDeclaredField("value"), "");
+    try {
+      AttackingPojomator.read(secret);
+      fail("Exception expected");
+    }
+    catch (SecurityException e) {
+      assertTrue(e.getMessage().contains("was not generated by Pojomatic"), e.getMessage());
+    }
+    try {
+      AttackingPojomator.write(secret);
+      fail("Exception expected");
+    }
+    catch (SecurityException e) {
+      assertTrue(e.getMessage().contains("was not generated by Pojomatic"), e.getMessage());
+    }
+  }
+
   private static boolean haveLookupDefineClass() {
     try {
       MethodHandles.Lookup.class.getMethod("defineClass", new Class<?>[] { byte[].class });
@@ -13,4 +13,18 @@ public class TestUtils {
     return new PropertyAccessor(clazz.getDeclaredMethod(methodName), "");
   }
 
+  /**
+   * Compare two pojos, for checking that two pojomators agree.
+   * @return the result of {@link Pojomator#doCompare(Object, Object)}, or {@code ClassCastException.class} if the
+   * property values cannot be compared
+   */
+  public static Object compareResult(Pojomator<Object> pojomator, Object pojo1, Object pojo2) {
+    try {
+      return pojomator.doCompare(pojo1, pojo2);
+    }
+    catch (ClassCastException e) {
+      return e.getClass();
+    }
+  }
+
 }
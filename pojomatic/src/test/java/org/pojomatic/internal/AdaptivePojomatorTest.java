@@ -0,0 +1,164 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.PojomatorInvocationCounts;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class AdaptivePojomatorTest {
+  private static final List<String> ACCESSED = new ArrayList<>();
+
+  public static class Entity {
+    private final String name;
+    private final List<String> tags;
+    private final long version;
+
+    public Entity(String name, List<String> tags, long version) {
+      this.name = name;
+      this.tags = tags;
+      this.version = version;
+    }
+
+    @Property
+    public String getName() {
+      ACCESSED.add("name");
+      return name;
+    }
+
+    @Property
+    public List<String> getTags() {
+      ACCESSED.add("tags");
+      return tags;
+    }
+
+    @Property
+    public long getVersion() {
+      ACCESSED.add("version");
+      return version;
+    }
+  }
+
+  public static class VersionFirst {
+    @Property long version;
+    @Property String name = "name";
+
+    VersionFirst(long version) {
+      this.version = version;
+    }
+  }
+
+  public static class SingleProperty {
+    @Property long version;
+
+    SingleProperty(long version) {
+      this.version = version;
+    }
+  }
+
+  @Test
+  public void testProfiledOrder() {
+    class Pojo {
+      @Property String s;
+      @Property List<String> list;
+      @Property int i;
+      @Property long l;
+    }
+    List<PropertyElement> properties = new ArrayList<>(ClassProperties.forClass(Pojo.class).getEqualsProperties());
+    assertEquals(
+      names(AdaptivePojomator.profiledOrder(properties, new long[] { 0, 5, 0, 50 })),
+      Arrays.asList("l", "list", "i", "s"));
+    // with no differences, primitive properties are still compared first
+    assertEquals(
+      names(AdaptivePojomator.profiledOrder(properties, new long[] { 0, 0, 0, 0 })),
+      Arrays.asList("i", "l", "s", "list"));
+  }
+
+  @Test
+  public void testReordersEquals() throws Exception {
+    AdaptivePojomator<Entity> pojomator = new AdaptivePojomator<>(Entity.class);
+    List<String> tags = Arrays.asList("a", "b");
+    Entity entity = new Entity("entity", tags, 1);
+    Entity newer = new Entity("entity", tags, 2);
+    for (int i = 0; i < 3 * AdaptivePojomator.CHECK_INTERVAL && !pojomator.isSettled(); i++) {
+      assertFalse(pojomator.doEquals(entity, newer));
+    }
+    assertTrue(pojomator.isSettled());
+    pojomator.getRegeneration().get();
+
+    // the version, which always differed, is now compared first
+    ACCESSED.clear();
+    assertFalse(pojomator.doEquals(entity, newer));
+    assertEquals(ACCESSED, Arrays.asList("version", "version"));
+    assertTrue(pojomator.doEquals(entity, new Entity("entity", Arrays.asList("a", "b"), 1)));
+    assertFalse(pojomator.doEquals(entity, new Entity("other", tags, 1)));
+    assertEquals(pojomator.doToString(entity), "Entity{name: {entity}, tags: {[a, b]}, version: {1}}");
+  }
+
+  @Test
+  public void testRegeneratedPojomatorNotInstrumented() throws Exception {
+    AdaptivePojomator<Entity> pojomator = new AdaptivePojomator<>(Entity.class);
+    List<String> tags = Arrays.asList("a", "b");
+    Entity entity = new Entity("entity", tags, 1);
+    Entity newer = new Entity("entity", tags, 2);
+    for (int i = 0; i < 3 * AdaptivePojomator.CHECK_INTERVAL && !pojomator.isSettled(); i++) {
+      assertFalse(pojomator.doEquals(entity, newer));
+    }
+    pojomator.getRegeneration().get();
+
+    InvocationCounters counters = InvocationCounters.forClass(Entity.class, ClassProperties.forClass(Entity.class));
+    long equalsCount = counters.snapshot().getEqualsCount();
+    assertFalse(pojomator.doEquals(entity, newer));
+    assertEquals(counters.snapshot().getEqualsCount(), equalsCount);
+  }
+
+  @Test
+  public void testBestOrderRegeneratedWithoutInstrumentation() throws Exception {
+    AdaptivePojomator<VersionFirst> pojomator = new AdaptivePojomator<>(VersionFirst.class);
+    for (int i = 0; i < 3 * AdaptivePojomator.CHECK_INTERVAL && !pojomator.isSettled(); i++) {
+      assertFalse(pojomator.doEquals(new VersionFirst(1), new VersionFirst(2)));
+    }
+    assertTrue(pojomator.isSettled());
+    pojomator.getRegeneration().get();
+
+    InvocationCounters counters =
+      InvocationCounters.forClass(VersionFirst.class, ClassProperties.forClass(VersionFirst.class));
+    long equalsCount = counters.snapshot().getEqualsCount();
+    assertFalse(pojomator.doEquals(new VersionFirst(1), new VersionFirst(2)));
+    assertEquals(counters.snapshot().getEqualsCount(), equalsCount);
+  }
+
+  @Test
+  public void testSingleEqualsPropertyNotInstrumented() {
+    AdaptivePojomator<SingleProperty> pojomator = new AdaptivePojomator<>(SingleProperty.class);
+    assertTrue(pojomator.isSettled());
+    assertFalse(pojomator.doEquals(new SingleProperty(1), new SingleProperty(2)));
+    pojomator.doHashCode(new SingleProperty(1));
+    pojomator.doToString(new SingleProperty(1));
+    assertNull(pojomator.getRegeneration());
+
+    PojomatorInvocationCounts snapshot =
+      InvocationCounters.forClass(SingleProperty.class, ClassProperties.forClass(SingleProperty.class)).snapshot();
+    assertEquals(snapshot.getEqualsCount(), 0);
+    assertEquals(snapshot.getHashCodeCount(), 0);
+    assertEquals(snapshot.getToStringCount(), 0);
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertFalse(AdaptivePojomator.isEnabled());
+  }
+
+  private static List<String> names(List<PropertyElement> properties) {
+    List<String> names = new ArrayList<>();
+    for (PropertyElement property: properties) {
+      names.add(property.getName());
+    }
+    return names;
+  }
+}
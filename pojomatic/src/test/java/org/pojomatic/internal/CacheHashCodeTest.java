@@ -0,0 +1,238 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class CacheHashCodeTest {
+  /**
+   * A value whose hash code counts how often it is computed.
+   */
+  private static class Counted {
+    int hashCodeCalls;
+
+    @Override
+    public int hashCode() {
+      hashCodeCalls++;
+      return 7;
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  private static class Key {
+    private final int[] path;
+    private final List<String> names;
+    private final Counted counted;
+    private int hash;
+
+    Key(int[] path, List<String> names, Counted counted) {
+      this.path = path;
+      this.names = names;
+      this.counted = counted;
+    }
+  }
+
+  /**
+   * A value which counts how often it is compared for equality.
+   */
+  private static class CountedEquals {
+    private final int hashCode;
+    int equalsCalls;
+
+    CountedEquals(int hashCode) {
+      this.hashCode = hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      equalsCalls++;
+      return other instanceof CountedEquals && ((CountedEquals) other).hashCode == hashCode;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  private static class HashGated {
+    private final CountedEquals value;
+    private int hash;
+
+    HashGated(CountedEquals value) {
+      this.value = value;
+    }
+  }
+
+  @AutoProperty
+  private static class GatedParent {
+    private final String s;
+
+    GatedParent(String s) {
+      this.s = s;
+    }
+  }
+
+  @CacheHashCode
+  private static class GatedChild extends GatedParent {
+    private int hash;
+
+    GatedChild(String s) {
+      super(s);
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode(field = "cachedHashCode")
+  private static class NamedCacheField {
+    private final String s;
+    int cachedHashCode;
+
+    NamedCacheField(String s) {
+      this.s = s;
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  private static class ZeroHash {
+    private final int i = 0;
+    private final Counted counted;
+    private int hash;
+
+    ZeroHash(Counted counted) {
+      this.counted = counted;
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  private static class NoCacheField {
+    String s;
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  private static class FinalCacheField {
+    String s;
+    final int hash = 0;
+  }
+
+  @CacheHashCode
+  private static class AnnotatedCacheField {
+    @Property String s;
+    @Property int hash;
+  }
+
+  @Test(dataProvider = "definers", dataProviderClass = ClassDefinerProviders.class)
+  public void testEqualsComparesCachedHashCodes(ClassDefiner definer) throws Exception {
+    Pojomator<HashGated> pojomator = PojomatorFactory.makePojomator(HashGated.class, definer);
+    CountedEquals value = new CountedEquals(1);
+    HashGated pojo = new HashGated(value);
+    HashGated different = new HashGated(new CountedEquals(2));
+    HashGated equal = new HashGated(new CountedEquals(1));
+
+    // until both hash codes are cached, properties are compared
+    assertFalse(pojomator.doEquals(pojo, different));
+    assertEquals(value.equalsCalls, 1);
+    pojomator.doHashCode(pojo);
+    assertFalse(pojomator.doEquals(pojo, different));
+    assertEquals(value.equalsCalls, 2);
+
+    pojomator.doHashCode(different);
+    pojomator.doHashCode(equal);
+    assertFalse(pojomator.doEquals(pojo, different));
+    assertEquals(value.equalsCalls, 2);
+    assertTrue(pojomator.doEquals(pojo, equal));
+    assertEquals(value.equalsCalls, 3);
+
+    // a pojo compatible for equality need not have the cache field
+    Pojomator<GatedChild> childPojomator = PojomatorFactory.makePojomator(GatedChild.class, definer);
+    GatedChild child = new GatedChild("s");
+    childPojomator.doHashCode(child);
+    assertTrue(childPojomator.doEquals(child, new GatedParent("s")));
+    assertFalse(childPojomator.doEquals(child, new GatedParent("t")));
+  }
+
+  @Test(dataProvider = "definers", dataProviderClass = ClassDefinerProviders.class)
+  public void testCachesHashCode(ClassDefiner definer) throws Exception {
+    Pojomator<Key> pojomator = PojomatorFactory.makePojomator(Key.class, definer);
+    Counted counted = new Counted();
+    Key key = new Key(new int[] { 1, 2 }, Arrays.asList("a", "b"), counted);
+    int expectedHashCode =
+      new ReflectionPojomator<>(Key.class, ClassProperties.forClass(Key.class)).doHashCode(key);
+    counted.hashCodeCalls = 0;
+    int hashCode = pojomator.doHashCode(key);
+    assertEquals(hashCode, expectedHashCode);
+    assertEquals(key.hash, hashCode);
+    assertEquals(pojomator.doHashCode(key), hashCode);
+    assertEquals(counted.hashCodeCalls, 1);
+
+    // the cache field is not a property
+    assertEquals(pojomator.doToString(key), "Key{path: {[1, 2]}, names: {[a, b]}, counted: {" + counted + "}}");
+    Key other = new Key(new int[] { 1, 2 }, Arrays.asList("a", "b"), counted);
+    pojomator.doHashCode(other);
+    assertTrue(pojomator.doEquals(key, other));
+  }
+
+  @Test
+  public void testNamedCacheField() {
+    NamedCacheField pojo = new NamedCacheField("s");
+    int hashCode = PojomatorFactory.makePojomator(NamedCacheField.class).doHashCode(pojo);
+    assertEquals(hashCode, 31 + "s".hashCode());
+    assertEquals(pojo.cachedHashCode, hashCode);
+  }
+
+  @Test
+  public void testZeroHashCodeIsRecomputed() {
+    Counted counted = new Counted() {
+      @Override
+      public int hashCode() {
+        super.hashCode();
+        // 31 * (31 * 1 + 0) + x == 0
+        return -31 * 31;
+      }
+    };
+    ZeroHash pojo = new ZeroHash(counted);
+    Pojomator<ZeroHash> pojomator = PojomatorFactory.makePojomator(ZeroHash.class);
+    assertEquals(pojomator.doHashCode(pojo), 0);
+    assertEquals(pojomator.doHashCode(pojo), 0);
+    assertEquals(counted.hashCodeCalls, 2);
+  }
+
+  @Test
+  public void testInvalidCacheFields() {
+    for (Class<?> pojoClass: Arrays.<Class<?>>asList(NoCacheField.class, FinalCacheField.class)) {
+      try {
+        ClassProperties.forClass(pojoClass);
+        fail("exception expected");
+      }
+      catch (IllegalArgumentException e) {
+        assertEquals(
+          e.getMessage(),
+          "Class " + pojoClass.getName()
+          + " is annotated with @CacheHashCode, but does not declare a non-static, non-final int field named hash");
+      }
+    }
+    try {
+      ClassProperties.forClass(AnnotatedCacheField.class);
+      fail("exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals(
+        e.getMessage(),
+        "Field " + AnnotatedCacheField.class.getName()
+        + ".hash is used to cache the hash code, but is annotated with @Property");
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.pojomatic.annotations.CacheToString;
+import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
+import org.pojomatic.formatter.StatelessPojoFormatter;
+import org.testng.annotations.Test;
+
+public class CacheToStringTest {
+  /**
+   * A value whose string representation counts how often it is computed.
+   */
+  private static class Counted {
+    int toStringCalls;
+
+    @Override
+    public String toString() {
+      toStringCalls++;
+      return "counted";
+    }
+  }
+
+  @AutoProperty
+  @CacheToString
+  private static class Address {
+    private final String street;
+    private final int[] lines;
+    private final Counted counted;
+    private String toString;
+
+    Address(String street, int[] lines, Counted counted) {
+      this.street = street;
+      this.lines = lines;
+      this.counted = counted;
+    }
+  }
+
+  @AutoProperty
+  @CacheToString(field = "cachedString")
+  @CacheHashCode
+  private static class NamedCacheFields {
+    private final String s;
+    String cachedString;
+    int hash;
+
+    NamedCacheFields(String s) {
+      this.s = s;
+    }
+  }
+
+  public static class StatelessFormatter extends DefaultEnhancedPojoFormatter implements StatelessPojoFormatter {
+    @Override
+    public void appendToStringPrefix(StringBuilder builder, Class<?> pojoClass) {
+      builder.append("<");
+    }
+
+    @Override
+    public void appendToStringSuffix(StringBuilder builder, Class<?> pojoClass) {
+      builder.append(">");
+    }
+  }
+
+  @AutoProperty
+  @CacheToString
+  @PojoFormat(StatelessFormatter.class)
+  private static class StatelesslyFormatted {
+    private final String s;
+    private String toString;
+
+    StatelesslyFormatted(String s) {
+      this.s = s;
+    }
+  }
+
+  public static class StatefulFormatter extends DefaultEnhancedPojoFormatter {}
+
+  @AutoProperty
+  @CacheToString
+  @PojoFormat(StatefulFormatter.class)
+  private static class StatefullyFormatted {
+    String s;
+    String toString;
+  }
+
+  @AutoProperty
+  @CacheToString
+  private static class NoCacheField {
+    String s;
+  }
+
+  @AutoProperty
+  @CacheToString
+  private static class WrongTypeCacheField {
+    String s;
+    Object toString;
+  }
+
+  @CacheToString
+  private static class AnnotatedCacheField {
+    @Property String s;
+    @Property String toString;
+  }
+
+  @Test(dataProvider = "definers", dataProviderClass = ClassDefinerProviders.class)
+  public void testCachesToString(ClassDefiner definer) throws Exception {
+    Pojomator<Address> pojomator = PojomatorFactory.makePojomator(Address.class, definer);
+    Counted counted = new Counted();
+    Address address = new Address("Main", new int[] { 1, 2 }, counted);
+    String expected = "Address{street: {Main}, lines: {[1, 2]}, counted: {counted}}";
+    String string = pojomator.doToString(address);
+    assertEquals(string, expected);
+    assertSame(address.toString, string);
+    assertSame(pojomator.doToString(address), string);
+    assertEquals(counted.toStringCalls, 1);
+
+    // doAppendTo does not use the cache
+    StringBuilder builder = new StringBuilder();
+    pojomator.doAppendTo(address, builder);
+    assertEquals(builder.toString(), expected);
+    assertEquals(counted.toStringCalls, 2);
+
+    // the cache field is not a property
+    Address other = new Address("Main", new int[] { 1, 2 }, counted);
+    pojomator.doToString(other);
+    assertTrue(pojomator.doEquals(address, other));
+    assertEquals(pojomator.doHashCode(address), pojomator.doHashCode(other));
+  }
+
+  @Test
+  public void testNamedCacheFields() {
+    NamedCacheFields pojo = new NamedCacheFields("s");
+    Pojomator<NamedCacheFields> pojomator = PojomatorFactory.makePojomator(NamedCacheFields.class);
+    String string = pojomator.doToString(pojo);
+    assertEquals(string, "NamedCacheFields{s: {s}}");
+    assertSame(pojo.cachedString, string);
+    int hashCode = pojomator.doHashCode(pojo);
+    assertEquals(hashCode, 31 + "s".hashCode());
+    assertEquals(pojo.hash, hashCode);
+    assertSame(pojomator.doToString(pojo), string);
+  }
+
+  @Test
+  public void testStatelessPojoFormatter() {
+    StatelesslyFormatted pojo = new StatelesslyFormatted("s");
+    String string = PojomatorFactory.makePojomator(StatelesslyFormatted.class).doToString(pojo);
+    assertEquals(string, "<s: {s}>");
+    assertSame(pojo.toString, string);
+  }
+
+  @Test
+  public void testStatefulPojoFormatter() {
+    try {
+      ClassProperties.forClass(StatefullyFormatted.class);
+      fail("exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals(
+        e.getMessage(),
+        "Class " + StatefullyFormatted.class.getName() + " is annotated with @CacheToString, but its pojo formatter "
+        + StatefulFormatter.class.getName() + " does not implement " + StatelessPojoFormatter.class.getName());
+    }
+  }
+
+  @Test
+  public void testInvalidCacheFields() {
+    for (Class<?> pojoClass: Arrays.<Class<?>>asList(NoCacheField.class, WrongTypeCacheField.class)) {
+      try {
+        ClassProperties.forClass(pojoClass);
+        fail("exception expected");
+      }
+      catch (IllegalArgumentException e) {
+        assertEquals(
+          e.getMessage(),
+          "Class " + pojoClass.getName()
+          + " is annotated with @CacheToString, but does not declare a non-static, non-final java.lang.String field"
+          + " named toString");
+      }
+    }
+    try {
+      ClassProperties.forClass(AnnotatedCacheField.class);
+      fail("exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals(
+        e.getMessage(),
+        "Field " + AnnotatedCacheField.class.getName()
+        + ".toString is used to cache the result of toString, but is annotated with @Property");
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.pojomatic.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+
+public class ClassDefinerProviders {
+  /**
+   * The class definers with which pojomators can be generated: the default definer, which defines pojomators as hidden
+   * nestmates of their pojo class where it can; one defining them in a class loader; and one defining them as hidden
+   * classes, where supported, without nestmate access.
+   * @return the definers
+   */
+  @DataProvider(name = "definers")
+  public static Object[][] definers() {
+    return new Object[][] {
+      { ClassDefinerFactory.getDefiner() },
+      { new ClassLoaderClassDefiner() },
+      { new NoNestmateClassDefiner(ClassDefinerFactory.getDefiner()) }
+    };
+  }
+
+  /**
+   * A definer which delegates to another, but never defines pojomators as nestmates of their pojo class.
+   */
+  static class NoNestmateClassDefiner implements ClassDefiner {
+    private final ClassDefiner delegate;
+
+    NoNestmateClassDefiner(ClassDefiner delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Class<?> defineClass(Class<?> pojoClass, String className, byte[] classBytes)
+      throws IllegalAccessException {
+      return delegate.defineClass(pojoClass, className, classBytes);
+    }
+
+    @Override
+    public boolean supportsHiddenClasses() {
+      return delegate.supportsHiddenClasses();
+    }
+
+    @Override
+    public Class<?> defineHiddenClass(byte[] classBytes, List<?> classData) throws IllegalAccessException {
+      return delegate.defineHiddenClass(classBytes, classData);
+    }
+
+    @Override
+    public MethodHandles.Lookup nestmateLookup(Class<?> pojoClass) {
+      return null;
+    }
+
+    @Override
+    public Class<?> defineHiddenNestmate(MethodHandles.Lookup nestmateLookup, byte[] classBytes, List<?> classData) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString() {
+      return "NoNestmateClassDefiner(" + delegate.getClass().getSimpleName() + ")";
+    }
+  }
+}
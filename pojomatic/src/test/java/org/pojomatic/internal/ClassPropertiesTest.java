@@ -268,6 +268,31 @@ public class ClassPropertiesTest {
     }
   }
 
+  @Test public void testEqualsComparisonOrder() throws Exception {
+    assertEquals(
+      ClassProperties.forClass(CostOrdered.class).getEqualsComparisonOrder(),
+      Arrays.asList(
+        TestUtils.field(CostOrdered.class, "hinted"),
+        TestUtils.field(CostOrdered.class, "i"),
+        TestUtils.field(CostOrdered.class, "policy"),
+        TestUtils.field(CostOrdered.class, "s"),
+        TestUtils.field(CostOrdered.class, "l"),
+        TestUtils.field(CostOrdered.class, "thread"),
+        TestUtils.field(CostOrdered.class, "list"),
+        TestUtils.field(CostOrdered.class, "array"),
+        TestUtils.field(CostOrdered.class, "object")));
+    assertEquals(
+      ClassProperties.forClass(CostOrdered.class).getHashCodeProperties(),
+      ClassProperties.forClass(CostOrdered.class).getEqualsProperties());
+
+    class DeclarationOrdered {
+      @Property List<String> list;
+      @Property int i;
+    }
+    ClassProperties classProperties = ClassProperties.forClass(DeclarationOrdered.class);
+    assertEquals(classProperties.getEqualsComparisonOrder(), classProperties.getEqualsProperties());
+  }
+
   @Test public void testInterface() throws Exception {
     ClassProperties classProperties = ClassProperties.forClass(Interface.class);
     PropertyElement getFoo = TestUtils.method(Interface.class, "getFoo");
@@ -449,6 +474,19 @@ public class ClassPropertiesTest {
     @Property(policy=PojomaticPolicy.EQUALS) int baz();
   }
 
+  @AutoProperty(equalsOrder = EqualsOrder.COST)
+  public static class CostOrdered {
+    @Property List<String> list;
+    @Property String s;
+    @Property int[] array;
+    @Property Long l;
+    @Property Thread thread;
+    @Property Object object;
+    @Property(equalsCost = 0) StringBuilder hinted;
+    @Property int i;
+    @Property DefaultPojomaticPolicy policy;
+  }
+
   public static class StaticField {
     @Property public static int a;
   }
@@ -0,0 +1,13 @@
+package org.pojomatic.internal;
+
+import org.pojomatic.annotations.Property;
+
+public class DecoyPojo {
+  /**
+   * Set when {@link DecoyPojo_Pojomator} is initialized.
+   */
+  static boolean decoyInitialized;
+
+  @Property
+  int i;
+}
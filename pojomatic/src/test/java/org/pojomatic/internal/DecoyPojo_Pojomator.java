@@ -0,0 +1,10 @@
+package org.pojomatic.internal;
+
+/**
+ * A class which has the name of a generated pojomator for {@link DecoyPojo}, but is not one.
+ */
+public class DecoyPojo_Pojomator {
+  static {
+    DecoyPojo.decoyInitialized = true;
+  }
+}
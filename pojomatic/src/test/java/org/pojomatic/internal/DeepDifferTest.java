@@ -0,0 +1,169 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.diff.Difference;
+import org.pojomatic.diff.NoDifferences;
+import org.pojomatic.diff.ValueDifference;
+import org.testng.annotations.Test;
+
+public class DeepDifferTest {
+
+  @Test public void testNoDifferences() {
+    assertSame(Pojomatic.deepDiff(order("10001", 3), order("10001", 3)), NoDifferences.getInstance());
+  }
+
+  @Test public void testNestedPojo() {
+    assertEquals(
+      Pojomatic.deepDiff(order("10001", 3), order("10002", 3)).differences(),
+      Arrays.<Difference>asList(new ValueDifference("customer.address.zip", "10001", "10002")));
+  }
+
+  @Test public void testListElement() {
+    assertEquals(
+      Pojomatic.deepDiff(order("10001", 3), order("10001", 4)).differences(),
+      Arrays.<Difference>asList(new ValueDifference("lines[1].quantity", 3, 4)));
+  }
+
+  @Test public void testListOfDifferentSizes() {
+    Order order = order("10001", 3);
+    Order longer = order("10001", 3);
+    longer.lines = Arrays.asList(new Line(1), new Line(3), new Line(5));
+    assertEquals(
+      Pojomatic.deepDiff(order, longer).differences(),
+      Arrays.<Difference>asList(new ValueDifference("lines[2]", null, new Line(5))));
+  }
+
+  @Test public void testMapEntries() {
+    Order order = order("10001", 3);
+    Order other = order("10001", 3);
+    order.prices.put("EUR", 1);
+    other.prices.put("USD", 2);
+    other.prices.put("EUR", 3);
+    other.prices.put("GBP", 4);
+    assertEquals(
+      Pojomatic.deepDiff(order, other).differences(),
+      Arrays.<Difference>asList(
+        new ValueDifference("prices[USD]", 1, 2),
+        new ValueDifference("prices[EUR]", 1, 3),
+        new ValueDifference("prices[GBP]", null, 4)));
+  }
+
+  @Test public void testNullListElementAgainstMissingElement() {
+    Order order = order("10001", 3);
+    Order other = order("10001", 3);
+    order.lines = Arrays.asList((Line) null);
+    other.lines = Collections.emptyList();
+    assertEquals(
+      Pojomatic.deepDiff(order, other).differences(),
+      Arrays.<Difference>asList(new ValueDifference("lines[0]", null, null)));
+  }
+
+  @Test public void testNullMapValueAgainstMissingKey() {
+    Order order = order("10001", 3);
+    Order other = order("10001", 3);
+    order.prices.put("EUR", null);
+    assertEquals(
+      Pojomatic.deepDiff(order, other).differences(),
+      Arrays.<Difference>asList(new ValueDifference("prices[EUR]", null, null)));
+    assertEquals(
+      Pojomatic.deepDiff(other, order).differences(),
+      Arrays.<Difference>asList(new ValueDifference("prices[EUR]", null, null)));
+  }
+
+  @Test public void testArrayElement() {
+    Order order = order("10001", 3);
+    Order other = order("10001", 3);
+    other.tags = new String[] { "a", "c" };
+    assertEquals(
+      Pojomatic.deepDiff(order, other).differences(),
+      Arrays.<Difference>asList(new ValueDifference("tags[1]", "b", "c")));
+  }
+
+  @Test public void testNullNestedPojo() {
+    Order order = order("10001", 3);
+    Order other = order("10001", 3);
+    other.customer = null;
+    assertEquals(
+      Pojomatic.deepDiff(order, other).differences(),
+      Arrays.<Difference>asList(new ValueDifference("customer", order.customer, null)));
+  }
+
+  @Test public void testIncompatibleNestedPojos() {
+    Order order = order("10001", 3);
+    Order other = order("10001", 3);
+    other.customer = new Customer("Bob", new OtherAddress("10001"));
+    assertEquals(
+      Pojomatic.deepDiff(order, other).differences(),
+      Arrays.<Difference>asList(new ValueDifference("customer.address", order.customer.address, other.customer.address)));
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullOther() {
+    Pojomatic.deepDiff(order("10001", 3), null);
+  }
+
+  private static Order order(String zip, int quantity) {
+    Order order = new Order();
+    order.customer = new Customer("Bob", new Address(zip));
+    order.lines = Arrays.asList(new Line(1), new Line(quantity));
+    order.prices = new LinkedHashMap<>(Collections.singletonMap("USD", 1));
+    order.tags = new String[] { "a", "b" };
+    return order;
+  }
+
+  private static class Order {
+    @Property Customer customer;
+    @Property List<Line> lines;
+    @Property Map<String, Integer> prices;
+    @Property String[] tags;
+  }
+
+  private static class Customer {
+    Customer(String name, Object address) {
+      this.name = name;
+      this.address = address;
+    }
+    @Property String name;
+    @Property Object address;
+  }
+
+  private static class Address {
+    Address(String zip) {
+      this.zip = zip;
+    }
+    @Property String zip;
+  }
+
+  private static class OtherAddress {
+    OtherAddress(String zip) {
+      this.zip = zip;
+    }
+    @Property String zip;
+  }
+
+  private static class Line {
+    Line(int quantity) {
+      this.quantity = quantity;
+    }
+    @Property int quantity;
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+}
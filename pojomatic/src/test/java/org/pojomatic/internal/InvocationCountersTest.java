@@ -0,0 +1,161 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.PojomatorInvocationCounts;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.internal.factory.PojoDescriptor;
+import org.pojomatic.internal.factory.PojoFactory;
+import org.pojomatic.internal.factory.PropertyDescriptor;
+import org.testng.annotations.Test;
+
+public class InvocationCountersTest {
+  private static final int PROPERTY_COUNT = 60;
+
+  private static class Pojo {
+    @Property final int x;
+    @Property final String s;
+
+    Pojo(int x, String s) {
+      this.x = x;
+      this.s = s;
+    }
+  }
+
+  private static class LoaderPojo {
+    @Property int x;
+  }
+
+  private static class Other {
+    @Property int x;
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertFalse(InvocationCounters.isEnabled());
+    assertTrue(Pojomatic.invocationCounts().isEmpty());
+  }
+
+  @Test
+  public void testNoCountingCodeWhenDisabled() throws Exception {
+    class Plain {
+      @Property int x;
+    }
+    ClassProperties classProperties = ClassProperties.forClass(Plain.class);
+    byte[] classBytes = new PojomatorByteCodeGenerator(
+      Plain.class, classProperties, false, null, classProperties.getEqualsComparisonOrder(), false,
+      NestedPojoInlining.DEFAULT_INLINE_DEPTH).makeClassBytes();
+    assertFalse(new String(classBytes, StandardCharsets.ISO_8859_1).contains("equalsCalled"));
+  }
+
+  @Test
+  public void testCounts() {
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class, true);
+    Pojo pojo = new Pojo(1, "a");
+    assertTrue(pojomator.doEquals(pojo, pojo));
+    assertFalse(pojomator.doEquals(pojo, null));
+    assertFalse(pojomator.doEquals(pojo, new Other()));
+    assertFalse(pojomator.doEquals(pojo, new Pojo(2, "a")));
+    assertFalse(pojomator.doEquals(pojo, new Pojo(1, "b")));
+    assertFalse(pojomator.doEquals(pojo, new Pojo(1, "c")));
+    assertTrue(pojomator.doEquals(pojo, new Pojo(1, "a")));
+    pojomator.doHashCode(pojo);
+    assertEquals(pojomator.doToString(pojo), "Pojo{x: {1}, s: {a}}");
+
+    PojomatorInvocationCounts counts = countsFor(Pojo.class);
+    assertEquals(counts.getEqualsCount(), 7L);
+    assertEquals(counts.getSameInstanceCount(), 1L);
+    assertEquals(counts.getTypeMismatchCount(), 2L);
+    Map<String, Long> firstDifferences = new LinkedHashMap<>();
+    firstDifferences.put("x", 1L);
+    firstDifferences.put("s", 2L);
+    assertEquals(counts.getFirstDifferenceCounts(), firstDifferences);
+    assertEquals(counts.getFullComparisonCount(), 1L);
+    assertEquals(counts.getHashCodeCount(), 1L);
+    assertEquals(counts.getToStringCount(), 1L);
+    assertEquals(counts.getCallCount(), 9L);
+  }
+
+  @Test
+  public void testCountsWithClassLoaderDefiner() {
+    Pojomator<LoaderPojo> pojomator =
+      PojomatorFactory.makePojomator(LoaderPojo.class, new ClassLoaderClassDefiner(), true);
+    LoaderPojo pojo = new LoaderPojo();
+    LoaderPojo other = new LoaderPojo();
+    other.x = 1;
+    assertFalse(pojomator.doEquals(pojo, other));
+    assertFalse(pojomator.doEquals(pojo, null));
+    PojomatorInvocationCounts counts = countsFor(LoaderPojo.class);
+    assertEquals(counts.getEqualsCount(), 2L);
+    assertEquals(counts.getTypeMismatchCount(), 1L);
+    assertEquals(counts.getFirstDifferenceCounts().get("x"), Long.valueOf(1));
+  }
+
+  @Test
+  public void testCountsInSplitEquals() {
+    PropertyDescriptor[] properties = new PropertyDescriptor[PROPERTY_COUNT];
+    for (int i = 0; i < PROPERTY_COUNT; i++) {
+      properties[i] = new PropertyDescriptor(int.class).withName("p" + i);
+    }
+    PojoFactory pojoFactory = new PojoFactory(new PojoDescriptor(properties));
+    @SuppressWarnings("unchecked")
+    Pojomator<Object> pojomator = PojomatorFactory.makePojomator((Class<Object>) pojoFactory.pojoClass(), true);
+    Object pojo = pojoFactory.create().pojo();
+    Object other = pojoFactory.create().with("p" + (PROPERTY_COUNT - 1), 1).pojo();
+    assertFalse(pojomator.doEquals(pojo, other));
+    assertTrue(pojomator.doEquals(pojo, pojoFactory.create().pojo()));
+
+    PojomatorInvocationCounts counts = countsFor(pojoFactory.pojoClass());
+    assertEquals(counts.getEqualsCount(), 2L);
+    assertEquals(counts.getFirstDifferenceCounts().size(), PROPERTY_COUNT);
+    assertEquals(counts.getFirstDifferenceCounts().get("p" + (PROPERTY_COUNT - 1)), Long.valueOf(1));
+    assertEquals(counts.getFullComparisonCount(), 1L);
+  }
+
+  @Test
+  public void testHottestFirst() {
+    class Cold {
+      @Property int x;
+    }
+    class Hot {
+      @Property int x;
+    }
+    PojomatorFactory.makePojomator(Cold.class, true).doHashCode(new Cold());
+    Pojomator<Hot> hot = PojomatorFactory.makePojomator(Hot.class, true);
+    for (int i = 0; i < 1000; i++) {
+      hot.doHashCode(new Hot());
+    }
+    int coldIndex = -1;
+    int hotIndex = -1;
+    int index = 0;
+    long previousCallCount = Long.MAX_VALUE;
+    for (PojomatorInvocationCounts counts: InvocationCounters.report()) {
+      assertTrue(counts.getCallCount() <= previousCallCount);
+      previousCallCount = counts.getCallCount();
+      if (counts.getPojoClassName().equals(Cold.class.getName())) {
+        coldIndex = index;
+      }
+      else if (counts.getPojoClassName().equals(Hot.class.getName())) {
+        hotIndex = index;
+      }
+      index++;
+    }
+    assertTrue(hotIndex >= 0);
+    assertTrue(hotIndex < coldIndex);
+  }
+
+  private static PojomatorInvocationCounts countsFor(Class<?> pojoClass) {
+    for (PojomatorInvocationCounts counts: InvocationCounters.report()) {
+      if (counts.getPojoClassName().equals(pojoClass.getName())) {
+        return counts;
+      }
+    }
+    throw new AssertionError("no counts for " + pojoClass.getName());
+  }
+}
@@ -0,0 +1,233 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.testng.annotations.Test;
+
+public class NestedPojoInliningTest {
+  @AutoProperty
+  private static final class Money {
+    private final long amount;
+    private final String currency;
+
+    Money(long amount, String currency) {
+      this.amount = amount;
+      this.currency = currency;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  @AutoProperty
+  private static final class Line {
+    private final String sku;
+    private final Money price;
+    private final double[] dimensions;
+
+    Line(String sku, Money price, double... dimensions) {
+      this.sku = sku;
+      this.price = price;
+      this.dimensions = dimensions;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  @AutoProperty
+  private static class Order {
+    private final Line line;
+    private final Money total;
+    private final Line nextLine;
+
+    Order(Line line, Money total, Line nextLine) {
+      this.line = line;
+      this.total = total;
+      this.nextLine = nextLine;
+    }
+  }
+
+  @AutoProperty
+  private static class NotFinal {
+    private final String s = "";
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  @AutoProperty
+  private static final class CustomEquals {
+    private final String s = "";
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CustomEquals;
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  private static final class CachedHashCode {
+    private final String s = "";
+    private int hash;
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  private static final class NoProperties {
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  @Test
+  public void testIsInlinable() {
+    assertTrue(NestedPojoInlining.isInlinable(Money.class));
+    assertTrue(NestedPojoInlining.isInlinable(Line.class));
+    assertFalse(NestedPojoInlining.isInlinable(Order.class));
+    assertFalse(NestedPojoInlining.isInlinable(NotFinal.class));
+    assertFalse(NestedPojoInlining.isInlinable(CustomEquals.class));
+    assertFalse(NestedPojoInlining.isInlinable(CachedHashCode.class));
+    assertFalse(NestedPojoInlining.isInlinable(NoProperties.class));
+    assertFalse(NestedPojoInlining.isInlinable(String.class));
+    assertFalse(NestedPojoInlining.isInlinable(int.class));
+    assertFalse(NestedPojoInlining.isInlinable(Money[].class));
+  }
+
+  @Test(dataProvider = "definers", dataProviderClass = ClassDefinerProviders.class)
+  public void testInlinedComparisons(ClassDefiner definer) throws Exception {
+    Pojomator<Order> pojomator = PojomatorFactory.makePojomator(Order.class, definer);
+    Pojomator<Order> reflectionPojomator =
+      new ReflectionPojomator<>(Order.class, ClassProperties.forClass(Order.class));
+    // Line and Money are each inlined once, although Line is the type of two properties
+    assertInlined(pojomator, 2);
+
+    Money money = new Money(100, "USD");
+    Line line = new Line("a", money, 1.0, 2.0);
+    List<Order> orders = Arrays.asList(
+      new Order(line, money, null),
+      new Order(line, money, null),
+      new Order(new Line("a", new Money(100, "USD"), 1.0, 2.0), new Money(100, "USD"), null),
+      new Order(new Line("a", new Money(100, "EUR"), 1.0, 2.0), money, null),
+      new Order(new Line("a", new Money(101, "USD"), 1.0, 2.0), money, null),
+      new Order(new Line("a", null, 1.0, 2.0), money, null),
+      new Order(new Line("a", money, 1.0, 3.0), money, null),
+      new Order(new Line(null, new Money(0, null)), null, line),
+      new Order(new Line(null, new Money(0, null)), null, line),
+      new Order(null, null, null));
+    for (Order order: orders) {
+      assertEquals(pojomator.doHashCode(order), reflectionPojomator.doHashCode(order));
+      for (Order other: orders) {
+        assertEquals(
+          pojomator.doEquals(order, other),
+          reflectionPojomator.doEquals(order, other),
+          reflectionPojomator.doToString(order) + " vs " + reflectionPojomator.doToString(other));
+      }
+    }
+    assertTrue(pojomator.doEquals(orders.get(0), orders.get(2)));
+    assertFalse(pojomator.doEquals(orders.get(0), orders.get(3)));
+    assertTrue(pojomator.doEquals(orders.get(7), orders.get(8)));
+
+    assertTrue(pojomator.doDiff(orders.get(0), orders.get(2)).areEqual());
+    assertEquals(
+      pojomator.doDiff(orders.get(0), orders.get(4)).toString(),
+      reflectionPojomator.doDiff(orders.get(0), orders.get(4)).toString());
+  }
+
+  @Test
+  public void testInlineDepth() throws Exception {
+    // the types of Order's properties are inlined, but not the types of their properties
+    assertGeneratedInlined(Order.class, 1, 2);
+    assertGeneratedInlined(Line.class, 1, 1);
+    assertGeneratedInlined(Order.class, 0, 0);
+  }
+
+  @Test
+  public void testInlineDepthProperty() {
+    assertEquals(NestedPojoInlining.toInlineDepth(null), NestedPojoInlining.DEFAULT_INLINE_DEPTH);
+    assertEquals(NestedPojoInlining.toInlineDepth(1), 1);
+    assertEquals(NestedPojoInlining.toInlineDepth(-1), 0);
+  }
+
+  /**
+   * Check how many types have had their comparisons inlined into a generated pojomator.
+   */
+  private static void assertInlined(Pojomator<?> pojomator, int inlinedTypes) throws Exception {
+    for (int i = 0; i < inlinedTypes; i++) {
+      pojomator.getClass().getDeclaredMethod("inlinedEquals_" + i, Object.class, Object.class);
+      pojomator.getClass().getDeclaredMethod("inlinedHashCode_" + i, Object.class);
+    }
+    try {
+      pojomator.getClass().getDeclaredMethod("inlinedEquals_" + inlinedTypes, Object.class, Object.class);
+      fail("only " + inlinedTypes + " types should be inlined");
+    }
+    catch (NoSuchMethodException expected) {}
+  }
+
+  /**
+   * Check how many types have had their comparisons inlined into a pojomator generated with a given inline depth.
+   */
+  private static void assertGeneratedInlined(Class<?> pojoClass, int inlineDepth, int inlinedTypes) throws Exception {
+    ClassProperties classProperties = ClassProperties.forClass(pojoClass);
+    String classBytes = new String(
+      new PojomatorByteCodeGenerator(
+        pojoClass, classProperties, false, null, classProperties.getEqualsComparisonOrder(), false, inlineDepth)
+        .makeClassBytes(),
+      StandardCharsets.ISO_8859_1);
+    for (int i = 0; i < inlinedTypes; i++) {
+      assertTrue(classBytes.contains("inlinedEquals_" + i), "inlinedEquals_" + i);
+      assertTrue(classBytes.contains("inlinedHashCode_" + i), "inlinedHashCode_" + i);
+    }
+    assertFalse(
+      classBytes.contains("inlinedEquals_" + inlinedTypes), "only " + inlinedTypes + " types should be inlined");
+  }
+}
@@ -0,0 +1,141 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.TestUtils;
+import org.pojomatic.internal.factory.PojoDescriptor;
+import org.pojomatic.internal.factory.PojoFactory;
+import org.pojomatic.internal.factory.PropertyDescriptor;
+import org.testng.annotations.Test;
+
+public class PojomatorByteCodeGeneratorTest {
+  private static final int PROPERTY_COUNT = 60;
+
+  @Test(dataProvider = "types", dataProviderClass = TypeProviders.class)
+  public void testLargeMethodsAreSplit(Type type) throws Exception {
+    PojoFactory pojoFactory = largePojoFactory(type);
+    Map<String, Integer> codeSizes = codeSizes(pojoFactory.pojoClass());
+    for (String method: new String[] { "doEquals", "doHashCode", "doAppendTo", "doDiff", "doCompare" }) {
+      assertTrue(codeSizes.containsKey(PojomatorByteCodeGenerator.helperName(method, 1)), method);
+    }
+    for (Map.Entry<String, Integer> entry: codeSizes.entrySet()) {
+      assertTrue(
+        entry.getValue() <= PojomatorByteCodeGenerator.MAX_METHOD_BYTE_CODE_SIZE,
+        entry.getKey() + " has " + entry.getValue() + " bytes of byte code");
+    }
+  }
+
+  @Test(dataProvider = "types", dataProviderClass = TypeProviders.class)
+  public void testSplitMethodBehavior(Type type) throws Exception {
+    PojoFactory pojoFactory = largePojoFactory(type);
+    Pojomator<Object> pojomator = pojoFactory.pojomator();
+    @SuppressWarnings("unchecked")
+    Class<Object> pojoClass = (Class<Object>) pojoFactory.pojoClass();
+    Pojomator<Object> expected = new ReflectionPojomator<>(pojoClass, ClassProperties.forClass(pojoClass));
+
+    List<Object> sampleValues = type.getSampleValues();
+    List<Object> pojos = new ArrayList<>();
+    for (int shift = 0; shift < sampleValues.size(); shift++) {
+      PojoFactory.PojoAssembler assembler = pojoFactory.create();
+      for (int i = 0; i < PROPERTY_COUNT; i++) {
+        assembler.with(propertyName(i), sampleValues.get((i + shift) % sampleValues.size()));
+      }
+      pojos.add(assembler.pojo());
+    }
+    // only the last property differs from the first pojo
+    PojoFactory.PojoAssembler assembler = pojoFactory.create();
+    for (int i = 0; i < PROPERTY_COUNT; i++) {
+      assembler.with(
+        propertyName(i), sampleValues.get((i + (i == PROPERTY_COUNT - 1 ? 1 : 0)) % sampleValues.size()));
+    }
+    pojos.add(assembler.pojo());
+
+    for (Object pojo: pojos) {
+      assertEquals(pojomator.doHashCode(pojo), expected.doHashCode(pojo));
+      assertEquals(pojomator.doToString(pojo), expected.doToString(pojo));
+      for (Object other: pojos) {
+        assertEquals(pojomator.doEquals(pojo, other), expected.doEquals(pojo, other));
+        assertEquals(pojomator.doDiff(pojo, other), expected.doDiff(pojo, other));
+        assertEquals(TestUtils.compareResult(pojomator, pojo, other), TestUtils.compareResult(expected, pojo, other));
+      }
+    }
+  }
+
+  @Test
+  public void testSmallMethodsAreNotSplit() throws Exception {
+    PojoFactory pojoFactory = new PojoFactory(new PojoDescriptor(
+      new PropertyDescriptor(int.class).withName("x"), new PropertyDescriptor(String.class).withName("y")));
+    for (String method: codeSizes(pojoFactory.pojoClass()).keySet()) {
+      assertFalse(method.matches("do.*_\\d+"), method);
+    }
+  }
+
+  @Test
+  public void testGroupProperties() {
+    List<PropertyElement> properties = new ArrayList<>(ClassProperties.forClass(
+      largePojoFactory(BaseType.INT).pojoClass()).getAllProperties());
+    List<List<PropertyElement>> groups = PojomatorByteCodeGenerator.groupProperties(properties, 100);
+    assertEquals(groups.size(), PROPERTY_COUNT / 2); // 2 properties per group
+    int count = 0;
+    for (List<PropertyElement> group: groups) {
+      assertFalse(group.isEmpty());
+      assertTrue(group.size() <= 2);
+      count += group.size();
+    }
+    assertEquals(count, PROPERTY_COUNT);
+    assertTrue(PojomatorByteCodeGenerator.groupProperties(new ArrayList<PropertyElement>(), 20).isEmpty());
+    // a property which alone exceeds the limit still gets a group
+    assertEquals(PojomatorByteCodeGenerator.groupProperties(properties, 1000).size(), PROPERTY_COUNT);
+  }
+
+  private static PojoFactory largePojoFactory(Type type) {
+    PropertyDescriptor[] properties = new PropertyDescriptor[PROPERTY_COUNT];
+    for (int i = 0; i < PROPERTY_COUNT; i++) {
+      properties[i] = new PropertyDescriptor(type.getClazz()).withName(propertyName(i));
+    }
+    return new PojoFactory(new PojoDescriptor(properties));
+  }
+
+  private static String propertyName(int i) {
+    return "p" + i;
+  }
+
+  /**
+   * Determine the size of the byte code of each method in the pojomator for a class. All generated methods end with a
+   * label marking the end of the scope of their local variables, so the offset of the last label is the code size.
+   */
+  private static Map<String, Integer> codeSizes(Class<?> pojoClass) throws Exception {
+    byte[] classBytes =
+      new PojomatorByteCodeGenerator(pojoClass, ClassProperties.forClass(pojoClass)).makeClassBytes();
+    final Map<String, Integer> codeSizes = new HashMap<>();
+    final String[] currentMethod = new String[1];
+    new ClassReader(classBytes) {
+      @Override
+      protected Label readLabel(int bytecodeOffset, Label[] labels) {
+        codeSizes.put(currentMethod[0], Math.max(codeSizes.get(currentMethod[0]), bytecodeOffset));
+        return super.readLabel(bytecodeOffset, labels);
+      }
+    }.accept(new ClassVisitor(Opcodes.ASM7) {
+      @Override
+      public MethodVisitor visitMethod(
+        int access, String name, String descriptor, String signature, String[] exceptions) {
+        currentMethod[0] = name;
+        codeSizes.put(name, 0);
+        return new MethodVisitor(Opcodes.ASM7) {};
+      }
+    }, 0);
+    return codeSizes;
+  }
+}
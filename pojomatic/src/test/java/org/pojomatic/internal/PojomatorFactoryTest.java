@@ -7,7 +7,11 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.mockito.Mockito;
@@ -18,11 +22,31 @@ import org.pojomatic.annotations.PojoFormat;
 import org.pojomatic.annotations.Property;
 import org.pojomatic.annotations.PropertyFormat;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
+import org.pojomatic.internal.b.C2;
 
 import com.google.common.io.ByteStreams;
 
 public class PojomatorFactoryTest {
 
+  @Test
+  public void testClassNamedLikeGeneratedPojomatorIsNotInitialized() {
+    assertNull(PojomatorFactory.findGeneratedPojomator(DecoyPojo.class));
+    assertFalse(DecoyPojo.decoyInitialized);
+  }
+
+  @Test
+  public void testStaleGeneratedPojomatorIsReported() {
+    try {
+      PojomatorFactory.findGeneratedPojomator(StalePojo.class);
+      fail("Exception expected");
+    }
+    catch (IllegalStateException e) {
+      assertEquals(e.getMessage(), "Unable to initialize generated pojomator " + StalePojo_Pojomator.class.getName());
+      assertEquals(
+        e.getCause().getMessage(), "Generated pojomator is out of date with respect to " + StalePojo.class.getName());
+    }
+  }
+
   public static class ToBeDuplicated {
     @Property int x;
   }
@@ -237,7 +261,10 @@ public class PojomatorFactoryTest {
     Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
     assertThat(
       pojomator.getClass().getName(),
-      RegexMatcher.matches(Pattern.quote(PojomatorStub.class.getName()+ "$") + "\\d+"));
+      // hidden classes have a suffix identifying the instance of the class; nestmates are named after the pojo class
+      RegexMatcher.matches(
+        "(" + Pattern.quote(PojomatorStub.class.getName()+ "$") + "\\d+|" + Pattern.quote(Pojo.class.getName() + "$$Pojomator")
+        + ")(/0x\\p{XDigit}+)?"));
 
     Pojo pojo = new Pojo();
     try {
@@ -247,11 +274,89 @@ public class PojomatorFactoryTest {
     catch (Exception e) {
       assertEquals(e.getMessage(), "testing");
       StackTraceElement[] stackTrace = e.getStackTrace();
+      assertEquals(stackTrace[0].getMethodName(), "getY");
+
+      // Frames of hidden pojomators, and of the method handles linking accessor methods to properties, are only shown
+      // with -XX:+ShowHiddenFrames, which the build sets on Java 16 and later; skip those of method handles.
+      List<StackTraceElement> pojomatorFrames = new ArrayList<>();
+      for (StackTraceElement element: stackTrace) {
+        if (element.getClassName().equals(pojomator.getClass().getName())) {
+          pojomatorFrames.add(element);
+        }
+      }
+      String accessorName = "get_method_" + Pojo.class.getName().replace('.', '$')+ "_getY";
+      if (accessorMethodNames(pojomator).contains(accessorName)) {
+        assertEquals(pojomatorFrames.size(), 2, pojomatorFrames.toString());
+        assertStackTraceElementFromGeneratedByteCode(pojomatorFrames.get(0), pojomator, accessorName, 204);
+        assertStackTraceElementFromGeneratedByteCode(pojomatorFrames.get(1), pojomator, "doHashCode", 225);
+      }
+      else {
+        // a nestmate pojomator calls getY directly
+        assertEquals(pojomatorFrames.size(), 1, pojomatorFrames.toString());
+        assertStackTraceElementFromGeneratedByteCode(pojomatorFrames.get(0), pojomator, "doHashCode", 225);
+      }
+    }
+  }
 
-      assertEquals(pojomator.getClass().getName(), stackTrace[1].getClassName());
-      assertStackTraceElementFromGeneratedByteCode(
-        stackTrace[1], pojomator, "get_method_" + Pojo.class.getName().replace('.', '$')+ "_getY", 204);
-      assertStackTraceElementFromGeneratedByteCode(stackTrace[2], pojomator, "doHashCode", 225);
+  @Test
+  public void testHiddenPojomatorHasNoStaticFields() {
+    class Pojo {
+      @Property int x = 3;
+      @Property @PropertyFormat(UpperCaseFormatter.class) String s = "s";
+    }
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {3}, s: {S}}");
+    if (ClassDefinerFactory.getDefiner().supportsHiddenClasses()) {
+      // property elements and formatters are passed as class data
+      for (Field field: pojomator.getClass().getDeclaredFields()) {
+        assertFalse(Modifier.isStatic(field.getModifiers()), field.getName());
+      }
+    }
+  }
+
+  @Test
+  public void testNestmateDirectAccess() {
+    class Pojo {
+      @Property private int x = 1;
+      @Property private String getS() { return "s"; }
+    }
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}, s: {s}}");
+    assertTrue(pojomator.doEquals(new Pojo(), new Pojo()));
+    if (ClassDefinerFactory.getDefiner().nestmateLookup(Pojo.class) != null) {
+      assertEquals(accessorMethodNames(pojomator), new ArrayList<String>());
+    }
+  }
+
+  @Test
+  public void testNestmateAccessToOtherPackage() throws Exception {
+    C2 pojo = new C2();
+    Pojomator<C2> pojomator = PojomatorFactory.makePojomator(C2.class);
+    assertEquals(pojomator.doHashCode(pojo), new ReflectionPojomator<C2>(C2.class, ClassProperties.forClass(C2.class)).doHashCode(pojo));
+    if (ClassDefinerFactory.getDefiner().nestmateLookup(C2.class) != null) {
+      // package private methods of C1 cannot be called directly from package b
+      List<String> accessorMethodNames = accessorMethodNames(pojomator);
+      assertFalse(accessorMethodNames.isEmpty());
+      for (String name: accessorMethodNames) {
+        assertTrue(name.contains("$a$C1_"), name);
+      }
+    }
+  }
+
+  private static List<String> accessorMethodNames(Pojomator<?> pojomator) {
+    List<String> names = new ArrayList<>();
+    for (Method method: pojomator.getClass().getDeclaredMethods()) {
+      if (method.getName().startsWith("get_")) {
+        names.add(method.getName());
+      }
+    }
+    return names;
+  }
+
+  public static class UpperCaseFormatter extends DefaultEnhancedPropertyFormatter {
+    @Override
+    public void appendFormatted(StringBuilder builder, Object value) {
+      builder.append(String.valueOf(value).toUpperCase());
     }
   }
 
@@ -2,21 +2,36 @@ package org.pojomatic.internal;
 
 import static org.testng.Assert.*;
 
+import java.io.StringWriter;
 import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.pojomatic.NoPojomaticPropertiesException;
+import org.pojomatic.Pojomatic;
 import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
 import org.pojomatic.annotations.AutoDetectPolicy;
 import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.EqualsOrder;
+import org.pojomatic.annotations.NullOrdering;
 import org.pojomatic.annotations.PojoFormat;
 import org.pojomatic.annotations.PojomaticPolicy;
 import org.pojomatic.annotations.Property;
 import org.pojomatic.annotations.PropertyFormat;
+import org.pojomatic.diff.BoxingDiffVisitor;
+import org.pojomatic.diff.DiffVisitor;
 import org.pojomatic.diff.Differences;
 import org.pojomatic.diff.PropertyDifferences;
 import org.pojomatic.diff.ValueDifference;
 import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
+import org.pojomatic.formatter.StatelessPojoFormatter;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.Sets;
@@ -103,6 +118,119 @@ public class PojomatorImplTest {
     assertEquals(makePojomator(FormattedObject.class).doToString(new FormattedObject("x")), "PREFIXFormattedObject{s: {BEFOREx}}");
   }
 
+  @Test public void testStatelessFormatterCreatedOnce() {
+    Pojomator<StatelessFormattedObject> pojomator = makePojomator(StatelessFormattedObject.class);
+    int instances = CountingStatelessPojoFormatter.instances;
+    for (int i = 0; i < 3; i++) {
+      assertEquals(
+        pojomator.doToString(new StatelessFormattedObject(i, "y")), "<StatelessFormattedObject|s=" + i + "|t=y>");
+    }
+    assertEquals(CountingStatelessPojoFormatter.instances, instances);
+  }
+
+  @Test public void testFormatterCreatedForEachToString() {
+    Pojomator<CountingFormattedObject> pojomator = makePojomator(CountingFormattedObject.class);
+    int instances = CountingPojoFormatter.instances;
+    pojomator.doToString(new CountingFormattedObject());
+    pojomator.doToString(new CountingFormattedObject());
+    assertEquals(CountingPojoFormatter.instances, instances + 2);
+  }
+
+  @Test public void testNestedToString() {
+    final ObjectPairProperty inner = new ObjectPairProperty("a", "b");
+    Object innerToString = new Object() {
+      @Override
+      public String toString() {
+        return OBJECT_PAIR_PROPERTY_POJOMATOR.doToString(inner);
+      }
+    };
+    assertEquals(
+      OBJECT_PAIR_PROPERTY_POJOMATOR.doToString(new ObjectPairProperty(innerToString, "c")),
+      "ObjectPairProperty{s: {ObjectPairProperty{s: {a}, t: {b}}}, t: {c}}");
+  }
+
+  @Test public void testAppendTo() {
+    StringBuilder builder = new StringBuilder("pair=");
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doAppendTo(new ObjectPairProperty("a", "b"), builder);
+    assertEquals(builder.toString(), "pair=ObjectPairProperty{s: {a}, t: {b}}");
+  }
+
+  @Test public void testAppendToAppendable() throws Exception {
+    StringWriter writer = new StringWriter();
+    writer.append("pair=");
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doAppendTo(new ObjectPairProperty("a", "b"), writer);
+    assertEquals(writer.toString(), "pair=ObjectPairProperty{s: {a}, t: {b}}");
+  }
+
+  @Test(expectedExceptions=NullPointerException.class) public void testAppendToNullBuilder() {
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doAppendTo(new ObjectPairProperty("a", "b"), (StringBuilder) null);
+  }
+
+  @Test(expectedExceptions=NullPointerException.class) public void testAppendNullToBuilder() {
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doAppendTo(null, new StringBuilder());
+  }
+
+  @Test public void testWriteUtf8() {
+    ObjectPairProperty pojo = new ObjectPairProperty("caf\u00e9", '\u20ac');
+    byte[] expected = OBJECT_PAIR_PROPERTY_POJOMATOR.doToString(pojo).getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doWriteUtf8(pojo, buffer);
+    assertEquals(buffer.position(), expected.length);
+    byte[] actual = new byte[expected.length];
+    buffer.flip();
+    buffer.get(actual);
+    assertEquals(actual, expected);
+  }
+
+  @Test public void testWriteUtf8Overflow() {
+    ObjectPairProperty pojo = new ObjectPairProperty("a", "b");
+    int length = OBJECT_PAIR_PROPERTY_POJOMATOR.doToString(pojo).length();
+    ByteBuffer buffer = ByteBuffer.allocate(length + 1);
+    buffer.put((byte) 1).put((byte) 2);
+    try {
+      OBJECT_PAIR_PROPERTY_POJOMATOR.doWriteUtf8(pojo, buffer);
+      fail("exception expected");
+    }
+    catch (BufferOverflowException e) {
+      assertEquals(buffer.position(), 2);
+    }
+    buffer.clear();
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doWriteUtf8(pojo, buffer);
+    assertEquals(buffer.position(), length);
+  }
+
+  @Test public void testNestedPojoAppendedDirectly() {
+    String prefix = "NestingPojo{nested: {";
+    assertEquals(
+      makePojomator(NestingPojo.class).doToString(new NestingPojo(new NestedPojo(1))),
+      prefix + "Nested@" + prefix.length() + "{x: {1}}}}");
+    assertEquals(makePojomator(NestingPojo.class).doToString(new NestingPojo(null)), "NestingPojo{nested: {null}}");
+    // when not nested, the nested pojo is formatted in a builder of its own
+    assertEquals(new NestedPojo(2).toString(), "Nested@0{x: {2}}");
+  }
+
+  @Test public void testNestedPojoOfUndeclaredTypeFormatted() {
+    assertEquals(
+      makePojomator(ObjectProperty.class).doToString(new ObjectProperty(new NestedPojo(1))),
+      "ObjectProperty{s: {Nested@0{x: {1}}}}");
+  }
+
+  @Test public void testToStringAfterException() {
+    Object bomb = new Object() {
+      @Override
+      public String toString() {
+        throw new IllegalStateException();
+      }
+    };
+    try {
+      OBJECT_PAIR_PROPERTY_POJOMATOR.doToString(new ObjectPairProperty("a", bomb));
+      fail("exception expected");
+    }
+    catch (IllegalStateException e) {}
+    assertEquals(
+      OBJECT_PAIR_PROPERTY_POJOMATOR.doToString(new ObjectPairProperty("a", "b")), "ObjectPairProperty{s: {a}, t: {b}}");
+  }
+
   @Test(expectedExceptions=NullPointerException.class)
   public void testDiffNullInstance() {
     ObjectPairProperty other = new ObjectPairProperty("this", "that");
@@ -134,6 +262,51 @@ public class PojomatorImplTest {
     assertEquals(Sets.newHashSet(diffs.differences()), Sets.newHashSet(new ValueDifference("s", "this", "THIS"), new ValueDifference("t", "that", "THAT")));
   }
 
+  @Test public void testDiffVisitor() {
+    final StringBuilder visited = new StringBuilder();
+    DiffVisitor visitor = new BoxingDiffVisitor() {
+      @Override
+      public void onIntDifference(PropertyElement property, int instanceValue, int otherValue) {
+        visited.append("int ").append(property.getName()).append(": ").append(instanceValue).append(" ")
+          .append(otherValue).append("; ");
+      }
+
+      @Override
+      public void onLongDifference(PropertyElement property, long instanceValue, long otherValue) {
+        visited.append("long ").append(property.getName()).append(": ").append(instanceValue).append(" ")
+          .append(otherValue).append("; ");
+      }
+
+      @Override
+      public void onObjectDifference(PropertyElement property, Object instanceValue, Object otherValue) {
+        visited.append("object ").append(property.getName()).append(": ").append(instanceValue).append(" ")
+          .append(otherValue).append("; ");
+      }
+    };
+    Pojomator<PrimitiveProperties> pojomator = makePojomator(PrimitiveProperties.class);
+    pojomator.doDiff(new PrimitiveProperties(1, 2, "a"), new PrimitiveProperties(3, 2, "b"), visitor);
+    assertEquals(visited.toString(), "int i: 1 3; object s: a b; ");
+    visited.setLength(0);
+    pojomator.doDiff(new PrimitiveProperties(1, 2, "a"), new PrimitiveProperties(1, 4, "a"), visitor);
+    assertEquals(visited.toString(), "long l: 2 4; ");
+  }
+
+  @Test public void testDiffVisitorSameInstance() {
+    ObjectPairProperty pojo = new ObjectPairProperty("this", "that");
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doDiff(pojo, pojo, new BoxingDiffVisitor() {
+      @Override
+      public void onObjectDifference(PropertyElement property, Object instanceValue, Object otherValue) {
+        fail("no differences expected");
+      }
+    });
+  }
+
+  @Test(expectedExceptions=NullPointerException.class)
+  public void testDiffNullVisitor() {
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doDiff(
+      new ObjectPairProperty("this", "that"), new ObjectPairProperty("THIS", "that"), null);
+  }
+
   @Test public void testDiffAgainstWrongType() {
     Pojomator<?> pojomator = OBJECT_PAIR_PROPERTY_POJOMATOR;
     @SuppressWarnings("unchecked") Pojomator<Object> misCastPojomator = (Pojomator<Object>) pojomator;
@@ -158,6 +331,86 @@ public class PojomatorImplTest {
     }
   }
 
+  @Test public void testCompare() {
+    Pojomator<ComparedProperties> pojomator = makePojomator(ComparedProperties.class);
+    // b has a lower compareOrder, so is compared before a
+    assertTrue(pojomator.doCompare(new ComparedProperties(1, "x", 'b'), new ComparedProperties(2, "y", 'a')) > 0);
+    assertTrue(pojomator.doCompare(new ComparedProperties(1, "x", 'a'), new ComparedProperties(2, "x", 'a')) < 0);
+    assertTrue(pojomator.doCompare(new ComparedProperties(1, "y", 'a'), new ComparedProperties(1, "x", 'a')) > 0);
+    assertEquals(pojomator.doCompare(new ComparedProperties(1, "x", 'a'), new ComparedProperties(1, "x", 'a')), 0);
+    // s orders nulls last
+    assertTrue(pojomator.doCompare(new ComparedProperties(1, null, 'a'), new ComparedProperties(1, "x", 'a')) > 0);
+    assertTrue(pojomator.doCompare(new ComparedProperties(1, "x", 'a'), new ComparedProperties(1, null, 'a')) < 0);
+  }
+
+  @Test public void testEqualsCostOrder() {
+    Pojomator<CostOrderedProperties> pojomator = makePojomator(CostOrderedProperties.class);
+    List<String> tags = Arrays.asList("a", "b");
+    CostOrderedProperties pojo = new CostOrderedProperties(tags, "x", 1);
+    CostOrderedProperties.ACCESSED.clear();
+    assertFalse(pojomator.doEquals(pojo, new CostOrderedProperties(tags, "x", 2)));
+    // the long version is compared first, and so the other properties are not read at all
+    assertEquals(CostOrderedProperties.ACCESSED, Arrays.asList("version", "version"));
+    CostOrderedProperties.ACCESSED.clear();
+    assertTrue(pojomator.doEquals(pojo, new CostOrderedProperties(tags, "x", 1)));
+    assertEquals(CostOrderedProperties.ACCESSED,
+      Arrays.asList("version", "version", "name", "name", "tags", "tags"));
+    assertFalse(pojomator.doEquals(pojo, new CostOrderedProperties(Arrays.asList("c"), "x", 1)));
+    // toString keeps the declared order
+    assertEquals(pojomator.doToString(pojo), "CostOrderedProperties{tags: {[a, b]}, name: {x}, version: {1}}");
+  }
+
+  @Test public void testComparator() {
+    Pojomator<ComparedProperties> pojomator = makePojomator(ComparedProperties.class);
+    List<ComparedProperties> pojos = Arrays.asList(
+      new ComparedProperties(2, "x", 'a'), new ComparedProperties(1, null, 'a'), new ComparedProperties(1, "x", 'a'),
+      new ComparedProperties(0, "z", 'b'));
+    Collections.sort(pojos, pojomator.comparator());
+    assertEquals(pojomator.doToString(pojos.get(0)), "ComparedProperties{a: {1}, s: {x}, b: {'a'}}");
+    assertEquals(pojomator.doToString(pojos.get(1)), "ComparedProperties{a: {1}, s: {null}, b: {'a'}}");
+    assertEquals(pojomator.doToString(pojos.get(2)), "ComparedProperties{a: {2}, s: {x}, b: {'a'}}");
+    assertEquals(pojomator.doToString(pojos.get(3)), "ComparedProperties{a: {0}, s: {z}, b: {'b'}}");
+    assertSame(pojomator.comparator(), pojomator.comparator());
+  }
+
+  @Test public void testCompareSameInstance() {
+    ObjectPairProperty pojo = new ObjectPairProperty(new Object(), new Object());
+    assertEquals(OBJECT_PAIR_PROPERTY_POJOMATOR.doCompare(pojo, pojo), 0);
+  }
+
+  @Test(expectedExceptions=NullPointerException.class)
+  public void testCompareNullOther() {
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doCompare(new ObjectPairProperty("this", "that"), null);
+  }
+
+  @Test(expectedExceptions=ClassCastException.class)
+  public void testCompareNotComparable() {
+    OBJECT_PAIR_PROPERTY_POJOMATOR.doCompare(
+      new ObjectPairProperty(new Object(), "that"), new ObjectPairProperty(new Object(), "that"));
+  }
+
+  @Test public void testCompareWrongType() {
+    Pojomator<?> pojomator = OBJECT_PAIR_PROPERTY_POJOMATOR;
+    @SuppressWarnings("unchecked") Pojomator<Object> misCastPojomator = (Pojomator<Object>) pojomator;
+    try {
+      misCastPojomator.doCompare(new ObjectPairProperty(1,2), "wrong");
+      fail("exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals(e.getMessage(), "other has type java.lang.String which is not compatible for equality with org.pojomatic.internal.PojomatorImplTest$ObjectPairProperty");
+    }
+  }
+
+  @Test public void testCompareArrays() {
+    Pojomator<ObjectProperty> pojomator = OBJECT_PROPERTY_POJOMATOR;
+    assertTrue(pojomator.doCompare(
+      new ObjectProperty(new int[] { 1, 2 }), new ObjectProperty(new int[] { 1, 3 })) < 0);
+    assertTrue(pojomator.doCompare(
+      new ObjectProperty(new int[] { 1, 2 }), new ObjectProperty(new int[] { 1 })) > 0);
+    assertEquals(pojomator.doCompare(
+      new ObjectProperty(new String[] { "a" }), new ObjectProperty(new String[] { "a" })), 0);
+  }
+
   @Test(expectedExceptions= NoPojomaticPropertiesException.class)
   public void testNonPojomatedClass() {
     makePojomator(String.class);
@@ -248,6 +501,75 @@ public class PojomatorImplTest {
     }
   }
 
+  @PojoFormat(CountingStatelessPojoFormatter.class)
+  private static class StatelessFormattedObject {
+    public StatelessFormattedObject(int s, String t) {
+      this.s = s;
+      this.t = t;
+    }
+    @Property public int s;
+    @Property public String t;
+  }
+
+  public static class CountingStatelessPojoFormatter implements StatelessPojoFormatter {
+    static int instances;
+
+    public CountingStatelessPojoFormatter() {
+      instances++;
+    }
+
+    @Override
+    public void appendToStringPrefix(StringBuilder builder, Class<?> pojoClass) {
+      builder.append('<').append(pojoClass.getSimpleName());
+    }
+
+    @Override
+    public void appendToStringSuffix(StringBuilder builder, Class<?> pojoClass) {
+      builder.append('>');
+    }
+
+    @Override
+    public void appendPropertyPrefix(StringBuilder builder, PropertyElement property) {
+      builder.append('|').append(property.getName()).append('=');
+    }
+
+    @Override
+    public void appendPropertySuffix(StringBuilder builder, PropertyElement property) {}
+
+    @Override
+    public String getToStringPrefix(Class<?> pojoClass) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getToStringSuffix(Class<?> pojoClass) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getPropertyPrefix(PropertyElement property) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getPropertySuffix(PropertyElement property) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @PojoFormat(CountingPojoFormatter.class)
+  private static class CountingFormattedObject {
+    @Property public int s;
+  }
+
+  public static class CountingPojoFormatter extends DefaultEnhancedPojoFormatter {
+    static int instances;
+
+    public CountingPojoFormatter() {
+      instances++;
+    }
+  }
+
   public static class SimplePropertyFormatter extends DefaultEnhancedPropertyFormatter {
     @Override
     public void appendFormatted(StringBuilder builder, Object value) {
@@ -256,6 +578,43 @@ public class PojomatorImplTest {
     }
   }
 
+  @AutoProperty
+  private static class NestingPojo {
+    @SuppressWarnings("unused")
+    private final NestedPojo nested;
+
+    NestingPojo(NestedPojo nested) {
+      this.nested = nested;
+    }
+  }
+
+  @AutoProperty
+  @PojoFormat(BuilderPositionPojoFormatter.class)
+  private static final class NestedPojo {
+    @SuppressWarnings("unused")
+    private final int x;
+
+    NestedPojo(int x) {
+      this.x = x;
+    }
+
+    @Override
+    public String toString() {
+      return Pojomatic.toString(this);
+    }
+  }
+
+  /**
+   * Reveals whether a pojo is appended to the builder of the pojo containing it, or formatted separately.
+   */
+  public static class BuilderPositionPojoFormatter extends DefaultEnhancedPojoFormatter {
+    @Override
+    public void appendToStringPrefix(StringBuilder builder, Class<?> pojoClass) {
+      int position = builder.length();
+      builder.append("Nested@").append(position).append('{');
+    }
+  }
+
   private static class ObjectProperty {
     public ObjectProperty(Object s) {
       this.s = s;
@@ -272,6 +631,58 @@ public class PojomatorImplTest {
     @Property public Object t;
   }
 
+  private static class PrimitiveProperties {
+    public PrimitiveProperties(int i, long l, String s) {
+      this.i = i;
+      this.l = l;
+      this.s = s;
+    }
+    @Property public int i;
+    @Property public long l;
+    @Property public String s;
+  }
+
+  private static class ComparedProperties {
+    public ComparedProperties(int a, String s, char b) {
+      this.a = a;
+      this.s = s;
+      this.b = b;
+    }
+    @Property public int a;
+    @Property(nullOrdering = NullOrdering.LAST) public String s;
+    @Property(compareOrder = -1) public char b;
+  }
+
+  @AutoProperty(autoDetect = AutoDetectPolicy.METHOD, equalsOrder = EqualsOrder.COST)
+  private static class CostOrderedProperties {
+    static final List<String> ACCESSED = new ArrayList<>();
+
+    private final List<String> tags;
+    private final String name;
+    private final long version;
+
+    public CostOrderedProperties(List<String> tags, String name, long version) {
+      this.tags = tags;
+      this.name = name;
+      this.version = version;
+    }
+
+    public List<String> getTags() {
+      ACCESSED.add("tags");
+      return tags;
+    }
+
+    public String getName() {
+      ACCESSED.add("name");
+      return name;
+    }
+
+    public long getVersion() {
+      ACCESSED.add("version");
+      return version;
+    }
+  }
+
   private static class ExceptionThrowingProperty {
     @Property public int bomb() {
       throw new RuntimeException();
@@ -0,0 +1,64 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.PojomaticMXBean;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class PojomatorMonitoringTest {
+
+  @Test
+  public void testGenerationTotals() {
+    class Pojo {
+      @Property int x;
+    }
+    long generatedCount = PojomatorMonitoring.getGeneratedCount();
+    long generationNanos = PojomatorMonitoring.getGenerationNanos();
+    long generatedBytes = PojomatorMonitoring.getGeneratedBytes();
+    PojomatorFactory.makePojomator(Pojo.class);
+    assertEquals(PojomatorMonitoring.getGeneratedCount(), generatedCount + 1);
+    assertTrue(PojomatorMonitoring.getGenerationNanos() > generationNanos);
+    assertTrue(PojomatorMonitoring.getGeneratedBytes() > generatedBytes);
+  }
+
+  @Test
+  public void testCallsWithoutRecording() {
+    class Pojo {
+      @Property int x;
+    }
+    // whether or not flight recorder is available, calls are only recorded while a recording enables them
+    assertNull(PojomatorMonitoring.beginCall());
+    PojomatorMonitoring.endCall(null, "doToString", Pojo.class);
+    assertEquals(Pojomatic.toString(new Pojo()), "Pojo{x: {0}}");
+  }
+
+  @Test
+  public void testMXBean() throws Exception {
+    class Pojo {
+      @Property int x;
+    }
+    Pojomatic.pojomator(Pojo.class);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(PojomaticMXBean.OBJECT_NAME);
+    PojomaticManagement.register();
+    // registering again is ignored
+    PojomaticManagement.register();
+    try {
+      assertTrue((Integer) server.getAttribute(name, "CacheSize") > 0);
+      assertEquals(server.getAttribute(name, "MaximumCacheSize"), Integer.MAX_VALUE);
+      assertTrue((Long) server.getAttribute(name, "GeneratedCount") > 0);
+      assertTrue((Long) server.getAttribute(name, "GeneratedBytes") > 0);
+      assertEquals(server.getAttribute(name, "EvictionCount"), 0L);
+    }
+    finally {
+      server.unregisterMBean(name);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package org.pojomatic.internal;
+
+import static org.objectweb.asm.Opcodes.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.pojomatic.NoPojomaticPropertiesException;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.internal.scan.AutoPojo;
+import org.pojomatic.internal.scan.EmptyPojo;
+import org.pojomatic.internal.scan.PropertyPojo;
+import org.pojomatic.internal.scan.sub.SubPackagePojo;
+import org.testng.annotations.Test;
+
+public class PrewarmerTest {
+  private static final String SCAN_PACKAGE = "org.pojomatic.internal.scan";
+  private static final String JAR_PACKAGE = "org.pojomatic.internal.scanjar";
+
+  @Test
+  public void testPrewarmClasses() {
+    Map<Class<?>, Long> elapsedTimes = Pojomatic.prewarm(PropertyPojo.class, AutoPojo.class);
+    assertEquals(new ArrayList<>(elapsedTimes.keySet()), Arrays.asList(PropertyPojo.class, AutoPojo.class));
+    for (Long elapsed: elapsedTimes.values()) {
+      assertTrue(elapsed >= 0);
+    }
+  }
+
+  @Test
+  public void testPrewarmAlreadyCreated() {
+    Pojomatic.pojomator(AutoPojo.class);
+    assertEquals(new ArrayList<>(Pojomatic.prewarm(AutoPojo.class).keySet()), Arrays.asList(AutoPojo.class));
+  }
+
+  @Test(expectedExceptions = NoPojomaticPropertiesException.class)
+  public void testPrewarmClassWithoutProperties() {
+    Pojomatic.prewarm(AutoPojo.class, EmptyPojo.class);
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    assertEquals(
+      Prewarmer.scan(getClass().getClassLoader(), SCAN_PACKAGE),
+      Arrays.asList(AutoPojo.class, EmptyPojo.class, PropertyPojo.class, SubPackagePojo.class));
+  }
+
+  @Test
+  public void testScanMissingPackage() throws Exception {
+    assertEquals(Prewarmer.scan(getClass().getClassLoader(), "org.pojomatic.nonexistent"), Arrays.asList());
+  }
+
+  @Test
+  public void testPrewarmPackage() throws Exception {
+    Map<Class<?>, Long> elapsedTimes = Pojomatic.prewarm(getClass().getClassLoader(), SCAN_PACKAGE);
+    assertEquals(
+      new ArrayList<>(elapsedTimes.keySet()),
+      Arrays.asList(AutoPojo.class, PropertyPojo.class, SubPackagePojo.class));
+  }
+
+  @Test
+  public void testPrewarmPackageInJar() throws Exception {
+    File jar = File.createTempFile("prewarm", ".jar");
+    jar.deleteOnExit();
+    String internalName = JAR_PACKAGE.replace('.', '/') + "/JarPojo";
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+      // class loaders only find packages in jars which have entries for their directories, as jar tools create
+      String directory = "";
+      for (String part: JAR_PACKAGE.split("\\.")) {
+        directory += part + "/";
+        out.putNextEntry(new JarEntry(directory));
+        out.closeEntry();
+      }
+      out.putNextEntry(new JarEntry(internalName + ".class"));
+      out.write(makePojoClass(internalName));
+      out.closeEntry();
+    }
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, getClass().getClassLoader())) {
+      Map<Class<?>, Long> elapsedTimes = Pojomatic.prewarm(classLoader, JAR_PACKAGE);
+      List<String> names = new ArrayList<>();
+      for (Class<?> pojoClass: elapsedTimes.keySet()) {
+        names.add(pojoClass.getName());
+      }
+      assertEquals(names, Arrays.asList(JAR_PACKAGE + ".JarPojo"));
+    }
+  }
+
+  private static byte[] makePojoClass(String internalName) {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    classWriter.visit(V1_7, ACC_PUBLIC | ACC_SUPER, internalName, null, "java/lang/Object", null);
+    classWriter.visitAnnotation(Type.getDescriptor(AutoProperty.class), true).visitEnd();
+    classWriter.visitField(ACC_PUBLIC, "x", "I", null, null).visitEnd();
+    MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+}
@@ -269,6 +269,38 @@ public class PropertyTypeTest {
     return classes.toArray(new Class[0]);
   }
 
+  @Test
+  public void testCompare() {
+    for (BaseType type: BaseType.values()) {
+      PojoFactory pojoFactory = new PojoFactory(new PojoDescriptor(new PropertyDescriptor(type.getClazz())));
+      for (Object value1: type.getSampleValues()) {
+        Object pojo1 = pojoFactory.create(value1);
+        for (Object value2: type.getSampleValues()) {
+          Object pojo2 = pojoFactory.create(value2);
+          if (value1 != null && value2 != null && value1.getClass() != value2.getClass()) {
+            try {
+              pojoFactory.pojomator().doCompare(pojo1, pojo2);
+              fail("exception expected for " + label(value1, value2));
+            }
+            catch (ClassCastException e) {}
+          }
+          else {
+            assertEquals(pojoFactory.pojomator().doCompare(pojo1, pojo2), expectedCompare(value1, value2),
+              label(value1, value2));
+          }
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int expectedCompare(Object value1, Object value2) {
+    if (value1 == null) {
+      return value2 == null ? 0 : -1;
+    }
+    return value2 == null ? 1 : ((Comparable<Object>) value1).compareTo(value2);
+  }
+
   private void checkHashCode(PojoFactory pojoFactory, Object value,
     int propertyHashCode) {
     assertEquals(
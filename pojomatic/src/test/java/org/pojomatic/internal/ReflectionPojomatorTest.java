@@ -0,0 +1,97 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.TestUtils;
+import org.pojomatic.annotations.SkipArrayCheck;
+import org.pojomatic.internal.factory.PojoDescriptor;
+import org.pojomatic.internal.factory.PojoFactory;
+import org.pojomatic.internal.factory.PropertyDescriptor;
+import org.testng.annotations.Test;
+
+/**
+ * Verify that a {@link ReflectionPojomator} behaves the same as a pojomator generated by
+ * {@link PojomatorByteCodeGenerator}.
+ */
+public class ReflectionPojomatorTest {
+
+  @Test(dataProvider = "types", dataProviderClass = TypeProviders.class)
+  public void testFieldProperty(Type type) throws Exception {
+    checkSameBehavior(new PojoFactory(new PojoDescriptor(new PropertyDescriptor(type.getClazz()))), type);
+  }
+
+  @Test(dataProvider = "arrayTypes", dataProviderClass = TypeProviders.class)
+  public void testArrayAsObject(Type type, boolean skipArrayCheck) throws Exception {
+    checkSameBehavior(
+      new PojoFactory(new PojoDescriptor(new PropertyDescriptor(Object.class, extraAnnotations(skipArrayCheck)))),
+      type);
+  }
+
+  @Test
+  public void testNulls() throws Exception {
+    PojoFactory pojoFactory = new PojoFactory(new PojoDescriptor(new PropertyDescriptor(int.class)));
+    Pojomator<Object> pojomator = reflectionPojomator(pojoFactory);
+    assertFalse(pojomator.doEquals(pojoFactory.create(1), null));
+    try {
+      pojomator.doHashCode(null);
+      fail("exception expected");
+    }
+    catch (NullPointerException e) {}
+    try {
+      pojomator.doDiff(pojoFactory.create(1), null);
+      fail("exception expected");
+    }
+    catch (NullPointerException e) {
+      assertEquals(e.getMessage(), "other is null");
+    }
+  }
+
+  private static void checkSameBehavior(PojoFactory pojoFactory, Type type) throws Exception {
+    Pojomator<Object> expected = pojoFactory.pojomator();
+    Pojomator<Object> actual = reflectionPojomator(pojoFactory);
+    for (Object value1: type.getSampleValues()) {
+      Object pojo1 = pojoFactory.create(value1);
+      assertEquals(actual.doHashCode(pojo1), expected.doHashCode(pojo1));
+      assertEquals(actual.doToString(pojo1), expected.doToString(pojo1));
+      for (Object value2: type.getSampleValues()) {
+        Object pojo2 = pojoFactory.create(cloneArray(value2));
+        assertEquals(actual.doEquals(pojo1, pojo2), expected.doEquals(pojo1, pojo2));
+        assertEquals(actual.doDiff(pojo1, pojo2), expected.doDiff(pojo1, pojo2));
+        assertEquals(
+          TestUtils.compareResult(actual, pojo1, pojo2), TestUtils.compareResult(expected, pojo1, pojo2));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Pojomator<Object> reflectionPojomator(PojoFactory pojoFactory) throws Exception {
+    Class<Object> pojoClass = (Class<Object>) pojoFactory.pojoClass();
+    return new ReflectionPojomator<>(pojoClass, ClassProperties.forClass(pojoClass));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Class<? extends Annotation>[] extraAnnotations(boolean skipArrayCheck) {
+    List<Class<? extends Annotation>> classes = new ArrayList<>();
+    if (skipArrayCheck) {
+      classes.add(SkipArrayCheck.class);
+    }
+    return classes.toArray(new Class[0]);
+  }
+
+  private static Object cloneArray(Object value) {
+    if (value == null || !value.getClass().isArray()) {
+      return value;
+    }
+    Object clone = Array.newInstance(value.getClass().getComponentType(), Array.getLength(value));
+    for (int i = 0; i < Array.getLength(value); i++) {
+      Array.set(clone, i, cloneArray(Array.get(value, i)));
+    }
+    return clone;
+  }
+}
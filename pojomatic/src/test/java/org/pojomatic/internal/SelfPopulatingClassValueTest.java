@@ -0,0 +1,161 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+import org.pojomatic.internal.factory.PojoClassFactory;
+import org.pojomatic.internal.factory.PojoDescriptor;
+import org.pojomatic.internal.factory.PropertyDescriptor;
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SelfPopulatingClassValueTest {
+  /**
+   * Test case which exposes a subtle threading bug
+   * @throws Exception
+   */
+  @Test public void testThreading() throws Exception {
+    final AtomicInteger creationCount = new AtomicInteger();
+    final SelfPopulatingClassValue<String> selfPopulatingClassValue =
+      new SelfPopulatingClassValue<String>() {
+      @Override protected String create(Class<?> key) {
+        creationCount.incrementAndGet();
+        try {
+          Thread.sleep(10); // ensure that two threads have time to collide.
+        }
+        catch (InterruptedException e) {}
+        return new String(key.getName());
+      }
+    };
+
+    int numThreads = 2;
+    Thread[] threads = new Thread[numThreads];
+    final String[] results = new String[numThreads];
+    for (int i = 0; i < threads.length; i++) {
+      final int threadNumber = i;
+      threads[i] = new Thread() {
+        @Override public void run() {
+          results[threadNumber] = selfPopulatingClassValue.get(String.class);
+        }
+      };
+    }
+    for (Thread t: threads) {
+      t.start();
+    }
+    for (Thread t: threads) {
+      t.join();
+    }
+    assertSame(results[1], results[0]);
+    assertEquals(creationCount.get(), 1);
+  }
+
+  @Test
+  public void testBadConstructionFirstTime() {
+    final AtomicBoolean firstTime = new AtomicBoolean(false);
+    final SelfPopulatingClassValue<String> selfPopulatingClassValue =
+      new SelfPopulatingClassValue<String>() {
+      @Override protected String create(Class<?> key) {
+        if (firstTime.getAndSet(true)) {
+          return key.getSimpleName();
+        }
+        else {
+          throw new RuntimeException("first");
+        }
+      }
+    };
+
+    try {
+      selfPopulatingClassValue.get(Integer.class);
+      fail("Exception expected");
+    }
+    catch(RuntimeException e) {
+      assertEquals(e.getMessage(), "first");
+    }
+
+    assertEquals(selfPopulatingClassValue.get(Integer.class), "Integer");
+  }
+
+  @Test
+  public void testDistinctClasses() {
+    final SelfPopulatingClassValue<String> selfPopulatingClassValue =
+      new SelfPopulatingClassValue<String>() {
+      @Override protected String create(Class<?> key) {
+        return key.getSimpleName();
+      }
+    };
+    assertEquals(selfPopulatingClassValue.get(String.class), "String");
+    assertEquals(selfPopulatingClassValue.get(Integer.class), "Integer");
+    assertSame(selfPopulatingClassValue.get(String.class), selfPopulatingClassValue.get(String.class));
+    assertEquals(selfPopulatingClassValue.size(), 2);
+    assertEquals(selfPopulatingClassValue.getMaximumSize(), SelfPopulatingClassValue.UNBOUNDED);
+    assertEquals(selfPopulatingClassValue.getCreationCount(), 2L);
+  }
+
+  @Test
+  public void testEviction() {
+    final List<Class<?>> created = new ArrayList<>();
+    final SelfPopulatingClassValue<String> selfPopulatingClassValue =
+      new SelfPopulatingClassValue<String>(2) {
+      @Override protected String create(Class<?> key) {
+        created.add(key);
+        return key.getSimpleName();
+      }
+    };
+    selfPopulatingClassValue.get(String.class);
+    selfPopulatingClassValue.get(Integer.class);
+    // all values have been referenced, so the first is evicted once eviction has passed over them all
+    selfPopulatingClassValue.get(Long.class);
+    assertEquals(selfPopulatingClassValue.size(), 2);
+    assertEquals(selfPopulatingClassValue.getEvictionCount(), 1L);
+
+    // Integer has been referenced since eviction passed over it, but Long has not
+    selfPopulatingClassValue.get(Integer.class);
+    selfPopulatingClassValue.get(Double.class);
+    assertEquals(selfPopulatingClassValue.getEvictionCount(), 2L);
+    assertEquals(selfPopulatingClassValue.get(Integer.class), "Integer");
+    assertEquals(selfPopulatingClassValue.getRegenerationCount(), 0L);
+
+    assertEquals(selfPopulatingClassValue.get(String.class), "String");
+    assertEquals(selfPopulatingClassValue.get(Long.class), "Long");
+    assertEquals(selfPopulatingClassValue.getRegenerationCount(), 2L);
+    assertEquals(selfPopulatingClassValue.getCreationCount(), 6L);
+    assertEquals(selfPopulatingClassValue.size(), 2);
+    assertEquals(
+      created,
+      Arrays.<Class<?>>asList(
+        String.class, Integer.class, Long.class, Double.class, String.class, Long.class));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNonPositiveMaximumSize() {
+    new SelfPopulatingClassValue<String>(0) {
+      @Override protected String create(Class<?> key) {
+        return key.getSimpleName();
+      }
+    };
+  }
+
+  @Test
+  public void testValuesDoNotPreventUnloading() throws Exception {
+    final SelfPopulatingClassValue<Class<?>> selfPopulatingClassValue =
+      new SelfPopulatingClassValue<Class<?>>(10) {
+      @Override protected Class<?> create(Class<?> key) {
+        return key;
+      }
+    };
+    WeakReference<Class<?>> pojoClass = new WeakReference<Class<?>>(
+      selfPopulatingClassValue.get(
+        new PojoClassFactory().generateClass(new PojoDescriptor(new PropertyDescriptor(int.class)))));
+    assertEquals(selfPopulatingClassValue.size(), 1);
+    for (int i = 0; i < 100 && pojoClass.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(pojoClass.get());
+    assertEquals(selfPopulatingClassValue.size(), 0);
+  }
+}
@@ -0,0 +1,247 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.pojomatic.Pojomator;
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.OverridesEquals;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class SpecializationTest {
+  private enum Color {
+    RED,
+    GREEN {
+      @Override
+      public String toString() {
+        return "green";
+      }
+    }
+  }
+
+  @AutoProperty
+  private static final class Shape {
+    private final Color color;
+    private final String name;
+    private final Integer sides;
+    private final Double area;
+    private final Character mark;
+    private final Enum<?> anyEnum;
+    private final List<String> tags;
+
+    Shape(Color color, String name, Integer sides, Double area, Character mark, Enum<?> anyEnum, List<String> tags) {
+      this.color = color;
+      this.name = name;
+      this.sides = sides;
+      this.area = area;
+      this.mark = mark;
+      this.anyEnum = anyEnum;
+      this.tags = tags;
+    }
+  }
+
+  private static final class NonNullShape {
+    @Property(nonNull = true) private final String name;
+    @Property(nonNull = true) private final Long id;
+    @Property(nonNull = true) private final List<String> tags;
+    @Property(nonNull = true) private final Object value;
+    @Property(nonNull = true) private final int[] ints;
+    @Property(nonNull = true) private final Color color;
+
+    NonNullShape(String name, Long id, List<String> tags, Object value, int[] ints, Color color) {
+      this.name = name;
+      this.id = id;
+      this.tags = tags;
+      this.value = value;
+      this.ints = ints;
+      this.color = color;
+    }
+  }
+
+  @AutoProperty
+  private static class Parent {
+    final int x;
+
+    Parent(int x) {
+      this.x = x;
+    }
+  }
+
+  /**
+   * A final class which adds no properties to its parent, so that instances of its parent are compatible with it.
+   */
+  private static final class FinalChild extends Parent {
+    FinalChild(int x) {
+      super(x);
+    }
+  }
+
+  @OverridesEquals
+  private static final class OverridingChild extends Parent {
+    OverridingChild(int x) {
+      super(x);
+    }
+  }
+
+  @Test
+  public void testIsOnlyCompatibleWithItself() {
+    assertTrue(ClassProperties.forClass(Shape.class).isOnlyCompatibleWithItself());
+    assertTrue(ClassProperties.forClass(OverridingChild.class).isOnlyCompatibleWithItself());
+    assertFalse(ClassProperties.forClass(Parent.class).isOnlyCompatibleWithItself());
+    assertFalse(ClassProperties.forClass(FinalChild.class).isOnlyCompatibleWithItself());
+  }
+
+  @Test
+  public void testIsNonNull() {
+    ClassProperties classProperties = ClassProperties.forClass(NonNullShape.class);
+    assertEquals(classProperties.getAllProperties().size(), 6);
+    for (PropertyElement property: classProperties.getAllProperties()) {
+      assertTrue(ClassProperties.isNonNull(property), property.getName());
+    }
+    for (PropertyElement property: ClassProperties.forClass(Shape.class).getAllProperties()) {
+      assertFalse(ClassProperties.isNonNull(property), property.getName());
+    }
+  }
+
+  @Test
+  public void testGeneratedCode() throws Exception {
+    Map<String, List<String>> shapeCalls = methodCalls(Shape.class);
+    assertFalse(shapeCalls.get("doEquals").contains("isCompatibleForEquality"));
+    // only tags is compared with Objects.equals; enums are compared with ==
+    assertEquals(Collections.frequency(shapeCalls.get("doEquals"), "java/util/Objects.equals"), 1);
+    assertEquals(Collections.frequency(shapeCalls.get("doEquals"), "org/pojomatic/internal/BasePojomator.areEqual"), 4);
+    assertEquals(Collections.frequency(shapeCalls.get("doHashCode"), "java/lang/System.identityHashCode"), 2);
+    assertTrue(shapeCalls.get("doHashCode").contains("java/lang/String.hashCode"));
+
+    assertTrue(methodCalls(Parent.class).get("doEquals").contains("isCompatibleForEquality"));
+    assertTrue(methodCalls(FinalChild.class).get("doEquals").contains("isCompatibleForEquality"));
+    assertFalse(methodCalls(OverridingChild.class).get("doEquals").contains("isCompatibleForEquality"));
+
+    Map<String, List<String>> nonNullCalls = methodCalls(NonNullShape.class);
+    assertTrue(nonNullCalls.get("doEquals").contains("java/lang/String.equals"));
+    assertTrue(nonNullCalls.get("doEquals").contains("java/lang/Long.equals"));
+    assertTrue(nonNullCalls.get("doEquals").contains("java/lang/Object.equals"));
+    assertFalse(nonNullCalls.get("doEquals").contains("java/util/Objects.equals"));
+  }
+
+  @Test(dataProvider = "definers", dataProviderClass = ClassDefinerProviders.class)
+  public void testSpecializedComparisons(ClassDefiner definer) throws Exception {
+    List<String> tags = Arrays.asList("a", "b");
+    checkAgainstReflection(
+      Shape.class,
+      definer,
+      new Shape(Color.RED, "square", 4, 1.0, 's', Color.GREEN, tags),
+      new Shape(Color.RED, new String("square"), 4, 1.0, 's', Color.GREEN, new ArrayList<String>(tags)),
+      new Shape(Color.GREEN, "square", 4, 1.0, 's', Color.GREEN, tags),
+      new Shape(Color.RED, "circle", 4, 1.0, 's', Color.GREEN, tags),
+      new Shape(Color.RED, "square", 1000, 1.0, 's', Color.GREEN, tags),
+      new Shape(Color.RED, "square", 4, 2.0, 's', Color.GREEN, tags),
+      new Shape(Color.RED, "square", 4, 1.0, 't', Color.GREEN, tags),
+      new Shape(Color.RED, "square", 4, 1.0, 's', Color.RED, tags),
+      new Shape(Color.RED, "square", 4, 1.0, 's', Color.GREEN, null),
+      new Shape(null, null, null, null, null, null, null),
+      new Shape(null, null, null, null, null, null, null));
+    checkAgainstReflection(
+      NonNullShape.class,
+      definer,
+      new NonNullShape("a", 1L, tags, 3, new int[] { 1 }, Color.RED),
+      new NonNullShape(new String("a"), 1L, new ArrayList<String>(tags), 3, new int[] { 1 }, Color.RED),
+      new NonNullShape("b", 1L, tags, 3, new int[] { 1 }, Color.RED),
+      new NonNullShape("a", 2L, tags, 3, new int[] { 1 }, Color.RED),
+      new NonNullShape("a", 1L, tags, new int[] { 3 }, new int[] { 1 }, Color.RED),
+      new NonNullShape("a", 1L, tags, new int[] { 3 }, new int[] { 1 }, Color.RED),
+      new NonNullShape("a", 1L, tags, 3, new int[] { 2 }, Color.GREEN));
+
+    Pojomator<Parent> parentPojomator = PojomatorFactory.makePojomator(Parent.class, definer);
+    Pojomator<FinalChild> finalChildPojomator = PojomatorFactory.makePojomator(FinalChild.class, definer);
+    Pojomator<OverridingChild> overridingChildPojomator =
+      PojomatorFactory.makePojomator(OverridingChild.class, definer);
+    assertTrue(parentPojomator.doEquals(new Parent(1), new FinalChild(1)));
+    assertTrue(finalChildPojomator.doEquals(new FinalChild(1), new Parent(1)));
+    assertFalse(overridingChildPojomator.doEquals(new OverridingChild(1), new Parent(1)));
+    assertTrue(overridingChildPojomator.doEquals(new OverridingChild(1), new OverridingChild(1)));
+    assertFalse(PojomatorFactory.makePojomator(Shape.class, definer).doEquals(
+      new Shape(null, null, null, null, null, null, null), new Object()));
+  }
+
+  @Test
+  public void testNullInNonNullProperty() {
+    Pojomator<NonNullShape> pojomator = PojomatorFactory.makePojomator(NonNullShape.class);
+    NonNullShape nullName = new NonNullShape(null, 1L, null, 3, new int[] { 1 }, Color.RED);
+    try {
+      pojomator.doHashCode(nullName);
+      fail("exception expected");
+    }
+    catch (NullPointerException expected) {}
+    try {
+      pojomator.doEquals(nullName, new NonNullShape(null, 1L, null, 3, new int[] { 1 }, Color.RED));
+      fail("exception expected");
+    }
+    catch (NullPointerException expected) {}
+    // toString does not rely on values being non-null
+    assertEquals(
+      pojomator.doToString(nullName),
+      "NonNullShape{name: {null}, id: {1}, tags: {null}, value: {3}, ints: {[1]}, color: {RED}}");
+  }
+
+  /**
+   * Check that a generated pojomator compares, hashes and diffs each pair of pojos as a {@link ReflectionPojomator}
+   * does.
+   */
+  @SafeVarargs
+  private static <T> void checkAgainstReflection(Class<T> pojoClass, ClassDefiner definer, T... pojos)
+    throws Exception {
+    Pojomator<T> pojomator = PojomatorFactory.makePojomator(pojoClass, definer);
+    Pojomator<T> reflectionPojomator = new ReflectionPojomator<>(pojoClass, ClassProperties.forClass(pojoClass));
+    for (T pojo: pojos) {
+      assertEquals(pojomator.doHashCode(pojo), reflectionPojomator.doHashCode(pojo));
+      for (T other: pojos) {
+        String message = reflectionPojomator.doToString(pojo) + " vs " + reflectionPojomator.doToString(other);
+        assertEquals(pojomator.doEquals(pojo, other), reflectionPojomator.doEquals(pojo, other), message);
+        assertEquals(pojomator.doDiff(pojo, other), reflectionPojomator.doDiff(pojo, other), message);
+      }
+    }
+    assertTrue(pojomator.doEquals(pojos[0], pojos[1]));
+  }
+
+  /**
+   * Find the methods called by each method of the pojomator generated for a class, as {@code owner.name} for methods of
+   * other classes, or just {@code name} for methods of the pojomator and its superclasses.
+   */
+  private static Map<String, List<String>> methodCalls(Class<?> pojoClass) throws Exception {
+    byte[] classBytes =
+      new PojomatorByteCodeGenerator(pojoClass, ClassProperties.forClass(pojoClass)).makeClassBytes();
+    final Map<String, List<String>> calls = new HashMap<>();
+    final String pojomatorName = new ClassReader(classBytes).getClassName();
+    new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM7) {
+      @Override
+      public MethodVisitor visitMethod(
+        int access, String name, String descriptor, String signature, String[] exceptions) {
+        final List<String> methodCalls = new ArrayList<>();
+        calls.put(name, methodCalls);
+        return new MethodVisitor(Opcodes.ASM7) {
+          @Override
+          public void visitMethodInsn(
+            int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            boolean ownMethod = owner.equals(pojomatorName)
+              || (owner.equals("org/pojomatic/internal/BasePojomator") && !name.equals("areEqual"));
+            methodCalls.add(ownMethod ? name : owner + "." + name);
+          }
+        };
+      }
+    }, 0);
+    return calls;
+  }
+}
@@ -0,0 +1,8 @@
+package org.pojomatic.internal;
+
+import org.pojomatic.annotations.Property;
+
+public class StalePojo {
+  @Property
+  int i;
+}
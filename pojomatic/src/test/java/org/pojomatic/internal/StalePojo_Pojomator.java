@@ -0,0 +1,37 @@
+package org.pojomatic.internal;
+
+import org.pojomatic.PropertyElement;
+import org.pojomatic.diff.DiffVisitor;
+import org.pojomatic.generated.GeneratedPojomator;
+
+/**
+ * A generated pojomator for {@link StalePojo} as it was before a property was removed.
+ */
+public final class StalePojo_Pojomator extends GeneratedPojomator<StalePojo> {
+  static final PropertyElement element_0 = field(StalePojo.class, "removed", "");
+
+  public StalePojo_Pojomator() {
+    super(StalePojo.class, new String[] { "removed" }, new String[] { "removed" }, new String[] { "removed" });
+  }
+
+  @Override
+  public boolean doEquals(StalePojo instance, Object other) {
+    return false;
+  }
+
+  @Override
+  public int doHashCode(StalePojo instance) {
+    return 0;
+  }
+
+  @Override
+  public void doAppendTo(StalePojo instance, StringBuilder builder) {}
+
+  @Override
+  public int doCompare(StalePojo instance, StalePojo other) {
+    return 0;
+  }
+
+  @Override
+  public void doDiff(StalePojo instance, StalePojo other, DiffVisitor visitor) {}
+}
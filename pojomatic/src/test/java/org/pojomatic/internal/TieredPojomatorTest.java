@@ -0,0 +1,102 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.testng.annotations.Test;
+
+public class TieredPojomatorTest {
+
+  @AutoProperty
+  public static class Bean {
+    int x;
+    String s;
+
+    Bean(int x, String s) {
+      this.x = x;
+      this.s = s;
+    }
+  }
+
+  @Test
+  public void testSwapToCompiledPojomator() throws Exception {
+    TieredPojomator<Bean> pojomator = new TieredPojomator<>(Bean.class);
+    Bean bean = new Bean(3, "foo");
+    Bean other = new Bean(4, "foo");
+    int hashCode = pojomator.doHashCode(bean);
+    String string = pojomator.doToString(bean);
+    boolean equal = pojomator.doEquals(bean, other);
+
+    pojomator.getCompilation().get();
+    assertTrue(pojomator.isCompiled());
+    assertEquals(pojomator.doHashCode(bean), hashCode);
+    assertEquals(pojomator.doToString(bean), string);
+    assertEquals(pojomator.doEquals(bean, other), equal);
+    assertEquals(pojomator.toString(), PojomatorFactory.makePojomator(Bean.class).toString());
+  }
+
+  @Test
+  public void testNotCompiledBeforeGeneration() {
+    Pojomator<Bean> reflection = new TieredPojomator<>(Bean.class);
+    // Whether or not the background generation has finished, results are the same
+    assertEquals(reflection.doToString(new Bean(1, null)), "Bean{x: {1}, s: {null}}");
+  }
+
+  @Test
+  public void testBackgroundFailureRecordedAndLogged() throws Exception {
+    final List<LogRecord> records = new ArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+    final RuntimeException failure = new RuntimeException("generation failed");
+    Logger logger = Logger.getLogger(TieredPojomator.class.getName());
+    logger.addHandler(handler);
+    logger.setUseParentHandlers(false);
+    try {
+      Future<?> compilation = TieredPojomator.compileInBackground(new Runnable() {
+        @Override
+        public void run() {
+          throw failure;
+        }
+      });
+      try {
+        compilation.get();
+        fail("expected ExecutionException");
+      }
+      catch (ExecutionException e) {
+        assertSame(e.getCause(), failure);
+      }
+    }
+    finally {
+      logger.removeHandler(handler);
+      logger.setUseParentHandlers(true);
+    }
+    assertEquals(records.size(), 1);
+    assertEquals(records.get(0).getLevel(), Level.WARNING);
+    assertSame(records.get(0).getThrown(), failure);
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertFalse(TieredPojomator.isEnabled());
+  }
+}
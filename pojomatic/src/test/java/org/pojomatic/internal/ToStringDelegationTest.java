@@ -0,0 +1,103 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.testng.annotations.Test;
+
+public class ToStringDelegationTest {
+
+  @AutoProperty
+  public static class Delegating {
+    int x;
+
+    @Override
+    public String toString() {
+      return Pojomatic.toString(this);
+    }
+  }
+
+  public static class DelegatingChild extends Delegating {}
+
+  public static class OverridingChild extends Delegating {
+    @Override
+    public String toString() {
+      return "child: " + super.toString();
+    }
+  }
+
+  @AutoProperty
+  public static class CustomToString {
+    int x;
+
+    @Override
+    public String toString() {
+      return "custom";
+    }
+  }
+
+  @AutoProperty
+  public static final class FinalDelegating {
+    int x;
+
+    @Override
+    public String toString() {
+      return Pojomatic.toString(this);
+    }
+  }
+
+  public static final class DelegatingWithoutProperties {
+    @Override
+    public String toString() {
+      return Pojomatic.toString(this);
+    }
+  }
+
+  @AutoProperty
+  public static class ViaPojomator {
+    private static final Pojomator<ViaPojomator> POJOMATOR = Pojomatic.pojomator(ViaPojomator.class);
+
+    int x;
+
+    @Override
+    public String toString() {
+      return POJOMATOR.doToString(this);
+    }
+  }
+
+  @Test
+  public void testDelegatesToPojomatic() {
+    assertTrue(ToStringDelegation.delegatesToPojomatic(Delegating.class));
+    assertTrue(ToStringDelegation.delegatesToPojomatic(DelegatingChild.class));
+  }
+
+  @Test
+  public void testDoesNotDelegateToPojomatic() {
+    assertFalse(ToStringDelegation.delegatesToPojomatic(OverridingChild.class));
+    assertFalse(ToStringDelegation.delegatesToPojomatic(CustomToString.class));
+    assertFalse(ToStringDelegation.delegatesToPojomatic(Object.class));
+    assertFalse(ToStringDelegation.delegatesToPojomatic(String.class));
+    assertFalse(ToStringDelegation.delegatesToPojomatic(getClass()));
+  }
+
+  @Test
+  public void testOnlyDirectDelegationIsRecognized() {
+    assertFalse(ToStringDelegation.delegatesToPojomatic(ViaPojomator.class));
+  }
+
+  @Test
+  public void testIsAppendableInline() {
+    assertTrue(ToStringDelegation.isAppendableInline(FinalDelegating.class));
+  }
+
+  @Test
+  public void testIsNotAppendableInline() {
+    assertFalse(ToStringDelegation.isAppendableInline(Delegating.class)); // not final
+    assertFalse(ToStringDelegation.isAppendableInline(DelegatingWithoutProperties.class));
+    assertFalse(ToStringDelegation.isAppendableInline(String.class));
+    assertFalse(ToStringDelegation.isAppendableInline(int.class));
+    assertFalse(ToStringDelegation.isAppendableInline(FinalDelegating[].class));
+  }
+}
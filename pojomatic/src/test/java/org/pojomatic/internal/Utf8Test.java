@@ -0,0 +1,65 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class Utf8Test {
+
+  @DataProvider(name = "strings")
+  public static Object[][] strings() {
+    return new Object[][] {
+      { "" },
+      { "ascii only" },
+      { "\u0000\u007f" },
+      { "two byte: \u0080 \u00e9 \u07ff" },
+      { "three byte: \u0800 \u20ac \uffff" },
+      { "four byte: \ud83d\ude00 \udbff\udfff" },
+      { "unpaired high \ud83d at end \ud83d" },
+      { "unpaired low \ude00 and reversed \ude00\ud83d" },
+    };
+  }
+
+  @Test(dataProvider = "strings")
+  public void testEncode(String string) {
+    byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+    assertEquals(Utf8.encodedLength(string), expected.length);
+    for (ByteBuffer buffer: Arrays.asList(
+      ByteBuffer.allocate(expected.length + 2), ByteBuffer.allocateDirect(expected.length + 2))) {
+      buffer.put((byte) 1);
+      Utf8.encode(new StringBuilder(string), buffer);
+      assertEquals(buffer.position(), expected.length + 1);
+      byte[] actual = new byte[expected.length];
+      buffer.flip();
+      buffer.get();
+      buffer.get(actual);
+      assertEquals(actual, expected);
+    }
+  }
+
+  @Test(dataProvider = "strings")
+  public void testOverflowLeavesBufferUnchanged(String string) {
+    int length = string.getBytes(StandardCharsets.UTF_8).length;
+    if (length == 0) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.put((byte) 1);
+    try {
+      Utf8.encode(string, buffer);
+      fail("exception expected");
+    }
+    catch (BufferOverflowException e) {
+      assertEquals(buffer.position(), 1);
+      for (int i = 1; i < length; i++) {
+        assertEquals(buffer.get(i), (byte) 0);
+      }
+    }
+  }
+}
@@ -90,4 +90,8 @@ public class PojoFactory {
     return pojomator;
   }
 
+  public Class<?> pojoClass() {
+    return pojoClass;
+  }
+
 }
@@ -0,0 +1,7 @@
+package org.pojomatic.internal.scan;
+
+import org.pojomatic.annotations.AutoProperty;
+
+@AutoProperty
+public class EmptyPojo {
+}
@@ -0,0 +1,5 @@
+package org.pojomatic.internal.scan;
+
+public class NotAPojo {
+  int x;
+}
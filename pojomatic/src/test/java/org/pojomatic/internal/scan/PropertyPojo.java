@@ -0,0 +1,10 @@
+package org.pojomatic.internal.scan;
+
+import org.pojomatic.annotations.Property;
+
+public class PropertyPojo {
+  @Property
+  public String getName() {
+    return "name";
+  }
+}